@@ -0,0 +1,64 @@
+package ee.taltech.inbankbackend.benchmark;
+
+import ee.taltech.inbankbackend.constant.TestDecisionParameters;
+import ee.taltech.inbankbackend.dto.Country;
+import ee.taltech.inbankbackend.dto.DecisionRequest;
+import ee.taltech.inbankbackend.service.CachingCreditProfileProvider;
+import ee.taltech.inbankbackend.service.DecisionEngineService;
+import ee.taltech.inbankbackend.service.DecisionParametersService;
+import ee.taltech.inbankbackend.service.PersonalCodeCreditProfileProvider;
+import ee.taltech.inbankbackend.util.CreditProfileConstants;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.composite.CompositeMeterRegistry;
+
+import java.time.Clock;
+import java.time.Duration;
+
+/**
+ * Holds the requests and the service configuration shared by the benchmarks.
+ * The decision parameters are the ones of the tests, see TestDecisionParameters.
+ */
+final class BenchmarkFixtures {
+    static final DecisionRequest DEBTOR_REQUEST =
+            new DecisionRequest("37605030299", 4000L, 12, Country.ESTONIA);
+    static final DecisionRequest SEGMENT_1_REQUEST =
+            new DecisionRequest("50307172740", 2000L, 24, Country.ESTONIA);
+    static final DecisionRequest SEGMENT_2_REQUEST =
+            new DecisionRequest("38411266610", 2000L, 24, Country.ESTONIA);
+    static final DecisionRequest SEGMENT_3_REQUEST =
+            new DecisionRequest("35006069515", 2000L, 24, Country.ESTONIA);
+    static final DecisionRequest LOW_CREDIT_SCORE_REQUEST =
+            new DecisionRequest("50307172740", 4000L, 12, Country.ESTONIA);
+    static final DecisionRequest INVALID_PERSONAL_CODE_REQUEST =
+            new DecisionRequest("12345678901", 4000L, 12, Country.ESTONIA);
+    static final DecisionRequest INVALID_LOAN_AMOUNT_REQUEST =
+            new DecisionRequest("50307172740", 1200L, 12, Country.ESTONIA);
+    static final DecisionRequest INVALID_LOAN_PERIOD_REQUEST =
+            new DecisionRequest("50307172740", 4000L, 6, Country.ESTONIA);
+    static final DecisionRequest INVALID_COUNTRY_REQUEST =
+            new DecisionRequest("50307172740", 4000L, 12, null);
+    static final DecisionRequest INVALID_AGE_REQUEST =
+            new DecisionRequest("34001014839", 4000L, 12, Country.ESTONIA);
+
+    private BenchmarkFixtures() {
+    }
+
+    static DecisionEngineService decisionEngineService() {
+        // A composite registry without registries ignores every measurement.
+        return decisionEngineService(new CompositeMeterRegistry());
+    }
+
+    static DecisionEngineService decisionEngineService(MeterRegistry meterRegistry) {
+        DecisionParametersService parameters = new DecisionParametersService(
+                TestDecisionParameters.decisionEngineConstant(), TestDecisionParameters.countryRuleConstants(),
+                Clock.systemDefaultZone());
+        parameters.initialize();
+        CreditProfileConstants creditProfileConstants = new CreditProfileConstants();
+        creditProfileConstants.setCacheMaximumSize(100_000);
+        creditProfileConstants.setCacheRefreshAfterWrite(Duration.ofMinutes(5));
+        creditProfileConstants.setCacheExpireAfterWrite(Duration.ofHours(1));
+        return TestDecisionParameters.decisionEngineService(parameters, meterRegistry,
+                new CachingCreditProfileProvider(new PersonalCodeCreditProfileProvider(), creditProfileConstants,
+                        meterRegistry));
+    }
+}
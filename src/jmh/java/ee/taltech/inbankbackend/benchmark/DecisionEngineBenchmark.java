@@ -0,0 +1,131 @@
+package ee.taltech.inbankbackend.benchmark;
+
+import com.github.vladislavgoltjajev.personalcode.locale.estonia.EstonianPersonalCodeParser;
+import com.github.vladislavgoltjajev.personalcode.locale.estonia.EstonianPersonalCodeValidator;
+import ee.taltech.inbankbackend.dto.DecisionRequest;
+import ee.taltech.inbankbackend.dto.DecisionResponse;
+import ee.taltech.inbankbackend.service.DecisionEngineService;
+import ee.taltech.inbankbackend.util.ErrorMessage;
+import ee.taltech.inbankbackend.util.PersonalCodeCodec;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+
+import java.time.LocalDate;
+import java.time.Period;
+
+import static ee.taltech.inbankbackend.benchmark.BenchmarkFixtures.*;
+
+/**
+ * Benchmarks the decision engine hot path: every outcome of calculateApprovedLoan,
+ * every invalid input, and the personal code parsing used by the age check, both by the personal code library
+ * and by the single pass {@link PersonalCodeCodec}.
+ * Invalid inputs are measured both through the throwing calculateApprovedLoan and the exception-free validate.
+ */
+@State(Scope.Benchmark)
+public class DecisionEngineBenchmark {
+    private DecisionEngineService decisionEngine;
+    private final EstonianPersonalCodeValidator validator = new EstonianPersonalCodeValidator();
+    private final EstonianPersonalCodeParser parser = new EstonianPersonalCodeParser();
+    private final int today = PersonalCodeCodec.packDate(LocalDate.now().getYear(), LocalDate.now().getMonthValue(),
+            LocalDate.now().getDayOfMonth());
+
+    @Setup
+    public void setUp() {
+        decisionEngine = decisionEngineService();
+    }
+
+    private Object calculateOrReject(DecisionRequest request) {
+        try {
+            return decisionEngine.calculateApprovedLoan(request);
+        } catch (RuntimeException exception) {
+            return exception;
+        }
+    }
+
+    @Benchmark
+    public DecisionResponse debtor() {
+        return decisionEngine.calculateApprovedLoan(DEBTOR_REQUEST);
+    }
+
+    @Benchmark
+    public DecisionResponse segment1() {
+        return decisionEngine.calculateApprovedLoan(SEGMENT_1_REQUEST);
+    }
+
+    @Benchmark
+    public DecisionResponse segment2() {
+        return decisionEngine.calculateApprovedLoan(SEGMENT_2_REQUEST);
+    }
+
+    @Benchmark
+    public DecisionResponse segment3() {
+        return decisionEngine.calculateApprovedLoan(SEGMENT_3_REQUEST);
+    }
+
+    @Benchmark
+    public DecisionResponse lowCreditScore() {
+        return decisionEngine.calculateApprovedLoan(LOW_CREDIT_SCORE_REQUEST);
+    }
+
+    @Benchmark
+    public Object invalidPersonalCode() {
+        return calculateOrReject(INVALID_PERSONAL_CODE_REQUEST);
+    }
+
+    @Benchmark
+    public Object invalidLoanAmount() {
+        return calculateOrReject(INVALID_LOAN_AMOUNT_REQUEST);
+    }
+
+    @Benchmark
+    public Object invalidLoanPeriod() {
+        return calculateOrReject(INVALID_LOAN_PERIOD_REQUEST);
+    }
+
+    @Benchmark
+    public Object invalidCountry() {
+        return calculateOrReject(INVALID_COUNTRY_REQUEST);
+    }
+
+    @Benchmark
+    public Object invalidAge() {
+        return calculateOrReject(INVALID_AGE_REQUEST);
+    }
+
+    @Benchmark
+    public ErrorMessage validateInvalidPersonalCode() {
+        return decisionEngine.validate(INVALID_PERSONAL_CODE_REQUEST);
+    }
+
+    @Benchmark
+    public ErrorMessage validateInvalidLoanAmount() {
+        return decisionEngine.validate(INVALID_LOAN_AMOUNT_REQUEST);
+    }
+
+    @Benchmark
+    public ErrorMessage validateInvalidAge() {
+        return decisionEngine.validate(INVALID_AGE_REQUEST);
+    }
+
+    @Benchmark
+    public boolean personalCodeValidation() {
+        return validator.isValid(SEGMENT_1_REQUEST.getPersonalCode());
+    }
+
+    @Benchmark
+    public Period personalCodeAgeParsing() throws Exception {
+        return parser.getAge(SEGMENT_1_REQUEST.getPersonalCode());
+    }
+
+    @Benchmark
+    public long personalCodeCodecParsing() {
+        return PersonalCodeCodec.parse(SEGMENT_1_REQUEST.getPersonalCode(), today);
+    }
+
+    @Benchmark
+    public long personalCodeCodecParsingInvalid() {
+        return PersonalCodeCodec.parse(INVALID_PERSONAL_CODE_REQUEST.getPersonalCode(), today);
+    }
+}
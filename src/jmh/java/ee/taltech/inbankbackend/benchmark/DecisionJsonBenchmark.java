@@ -0,0 +1,58 @@
+package ee.taltech.inbankbackend.benchmark;
+
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.fasterxml.jackson.databind.ObjectReader;
+import com.fasterxml.jackson.databind.ObjectWriter;
+import ee.taltech.inbankbackend.controller.DecisionJsonCodec;
+import ee.taltech.inbankbackend.dto.DecisionRequest;
+import ee.taltech.inbankbackend.dto.DecisionResponse;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.springframework.http.converter.json.Jackson2ObjectMapperBuilder;
+
+import java.io.IOException;
+import java.nio.charset.StandardCharsets;
+
+/**
+ * Benchmarks (de)serialization of the decision DTOs with Jackson, with the same ObjectMapper configuration
+ * Spring uses, and with the hand-rolled codec of the decision JSON converter.
+ * Run with -prof gc to compare the allocations as well.
+ */
+@State(Scope.Benchmark)
+public class DecisionJsonBenchmark {
+    private static final byte[] REQUEST_JSON = ("{\"personalCode\":\"50307172740\",\"loanAmount\":4000,"
+            + "\"loanPeriod\":12,\"country\":\"ESTONIA\"}").getBytes(StandardCharsets.UTF_8);
+    private static final DecisionResponse RESPONSE = new DecisionResponse(2400, 24, null);
+
+    private ObjectReader requestReader;
+    private ObjectWriter responseWriter;
+
+    @Setup
+    public void setUp() {
+        ObjectMapper objectMapper = Jackson2ObjectMapperBuilder.json().build();
+        requestReader = objectMapper.readerFor(DecisionRequest.class);
+        responseWriter = objectMapper.writerFor(DecisionResponse.class);
+    }
+
+    @Benchmark
+    public DecisionRequest readRequest() throws IOException {
+        return requestReader.readValue(REQUEST_JSON);
+    }
+
+    @Benchmark
+    public byte[] writeResponse() throws IOException {
+        return responseWriter.writeValueAsBytes(RESPONSE);
+    }
+
+    @Benchmark
+    public DecisionRequest readRequestCodec() {
+        return DecisionJsonCodec.readRequest(REQUEST_JSON, 0, REQUEST_JSON.length);
+    }
+
+    @Benchmark
+    public byte[] writeResponseCodec() {
+        return DecisionJsonCodec.writeResponse(RESPONSE);
+    }
+}
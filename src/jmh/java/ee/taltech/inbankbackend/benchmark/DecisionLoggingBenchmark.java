@@ -0,0 +1,111 @@
+package ee.taltech.inbankbackend.benchmark;
+
+import ch.qos.logback.classic.AsyncAppender;
+import ch.qos.logback.classic.Level;
+import ch.qos.logback.classic.Logger;
+import ch.qos.logback.classic.LoggerContext;
+import ch.qos.logback.classic.encoder.PatternLayoutEncoder;
+import ch.qos.logback.classic.spi.ILoggingEvent;
+import ch.qos.logback.core.Appender;
+import ch.qos.logback.core.FileAppender;
+import ee.taltech.inbankbackend.dto.DecisionRequest;
+import ee.taltech.inbankbackend.dto.DecisionResponse;
+import ee.taltech.inbankbackend.service.DecisionEngineService;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.TearDown;
+import org.openjdk.jmh.annotations.Threads;
+import org.slf4j.LoggerFactory;
+
+import java.io.IOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+
+import static ee.taltech.inbankbackend.benchmark.BenchmarkFixtures.*;
+
+/**
+ * Measures the cost of the decision log lines on the request threads: logging off, written to a file on the calling
+ * thread, and written by the bounded asynchronous appender of logback-spring.xml. Every decision writes one INFO line.
+ * Runs on eight threads, so the contention of the appender is included, the sample mode shows the p99 latency.
+ */
+@State(Scope.Benchmark)
+@Threads(8)
+public class DecisionLoggingBenchmark {
+    private static final String PATTERN = "%d{yyyy-MM-dd'T'HH:mm:ss.SSSXXX} %5p [%15.15t] %-40.40logger{39} : %m %kvp%n";
+
+    @Param({"off", "sync", "async"})
+    private String logging;
+
+    private DecisionEngineService decisionEngine;
+    private LoggerContext loggerContext;
+    private Path logFile;
+
+    @Setup
+    public void setUp() throws IOException {
+        loggerContext = (LoggerContext) LoggerFactory.getILoggerFactory();
+        loggerContext.reset();
+        Logger root = loggerContext.getLogger(Logger.ROOT_LOGGER_NAME);
+        if (logging.equals("off")) {
+            root.setLevel(Level.OFF);
+        } else {
+            logFile = Files.createTempFile("decision-logging-benchmark", ".log");
+            root.setLevel(Level.INFO);
+            root.addAppender(appender());
+        }
+        decisionEngine = decisionEngineService();
+    }
+
+    private Appender<ILoggingEvent> appender() {
+        PatternLayoutEncoder encoder = new PatternLayoutEncoder();
+        encoder.setContext(loggerContext);
+        encoder.setPattern(PATTERN);
+        encoder.start();
+        FileAppender<ILoggingEvent> file = new FileAppender<>();
+        file.setContext(loggerContext);
+        file.setFile(logFile.toString());
+        file.setEncoder(encoder);
+        file.start();
+        if (logging.equals("sync")) {
+            return file;
+        }
+        // The same queue as application.logging in application.yml.
+        AsyncAppender async = new AsyncAppender();
+        async.setContext(loggerContext);
+        async.setQueueSize(8192);
+        async.setDiscardingThreshold(0);
+        async.setNeverBlock(true);
+        async.addAppender(file);
+        async.start();
+        return async;
+    }
+
+    @TearDown
+    public void tearDown() throws IOException {
+        // Flushes and stops the appenders before the file is removed.
+        loggerContext.reset();
+        if (logFile != null) {
+            Files.deleteIfExists(logFile);
+        }
+    }
+
+    private Object calculateOrReject(DecisionRequest request) {
+        try {
+            return decisionEngine.calculateApprovedLoan(request);
+        } catch (RuntimeException exception) {
+            return exception;
+        }
+    }
+
+    @Benchmark
+    public DecisionResponse segment1() {
+        return decisionEngine.calculateApprovedLoan(SEGMENT_1_REQUEST);
+    }
+
+    @Benchmark
+    public Object invalidLoanAmount() {
+        return calculateOrReject(INVALID_LOAN_AMOUNT_REQUEST);
+    }
+}
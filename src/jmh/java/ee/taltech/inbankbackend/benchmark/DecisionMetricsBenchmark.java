@@ -0,0 +1,87 @@
+package ee.taltech.inbankbackend.benchmark;
+
+import ee.taltech.inbankbackend.dto.DecisionRequest;
+import ee.taltech.inbankbackend.dto.DecisionResponse;
+import ee.taltech.inbankbackend.service.DecisionEngineService;
+import io.micrometer.core.instrument.Meter;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.composite.CompositeMeterRegistry;
+import io.micrometer.core.instrument.config.MeterFilter;
+import io.micrometer.core.instrument.distribution.DistributionStatisticConfig;
+import io.micrometer.prometheus.PrometheusConfig;
+import io.micrometer.prometheus.PrometheusMeterRegistry;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Threads;
+
+import java.time.Duration;
+
+import static ee.taltech.inbankbackend.benchmark.BenchmarkFixtures.*;
+
+/**
+ * Measures the overhead of the decision metrics: the same decisions with a registry that ignores every measurement
+ * and with a Prometheus registry configured like management.metrics.distribution in application.yml.
+ * Runs on four threads, so the contention of the shared counters and histograms is included.
+ */
+@State(Scope.Benchmark)
+@Threads(4)
+public class DecisionMetricsBenchmark {
+    @Param({"none", "prometheus"})
+    private String registry;
+
+    private DecisionEngineService decisionEngine;
+
+    @Setup
+    public void setUp() {
+        decisionEngine = decisionEngineService(meterRegistry());
+    }
+
+    private MeterRegistry meterRegistry() {
+        if (registry.equals("none")) {
+            return new CompositeMeterRegistry();
+        }
+        PrometheusMeterRegistry prometheus = new PrometheusMeterRegistry(PrometheusConfig.DEFAULT);
+        prometheus.config().meterFilter(new MeterFilter() {
+            @Override
+            public DistributionStatisticConfig configure(Meter.Id id, DistributionStatisticConfig config) {
+                if (!id.getName().startsWith("decision.duration")) {
+                    return config;
+                }
+                return DistributionStatisticConfig.builder()
+                        .percentilesHistogram(true)
+                        .percentiles(0.5, 0.99, 0.999)
+                        .minimumExpectedValue((double) Duration.ofNanos(100).toNanos())
+                        .maximumExpectedValue((double) Duration.ofMillis(100).toNanos())
+                        .build()
+                        .merge(config);
+            }
+        });
+        return prometheus;
+    }
+
+    private Object calculateOrReject(DecisionRequest request) {
+        try {
+            return decisionEngine.calculateApprovedLoan(request);
+        } catch (RuntimeException exception) {
+            return exception;
+        }
+    }
+
+    @Benchmark
+    public DecisionResponse segment1() {
+        return decisionEngine.calculateApprovedLoan(SEGMENT_1_REQUEST);
+    }
+
+    @Benchmark
+    public DecisionResponse lowCreditScore() {
+        return decisionEngine.calculateApprovedLoan(LOW_CREDIT_SCORE_REQUEST);
+    }
+
+    @Benchmark
+    public Object invalidLoanAmount() {
+        return calculateOrReject(INVALID_LOAN_AMOUNT_REQUEST);
+    }
+}
@@ -0,0 +1,224 @@
+package ee.taltech.inbankbackend.loadtest;
+
+import ee.taltech.inbankbackend.InbankBackendApplication;
+import org.springframework.boot.builder.SpringApplicationBuilder;
+import org.springframework.boot.web.context.WebServerApplicationContext;
+import org.springframework.context.ConfigurableApplicationContext;
+
+import java.net.URI;
+import java.net.http.HttpClient;
+import java.net.http.HttpRequest;
+import java.net.http.HttpResponse;
+import java.time.Duration;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Load tests POST /loan/decision under overload, with and without admission control.
+ * <br><br>
+ * A noisy partner sends requests back to back from many connections with one address and ignores
+ * the Retry-After header. Regular clients, each with its own address, send requests at a steady rate within their
+ * rate limit. The addresses are forwarded in X-Forwarded-For as by a load balancer, the load test connects from the
+ * loopback address, which is a trusted proxy. The downstream dependency serves a limited number of calls at once, see
+ * {@link SlowDownstreamConfiguration}, so the partner alone is more than it can serve. Requests are served on
+ * virtual threads, so the requests queue up in the application and not in the Tomcat thread pool.
+ * <br><br>
+ * For both groups the successful requests per second, the latency percentiles of the successful requests and
+ * the throttled (429) and shed (503) requests are printed. Without admission control the regular clients wait
+ * behind the partner, with it their p99 stays close to the downstream latency.
+ * <br><br>
+ * Arguments: measured seconds, the downstream latency in milliseconds, the downstream capacity,
+ * the noisy partner connections, the regular clients and the requests per second of every regular client.
+ */
+public final class AdmissionControlLoadTest {
+    private static final String REQUEST_BODY =
+            "{\"personalCode\":\"50307172740\",\"loanAmount\":2000,\"loanPeriod\":24,\"country\":\"ESTONIA\"}";
+    private static final String FORWARDED_FOR_HEADER = "X-Forwarded-For";
+    private static final Duration WARM_UP = Duration.ofSeconds(5);
+
+    private enum Mode {
+        UNPROTECTED("application.admission-control.rate-limit.enabled=false",
+                "application.admission-control.concurrency-limit.enabled=false"),
+        PROTECTED("application.admission-control.rate-limit.enabled=true",
+                "application.admission-control.rate-limit.trusted-proxies=127.0.0.1,0:0:0:0:0:0:0:1",
+                "application.admission-control.concurrency-limit.enabled=true");
+
+        private final String[] properties;
+
+        Mode(String... properties) {
+            this.properties = properties;
+        }
+    }
+
+    private AdmissionControlLoadTest() {
+    }
+
+    public static void main(String[] args) throws Exception {
+        Duration duration = Duration.ofSeconds(Long.parseLong(args[0]));
+        long latencyMillis = Long.parseLong(args[1]);
+        int capacity = Integer.parseInt(args[2]);
+        int partnerConnections = Integer.parseInt(args[3]);
+        int clients = Integer.parseInt(args[4]);
+        double clientRate = Double.parseDouble(args[5]);
+
+        List<String> results = new ArrayList<>();
+        for (Mode mode : Mode.values()) {
+            results.addAll(run(mode, duration, latencyMillis, capacity, partnerConnections, clients, clientRate));
+        }
+
+        System.out.printf("%nPOST /loan/decision, %d ms downstream latency, %d downstream capacity, %d s%n",
+                latencyMillis, capacity, duration.toSeconds());
+        System.out.printf("noisy partner: %d connections back to back, regular clients: %d at %.1f req/s each%n",
+                partnerConnections, clients, clientRate);
+        System.out.printf("%-12s %-8s %10s %9s %9s %9s %9s %9s %9s%n", "mode", "group", "ok/s", "p50 ms",
+                "p99 ms", "p99.9 ms", "429", "503", "other");
+        results.forEach(System.out::println);
+    }
+
+    private static List<String> run(Mode mode, Duration duration, long latencyMillis, int capacity,
+                                    int partnerConnections, int clients, double clientRate) throws Exception {
+        SpringApplicationBuilder builder = new SpringApplicationBuilder(InbankBackendApplication.class,
+                SlowDownstreamConfiguration.class)
+                .properties(
+                        "server.port=0",
+                        "application.virtual-threads.enabled=true",
+                        "load-test.downstream-latency=" + latencyMillis + "ms",
+                        "load-test.downstream-capacity=" + capacity,
+                        // Every client sends the same request, which would otherwise be decided once per memo TTL.
+                        "application.decision-coalescing.enabled=false",
+                        // The clients warm the application up themselves, the startup warm-up would wait for the
+                        // simulated downstream.
+                        "application.startup.warm-up.enabled=false",
+                        "logging.level.ee.taltech.inbankbackend.service=WARN")
+                .properties(mode.properties);
+        try (ConfigurableApplicationContext context = builder.run()) {
+            int port = ((WebServerApplicationContext) context).getWebServer().getPort();
+            URI uri = URI.create("http://localhost:" + port + "/loan/decision");
+
+            drive(uri, WARM_UP, partnerConnections, clients, clientRate);
+            Result[] results = drive(uri, duration, partnerConnections, clients, clientRate);
+            return List.of(results[0].format(mode, "partner", duration),
+                    results[1].format(mode, "regular", duration));
+        }
+    }
+
+    /**
+     * Sends requests of the noisy partner and the regular clients until the time is up.
+     *
+     * @return Results of the partner and of the regular clients
+     */
+    private static Result[] drive(URI uri, Duration duration, int partnerConnections, int clients,
+                                  double clientRate) throws Exception {
+        long deadline = System.nanoTime() + duration.toNanos();
+        long intervalNanos = (long) (TimeUnit.SECONDS.toNanos(1) / clientRate);
+
+        try (ExecutorService executor = Executors.newVirtualThreadPerTaskExecutor()) {
+            HttpClient httpClient = HttpClient.newBuilder()
+                    .version(HttpClient.Version.HTTP_1_1)
+                    .executor(executor)
+                    .build();
+            HttpRequest partnerRequest = request(uri, "203.0.113.1");
+            List<Future<Result>> partner = new ArrayList<>(partnerConnections);
+            for (int i = 0; i < partnerConnections; i++) {
+                partner.add(executor.submit(() -> send(httpClient, partnerRequest, deadline, 0)));
+            }
+            List<Future<Result>> regular = new ArrayList<>(clients);
+            for (int i = 0; i < clients; i++) {
+                HttpRequest clientRequest = request(uri, "10.0." + i / 256 + "." + i % 256);
+                regular.add(executor.submit(() -> send(httpClient, clientRequest, deadline, intervalNanos)));
+            }
+            return new Result[]{Result.merge(partner), Result.merge(regular)};
+        }
+    }
+
+    private static HttpRequest request(URI uri, String address) {
+        return HttpRequest.newBuilder(uri)
+                .header("Content-Type", "application/json")
+                .header(FORWARDED_FOR_HEADER, address)
+                .POST(HttpRequest.BodyPublishers.ofString(REQUEST_BODY))
+                .build();
+    }
+
+    /**
+     * Sends the request until the time is up, back to back or once per interval.
+     *
+     * @param intervalNanos Time between the requests, 0 to send them back to back
+     */
+    private static Result send(HttpClient httpClient, HttpRequest request, long deadline, long intervalNanos)
+            throws Exception {
+        long[] latencies = new long[1024];
+        int count = 0;
+        long throttled = 0;
+        long shed = 0;
+        long other = 0;
+        long next = System.nanoTime();
+        long start;
+        while ((start = System.nanoTime()) < deadline) {
+            if (intervalNanos > 0) {
+                if (next - start > 0) {
+                    TimeUnit.NANOSECONDS.sleep(next - start);
+                    start = System.nanoTime();
+                }
+                next += intervalNanos;
+            }
+            int status = httpClient.send(request, HttpResponse.BodyHandlers.discarding()).statusCode();
+            if (status == 200) {
+                if (count == latencies.length) {
+                    latencies = Arrays.copyOf(latencies, count * 2);
+                }
+                latencies[count++] = System.nanoTime() - start;
+            } else if (status == 429) {
+                throttled++;
+            } else if (status == 503) {
+                shed++;
+            } else {
+                other++;
+            }
+        }
+        return new Result(Arrays.copyOf(latencies, count), throttled, shed, other);
+    }
+
+    /**
+     * @param latencies Latencies of the successful requests
+     */
+    private record Result(long[] latencies, long throttled, long shed, long other) {
+
+        static Result merge(List<Future<Result>> futures) throws Exception {
+            List<Result> results = new ArrayList<>(futures.size());
+            for (Future<Result> future : futures) {
+                results.add(future.get());
+            }
+            long[] merged = new long[results.stream().mapToInt(r -> r.latencies.length).sum()];
+            int offset = 0;
+            for (Result result : results) {
+                System.arraycopy(result.latencies, 0, merged, offset, result.latencies.length);
+                offset += result.latencies.length;
+            }
+            Arrays.sort(merged);
+            return new Result(merged, results.stream().mapToLong(Result::throttled).sum(),
+                    results.stream().mapToLong(Result::shed).sum(), results.stream().mapToLong(Result::other).sum());
+        }
+
+        /**
+         * Latency percentile in milliseconds, the latencies have to be sorted.
+         */
+        double percentile(double percentile) {
+            if (latencies.length == 0) {
+                return Double.NaN;
+            }
+            int index = (int) Math.ceil(percentile * latencies.length) - 1;
+            return latencies[Math.max(index, 0)] / 1_000_000.0;
+        }
+
+        String format(Mode mode, String group, Duration duration) {
+            return String.format("%-12s %-8s %10.0f %9.1f %9.1f %9.1f %9d %9d %9d", mode.name().toLowerCase(), group,
+                    latencies.length / (double) duration.toSeconds(), percentile(0.5), percentile(0.99),
+                    percentile(0.999), throttled, shed, other);
+        }
+    }
+}
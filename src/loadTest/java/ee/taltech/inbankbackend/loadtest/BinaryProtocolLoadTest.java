@@ -0,0 +1,245 @@
+package ee.taltech.inbankbackend.loadtest;
+
+import ee.taltech.inbankbackend.InbankBackendApplication;
+import ee.taltech.inbankbackend.controller.DecisionBinaryCodec;
+import ee.taltech.inbankbackend.dto.Country;
+import ee.taltech.inbankbackend.dto.DecisionRequest;
+import org.springframework.boot.builder.SpringApplicationBuilder;
+import org.springframework.boot.web.context.WebServerApplicationContext;
+import org.springframework.context.ConfigurableApplicationContext;
+
+import java.io.BufferedInputStream;
+import java.io.EOFException;
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.OutputStream;
+import java.lang.management.ManagementFactory;
+import java.lang.management.ThreadMXBean;
+import java.net.Socket;
+import java.nio.ByteBuffer;
+import java.nio.charset.StandardCharsets;
+import java.time.Duration;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+
+/**
+ * Compares POST /loan/decision in JSON and in the binary format of {@link DecisionBinaryCodec}.
+ * <br><br>
+ * The application is started in the same JVM. A fixed number of clients send requests back to back, each on its own
+ * keep-alive connection, with the headers an internal caller needs and nothing more. The clients write and read
+ * HTTP/1.1 on plain sockets, so every byte on the wire is counted. For both formats the throughput, the bytes per
+ * request and per response, headers included, and the CPU time of the application per request are printed.
+ * The CPU time is the CPU time of the process less the CPU time of the client threads.
+ * <br><br>
+ * Arguments: concurrent clients and measured seconds.
+ */
+public final class BinaryProtocolLoadTest {
+    // The debtor is answered with an error message, the others are approved.
+    private static final DecisionRequest[] REQUESTS = {
+            new DecisionRequest("50307172740", 2000L, 24, Country.ESTONIA),
+            new DecisionRequest("38411266610", 4000L, 12, Country.ESTONIA),
+            new DecisionRequest("35006069515", 10000L, 48, Country.ESTONIA),
+            new DecisionRequest("37605030299", 4000L, 12, Country.ESTONIA)
+    };
+    private static final Duration WARM_UP = Duration.ofSeconds(5);
+
+    private enum Format {
+        JSON("application/json"),
+        BINARY(DecisionBinaryCodec.MEDIA_TYPE_VALUE);
+
+        private final String mediaType;
+
+        Format(String mediaType) {
+            this.mediaType = mediaType;
+        }
+
+        byte[] body(DecisionRequest request) {
+            if (this == BINARY) {
+                ByteBuffer buffer = ByteBuffer.allocate(DecisionBinaryCodec.MAXIMUM_REQUEST_SIZE);
+                DecisionBinaryCodec.writeRequest(request, buffer);
+                return Arrays.copyOf(buffer.array(), buffer.position());
+            }
+            return String.format("{\"personalCode\":\"%s\",\"loanAmount\":%d,\"loanPeriod\":%d,\"country\":\"%s\"}",
+                    request.getPersonalCode(), request.getLoanAmount(), request.getLoanPeriod(),
+                    request.getCountry()).getBytes(StandardCharsets.UTF_8);
+        }
+
+        boolean isValid(byte[] body) {
+            if (this == BINARY) {
+                return DecisionBinaryCodec.readResponse(ByteBuffer.wrap(body)) != null;
+            }
+            return body.length > 0 && body[0] == '{';
+        }
+    }
+
+    private BinaryProtocolLoadTest() {
+    }
+
+    public static void main(String[] args) throws Exception {
+        int concurrency = Integer.parseInt(args[0]);
+        Duration duration = Duration.ofSeconds(Long.parseLong(args[1]));
+
+        List<String> results = new ArrayList<>();
+        try (ConfigurableApplicationContext context = new SpringApplicationBuilder(InbankBackendApplication.class)
+                .properties(
+                        "server.port=0",
+                        // The same requests are sent over and over, which would otherwise be decided once per TTL.
+                        "application.decision-coalescing.enabled=false",
+                        "application.admission-control.rate-limit.enabled=false",
+                        "application.admission-control.concurrency-limit.enabled=false",
+                        "application.decision-journal.enabled=false",
+                        // Both formats are warmed up by the clients in turn.
+                        "application.startup.warm-up.enabled=false",
+                        "logging.level.ee.taltech.inbankbackend.service=WARN")
+                .run()) {
+            int port = ((WebServerApplicationContext) context).getWebServer().getPort();
+            for (Format format : Format.values()) {
+                drive(port, format, concurrency, WARM_UP);
+                results.add(drive(port, format, concurrency, duration).format(format, duration));
+            }
+        }
+
+        System.out.printf("%nPOST /loan/decision, %d concurrent keep-alive connections, %d s%n", concurrency,
+                duration.toSeconds());
+        System.out.printf("%-7s %10s %12s %12s %12s %12s %14s %8s%n", "format", "req/s", "req B", "resp B",
+                "req body B", "resp body B", "server CPU us", "errors");
+        results.forEach(System.out::println);
+    }
+
+    /**
+     * Sends requests from concurrent clients back to back until the time is up.
+     */
+    private static Result drive(int port, Format format, int concurrency, Duration duration) throws Exception {
+        byte[][] requests = new byte[REQUESTS.length][];
+        byte[][] bodies = new byte[REQUESTS.length][];
+        for (int i = 0; i < REQUESTS.length; i++) {
+            bodies[i] = format.body(REQUESTS[i]);
+            byte[] headers = ("POST /loan/decision HTTP/1.1\r\n"
+                    + "Host: localhost\r\n"
+                    + "Content-Type: " + format.mediaType + "\r\n"
+                    + "Accept: " + format.mediaType + "\r\n"
+                    + "Content-Length: " + bodies[i].length + "\r\n"
+                    + "\r\n").getBytes(StandardCharsets.US_ASCII);
+            requests[i] = new byte[headers.length + bodies[i].length];
+            System.arraycopy(headers, 0, requests[i], 0, headers.length);
+            System.arraycopy(bodies[i], 0, requests[i], headers.length, bodies[i].length);
+        }
+
+        ThreadMXBean threads = ManagementFactory.getThreadMXBean();
+        com.sun.management.OperatingSystemMXBean os =
+                (com.sun.management.OperatingSystemMXBean) ManagementFactory.getOperatingSystemMXBean();
+        long deadline = System.nanoTime() + duration.toNanos();
+        long processCpuStart = os.getProcessCpuTime();
+
+        ExecutorService clients = Executors.newFixedThreadPool(concurrency);
+        try {
+            List<Future<Result>> futures = new ArrayList<>(concurrency);
+            for (int c = 0; c < concurrency; c++) {
+                int client = c;
+                futures.add(clients.submit(() -> {
+                    long cpuStart = threads.getCurrentThreadCpuTime();
+                    Result result = new Result();
+                    try (Socket socket = new Socket("localhost", port)) {
+                        socket.setTcpNoDelay(true);
+                        OutputStream out = socket.getOutputStream();
+                        InputStream in = new BufferedInputStream(socket.getInputStream());
+                        for (int i = client; System.nanoTime() < deadline; i++) {
+                            int request = i % requests.length;
+                            out.write(requests[request]);
+                            out.flush();
+                            result.requestBytes += requests[request].length;
+                            result.requestBodyBytes += bodies[request].length;
+                            readResponse(in, format, result);
+                        }
+                    }
+                    result.clientCpuNanos = threads.getCurrentThreadCpuTime() - cpuStart;
+                    return result;
+                }));
+            }
+            Result total = new Result();
+            for (Future<Result> future : futures) {
+                total.add(future.get());
+            }
+            total.processCpuNanos = os.getProcessCpuTime() - processCpuStart;
+            return total;
+        } finally {
+            clients.shutdownNow();
+        }
+    }
+
+    /**
+     * Reads one response with a Content-Length and counts its bytes.
+     */
+    private static void readResponse(InputStream in, Format format, Result result) throws IOException {
+        String statusLine = readLine(in, result);
+        int contentLength = -1;
+        String line;
+        while (!(line = readLine(in, result)).isEmpty()) {
+            if (line.regionMatches(true, 0, "Content-Length:", 0, 15)) {
+                contentLength = Integer.parseInt(line.substring(15).trim());
+            }
+        }
+        if (contentLength < 0) {
+            throw new IOException("Response without Content-Length: " + statusLine);
+        }
+        byte[] body = in.readNBytes(contentLength);
+        if (body.length < contentLength) {
+            throw new EOFException("Connection closed in the response body");
+        }
+        result.responseBytes += body.length;
+        result.responseBodyBytes += body.length;
+        result.requests++;
+        if (!statusLine.startsWith("HTTP/1.1 200") || !format.isValid(body)) {
+            result.errors++;
+        }
+    }
+
+    private static String readLine(InputStream in, Result result) throws IOException {
+        StringBuilder line = new StringBuilder(64);
+        int b;
+        while ((b = in.read()) != '\n') {
+            if (b < 0) {
+                throw new EOFException("Connection closed in the response headers");
+            }
+            if (b != '\r') {
+                line.append((char) b);
+            }
+            result.responseBytes++;
+        }
+        result.responseBytes++;
+        return line.toString();
+    }
+
+    private static final class Result {
+        private long requests;
+        private long errors;
+        private long requestBytes;
+        private long requestBodyBytes;
+        private long responseBytes;
+        private long responseBodyBytes;
+        private long clientCpuNanos;
+        private long processCpuNanos;
+
+        void add(Result other) {
+            requests += other.requests;
+            errors += other.errors;
+            requestBytes += other.requestBytes;
+            requestBodyBytes += other.requestBodyBytes;
+            responseBytes += other.responseBytes;
+            responseBodyBytes += other.responseBodyBytes;
+            clientCpuNanos += other.clientCpuNanos;
+        }
+
+        String format(Format format, Duration duration) {
+            double perRequest = Math.max(requests, 1);
+            return String.format("%-7s %10.0f %12.1f %12.1f %12.1f %12.1f %14.2f %8d", format.name().toLowerCase(),
+                    requests / (double) duration.toSeconds(), requestBytes / perRequest, responseBytes / perRequest,
+                    requestBodyBytes / perRequest, responseBodyBytes / perRequest,
+                    (processCpuNanos - clientCpuNanos) / perRequest / 1000.0, errors);
+        }
+    }
+}
@@ -0,0 +1,210 @@
+package ee.taltech.inbankbackend.loadtest;
+
+import ee.taltech.inbankbackend.InbankBackendApplication;
+import jdk.jfr.consumer.RecordingStream;
+import org.springframework.boot.builder.SpringApplicationBuilder;
+import org.springframework.boot.web.context.WebServerApplicationContext;
+import org.springframework.context.ConfigurableApplicationContext;
+
+import java.lang.management.ManagementFactory;
+import java.lang.management.MemoryMXBean;
+import java.lang.management.ThreadMXBean;
+import java.net.URI;
+import java.net.http.HttpClient;
+import java.net.http.HttpRequest;
+import java.net.http.HttpResponse;
+import java.time.Duration;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.atomic.AtomicLong;
+
+/**
+ * Load tests POST /loan/decision on the servlet stack with platform threads, on the servlet stack with
+ * virtual threads and on the reactive stack.
+ * The application is started in the same JVM once per mode, with a simulated slow downstream dependency
+ * in front of every decision, see {@link SlowDownstreamConfiguration}. A fixed number of concurrent clients
+ * send requests back to back. For every mode the throughput, latency percentiles, errors, the number of
+ * jdk.VirtualThreadPinned events, the live threads and the heap per connection under load are printed.
+ * <br><br>
+ * The clients run in the same JVM, so the heap per connection includes the client side of the connection.
+ * The clients are the same in every mode, so the modes can be compared with each other.
+ * <br><br>
+ * Arguments: concurrent clients, measured seconds and the downstream latency in milliseconds.
+ */
+public final class DecisionLoadTest {
+    private static final String REQUEST_BODY =
+            "{\"personalCode\":\"50307172740\",\"loanAmount\":2000,\"loanPeriod\":24,\"country\":\"ESTONIA\"}";
+    private static final String PINNED_EVENT = "jdk.VirtualThreadPinned";
+    private static final Duration WARM_UP = Duration.ofSeconds(5);
+
+    private enum Mode {
+        PLATFORM("application.virtual-threads.enabled=false"),
+        VIRTUAL("application.virtual-threads.enabled=true"),
+        REACTIVE("spring.profiles.active=reactive");
+
+        private final String property;
+
+        Mode(String property) {
+            this.property = property;
+        }
+    }
+
+    private DecisionLoadTest() {
+    }
+
+    public static void main(String[] args) throws Exception {
+        int concurrency = Integer.parseInt(args[0]);
+        Duration duration = Duration.ofSeconds(Long.parseLong(args[1]));
+        long latencyMillis = Long.parseLong(args[2]);
+
+        List<String> results = new ArrayList<>();
+        for (Mode mode : Mode.values()) {
+            results.add(run(mode, concurrency, duration, latencyMillis));
+        }
+
+        System.out.printf("%nPOST /loan/decision, %d concurrent clients, %d ms downstream latency, %d s%n",
+                concurrency, latencyMillis, duration.toSeconds());
+        System.out.printf("%-9s %10s %9s %9s %9s %9s %8s %8s %12s%n", "mode", "req/s", "p50 ms", "p99 ms",
+                "p99.9 ms", "max ms", "pinned", "threads", "KiB/conn");
+        results.forEach(System.out::println);
+    }
+
+    private static String run(Mode mode, int concurrency, Duration duration, long latencyMillis) throws Exception {
+        try (ConfigurableApplicationContext context = new SpringApplicationBuilder(InbankBackendApplication.class,
+                SlowDownstreamConfiguration.class)
+                .properties(
+                        "server.port=0",
+                        mode.property,
+                        "load-test.downstream-latency=" + latencyMillis + "ms",
+                        // Every client sends the same request, which would otherwise be decided once per memo TTL.
+                        "application.decision-coalescing.enabled=false",
+                        // Every client has the same address, and the stacks are compared without shedding.
+                        "application.admission-control.rate-limit.enabled=false",
+                        "application.admission-control.concurrency-limit.enabled=false",
+                        // The clients warm the application up themselves, the startup warm-up would wait for the
+                        // simulated downstream.
+                        "application.startup.warm-up.enabled=false",
+                        "logging.level.ee.taltech.inbankbackend.service=WARN")
+                .run();
+             RecordingStream recording = new RecordingStream()) {
+            int port = ((WebServerApplicationContext) context).getWebServer().getPort();
+            URI uri = URI.create("http://localhost:" + port + "/loan/decision");
+
+            AtomicLong pinned = new AtomicLong();
+            recording.enable(PINNED_EVENT).withThreshold(Duration.ZERO);
+            recording.onEvent(PINNED_EVENT, event -> pinned.incrementAndGet());
+            recording.startAsync();
+
+            drive(uri, concurrency, WARM_UP, null);
+            pinned.set(0);
+            long idleHeap = usedHeapAfterGc();
+            Sample sample = new Sample();
+            Result result = drive(uri, concurrency, duration, sample);
+            recording.stop();
+
+            return String.format("%-9s %10.0f %9.1f %9.1f %9.1f %9.1f %8d %8d %12.1f%s",
+                    mode.name().toLowerCase(), result.latencies.length / (double) duration.toSeconds(),
+                    result.percentile(0.5), result.percentile(0.99), result.percentile(0.999),
+                    result.percentile(1.0), pinned.get(), sample.threads,
+                    (sample.heap - idleHeap) / 1024.0 / concurrency,
+                    result.errors > 0 ? "  (" + result.errors + " errors)" : "");
+        }
+    }
+
+    /**
+     * Sends requests from concurrent clients back to back until the time is up.
+     * The clients run on virtual threads, so the client side is never the bottleneck.
+     *
+     * @param sample If not null, the threads and the heap are sampled into it halfway through
+     */
+    private static Result drive(URI uri, int concurrency, Duration duration, Sample sample) throws Exception {
+        HttpRequest request = HttpRequest.newBuilder(uri)
+                .header("Content-Type", "application/json")
+                .POST(HttpRequest.BodyPublishers.ofString(REQUEST_BODY))
+                .build();
+        long deadline = System.nanoTime() + duration.toNanos();
+
+        try (ExecutorService clients = Executors.newVirtualThreadPerTaskExecutor()) {
+            HttpClient httpClient = HttpClient.newBuilder()
+                    .version(HttpClient.Version.HTTP_1_1)
+                    .executor(clients)
+                    .build();
+            List<Future<Result>> futures = new ArrayList<>(concurrency);
+            for (int i = 0; i < concurrency; i++) {
+                futures.add(clients.submit(() -> {
+                    long[] latencies = new long[1024];
+                    int count = 0;
+                    long errors = 0;
+                    long start;
+                    while ((start = System.nanoTime()) < deadline) {
+                        HttpResponse<Void> response = httpClient.send(request, HttpResponse.BodyHandlers.discarding());
+                        if (response.statusCode() != 200) {
+                            errors++;
+                        }
+                        if (count == latencies.length) {
+                            latencies = Arrays.copyOf(latencies, count * 2);
+                        }
+                        latencies[count++] = System.nanoTime() - start;
+                    }
+                    return new Result(Arrays.copyOf(latencies, count), errors);
+                }));
+            }
+            if (sample != null) {
+                Thread.sleep(duration.dividedBy(2));
+                ThreadMXBean threads = ManagementFactory.getThreadMXBean();
+                sample.threads = threads.getThreadCount();
+                sample.heap = usedHeapAfterGc();
+            }
+
+            List<long[]> latencies = new ArrayList<>(concurrency);
+            long errors = 0;
+            for (Future<Result> future : futures) {
+                latencies.add(future.get().latencies);
+                errors += future.get().errors;
+            }
+            return new Result(merge(latencies), errors);
+        }
+    }
+
+    private static long usedHeapAfterGc() {
+        MemoryMXBean memory = ManagementFactory.getMemoryMXBean();
+        memory.gc();
+        return memory.getHeapMemoryUsage().getUsed();
+    }
+
+    private static long[] merge(List<long[]> latencies) {
+        long[] merged = new long[latencies.stream().mapToInt(l -> l.length).sum()];
+        int offset = 0;
+        for (long[] l : latencies) {
+            System.arraycopy(l, 0, merged, offset, l.length);
+            offset += l.length;
+        }
+        Arrays.sort(merged);
+        return merged;
+    }
+
+    /**
+     * Live platform threads and used heap under load.
+     */
+    private static final class Sample {
+        private int threads;
+        private long heap;
+    }
+
+    private record Result(long[] latencies, long errors) {
+        /**
+         * Latency percentile in milliseconds, the latencies have to be sorted.
+         */
+        double percentile(double percentile) {
+            if (latencies.length == 0) {
+                return Double.NaN;
+            }
+            int index = (int) Math.ceil(percentile * latencies.length) - 1;
+            return latencies[Math.max(index, 0)] / 1_000_000.0;
+        }
+    }
+}
@@ -0,0 +1,67 @@
+package ee.taltech.inbankbackend.loadtest;
+
+import jakarta.servlet.Filter;
+import jakarta.servlet.ServletException;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnWebApplication;
+import org.springframework.boot.web.servlet.FilterRegistrationBean;
+import org.springframework.context.annotation.Bean;
+import org.springframework.context.annotation.Configuration;
+import org.springframework.web.server.WebFilter;
+import reactor.core.publisher.Mono;
+
+import java.time.Duration;
+import java.util.concurrent.Semaphore;
+
+/**
+ * Simulates a slow downstream dependency, e.g. an external scoring service, called by every decision request.
+ * Each request waits for load-test.downstream-latency before the decision is made: the servlet stack blocks
+ * the request thread, the reactive stack waits without blocking the event loop, as each stack would call
+ * a real dependency.
+ * <br><br>
+ * With load-test.downstream-capacity above 0 the servlet stack serves at most that many calls at once,
+ * like a connection pool in front of the dependency, and the other requests wait for a connection.
+ */
+@Configuration(proxyBeanMethods = false)
+public class SlowDownstreamConfiguration {
+    private static final String DECISION_PATH = "/loan/decision";
+
+    @Bean
+    @ConditionalOnWebApplication(type = ConditionalOnWebApplication.Type.SERVLET)
+    public FilterRegistrationBean<Filter> slowDownstreamFilter(
+            @Value("${load-test.downstream-latency}") Duration latency,
+            @Value("${load-test.downstream-capacity:0}") int capacity) {
+        Semaphore connections = capacity > 0 ? new Semaphore(capacity, true) : null;
+        FilterRegistrationBean<Filter> registration = new FilterRegistrationBean<>((request, response, chain) -> {
+            try {
+                if (connections == null) {
+                    Thread.sleep(latency);
+                } else {
+                    connections.acquire();
+                    try {
+                        Thread.sleep(latency);
+                    } finally {
+                        connections.release();
+                    }
+                }
+            } catch (InterruptedException e) {
+                Thread.currentThread().interrupt();
+                throw new ServletException("Interrupted while waiting for the downstream dependency", e);
+            }
+            chain.doFilter(request, response);
+        });
+        registration.addUrlPatterns(DECISION_PATH);
+        return registration;
+    }
+
+    @Bean
+    @ConditionalOnWebApplication(type = ConditionalOnWebApplication.Type.REACTIVE)
+    public WebFilter slowDownstreamWebFilter(@Value("${load-test.downstream-latency}") Duration latency) {
+        return (exchange, chain) -> {
+            if (!exchange.getRequest().getPath().value().equals(DECISION_PATH)) {
+                return chain.filter(exchange);
+            }
+            return Mono.delay(latency).then(Mono.defer(() -> chain.filter(exchange)));
+        };
+    }
+}
@@ -0,0 +1,310 @@
+package ee.taltech.inbankbackend.loadtest;
+
+import java.io.IOException;
+import java.net.ServerSocket;
+import java.net.URI;
+import java.net.http.HttpClient;
+import java.net.http.HttpRequest;
+import java.net.http.HttpResponse;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.time.Duration;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.TimeUnit;
+import java.util.function.ToDoubleFunction;
+
+/**
+ * Compares how fast a new instance of the application serves requests with a steady latency when it is started as
+ * the boot jar, as the boot jar without the warm-up, from the AppCDS layout with its archive, with Spring AOT and as
+ * a GraalVM native executable.
+ * <br><br>
+ * Every mode is started as a new process several times, the modes take turns, so a slow first run of the clients
+ * is not counted against one mode. From the start of the process:<br>
+ * - the startup time is the time until /actuator/health/readiness reports ready, polled every few milliseconds,
+ * i.e. after the warm-up<br>
+ * - then a fixed number of clients send a fixed mix of requests back to back for the measured seconds, and the
+ * latencies are split into windows by the time they completed. The time to a good p99 is the start of the first
+ * windows in a row whose p99 all stay within the threshold, i.e. when the JIT and the caches settled.<br>
+ * The medians of the runs are printed, with the p99 of the last quarter of the measured seconds.
+ * <br><br>
+ * Arguments: runs per mode, measured seconds, concurrent clients, the p99 threshold in milliseconds, whether the
+ * application was built with Spring AOT, the boot jar, the AppCDS directory and the native executable.
+ */
+public final class StartupBenchmark {
+    // The debtor is answered with an error message, the others are approved.
+    private static final String[] REQUEST_BODIES = {
+            "{\"personalCode\":\"50307172740\",\"loanAmount\":2000,\"loanPeriod\":24,\"country\":\"ESTONIA\"}",
+            "{\"personalCode\":\"38411266610\",\"loanAmount\":4000,\"loanPeriod\":12,\"country\":\"ESTONIA\"}",
+            "{\"personalCode\":\"35006069515\",\"loanAmount\":10000,\"loanPeriod\":48,\"country\":\"ESTONIA\"}",
+            "{\"personalCode\":\"37605030299\",\"loanAmount\":4000,\"loanPeriod\":12,\"country\":\"ESTONIA\"}"
+    };
+    // Every client sends the same requests, which must be decided every time, and without being throttled.
+    private static final String[] APPLICATION_ARGUMENTS = {
+            "--application.decision-coalescing.enabled=false",
+            "--application.admission-control.rate-limit.enabled=false",
+            "--application.admission-control.concurrency-limit.enabled=false",
+            "--application.decision-journal.enabled=false",
+            "--logging.level.ee.taltech.inbankbackend.service=WARN"
+    };
+    private static final long WINDOW_NANOS = TimeUnit.MILLISECONDS.toNanos(250);
+    private static final int STABLE_WINDOWS = 4;
+    private static final Duration STARTUP_TIMEOUT = Duration.ofSeconds(60);
+
+    private StartupBenchmark() {
+    }
+
+    public static void main(String[] args) throws Exception {
+        int runs = Integer.parseInt(args[0]);
+        Duration duration = Duration.ofSeconds(Long.parseLong(args[1]));
+        int concurrency = Integer.parseInt(args[2]);
+        long thresholdNanos = TimeUnit.MILLISECONDS.toNanos(Long.parseLong(args[3]));
+        boolean aot = Boolean.parseBoolean(args[4]);
+        Path bootJar = Path.of(args[5]);
+        Path cdsDirectory = Path.of(args[6]);
+        Path nativeExecutable = Path.of(args[7]);
+
+        Map<String, Mode> modes = modes(aot, bootJar, cdsDirectory, nativeExecutable);
+        Path logs = Files.createTempDirectory("startup-benchmark");
+        System.out.printf("Application logs in %s%n", logs);
+
+        Map<String, List<Result>> results = new LinkedHashMap<>();
+        for (int run = 0; run < runs; run++) {
+            for (Map.Entry<String, Mode> mode : modes.entrySet()) {
+                Result result = run(mode.getValue(), logs.resolve(mode.getKey() + "-" + run + ".log"), duration,
+                        concurrency, thresholdNanos);
+                results.computeIfAbsent(mode.getKey(), k -> new ArrayList<>()).add(result);
+                System.out.printf("%-8s run %d: %s%n", mode.getKey(), run + 1, result);
+            }
+        }
+
+        System.out.printf("%nPOST /loan/decision, %d concurrent clients, %d s, p99 threshold %d ms, "
+                        + "median of %d runs%n", concurrency, duration.toSeconds(),
+                TimeUnit.NANOSECONDS.toMillis(thresholdNanos), runs);
+        System.out.printf("%-8s %12s %16s %16s%n", "mode", "startup ms", "good p99 at ms", "steady p99 ms");
+        results.forEach((mode, modeResults) -> System.out.printf("%-8s %12.0f %16s %16.2f%n", mode,
+                median(modeResults, Result::startupMillis),
+                format(median(modeResults, Result::goodP99Millis)),
+                median(modeResults, Result::steadyP99Millis)));
+    }
+
+    /**
+     * The modes that were built, the boot jar with and without the warm-up always are.
+     */
+    private static Map<String, Mode> modes(boolean aot, Path bootJar, Path cdsDirectory, Path nativeExecutable) {
+        Path java = Path.of(ProcessHandle.current().info().command().orElseThrow());
+        Map<String, Mode> modes = new LinkedHashMap<>();
+        modes.put("jar", new Mode(null, java.toString(), "-jar", bootJar.toAbsolutePath().toString()));
+        modes.put("cold", new Mode(null, java.toString(), "-jar", bootJar.toAbsolutePath().toString(),
+                "--application.startup.warm-up.enabled=false"));
+        if (aot) {
+            modes.put("aot", new Mode(null, java.toString(), "-Dspring.aot.enabled=true", "-jar",
+                    bootJar.toAbsolutePath().toString()));
+        }
+        if (Files.exists(cdsDirectory.resolve("application.jsa"))) {
+            modes.put(aot ? "aot+cds" : "cds", aot
+                    ? new Mode(cdsDirectory, java.toString(), "-XX:SharedArchiveFile=application.jsa",
+                            "-Dspring.aot.enabled=true", "-jar", "inbank-backend.jar")
+                    : new Mode(cdsDirectory, java.toString(), "-XX:SharedArchiveFile=application.jsa",
+                            "-jar", "inbank-backend.jar"));
+        }
+        if (aot && Files.isExecutable(nativeExecutable)) {
+            modes.put("native", new Mode(null, nativeExecutable.toAbsolutePath().toString()));
+        }
+        return modes;
+    }
+
+    private static Result run(Mode mode, Path log, Duration duration, int concurrency, long thresholdNanos)
+            throws Exception {
+        int port = freePort();
+        List<String> command = new ArrayList<>(Arrays.asList(mode.command()));
+        command.add("--server.port=" + port);
+        command.addAll(Arrays.asList(APPLICATION_ARGUMENTS));
+        ProcessBuilder builder = new ProcessBuilder(command)
+                .redirectErrorStream(true)
+                .redirectOutput(log.toFile());
+        if (mode.directory() != null) {
+            builder.directory(mode.directory().toFile());
+        }
+
+        HttpClient httpClient = HttpClient.newBuilder().version(HttpClient.Version.HTTP_1_1).build();
+        URI uri = URI.create("http://localhost:" + port + "/loan/decision");
+        long start = System.nanoTime();
+        Process process = builder.start();
+        try {
+            long started = awaitReadiness(process, httpClient,
+                    URI.create("http://localhost:" + port + "/actuator/health/readiness"), start, log);
+            long[][] latencies = drive(httpClient, uri, duration, concurrency);
+            return Result.of(start, started, latencies, thresholdNanos);
+        } finally {
+            process.destroy();
+            if (!process.waitFor(10, TimeUnit.SECONDS)) {
+                process.destroyForcibly().waitFor();
+            }
+        }
+    }
+
+    private static int freePort() throws IOException {
+        try (ServerSocket socket = new ServerSocket(0)) {
+            return socket.getLocalPort();
+        }
+    }
+
+    /**
+     * @return The time the application first reported ready
+     */
+    private static long awaitReadiness(Process process, HttpClient httpClient, URI uri, long start, Path log)
+            throws Exception {
+        HttpRequest request = HttpRequest.newBuilder(uri).GET().build();
+        while (System.nanoTime() - start < STARTUP_TIMEOUT.toNanos()) {
+            if (!process.isAlive()) {
+                throw new IllegalStateException("Application exited with " + process.exitValue() + ", see " + log);
+            }
+            try {
+                if (httpClient.send(request, HttpResponse.BodyHandlers.discarding()).statusCode() == 200) {
+                    return System.nanoTime();
+                }
+            } catch (IOException e) {
+                // Not listening yet.
+            }
+            TimeUnit.MILLISECONDS.sleep(5);
+        }
+        throw new IllegalStateException("Application was not ready within " + STARTUP_TIMEOUT + ", see " + log);
+    }
+
+    /**
+     * Sends requests from concurrent clients back to back until the time is up.
+     *
+     * @return Pairs of the completion time and the latency of every successful request
+     */
+    private static long[][] drive(HttpClient httpClient, URI uri, Duration duration, int concurrency)
+            throws Exception {
+        HttpRequest[] requests = Arrays.stream(REQUEST_BODIES).map(body -> request(uri, body))
+                .toArray(HttpRequest[]::new);
+        long deadline = System.nanoTime() + duration.toNanos();
+        ExecutorService clients = Executors.newFixedThreadPool(concurrency);
+        try {
+            List<Future<long[]>> futures = new ArrayList<>(concurrency);
+            for (int c = 0; c < concurrency; c++) {
+                int client = c;
+                futures.add(clients.submit(() -> {
+                    long[] samples = new long[2048];
+                    int count = 0;
+                    long sent;
+                    for (int i = client; (sent = System.nanoTime()) < deadline; i++) {
+                        int status = httpClient.send(requests[i % requests.length],
+                                HttpResponse.BodyHandlers.discarding()).statusCode();
+                        long completed = System.nanoTime();
+                        if (status != 200) {
+                            continue;
+                        }
+                        if (count == samples.length) {
+                            samples = Arrays.copyOf(samples, count * 2);
+                        }
+                        samples[count++] = completed;
+                        samples[count++] = completed - sent;
+                    }
+                    return Arrays.copyOf(samples, count);
+                }));
+            }
+            long[][] samples = new long[concurrency][];
+            for (int c = 0; c < concurrency; c++) {
+                samples[c] = futures.get(c).get();
+            }
+            return samples;
+        } finally {
+            clients.shutdownNow();
+        }
+    }
+
+    private static HttpRequest request(URI uri, String body) {
+        return HttpRequest.newBuilder(uri)
+                .header("Content-Type", "application/json")
+                .POST(HttpRequest.BodyPublishers.ofString(body))
+                .build();
+    }
+
+    private static double median(List<Result> results, ToDoubleFunction<Result> metric) {
+        double[] values = results.stream().mapToDouble(metric).sorted().toArray();
+        return values[values.length / 2];
+    }
+
+    private static String format(double millis) {
+        return Double.isInfinite(millis) ? "never" : String.format("%.0f", millis);
+    }
+
+    /**
+     * @param directory Working directory of the process, null for the current one
+     */
+    private record Mode(Path directory, String... command) {
+    }
+
+    /**
+     * @param goodP99Millis Time from the start of the process to a good p99, infinite if the p99 never settled
+     */
+    private record Result(double startupMillis, double goodP99Millis, double steadyP99Millis) {
+
+        static Result of(long start, long started, long[][] samples, long thresholdNanos) {
+            long end = started;
+            for (long[] client : samples) {
+                for (int i = 0; i < client.length; i += 2) {
+                    end = Math.max(end, client[i]);
+                }
+            }
+            int windows = (int) ((end - started) / WINDOW_NANOS) + 1;
+            long[][] latencies = new long[windows][];
+            int[] counts = new int[windows];
+            for (int w = 0; w < windows; w++) {
+                latencies[w] = new long[64];
+            }
+            for (long[] client : samples) {
+                for (int i = 0; i < client.length; i += 2) {
+                    int w = (int) ((client[i] - started) / WINDOW_NANOS);
+                    if (counts[w] == latencies[w].length) {
+                        latencies[w] = Arrays.copyOf(latencies[w], counts[w] * 2);
+                    }
+                    latencies[w][counts[w]++] = client[i + 1];
+                }
+            }
+
+            double goodP99Millis = Double.POSITIVE_INFINITY;
+            int stable = 0;
+            for (int w = 0; w < windows; w++) {
+                stable = counts[w] > 0 && p99(latencies[w], counts[w]) <= thresholdNanos ? stable + 1 : 0;
+                if (stable == STABLE_WINDOWS) {
+                    long goodAt = started + (w - STABLE_WINDOWS + 1) * WINDOW_NANOS;
+                    goodP99Millis = (goodAt - start) / 1_000_000.0;
+                    break;
+                }
+            }
+
+            // The p99 of the last quarter of the windows, merged.
+            long[] steady = new long[0];
+            for (int w = windows - Math.max(windows / 4, 1); w < windows; w++) {
+                int offset = steady.length;
+                steady = Arrays.copyOf(steady, offset + counts[w]);
+                System.arraycopy(latencies[w], 0, steady, offset, counts[w]);
+            }
+            return new Result((started - start) / 1_000_000.0, goodP99Millis,
+                    steady.length == 0 ? Double.NaN : p99(steady, steady.length) / 1_000_000.0);
+        }
+
+        private static long p99(long[] latencies, int count) {
+            long[] sorted = Arrays.copyOf(latencies, count);
+            Arrays.sort(sorted);
+            return sorted[Math.max((int) Math.ceil(0.99 * count) - 1, 0)];
+        }
+
+        @Override
+        public String toString() {
+            return String.format("startup %.0f ms, good p99 at %s ms, steady p99 %.2f ms", startupMillis,
+                    format(goodP99Millis), steadyP99Millis);
+        }
+    }
+}
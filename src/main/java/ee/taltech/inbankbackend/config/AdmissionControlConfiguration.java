@@ -0,0 +1,49 @@
+package ee.taltech.inbankbackend.config;
+
+import com.fasterxml.jackson.databind.ObjectMapper;
+import ee.taltech.inbankbackend.controller.AdmissionControlFilter;
+import ee.taltech.inbankbackend.service.AdaptiveConcurrencyLimiter;
+import ee.taltech.inbankbackend.service.ClientRateLimiter;
+import ee.taltech.inbankbackend.util.AdmissionControlConstants;
+import io.micrometer.core.instrument.MeterRegistry;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnWebApplication;
+import org.springframework.boot.web.servlet.FilterRegistrationBean;
+import org.springframework.context.annotation.Bean;
+import org.springframework.context.annotation.Configuration;
+import org.springframework.core.Ordered;
+
+import java.io.IOException;
+import java.util.ArrayList;
+import java.util.List;
+
+/**
+ * Registers the admission control filter on application.admission-control.paths and batch-paths of the servlet
+ * stack.
+ * It runs before every other filter but the one marking the requests of the startup warm-up, so a rejected request
+ * costs as little as possible. The rate limit and the concurrency limit are enabled separately, neither applies to
+ * the startup warm-up.
+ */
+@Configuration
+@ConditionalOnWebApplication(type = ConditionalOnWebApplication.Type.SERVLET)
+public class AdmissionControlConfiguration {
+
+    @Bean
+    public FilterRegistrationBean<AdmissionControlFilter> admissionControlFilter(
+            AdmissionControlConstants admissionControlConstants, ObjectMapper objectMapper, MeterRegistry meterRegistry) throws IOException {
+        AdmissionControlConstants.RateLimit rateLimit = admissionControlConstants.getRateLimit();
+        AdmissionControlConstants.ConcurrencyLimit concurrencyLimit = admissionControlConstants.getConcurrencyLimit();
+        AdmissionControlFilter filter = new AdmissionControlFilter(
+                rateLimit.isEnabled() ? new ClientRateLimiter(rateLimit) : null,
+                concurrencyLimit.isEnabled() ? new AdaptiveConcurrencyLimiter(concurrencyLimit) : null,
+                admissionControlConstants, objectMapper, meterRegistry);
+
+        List<String> paths = new ArrayList<>(admissionControlConstants.getPaths());
+        paths.addAll(admissionControlConstants.getBatchPaths());
+        FilterRegistrationBean<AdmissionControlFilter> registration = new FilterRegistrationBean<>(filter);
+        registration.setUrlPatterns(paths);
+        registration.setOrder(Ordered.HIGHEST_PRECEDENCE + 1);
+        registration.setEnabled(!paths.isEmpty()
+                && (rateLimit.isEnabled() || concurrencyLimit.isEnabled()));
+        return registration;
+    }
+}
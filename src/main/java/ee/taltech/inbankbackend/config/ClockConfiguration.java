@@ -0,0 +1,21 @@
+package ee.taltech.inbankbackend.config;
+
+import org.springframework.context.annotation.Bean;
+import org.springframework.context.annotation.Configuration;
+import org.springframework.scheduling.annotation.EnableScheduling;
+
+import java.time.Clock;
+
+/**
+ * Provides the clock the current date is taken from, so tests can pin the date,
+ * and enables the scheduler that refreshes the values depending on it.
+ */
+@Configuration
+@EnableScheduling
+public class ClockConfiguration {
+
+    @Bean
+    public Clock clock() {
+        return Clock.systemDefaultZone();
+    }
+}
@@ -0,0 +1,25 @@
+package ee.taltech.inbankbackend.config;
+
+import ee.taltech.inbankbackend.service.CachingCreditProfileProvider;
+import ee.taltech.inbankbackend.service.CreditProfileProvider;
+import ee.taltech.inbankbackend.service.PersonalCodeCreditProfileProvider;
+import ee.taltech.inbankbackend.util.CreditProfileConstants;
+import io.micrometer.core.instrument.MeterRegistry;
+import org.springframework.context.annotation.Bean;
+import org.springframework.context.annotation.Configuration;
+
+/**
+ * Provides the credit profiles to the decision engine through a cache.
+ * The profiles are derived from the personal code until a credit registry is connected, which replaces
+ * the cached provider here.
+ */
+@Configuration
+public class CreditProfileConfiguration {
+
+    @Bean
+    public CreditProfileProvider creditProfileProvider(CreditProfileConstants creditProfileConstants,
+                                                       MeterRegistry meterRegistry) {
+        return new CachingCreditProfileProvider(new PersonalCodeCreditProfileProvider(), creditProfileConstants,
+                meterRegistry);
+    }
+}
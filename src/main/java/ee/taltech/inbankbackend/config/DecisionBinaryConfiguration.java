@@ -0,0 +1,24 @@
+package ee.taltech.inbankbackend.config;
+
+import ee.taltech.inbankbackend.controller.DecisionBinaryHttpMessageConverter;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnWebApplication;
+import org.springframework.context.annotation.Bean;
+import org.springframework.context.annotation.Configuration;
+import org.springframework.core.Ordered;
+import org.springframework.core.annotation.Order;
+
+/**
+ * Serves POST /loan/decision in the binary format of DecisionBinaryCodec on the servlet stack, next to JSON.
+ * The converter is ordered after the decision JSON converter, so a request that accepts any media type
+ * is still answered with JSON.
+ */
+@Configuration
+@ConditionalOnWebApplication(type = ConditionalOnWebApplication.Type.SERVLET)
+public class DecisionBinaryConfiguration {
+
+    @Bean
+    @Order(Ordered.LOWEST_PRECEDENCE)
+    public DecisionBinaryHttpMessageConverter decisionBinaryHttpMessageConverter() {
+        return new DecisionBinaryHttpMessageConverter();
+    }
+}
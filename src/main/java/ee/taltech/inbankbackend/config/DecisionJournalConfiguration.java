@@ -0,0 +1,65 @@
+package ee.taltech.inbankbackend.config;
+
+import ee.taltech.inbankbackend.dto.DecisionRequest;
+import ee.taltech.inbankbackend.dto.DecisionResponse;
+import ee.taltech.inbankbackend.service.DecisionJournal;
+import ee.taltech.inbankbackend.service.DecisionRecord;
+import ee.taltech.inbankbackend.service.MappedDecisionJournal;
+import ee.taltech.inbankbackend.service.WarmUpScope;
+import ee.taltech.inbankbackend.util.DecisionJournalConstants;
+import ee.taltech.inbankbackend.util.ErrorMessage;
+import io.micrometer.core.instrument.MeterRegistry;
+import org.springframework.boot.actuate.health.Health;
+import org.springframework.boot.actuate.health.HealthIndicator;
+import org.springframework.context.annotation.Bean;
+import org.springframework.context.annotation.Configuration;
+
+import java.time.Clock;
+
+/**
+ * Provides the audit journal of the decision engine, kept in memory-mapped files unless
+ * application.decision-journal.enabled is false. The journal is closed with the application context,
+ * which writes the decisions still queued. The synthetic decisions of the startup warm-up are not journaled.
+ * <br><br>
+ * The journal is part of the readiness probe: while its writer fails to write, the application reports it is not
+ * ready, so the load balancer stops sending decisions the journal would reject.
+ */
+@Configuration
+public class DecisionJournalConfiguration {
+
+    @Bean
+    public DecisionJournal decisionJournal(DecisionJournalConstants decisionJournalConstants,
+                                           MeterRegistry meterRegistry, Clock clock) {
+        if (!decisionJournalConstants.isEnabled()) {
+            return DecisionJournal.NONE;
+        }
+        return new WarmUpSkippingJournal(new MappedDecisionJournal(decisionJournalConstants, meterRegistry, clock));
+    }
+
+    @Bean
+    public HealthIndicator decisionJournalHealthIndicator(DecisionJournal decisionJournal) {
+        return () -> {
+            if (!(decisionJournal instanceof WarmUpSkippingJournal journal)) {
+                return Health.up().withDetail("enabled", false).build();
+            }
+            return (journal.journal().isWritable() ? Health.up() : Health.down()).build();
+        };
+    }
+
+    private record WarmUpSkippingJournal(MappedDecisionJournal journal)
+            implements DecisionJournal, AutoCloseable {
+
+        @Override
+        public void append(DecisionRequest request, DecisionResponse response, ErrorMessage rejection,
+                           long parametersVersion, DecisionRecord.Source source) {
+            if (!WarmUpScope.isActive()) {
+                journal.append(request, response, rejection, parametersVersion, source);
+            }
+        }
+
+        @Override
+        public void close() throws InterruptedException {
+            journal.close();
+        }
+    }
+}
@@ -0,0 +1,25 @@
+package ee.taltech.inbankbackend.config;
+
+import ee.taltech.inbankbackend.controller.DecisionJsonHttpMessageConverter;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnWebApplication;
+import org.springframework.context.annotation.Bean;
+import org.springframework.context.annotation.Configuration;
+import org.springframework.core.annotation.Order;
+import org.springframework.http.converter.json.MappingJackson2HttpMessageConverter;
+
+/**
+ * Reads the decision requests and writes the decision responses of the servlet stack without Jackson.
+ * Spring Boot adds the converter ahead of the default converters, so it is used before the Jackson converter,
+ * which still handles every other type.
+ */
+@Configuration
+@ConditionalOnWebApplication(type = ConditionalOnWebApplication.Type.SERVLET)
+public class DecisionJsonConfiguration {
+
+    @Bean
+    @Order(0)
+    public DecisionJsonHttpMessageConverter decisionJsonHttpMessageConverter(
+            MappingJackson2HttpMessageConverter mappingJackson2HttpMessageConverter) {
+        return new DecisionJsonHttpMessageConverter(mappingJackson2HttpMessageConverter);
+    }
+}
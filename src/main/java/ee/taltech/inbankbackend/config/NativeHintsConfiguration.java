@@ -0,0 +1,54 @@
+package ee.taltech.inbankbackend.config;
+
+import ee.taltech.inbankbackend.dto.DecisionParametersDto;
+import ee.taltech.inbankbackend.dto.DecisionRequest;
+import ee.taltech.inbankbackend.dto.DecisionResponse;
+import ee.taltech.inbankbackend.dto.OfferRequest;
+import ee.taltech.inbankbackend.dto.OfferResponse;
+import ee.taltech.inbankbackend.util.SamplingTurboFilter;
+import ee.taltech.inbankbackend.util.WarmUpTurboFilter;
+import org.springframework.aot.hint.MemberCategory;
+import org.springframework.aot.hint.RuntimeHints;
+import org.springframework.aot.hint.RuntimeHintsRegistrar;
+import org.springframework.aot.hint.TypeReference;
+import org.springframework.aot.hint.annotation.RegisterReflectionForBinding;
+import org.springframework.context.annotation.Configuration;
+import org.springframework.context.annotation.ImportRuntimeHints;
+
+/**
+ * Reflection metadata the GraalVM native image needs beyond what Spring AOT finds in the application context,
+ * built with `./gradlew -Paot=true nativeCompile`. On the JVM the hints are not used.
+ * <br><br>
+ * - The DTOs are read and written by Jackson, also outside of the controller signatures Spring AOT inspects, e.g.
+ * by the batch and the admin endpoints. The Lombok constructors and accessors, and the DTOs they refer to, are
+ * registered for binding.<br>
+ * - The @ConfigurationProperties classes are registered by Spring AOT itself.<br>
+ * - Logback creates the turbo filters, appenders and converters of logback-spring.xml by their class names.
+ */
+@Configuration
+@RegisterReflectionForBinding({DecisionRequest.class, DecisionResponse.class, OfferRequest.class,
+        OfferResponse.class, DecisionParametersDto.class})
+@ImportRuntimeHints(NativeHintsConfiguration.LogbackHints.class)
+public class NativeHintsConfiguration {
+
+    static class LogbackHints implements RuntimeHintsRegistrar {
+        private static final String[] LOGBACK_TYPES = {
+                "ch.qos.logback.classic.AsyncAppender",
+                "ch.qos.logback.core.ConsoleAppender",
+                "ch.qos.logback.classic.encoder.PatternLayoutEncoder",
+                "ch.qos.logback.classic.pattern.KeyValuePairConverter"
+        };
+
+        @Override
+        public void registerHints(RuntimeHints hints, ClassLoader classLoader) {
+            hints.reflection().registerType(SamplingTurboFilter.class,
+                    MemberCategory.INVOKE_PUBLIC_CONSTRUCTORS, MemberCategory.INVOKE_PUBLIC_METHODS);
+            hints.reflection().registerType(WarmUpTurboFilter.class,
+                    MemberCategory.INVOKE_PUBLIC_CONSTRUCTORS, MemberCategory.INVOKE_PUBLIC_METHODS);
+            for (String type : LOGBACK_TYPES) {
+                hints.reflection().registerType(TypeReference.of(type),
+                        MemberCategory.INVOKE_PUBLIC_CONSTRUCTORS, MemberCategory.INVOKE_PUBLIC_METHODS);
+            }
+        }
+    }
+}
@@ -0,0 +1,33 @@
+package ee.taltech.inbankbackend.config;
+
+import ee.taltech.inbankbackend.util.ReactiveServerConstants;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnWebApplication;
+import org.springframework.boot.web.embedded.netty.NettyServerCustomizer;
+import org.springframework.context.annotation.Bean;
+import org.springframework.context.annotation.Configuration;
+import reactor.netty.resources.LoopResources;
+
+/**
+ * Sizes the Netty event loop of the reactive stack with application.reactive.event-loop-threads.
+ * Every connection is served by one of these threads, so the thread count stays fixed however many
+ * connections are open.
+ */
+@Configuration
+@ConditionalOnWebApplication(type = ConditionalOnWebApplication.Type.REACTIVE)
+@Slf4j
+public class ReactiveServerConfiguration {
+
+    @Bean(destroyMethod = "dispose")
+    public LoopResources eventLoopResources(ReactiveServerConstants reactiveServerConstants) {
+        int threads = reactiveServerConstants.getEventLoopThreads() > 0
+                ? reactiveServerConstants.getEventLoopThreads() : LoopResources.DEFAULT_IO_WORKER_COUNT;
+        log.info("Requests are served on {} event loop threads", threads);
+        return LoopResources.create("decision-event-loop", threads, true);
+    }
+
+    @Bean
+    public NettyServerCustomizer eventLoopCustomizer(LoopResources eventLoopResources) {
+        return httpServer -> httpServer.runOn(eventLoopResources);
+    }
+}
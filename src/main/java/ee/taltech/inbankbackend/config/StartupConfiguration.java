@@ -0,0 +1,74 @@
+package ee.taltech.inbankbackend.config;
+
+import ee.taltech.inbankbackend.controller.StartupWarmUp;
+import ee.taltech.inbankbackend.controller.WarmUpRequestFilter;
+import ee.taltech.inbankbackend.util.StartupConstants;
+import lombok.RequiredArgsConstructor;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.boot.SpringApplication;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnWebApplication;
+import org.springframework.boot.context.event.ApplicationReadyEvent;
+import org.springframework.boot.web.context.WebServerApplicationContext;
+import org.springframework.boot.web.servlet.FilterRegistrationBean;
+import org.springframework.context.annotation.Bean;
+import org.springframework.context.annotation.Configuration;
+import org.springframework.context.event.EventListener;
+import org.springframework.core.NativeDetector;
+import org.springframework.core.Ordered;
+import org.springframework.core.annotation.Order;
+
+/**
+ * Runs the startup phases that follow the start of the web server, in this order:<br>
+ * - the JIT warm-up of StartupWarmUp, enabled with application.startup.warm-up.enabled. Spring Boot reports
+ * readiness once the ready listeners returned, so the application is ready only after the warm-up. Native images
+ * are compiled ahead of time and skip it.<br>
+ * - the end of the training run of `./gradlew cdsArchive`, enabled with application.startup.training-run. The JVM
+ * then writes every class loaded up to that point to the AppCDS archive, the warm-up's included.
+ * <br><br>
+ * On the servlet stack the requests of the warm-up are marked by WarmUpRequestFilter, which runs before every other
+ * filter. The reactive controller marks them itself.
+ * <br><br>
+ * The listeners check the properties themselves instead of being conditional on them, because with Spring AOT the
+ * conditions are evaluated when the application is built and not when it is started.
+ */
+@Configuration
+@RequiredArgsConstructor
+@Slf4j
+public class StartupConfiguration {
+
+    private final StartupConstants startupConstants;
+    private final StartupWarmUp startupWarmUp;
+
+    @Bean
+    @ConditionalOnWebApplication(type = ConditionalOnWebApplication.Type.SERVLET)
+    public FilterRegistrationBean<WarmUpRequestFilter> warmUpRequestFilter() {
+        FilterRegistrationBean<WarmUpRequestFilter> registration =
+                new FilterRegistrationBean<>(new WarmUpRequestFilter(startupWarmUp));
+        registration.setOrder(Ordered.HIGHEST_PRECEDENCE);
+        return registration;
+    }
+
+    @EventListener(ApplicationReadyEvent.class)
+    @Order(Ordered.HIGHEST_PRECEDENCE)
+    public void warmUp(ApplicationReadyEvent event) {
+        if (!startupConstants.getWarmUp().isEnabled() || NativeDetector.inNativeImage()) {
+            return;
+        }
+        // Without a web server, e.g. in the MockMvc tests, there is nothing to send the requests to.
+        if (event.getApplicationContext() instanceof WebServerApplicationContext context
+                && context.getWebServer() != null) {
+            startupWarmUp.run(context);
+        }
+    }
+
+    // Runs after the other ready listeners, so the classes they load are archived as well.
+    @EventListener(ApplicationReadyEvent.class)
+    @Order(Ordered.LOWEST_PRECEDENCE)
+    public void exitAfterTrainingRun(ApplicationReadyEvent event) {
+        if (!startupConstants.isTrainingRun()) {
+            return;
+        }
+        log.info("Training run ready in {} ms, exiting", event.getTimeTaken().toMillis());
+        System.exit(SpringApplication.exit(event.getApplicationContext()));
+    }
+}
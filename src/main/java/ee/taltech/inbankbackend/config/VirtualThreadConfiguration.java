@@ -0,0 +1,30 @@
+package ee.taltech.inbankbackend.config;
+
+import lombok.extern.slf4j.Slf4j;
+import org.apache.coyote.ProtocolHandler;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnProperty;
+import org.springframework.boot.web.embedded.tomcat.TomcatProtocolHandlerCustomizer;
+import org.springframework.context.annotation.Bean;
+import org.springframework.context.annotation.Configuration;
+
+import java.util.concurrent.Executors;
+
+/**
+ * Serves the requests on virtual threads instead of the Tomcat platform thread pool, enabled with
+ * application.virtual-threads.enabled. A request waiting for a downstream call then does not hold a platform
+ * thread, so the number of concurrent requests is not capped by server.tomcat.threads.max.
+ */
+@Configuration
+@ConditionalOnProperty(prefix = "application.virtual-threads", name = "enabled", havingValue = "true")
+@Slf4j
+public class VirtualThreadConfiguration {
+
+    @Bean
+    public TomcatProtocolHandlerCustomizer<ProtocolHandler> virtualThreadExecutorCustomizer() {
+        return protocolHandler -> {
+            log.info("Requests are served on virtual threads");
+            protocolHandler.setExecutor(Executors.newThreadPerTaskExecutor(
+                    Thread.ofVirtual().name("tomcat-handler-", 0).factory()));
+        };
+    }
+}
@@ -0,0 +1,211 @@
+package ee.taltech.inbankbackend.controller;
+
+import com.fasterxml.jackson.databind.ObjectMapper;
+import ee.taltech.inbankbackend.dto.DecisionResponse;
+import ee.taltech.inbankbackend.service.AdaptiveConcurrencyLimiter;
+import ee.taltech.inbankbackend.service.ClientRateLimiter;
+import ee.taltech.inbankbackend.service.WarmUpScope;
+import ee.taltech.inbankbackend.util.AdmissionControlConstants;
+import ee.taltech.inbankbackend.util.ErrorMessage;
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.Gauge;
+import io.micrometer.core.instrument.MeterRegistry;
+import jakarta.servlet.FilterChain;
+import jakarta.servlet.ServletException;
+import jakarta.servlet.http.HttpServletRequest;
+import jakarta.servlet.http.HttpServletResponse;
+import org.springframework.http.HttpHeaders;
+import org.springframework.http.HttpStatus;
+import org.springframework.http.InvalidMediaTypeException;
+import org.springframework.http.MediaType;
+import org.springframework.util.MimeTypeUtils;
+import org.springframework.web.filter.OncePerRequestFilter;
+
+import java.io.IOException;
+import java.security.Principal;
+import java.util.Collections;
+import java.util.List;
+import java.util.Set;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Admission control in front of the decision endpoints.
+ * <br><br>
+ * - A client over its rate limit is answered with 429 Too Many Requests and a Retry-After header,
+ * see ClientRateLimiter. The client is the authenticated user, or else the remote address. A request from
+ * a trusted proxy is limited by the client address the proxy appended to X-Forwarded-For, the addresses before it
+ * are set by the client and are not trusted.<br>
+ * - A request over the concurrency limit is answered with 503 Service Unavailable,
+ * see AdaptiveConcurrencyLimiter. The latency of the batch requests depends on their size, so it is not used
+ * for the limit.<br>
+ * - The rejections are written in the binary format of {@link DecisionBinaryCodec} when the request accepts it
+ * before JSON, like the responses of the controller.<br>
+ * - Either limit is skipped when it is null, i.e. disabled.<br>
+ * - The synthetic requests of the startup warm-up, i.e. the ones in a {@link WarmUpScope}, pass without a limit and
+ * are not counted, their latencies would otherwise set the latency without load of the concurrency limit while the
+ * code is still interpreted.
+ * <br><br>
+ * Every request is counted in {@value #REQUESTS} by whether it was admitted, throttled or shed.
+ */
+public class AdmissionControlFilter extends OncePerRequestFilter {
+    static final String REQUESTS = "http.admission";
+    static final String LIMIT = "http.admission.limit";
+    static final String IN_FLIGHT = "http.admission.in_flight";
+    private static final String X_FORWARDED_FOR = "X-Forwarded-For";
+
+    private final ClientRateLimiter rateLimiter;
+    private final AdaptiveConcurrencyLimiter concurrencyLimiter;
+    private final Set<String> trustedProxies;
+    private final Set<String> batchPaths;
+    private final Rejection tooManyRequests;
+    private final Rejection overloaded;
+    private final Counter admitted;
+    private final Counter throttled;
+    private final Counter shed;
+
+    /**
+     * @param rateLimiter Per-client rate limit, null if disabled
+     * @param concurrencyLimiter Concurrency limit, null if disabled
+     */
+    public AdmissionControlFilter(ClientRateLimiter rateLimiter, AdaptiveConcurrencyLimiter concurrencyLimiter,
+                                  AdmissionControlConstants constants,
+                                  ObjectMapper objectMapper, MeterRegistry meterRegistry) throws IOException {
+        this.rateLimiter = rateLimiter;
+        this.concurrencyLimiter = concurrencyLimiter;
+        this.trustedProxies = Set.copyOf(constants.getRateLimit().getTrustedProxies());
+        this.batchPaths = Set.copyOf(constants.getBatchPaths());
+        this.tooManyRequests = Rejection.of(HttpStatus.TOO_MANY_REQUESTS, ErrorMessage.TOO_MANY_REQUESTS, objectMapper);
+        this.overloaded = Rejection.of(HttpStatus.SERVICE_UNAVAILABLE, ErrorMessage.SERVICE_OVERLOADED, objectMapper);
+        this.admitted = requestCounter(meterRegistry, "admitted");
+        this.throttled = requestCounter(meterRegistry, "throttled");
+        this.shed = requestCounter(meterRegistry, "shed");
+        if (concurrencyLimiter != null) {
+            Gauge.builder(LIMIT, concurrencyLimiter, AdaptiveConcurrencyLimiter::getLimit)
+                    .description("Requests admitted in flight at once")
+                    .register(meterRegistry);
+            Gauge.builder(IN_FLIGHT, concurrencyLimiter, AdaptiveConcurrencyLimiter::getInFlight)
+                    .description("Admitted requests in flight")
+                    .register(meterRegistry);
+        }
+    }
+
+    private static Counter requestCounter(MeterRegistry registry, String result) {
+        return Counter.builder(REQUESTS)
+                .description("Requests to the decision endpoints by admission result")
+                .tag("result", result)
+                .register(registry);
+    }
+
+    @Override
+    protected void doFilterInternal(HttpServletRequest request, HttpServletResponse response, FilterChain chain)
+            throws ServletException, IOException {
+        if (WarmUpScope.isActive()) {
+            chain.doFilter(request, response);
+            return;
+        }
+        if (rateLimiter != null) {
+            long waitNanos = rateLimiter.tryAcquire(clientOf(request));
+            if (waitNanos > 0) {
+                throttled.increment();
+                long retryAfterSeconds = Math.max(1, TimeUnit.NANOSECONDS.toSeconds(waitNanos + 999_999_999));
+                response.setHeader(HttpHeaders.RETRY_AFTER, Long.toString(retryAfterSeconds));
+                tooManyRequests.write(request, response);
+                return;
+            }
+        }
+        if (concurrencyLimiter == null) {
+            admitted.increment();
+            chain.doFilter(request, response);
+            return;
+        }
+        if (!concurrencyLimiter.tryAcquire()) {
+            shed.increment();
+            overloaded.write(request, response);
+            return;
+        }
+        admitted.increment();
+        boolean batch = batchPaths.contains(request.getServletPath());
+        long start = System.nanoTime();
+        try {
+            chain.doFilter(request, response);
+        } finally {
+            if (batch) {
+                concurrencyLimiter.release();
+            } else {
+                concurrencyLimiter.release(System.nanoTime() - start);
+            }
+        }
+    }
+
+    private String clientOf(HttpServletRequest request) {
+        Principal principal = request.getUserPrincipal();
+        if (principal != null) {
+            // Separate from the addresses, so a user name cannot take the bucket of an address.
+            return "user:" + principal.getName();
+        }
+        String address = request.getRemoteAddr();
+        if (!trustedProxies.contains(address)) {
+            return address;
+        }
+        // Every proxy appends the address it received the request from, so the last address that is not a trusted
+        // proxy is the client, the ones before it may be forged.
+        List<String> forwardedFor = Collections.list(request.getHeaders(X_FORWARDED_FOR));
+        for (int i = forwardedFor.size() - 1; i >= 0; i--) {
+            String[] hops = forwardedFor.get(i).split(",");
+            for (int j = hops.length - 1; j >= 0; j--) {
+                String hop = hops[j].trim();
+                if (!hop.isEmpty() && !trustedProxies.contains(hop)) {
+                    return hop;
+                }
+            }
+        }
+        return address;
+    }
+
+    /**
+     * Rejection with its bodies in both formats, serialized once as they never change.
+     */
+    private record Rejection(HttpStatus status, byte[] json, byte[] binary) {
+        static Rejection of(HttpStatus status, ErrorMessage error, ObjectMapper objectMapper) throws IOException {
+            DecisionResponse response = new DecisionResponse(null, null, error.getMessage());
+            return new Rejection(status, objectMapper.writeValueAsBytes(response),
+                    DecisionBinaryCodec.writeResponse(response));
+        }
+
+        void write(HttpServletRequest request, HttpServletResponse response) throws IOException {
+            boolean binary = acceptsBinary(request);
+            byte[] body = binary ? this.binary : json;
+            response.setStatus(status.value());
+            response.setContentType(binary ? DecisionBinaryCodec.MEDIA_TYPE_VALUE : MediaType.APPLICATION_JSON_VALUE);
+            response.setContentLength(body.length);
+            response.getOutputStream().write(body);
+        }
+    }
+
+    /**
+     * Whether the binary format is the most preferred of the accepted formats. JSON is preferred when the request
+     * accepts both equally or accepts any media type, as by the message converters.
+     */
+    private static boolean acceptsBinary(HttpServletRequest request) {
+        String accept = request.getHeader(HttpHeaders.ACCEPT);
+        if (accept == null || !accept.contains(DecisionBinaryCodec.MEDIA_TYPE_VALUE)) {
+            return false;
+        }
+        List<MediaType> accepted;
+        try {
+            accepted = MediaType.parseMediaTypes(accept);
+        } catch (InvalidMediaTypeException e) {
+            return false;
+        }
+        MimeTypeUtils.sortBySpecificity(accepted);
+        for (MediaType mediaType : accepted) {
+            if (mediaType.isCompatibleWith(MediaType.APPLICATION_JSON)) {
+                return false;
+            }
+            if (mediaType.isCompatibleWith(DecisionBinaryHttpMessageConverter.MEDIA_TYPE)) {
+                return true;
+            }
+        }
+        return false;
+    }
+}
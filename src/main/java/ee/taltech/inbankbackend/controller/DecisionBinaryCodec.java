@@ -0,0 +1,140 @@
+package ee.taltech.inbankbackend.controller;
+
+import ee.taltech.inbankbackend.dto.Country;
+import ee.taltech.inbankbackend.dto.DecisionRequest;
+import ee.taltech.inbankbackend.dto.DecisionResponse;
+
+import java.nio.BufferUnderflowException;
+import java.nio.ByteBuffer;
+import java.nio.charset.StandardCharsets;
+
+/**
+ * Binary format of the decision requests and responses, the {@value #MEDIA_TYPE_VALUE} media type, for internal
+ * callers that make so many decisions that JSON is a measurable cost.
+ * <br><br>
+ * Every message starts with the format version (byte). All numbers are big-endian.<br>
+ * - A request is then the country ordinal (byte, -1 for none), the loan period (int), the loan amount (long,
+ * {@link Long#MIN_VALUE} for none) and the personal code (unsigned byte length and the ASCII bytes, 255 for none).<br>
+ * - A response is then the loan amount and the loan period (int, {@link Integer#MIN_VALUE} for none) and
+ * the error message (unsigned short length and the UTF-8 bytes, 65535 for none).
+ */
+public final class DecisionBinaryCodec {
+    public static final String MEDIA_TYPE_VALUE = "application/vnd.inbank.decision";
+    // Largest request, so a buffer of this size can hold any request.
+    public static final int MAXIMUM_REQUEST_SIZE = 1 + 1 + Integer.BYTES + Long.BYTES + 1 + 254;
+
+    private static final byte FORMAT_VERSION = 1;
+    // Size of a response without the error message.
+    private static final int RESPONSE_HEADER_SIZE = 1 + 2 * Integer.BYTES + Short.BYTES;
+    private static final int NO_PERSONAL_CODE = 255;
+    private static final int NO_ERROR_MESSAGE = 65535;
+    private static final Country[] COUNTRIES = Country.values();
+
+    private DecisionBinaryCodec() {
+    }
+
+    /**
+     * Writes the request at the position of the buffer and moves the position after it.
+     *
+     * @throws IllegalArgumentException If the personal code is longer than 254 ASCII characters
+     */
+    public static void writeRequest(DecisionRequest request, ByteBuffer buffer) {
+        byte[] personalCode = request.getPersonalCode() == null
+                ? null : request.getPersonalCode().getBytes(StandardCharsets.US_ASCII);
+        if (personalCode != null && personalCode.length >= NO_PERSONAL_CODE) {
+            throw new IllegalArgumentException("Personal code is too long");
+        }
+        buffer.put(FORMAT_VERSION);
+        buffer.put(request.getCountry() == null ? -1 : (byte) request.getCountry().ordinal());
+        buffer.putInt(request.getLoanPeriod());
+        buffer.putLong(request.getLoanAmount() == null ? Long.MIN_VALUE : request.getLoanAmount());
+        if (personalCode == null) {
+            buffer.put((byte) NO_PERSONAL_CODE);
+        } else {
+            buffer.put((byte) personalCode.length);
+            buffer.put(personalCode);
+        }
+    }
+
+    /**
+     * Reads the request from the position of the buffer to its limit.
+     *
+     * @return The request, or null if the buffer does not hold exactly one valid request
+     */
+    public static DecisionRequest readRequest(ByteBuffer buffer) {
+        try {
+            if (buffer.get() != FORMAT_VERSION) {
+                return null;
+            }
+            byte countryOrdinal = buffer.get();
+            if (countryOrdinal < -1 || countryOrdinal >= COUNTRIES.length) {
+                return null;
+            }
+            int loanPeriod = buffer.getInt();
+            long loanAmount = buffer.getLong();
+            int personalCodeLength = Byte.toUnsignedInt(buffer.get());
+            String personalCode = null;
+            if (personalCodeLength != NO_PERSONAL_CODE) {
+                byte[] bytes = new byte[personalCodeLength];
+                buffer.get(bytes);
+                personalCode = new String(bytes, StandardCharsets.US_ASCII);
+            }
+            if (buffer.hasRemaining()) {
+                return null;
+            }
+            return new DecisionRequest(personalCode, loanAmount == Long.MIN_VALUE ? null : loanAmount, loanPeriod,
+                    countryOrdinal == -1 ? null : COUNTRIES[countryOrdinal]);
+        } catch (BufferUnderflowException e) {
+            return null;
+        }
+    }
+
+    /**
+     * Writes the response. An error message longer than 65534 UTF-8 bytes is truncated.
+     */
+    public static byte[] writeResponse(DecisionResponse response) {
+        byte[] errorMessage = response.getErrorMessage() == null
+                ? null : response.getErrorMessage().getBytes(StandardCharsets.UTF_8);
+        int errorMessageLength = errorMessage == null ? 0 : Math.min(errorMessage.length, NO_ERROR_MESSAGE - 1);
+        ByteBuffer buffer = ByteBuffer.allocate(RESPONSE_HEADER_SIZE + errorMessageLength);
+        buffer.put(FORMAT_VERSION);
+        buffer.putInt(response.getLoanAmount() == null ? Integer.MIN_VALUE : response.getLoanAmount());
+        buffer.putInt(response.getLoanPeriod() == null ? Integer.MIN_VALUE : response.getLoanPeriod());
+        if (errorMessage == null) {
+            buffer.putShort((short) NO_ERROR_MESSAGE);
+        } else {
+            buffer.putShort((short) errorMessageLength);
+            buffer.put(errorMessage, 0, errorMessageLength);
+        }
+        return buffer.array();
+    }
+
+    /**
+     * Reads the response from the position of the buffer to its limit.
+     *
+     * @return The response, or null if the buffer does not hold exactly one valid response
+     */
+    public static DecisionResponse readResponse(ByteBuffer buffer) {
+        try {
+            if (buffer.get() != FORMAT_VERSION) {
+                return null;
+            }
+            int loanAmount = buffer.getInt();
+            int loanPeriod = buffer.getInt();
+            int errorMessageLength = Short.toUnsignedInt(buffer.getShort());
+            String errorMessage = null;
+            if (errorMessageLength != NO_ERROR_MESSAGE) {
+                byte[] bytes = new byte[errorMessageLength];
+                buffer.get(bytes);
+                errorMessage = new String(bytes, StandardCharsets.UTF_8);
+            }
+            if (buffer.hasRemaining()) {
+                return null;
+            }
+            return new DecisionResponse(loanAmount == Integer.MIN_VALUE ? null : loanAmount,
+                    loanPeriod == Integer.MIN_VALUE ? null : loanPeriod, errorMessage);
+        } catch (BufferUnderflowException e) {
+            return null;
+        }
+    }
+}
@@ -0,0 +1,67 @@
+package ee.taltech.inbankbackend.controller;
+
+import ee.taltech.inbankbackend.dto.DecisionRequest;
+import ee.taltech.inbankbackend.dto.DecisionResponse;
+import org.springframework.http.HttpInputMessage;
+import org.springframework.http.HttpOutputMessage;
+import org.springframework.http.MediaType;
+import org.springframework.http.converter.AbstractHttpMessageConverter;
+import org.springframework.http.converter.HttpMessageNotReadableException;
+import org.springframework.http.converter.HttpMessageNotWritableException;
+
+import java.io.IOException;
+import java.nio.ByteBuffer;
+
+/**
+ * Reads DecisionRequest and writes DecisionResponse in the binary format of {@link DecisionBinaryCodec}.
+ * <br><br>
+ * POST /loan/decision is served in this format when the request has the Content-Type and the Accept header
+ * {@value DecisionBinaryCodec#MEDIA_TYPE_VALUE}, by the same controller and decision engine as JSON requests.
+ * Error responses are written in the format as well. A request that is not a valid binary request is rejected
+ * with HttpMessageNotReadableException, like a malformed JSON request.
+ * <br><br>
+ * The converter has to come after the JSON converters, so JSON stays the default for requests that accept any
+ * media type, see DecisionBinaryConfiguration.
+ */
+public class DecisionBinaryHttpMessageConverter extends AbstractHttpMessageConverter<Object> {
+    public static final MediaType MEDIA_TYPE = MediaType.parseMediaType(DecisionBinaryCodec.MEDIA_TYPE_VALUE);
+
+    public DecisionBinaryHttpMessageConverter() {
+        super(MEDIA_TYPE);
+    }
+
+    @Override
+    protected boolean supports(Class<?> clazz) {
+        return clazz == DecisionRequest.class || clazz == DecisionResponse.class;
+    }
+
+    @Override
+    public boolean canRead(Class<?> clazz, MediaType mediaType) {
+        return clazz == DecisionRequest.class && mediaType != null && canRead(mediaType);
+    }
+
+    @Override
+    public boolean canWrite(Class<?> clazz, MediaType mediaType) {
+        return clazz == DecisionResponse.class && canWrite(mediaType);
+    }
+
+    @Override
+    protected Object readInternal(Class<?> clazz, HttpInputMessage inputMessage)
+            throws IOException, HttpMessageNotReadableException {
+        // One byte more than any request, so a longer body is rejected.
+        byte[] body = inputMessage.getBody().readNBytes(DecisionBinaryCodec.MAXIMUM_REQUEST_SIZE + 1);
+        DecisionRequest request = DecisionBinaryCodec.readRequest(ByteBuffer.wrap(body));
+        if (request == null) {
+            throw new HttpMessageNotReadableException("Invalid binary decision request", inputMessage);
+        }
+        return request;
+    }
+
+    @Override
+    protected void writeInternal(Object response, HttpOutputMessage outputMessage)
+            throws IOException, HttpMessageNotWritableException {
+        byte[] body = DecisionBinaryCodec.writeResponse((DecisionResponse) response);
+        outputMessage.getHeaders().setContentLength(body.length);
+        outputMessage.getBody().write(body);
+    }
+}
@@ -1,24 +1,46 @@
 package ee.taltech.inbankbackend.controller;
 
+import ee.taltech.inbankbackend.dto.Country;
 import ee.taltech.inbankbackend.dto.DecisionRequest;
 import ee.taltech.inbankbackend.dto.DecisionResponse;
+import ee.taltech.inbankbackend.dto.OfferRequest;
+import ee.taltech.inbankbackend.dto.OfferResponse;
+import ee.taltech.inbankbackend.service.DecisionBatchService;
+import ee.taltech.inbankbackend.service.DecisionCoalescingService;
 import ee.taltech.inbankbackend.service.DecisionEngineService;
+import ee.taltech.inbankbackend.service.DecisionResultCache;
+import ee.taltech.inbankbackend.util.DecisionCacheConstants;
+import jakarta.servlet.http.HttpServletResponse;
 import lombok.RequiredArgsConstructor;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnWebApplication;
+import org.springframework.http.CacheControl;
 import org.springframework.http.HttpStatus;
+import org.springframework.http.MediaType;
 import org.springframework.http.ResponseEntity;
 import org.springframework.web.bind.annotation.CrossOrigin;
+import org.springframework.web.bind.annotation.GetMapping;
 import org.springframework.web.bind.annotation.PostMapping;
 import org.springframework.web.bind.annotation.RequestBody;
 import org.springframework.web.bind.annotation.RequestMapping;
+import org.springframework.web.bind.annotation.RequestParam;
 import org.springframework.web.bind.annotation.RestController;
 
+import java.io.IOException;
+import java.io.InputStream;
+import java.util.List;
+
 @RequiredArgsConstructor
 @RestController
 @RequestMapping("/loan")
 @CrossOrigin
+@ConditionalOnWebApplication(type = ConditionalOnWebApplication.Type.SERVLET)
 public class DecisionEngineController {
 
+    private final DecisionCoalescingService decisionCoalescingService;
     private final DecisionEngineService decisionEngine;
+    private final DecisionBatchService decisionBatchService;
+    private final DecisionResultCache decisionResultCache;
+    private final DecisionCacheConstants decisionCacheConstants;
 
     /**
      * A REST endpoint that handles requests for loan decisions.
@@ -28,13 +50,96 @@ public class DecisionEngineController {
      * - If the personal ID code is invalid, the endpoint returns a bad request response with an error message.<br>
      * - If an unexpected error occurs, the endpoint returns an internal server error response with an error message.<br>
      * - If no valid loans can be found, the endpoint returns a not found response with an error message.<br>
-     * - If a valid loan is found, a DecisionResponse is returned containing the approved loan amount and period.
+     * - If a valid loan is found, a DecisionResponse is returned containing the approved loan amount and period.<br>
+     * - Identical requests arriving at the same time share one decision, see DecisionCoalescingService.
      *
      * @param request The request body containing the customer's personal ID code, requested loan amount, loan period and country
      * @return A ResponseEntity with a DecisionResponse body containing the approved loan amount and period, and an error message (if any)
      */
     @PostMapping("/decision")
     public ResponseEntity<DecisionResponse> requestDecision(@RequestBody DecisionRequest request) {
-        return new ResponseEntity<>(decisionEngine.calculateApprovedLoan(request), HttpStatus.OK);
+        return new ResponseEntity<>(decisionCoalescingService.calculateApprovedLoan(request), HttpStatus.OK);
+    }
+
+    /**
+     * A cacheable form of the decision endpoint, with the request in the query string, e.g.
+     * GET /loan/decision?personalCode=...&amp;loanAmount=4000&amp;loanPeriod=12&amp;country=ESTONIA.<br><br>
+     * - The response is the same as the POST endpoint's, rejections included.<br>
+     * - A successful response carries a strong ETag and Cache-Control: private, max-age. The personal code is in the
+     * URL, so only the customer's browser may keep the response, never the CDN or the gateways. A request with
+     * a matching If-None-Match header is answered with 304 Not Modified.<br>
+     * - Decisions are kept on the server per parameter version and day, see DecisionResultCache, so a repeated or
+     * conditional request is usually answered without making the decision again.<br>
+     * - A query parameter of the wrong type, e.g. an unknown country, is answered with a bad request response.
+     *
+     * @return A ResponseEntity with a DecisionResponse body containing the approved loan amount and period, and an error message (if any)
+     */
+    @GetMapping(value = "/decision", produces = MediaType.APPLICATION_JSON_VALUE)
+    public ResponseEntity<DecisionResponse> getDecision(@RequestParam(required = false) String personalCode,
+                                                        @RequestParam(required = false) Long loanAmount,
+                                                        @RequestParam(defaultValue = "0") int loanPeriod,
+                                                        @RequestParam(required = false) Country country) {
+        DecisionResultCache.Decision decision = decisionResultCache.calculateApprovedLoan(
+                new DecisionRequest(personalCode, loanAmount, loanPeriod, country));
+        // Spring answers a GET with 304 and without the body when the ETag matches the If-None-Match header.
+        return ResponseEntity.ok()
+                .eTag(decision.eTag())
+                .cacheControl(CacheControl.maxAge(decisionCacheConstants.getMaxAge()).cachePrivate())
+                .body(decision.response());
+    }
+
+    /**
+     * A REST endpoint that returns every loan offer for the customer at once, e.g. for a loan period slider.
+     * The endpoint accepts POST requests with a request body containing the customer's personal ID code and country,
+     * and returns the approved loan amount for every valid loan period.<br><br>
+     * - If the personal ID code, the country or the customer's age is invalid, the endpoint returns the same
+     * error response as the decision endpoint.<br>
+     * - If the customer has debt, the offers are empty and the response contains an error message.<br>
+     * - If no loan period has an approved amount, the endpoint returns a not found response with an error message.
+     *
+     * @param request The request body containing the customer's personal ID code and country
+     * @return A ResponseEntity with an OfferResponse body containing the offers in increasing loan period order
+     */
+    @PostMapping("/offers")
+    public ResponseEntity<OfferResponse> requestOffers(@RequestBody OfferRequest request) {
+        return new ResponseEntity<>(decisionEngine.calculateOffers(request), HttpStatus.OK);
+    }
+
+    /**
+     * A REST endpoint that handles requests for loan decisions in batches.
+     * The endpoint accepts POST requests with a request body containing an array of decision requests
+     * and returns an array of decision responses in the same order.<br><br>
+     * - If a single request is invalid, its response contains the same error message as the single decision
+     * endpoint would return, and the rest of the batch is still evaluated.<br>
+     * - If the batch is larger than the maximum batch size, the endpoint returns a bad request response
+     * with an error message.
+     *
+     * The body is read as a stream, so a batch over the maximum batch size is rejected as soon as the first request
+     * over the limit is read.
+     *
+     * @param requests The request body containing the decision requests
+     * @return A ResponseEntity with the decision responses in the same order as the requests
+     * @throws IOException If reading the requests fails
+     */
+    @PostMapping(value = "/decisions", consumes = MediaType.APPLICATION_JSON_VALUE)
+    public ResponseEntity<List<DecisionResponse>> requestDecisions(InputStream requests) throws IOException {
+        return new ResponseEntity<>(decisionBatchService.calculateApprovedLoans(requests), HttpStatus.OK);
+    }
+
+    /**
+     * A REST endpoint that streams loan decisions for newline delimited JSON requests.
+     * Each line of the request body is a decision request, and each line of the response body is the
+     * decision response of the request on the same line. Neither the request nor the response is buffered fully
+     * in memory, so the endpoint can be used for files of any size.
+     *
+     * @param requests The request body containing newline delimited decision requests
+     * @param response The response where newline delimited decision responses are written to
+     * @throws IOException If reading the requests or writing the responses fails
+     */
+    @PostMapping(value = "/decisions/stream", consumes = MediaType.APPLICATION_NDJSON_VALUE,
+            produces = MediaType.APPLICATION_NDJSON_VALUE)
+    public void streamDecisions(InputStream requests, HttpServletResponse response) throws IOException {
+        response.setContentType(MediaType.APPLICATION_NDJSON_VALUE);
+        decisionBatchService.streamApprovedLoans(requests, response.getOutputStream());
     }
 }
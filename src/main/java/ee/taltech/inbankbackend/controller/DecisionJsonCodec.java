@@ -0,0 +1,340 @@
+package ee.taltech.inbankbackend.controller;
+
+import ee.taltech.inbankbackend.dto.Country;
+import ee.taltech.inbankbackend.dto.DecisionRequest;
+import ee.taltech.inbankbackend.dto.DecisionResponse;
+
+import java.nio.charset.StandardCharsets;
+import java.util.Arrays;
+
+/**
+ * Reads decision requests from and writes decision responses to UTF-8 JSON bytes, without Jackson.
+ * <br><br>
+ * Only the plain form of a request is read: an object with the four fields in any order, each at most once,
+ * ASCII strings without escapes, integers without fractions or exponents and the exact country names. Anything else,
+ * including a malformed request, is left to Jackson, so every request is read, or rejected, exactly as Jackson
+ * would. Responses are written in the same form as Jackson writes them, null fields included.
+ */
+public final class DecisionJsonCodec {
+    private static final Country[] COUNTRIES = Country.values();
+    private static final byte[][] COUNTRY_NAMES = Arrays.stream(COUNTRIES)
+            .map(country -> country.name().getBytes(StandardCharsets.US_ASCII))
+            .toArray(byte[][]::new);
+    private static final byte[] PERSONAL_CODE = ascii("personalCode");
+    private static final byte[] LOAN_AMOUNT = ascii("loanAmount");
+    private static final byte[] LOAN_PERIOD = ascii("loanPeriod");
+    private static final byte[] COUNTRY = ascii("country");
+    private static final byte[] NULL = ascii("null");
+    private static final byte[] HEX = ascii("0123456789ABCDEF");
+    // Longer numbers may not fit, they are left to Jackson.
+    private static final int MAXIMUM_LONG_DIGITS = 18;
+    private static final int MAXIMUM_INT_DIGITS = 9;
+    // The fixed text of a response, two ints of up to 11 characters each, e.g. -2147483648, and a null message
+    // or its two quotes.
+    private static final int MAXIMUM_RESPONSE_SIZE_WITHOUT_MESSAGE = 45 + 2 * 11 + 4;
+
+    private DecisionJsonCodec() {
+    }
+
+    private static byte[] ascii(String value) {
+        return value.getBytes(StandardCharsets.US_ASCII);
+    }
+
+    /**
+     * Reads a decision request.
+     *
+     * @param json UTF-8 JSON
+     * @return The request, or null if the request is not in the plain form and has to be read by Jackson
+     */
+    public static DecisionRequest readRequest(byte[] json, int offset, int length) {
+        return new Reader(json, offset, offset + length).readRequest();
+    }
+
+    /**
+     * Writes a decision response.
+     *
+     * @return UTF-8 JSON
+     */
+    public static byte[] writeResponse(DecisionResponse response) {
+        String errorMessage = response.getErrorMessage();
+        // Every character of the message takes at most 6 bytes, escaped or in UTF-8.
+        byte[] json = new byte[MAXIMUM_RESPONSE_SIZE_WITHOUT_MESSAGE
+                + (errorMessage == null ? 0 : 6 * errorMessage.length())];
+        int position = 0;
+        position = putAscii(json, position, "{\"loanAmount\":");
+        position = putInteger(json, position, response.getLoanAmount());
+        position = putAscii(json, position, ",\"loanPeriod\":");
+        position = putInteger(json, position, response.getLoanPeriod());
+        position = putAscii(json, position, ",\"errorMessage\":");
+        position = putString(json, position, errorMessage);
+        json[position++] = '}';
+        return Arrays.copyOf(json, position);
+    }
+
+    private static int putAscii(byte[] json, int position, String value) {
+        for (int i = 0; i < value.length(); i++) {
+            json[position++] = (byte) value.charAt(i);
+        }
+        return position;
+    }
+
+    private static int putInteger(byte[] json, int position, Integer value) {
+        if (value == null) {
+            System.arraycopy(NULL, 0, json, position, NULL.length);
+            return position + NULL.length;
+        }
+        return putAscii(json, position, Integer.toString(value));
+    }
+
+    private static int putString(byte[] json, int position, String value) {
+        if (value == null) {
+            System.arraycopy(NULL, 0, json, position, NULL.length);
+            return position + NULL.length;
+        }
+        json[position++] = '"';
+        for (int i = 0; i < value.length(); i++) {
+            char c = value.charAt(i);
+            if (c == '"' || c == '\\') {
+                json[position++] = '\\';
+                json[position++] = (byte) c;
+            } else if (c < 0x20) {
+                position = putControlCharacter(json, position, c);
+            } else if (c < 0x80) {
+                json[position++] = (byte) c;
+            } else if (c < 0x800) {
+                json[position++] = (byte) (0xc0 | c >> 6);
+                json[position++] = (byte) (0x80 | c & 0x3f);
+            } else if (Character.isHighSurrogate(c) && i + 1 < value.length()
+                    && Character.isLowSurrogate(value.charAt(i + 1))) {
+                int codePoint = Character.toCodePoint(c, value.charAt(++i));
+                json[position++] = (byte) (0xf0 | codePoint >> 18);
+                json[position++] = (byte) (0x80 | codePoint >> 12 & 0x3f);
+                json[position++] = (byte) (0x80 | codePoint >> 6 & 0x3f);
+                json[position++] = (byte) (0x80 | codePoint & 0x3f);
+            } else {
+                json[position++] = (byte) (0xe0 | c >> 12);
+                json[position++] = (byte) (0x80 | c >> 6 & 0x3f);
+                json[position++] = (byte) (0x80 | c & 0x3f);
+            }
+        }
+        json[position++] = '"';
+        return position;
+    }
+
+    private static int putControlCharacter(byte[] json, int position, char c) {
+        json[position++] = '\\';
+        switch (c) {
+            case '\b' -> json[position++] = 'b';
+            case '\t' -> json[position++] = 't';
+            case '\n' -> json[position++] = 'n';
+            case '\f' -> json[position++] = 'f';
+            case '\r' -> json[position++] = 'r';
+            default -> {
+                json[position++] = 'u';
+                json[position++] = '0';
+                json[position++] = '0';
+                json[position++] = HEX[c >> 4];
+                json[position++] = HEX[c & 0xf];
+            }
+        }
+        return position;
+    }
+
+    /**
+     * Reads one request, every method returns false, or null, as soon as the request is not in the plain form.
+     */
+    private static final class Reader {
+        private final byte[] json;
+        private final int end;
+        private int position;
+
+        private String personalCode;
+        private Long loanAmount;
+        private int loanPeriod;
+        private Country country;
+        // Bit per field that was read, a repeated field is left to Jackson.
+        private int fields;
+
+        Reader(byte[] json, int offset, int end) {
+            this.json = json;
+            this.position = offset;
+            this.end = end;
+        }
+
+        DecisionRequest readRequest() {
+            skipWhitespace();
+            if (!consume('{')) {
+                return null;
+            }
+            skipWhitespace();
+            if (!consume('}')) {
+                do {
+                    skipWhitespace();
+                    if (!readField()) {
+                        return null;
+                    }
+                    skipWhitespace();
+                } while (consume(','));
+                if (!consume('}')) {
+                    return null;
+                }
+            }
+            skipWhitespace();
+            // Jackson ignores what follows the object, which is left to it as well.
+            if (position != end) {
+                return null;
+            }
+            return new DecisionRequest(personalCode, loanAmount, loanPeriod, country);
+        }
+
+        private boolean readField() {
+            int field;
+            if (consumeName(PERSONAL_CODE)) {
+                field = 1;
+            } else if (consumeName(LOAN_AMOUNT)) {
+                field = 2;
+            } else if (consumeName(LOAN_PERIOD)) {
+                field = 4;
+            } else if (consumeName(COUNTRY)) {
+                field = 8;
+            } else {
+                return false;
+            }
+            if ((fields & field) != 0) {
+                return false;
+            }
+            fields |= field;
+            skipWhitespace();
+            if (!consume(':')) {
+                return false;
+            }
+            skipWhitespace();
+            return switch (field) {
+                case 1 -> readPersonalCode();
+                case 2 -> readLoanAmount();
+                case 4 -> readLoanPeriod();
+                default -> readCountry();
+            };
+        }
+
+        private boolean readPersonalCode() {
+            if (consumeLiteral(NULL)) {
+                return true;
+            }
+            if (!consume('"')) {
+                return false;
+            }
+            int start = position;
+            while (position < end) {
+                byte b = json[position];
+                if (b == '"') {
+                    personalCode = new String(json, start, position - start, StandardCharsets.US_ASCII);
+                    position++;
+                    return true;
+                }
+                // Escapes, control and non-ASCII characters are left to Jackson, bytes are signed.
+                if (b == '\\' || b < 0x20) {
+                    return false;
+                }
+                position++;
+            }
+            return false;
+        }
+
+        private boolean readLoanAmount() {
+            if (consumeLiteral(NULL)) {
+                return true;
+            }
+            long value = readInteger(MAXIMUM_LONG_DIGITS);
+            if (value == Long.MIN_VALUE) {
+                return false;
+            }
+            loanAmount = value;
+            return true;
+        }
+
+        private boolean readLoanPeriod() {
+            long value = readInteger(MAXIMUM_INT_DIGITS);
+            if (value == Long.MIN_VALUE) {
+                return false;
+            }
+            loanPeriod = (int) value;
+            return true;
+        }
+
+        /**
+         * @return The integer, or {@link Long#MIN_VALUE} if there is no plain integer of at most maximumDigits
+         */
+        private long readInteger(int maximumDigits) {
+            boolean negative = consume('-');
+            int start = position;
+            long value = 0;
+            while (position < end && json[position] >= '0' && json[position] <= '9') {
+                value = value * 10 + (json[position] - '0');
+                position++;
+            }
+            int digits = position - start;
+            if (digits == 0 || digits > maximumDigits || (digits > 1 && json[start] == '0')) {
+                return Long.MIN_VALUE;
+            }
+            // Fractions and exponents are left to Jackson.
+            if (position < end && (json[position] == '.' || json[position] == 'e' || json[position] == 'E')) {
+                return Long.MIN_VALUE;
+            }
+            return negative ? -value : value;
+        }
+
+        private boolean readCountry() {
+            if (consumeLiteral(NULL)) {
+                return true;
+            }
+            for (int i = 0; i < COUNTRY_NAMES.length; i++) {
+                if (consumeName(COUNTRY_NAMES[i])) {
+                    country = COUNTRIES[i];
+                    return true;
+                }
+            }
+            return false;
+        }
+
+        /**
+         * Consumes a quoted name.
+         */
+        private boolean consumeName(byte[] name) {
+            int length = name.length + 2;
+            if (end - position < length || json[position] != '"' || json[position + length - 1] != '"'
+                    || !Arrays.equals(json, position + 1, position + length - 1, name, 0, name.length)) {
+                return false;
+            }
+            position += length;
+            return true;
+        }
+
+        private boolean consumeLiteral(byte[] literal) {
+            if (end - position < literal.length
+                    || !Arrays.equals(json, position, position + literal.length, literal, 0, literal.length)) {
+                return false;
+            }
+            position += literal.length;
+            return true;
+        }
+
+        private boolean consume(char c) {
+            if (position < end && json[position] == c) {
+                position++;
+                return true;
+            }
+            return false;
+        }
+
+        private void skipWhitespace() {
+            while (position < end) {
+                byte b = json[position];
+                if (b != ' ' && b != '\n' && b != '\r' && b != '\t') {
+                    return;
+                }
+                position++;
+            }
+        }
+    }
+}
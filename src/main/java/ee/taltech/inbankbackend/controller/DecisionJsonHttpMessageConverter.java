@@ -0,0 +1,93 @@
+package ee.taltech.inbankbackend.controller;
+
+import ee.taltech.inbankbackend.dto.DecisionRequest;
+import ee.taltech.inbankbackend.dto.DecisionResponse;
+import org.springframework.http.HttpHeaders;
+import org.springframework.http.HttpInputMessage;
+import org.springframework.http.HttpOutputMessage;
+import org.springframework.http.MediaType;
+import org.springframework.http.converter.AbstractHttpMessageConverter;
+import org.springframework.http.converter.HttpMessageNotReadableException;
+import org.springframework.http.converter.HttpMessageNotWritableException;
+import org.springframework.http.converter.json.MappingJackson2HttpMessageConverter;
+
+import java.io.ByteArrayInputStream;
+import java.io.IOException;
+import java.io.InputStream;
+import java.nio.charset.Charset;
+import java.nio.charset.StandardCharsets;
+
+/**
+ * Reads DecisionRequest and writes DecisionResponse JSON with {@link DecisionJsonCodec} instead of Jackson.
+ * <br><br>
+ * The body of a request is read into one byte array and parsed in place. A request that is not in the plain
+ * form the codec reads, e.g. a malformed one, is read from the same bytes by Jackson, so it is answered exactly
+ * as before, e.g. with HttpMessageNotReadableException. Every other type is left to the Jackson converter.
+ */
+public class DecisionJsonHttpMessageConverter extends AbstractHttpMessageConverter<Object> {
+    private final MappingJackson2HttpMessageConverter jacksonConverter;
+
+    /**
+     * @param jacksonConverter Reads the requests the codec leaves to Jackson
+     */
+    public DecisionJsonHttpMessageConverter(MappingJackson2HttpMessageConverter jacksonConverter) {
+        super(MediaType.APPLICATION_JSON, new MediaType("application", "*+json"));
+        this.jacksonConverter = jacksonConverter;
+    }
+
+    @Override
+    protected boolean supports(Class<?> clazz) {
+        return clazz == DecisionRequest.class || clazz == DecisionResponse.class;
+    }
+
+    @Override
+    public boolean canRead(Class<?> clazz, MediaType mediaType) {
+        return clazz == DecisionRequest.class && canRead(mediaType) && isUtf8(mediaType);
+    }
+
+    @Override
+    public boolean canWrite(Class<?> clazz, MediaType mediaType) {
+        return clazz == DecisionResponse.class && canWrite(mediaType) && isUtf8(mediaType);
+    }
+
+    // Other charsets are left to Jackson.
+    private static boolean isUtf8(MediaType mediaType) {
+        Charset charset = mediaType == null ? null : mediaType.getCharset();
+        return charset == null || charset.equals(StandardCharsets.UTF_8);
+    }
+
+    @Override
+    protected Object readInternal(Class<?> clazz, HttpInputMessage inputMessage)
+            throws IOException, HttpMessageNotReadableException {
+        byte[] body = inputMessage.getBody().readAllBytes();
+        DecisionRequest request = DecisionJsonCodec.readRequest(body, 0, body.length);
+        if (request != null) {
+            return request;
+        }
+        return jacksonConverter.read(clazz, new BufferedInputMessage(body, inputMessage.getHeaders()));
+    }
+
+    @Override
+    protected void writeInternal(Object response, HttpOutputMessage outputMessage)
+            throws IOException, HttpMessageNotWritableException {
+        byte[] json = DecisionJsonCodec.writeResponse((DecisionResponse) response);
+        outputMessage.getHeaders().setContentLength(json.length);
+        outputMessage.getBody().write(json);
+    }
+
+    /**
+     * Request body that was already read.
+     */
+    private record BufferedInputMessage(byte[] body, HttpHeaders headers) implements HttpInputMessage {
+
+        @Override
+        public InputStream getBody() {
+            return new ByteArrayInputStream(body);
+        }
+
+        @Override
+        public HttpHeaders getHeaders() {
+            return headers;
+        }
+    }
+}
@@ -0,0 +1,82 @@
+package ee.taltech.inbankbackend.controller;
+
+import ee.taltech.inbankbackend.dto.DecisionParametersDto;
+import ee.taltech.inbankbackend.exception.UnauthorizedException;
+import ee.taltech.inbankbackend.service.DecisionParametersService;
+import ee.taltech.inbankbackend.util.DecisionParametersConstants;
+import ee.taltech.inbankbackend.util.ErrorMessage;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnProperty;
+import org.springframework.http.HttpStatus;
+import org.springframework.http.ResponseEntity;
+import org.springframework.web.bind.annotation.GetMapping;
+import org.springframework.web.bind.annotation.PutMapping;
+import org.springframework.web.bind.annotation.RequestBody;
+import org.springframework.web.bind.annotation.RequestHeader;
+import org.springframework.web.bind.annotation.RequestMapping;
+import org.springframework.web.bind.annotation.RestController;
+
+import java.nio.charset.StandardCharsets;
+import java.security.MessageDigest;
+
+/**
+ * Admin REST endpoints for reading and replacing the decision parameters at runtime.
+ * The endpoints are only registered when application.decision-parameters.admin-endpoint-enabled is true.
+ * Every request has to carry application.decision-parameters.admin-token in the {@value #TOKEN_HEADER} header,
+ * compared in constant time, otherwise it is answered with 401. The application does not start with the endpoint
+ * enabled and no token.
+ */
+@RestController
+@RequestMapping("/admin/decision-parameters")
+@ConditionalOnProperty(prefix = "application.decision-parameters", name = "admin-endpoint-enabled",
+        havingValue = "true")
+public class DecisionParametersController {
+
+    static final String TOKEN_HEADER = "X-Admin-Token";
+
+    private final DecisionParametersService decisionParametersService;
+    private final byte[] adminToken;
+
+    public DecisionParametersController(DecisionParametersService decisionParametersService,
+                                        DecisionParametersConstants constants) {
+        if (constants.getAdminToken() == null || constants.getAdminToken().isBlank()) {
+            throw new IllegalStateException(
+                    "application.decision-parameters.admin-token must be set when the admin endpoint is enabled");
+        }
+        this.decisionParametersService = decisionParametersService;
+        this.adminToken = constants.getAdminToken().getBytes(StandardCharsets.UTF_8);
+    }
+
+    /**
+     * Returns the current decision parameters and their version, with the loan parameters of every country resolved.
+     */
+    @GetMapping
+    public ResponseEntity<DecisionParametersDto> getParameters(
+            @RequestHeader(name = TOKEN_HEADER, required = false) String token) {
+        authenticate(token);
+        return new ResponseEntity<>(decisionParametersService.describe(), HttpStatus.OK);
+    }
+
+    /**
+     * Validates the decision parameters and publishes them as a new version.
+     * Requests already in progress finish with the previous version, later requests use the new one.<br><br>
+     * - If the parameters are invalid, the endpoint returns a bad request response with an error message
+     * and the current parameters are kept.
+     *
+     * @param request The complete set of decision parameters, the version is ignored
+     * @param token The admin token
+     * @return A ResponseEntity with the published parameters and their version
+     */
+    @PutMapping
+    public ResponseEntity<DecisionParametersDto> publishParameters(
+            @RequestBody DecisionParametersDto request,
+            @RequestHeader(name = TOKEN_HEADER, required = false) String token) {
+        authenticate(token);
+        return new ResponseEntity<>(decisionParametersService.publish(request), HttpStatus.OK);
+    }
+
+    private void authenticate(String token) {
+        if (token == null || !MessageDigest.isEqual(adminToken, token.getBytes(StandardCharsets.UTF_8))) {
+            throw new UnauthorizedException(ErrorMessage.UNAUTHORIZED.getMessage());
+        }
+    }
+}
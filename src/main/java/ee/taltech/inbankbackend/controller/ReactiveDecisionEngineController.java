@@ -0,0 +1,91 @@
+package ee.taltech.inbankbackend.controller;
+
+import ee.taltech.inbankbackend.dto.DecisionRequest;
+import ee.taltech.inbankbackend.dto.DecisionResponse;
+import ee.taltech.inbankbackend.dto.OfferRequest;
+import ee.taltech.inbankbackend.dto.OfferResponse;
+import ee.taltech.inbankbackend.service.DecisionCoalescingService;
+import ee.taltech.inbankbackend.service.DecisionEngineService;
+import ee.taltech.inbankbackend.service.WarmUpScope;
+import lombok.RequiredArgsConstructor;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnWebApplication;
+import org.springframework.http.HttpStatus;
+import org.springframework.http.ResponseEntity;
+import org.springframework.http.server.reactive.ServerHttpRequest;
+import org.springframework.web.bind.annotation.CrossOrigin;
+import org.springframework.web.bind.annotation.PostMapping;
+import org.springframework.web.bind.annotation.RequestBody;
+import org.springframework.web.bind.annotation.RequestMapping;
+import org.springframework.web.bind.annotation.RestController;
+import reactor.core.publisher.Mono;
+import reactor.core.scheduler.Schedulers;
+
+import java.net.InetSocketAddress;
+import java.util.concurrent.CompletableFuture;
+
+/**
+ * Non-blocking variants of {@link DecisionEngineController#requestDecision(DecisionRequest)} and
+ * {@link DecisionEngineController#requestOffers(OfferRequest)}, registered when the application runs on WebFlux,
+ * i.e. with the reactive profile.
+ * The decision engine blocks on a credit profile cache miss while the profile is loaded, so the decisions and offers
+ * are made on the bounded elastic scheduler of Reactor and never on the event loop threads.
+ * A request identical to one being decided subscribes to that decision instead of waiting for it on a thread.
+ * The synthetic requests of the startup warm-up are decided within a {@link WarmUpScope}, there is no filter marking
+ * them as on the servlet stack.
+ * Errors are mapped to responses by GeneralExceptionAdvice, the same way as on the servlet stack.
+ */
+@RequiredArgsConstructor
+@RestController
+@RequestMapping("/loan")
+@CrossOrigin
+@ConditionalOnWebApplication(type = ConditionalOnWebApplication.Type.REACTIVE)
+public class ReactiveDecisionEngineController {
+
+    private final DecisionCoalescingService decisionCoalescingService;
+    private final DecisionEngineService decisionEngine;
+    private final StartupWarmUp startupWarmUp;
+
+    /**
+     * A REST endpoint that handles requests for loan decisions, with the same contract as the servlet endpoint.
+     *
+     * @param request The request body containing the customer's personal ID code, requested loan amount, loan period and country
+     * @param exchange The HTTP request, to recognize the requests of the startup warm-up
+     * @return A ResponseEntity with a DecisionResponse body containing the approved loan amount and period, and an error message (if any)
+     */
+    @PostMapping("/decision")
+    public Mono<ResponseEntity<DecisionResponse>> requestDecision(@RequestBody Mono<DecisionRequest> request,
+                                                                  ServerHttpRequest exchange) {
+        boolean warmUp = isWarmUpRequest(exchange);
+        return request.flatMap(decisionRequest ->
+                        Mono.fromFuture(() -> warmUp
+                                        ? WarmUpScope.call(() -> calculateApprovedLoanAsync(decisionRequest))
+                                        : calculateApprovedLoanAsync(decisionRequest))
+                                .subscribeOn(Schedulers.boundedElastic()))
+                .map(response -> new ResponseEntity<>(response, HttpStatus.OK));
+    }
+
+    /**
+     * A REST endpoint that returns every loan offer for the customer at once, with the same contract as the
+     * servlet endpoint.
+     *
+     * @param request The request body containing the customer's personal ID code and country
+     * @return A ResponseEntity with an OfferResponse body containing the offers in increasing loan period order
+     */
+    @PostMapping("/offers")
+    public Mono<ResponseEntity<OfferResponse>> requestOffers(@RequestBody Mono<OfferRequest> request) {
+        return request.publishOn(Schedulers.boundedElastic()).map(offerRequest ->
+                new ResponseEntity<>(decisionEngine.calculateOffers(offerRequest), HttpStatus.OK));
+    }
+
+    private CompletableFuture<DecisionResponse> calculateApprovedLoanAsync(DecisionRequest request) {
+        // The journal append of a request that waited for an identical one may block, so it is not run on the
+        // event loop either.
+        return decisionCoalescingService.calculateApprovedLoanAsync(request, Schedulers.boundedElastic()::schedule);
+    }
+
+    private boolean isWarmUpRequest(ServerHttpRequest request) {
+        InetSocketAddress remoteAddress = request.getRemoteAddress();
+        return startupWarmUp.isWarmUpRequest(request.getHeaders().getFirst(StartupWarmUp.HEADER),
+                remoteAddress == null ? null : remoteAddress.getAddress());
+    }
+}
@@ -0,0 +1,335 @@
+package ee.taltech.inbankbackend.controller;
+
+import com.fasterxml.jackson.core.JsonProcessingException;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import ee.taltech.inbankbackend.dto.DecisionRequest;
+import ee.taltech.inbankbackend.dto.OfferRequest;
+import ee.taltech.inbankbackend.service.DecisionParameters;
+import ee.taltech.inbankbackend.service.DecisionParametersService;
+import ee.taltech.inbankbackend.service.WarmUpScope;
+import ee.taltech.inbankbackend.util.StartupConstants;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.Timer;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.boot.web.context.WebServerApplicationContext;
+import org.springframework.boot.web.servlet.context.ServletWebServerApplicationContext;
+import org.springframework.http.HttpHeaders;
+import org.springframework.http.MediaType;
+import org.springframework.stereotype.Component;
+
+import java.io.IOException;
+import java.io.UncheckedIOException;
+import java.lang.management.CompilationMXBean;
+import java.lang.management.ManagementFactory;
+import java.net.InetAddress;
+import java.net.URI;
+import java.net.URLEncoder;
+import java.net.http.HttpClient;
+import java.net.http.HttpRequest;
+import java.net.http.HttpResponse;
+import java.nio.ByteBuffer;
+import java.nio.charset.StandardCharsets;
+import java.security.MessageDigest;
+import java.security.SecureRandom;
+import java.time.Duration;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.HexFormat;
+import java.util.List;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.LongAdder;
+
+/**
+ * Warms up the JIT before the application reports readiness, enabled with application.startup.warm-up.enabled.
+ * <br><br>
+ * Concurrent clients send the synthetic requests of {@link WarmUpRequests} to the application's own port, so the
+ * requests take the same path as real ones: Tomcat, the filters, the message converters, the controllers, the
+ * decision engine and the exception advice. Every request is sent in JSON, the decision requests also in the binary
+ * format and one of them per round as a GET, with a malformed request and an unknown country per round.
+ * The warm-up stops at the first of:<br>
+ * - every round was sent, application.startup.warm-up.iterations<br>
+ * - the time budget is used up<br>
+ * - compilation settled: the JIT compiled for less than settled-compilation-share of a settle-window<br>
+ * <br>
+ * Every synthetic request carries a random token of this application in the {@value #HEADER} header. The requests
+ * with the token from the loopback address are served within a {@link WarmUpScope}, so they skip the admission
+ * control, the decision journal and the decision outcome metrics, and the decision engine only logs their warnings,
+ * see WarmUpTurboFilter. Requests of real clients served meanwhile are not affected.
+ * The time taken is logged and recorded as {@value #DURATION}, tagged with what stopped the warm-up.
+ */
+@Component
+@Slf4j
+public class StartupWarmUp {
+    static final String DURATION = "startup.warm_up";
+    static final String HEADER = "X-Warm-Up";
+    private static final int TOKEN_BYTES = 16;
+    private static final Duration REQUEST_TIMEOUT = Duration.ofSeconds(10);
+    // Cut off in the middle of the personal code.
+    private static final byte[] MALFORMED_REQUEST = "{\"personalCode\":\"3".getBytes(StandardCharsets.UTF_8);
+    private static final String UNKNOWN_COUNTRY_REQUEST =
+            "{\"personalCode\":\"%s\",\"loanAmount\":%d,\"loanPeriod\":%d,\"country\":\"ATLANTIS\"}";
+
+    /**
+     * What stopped the warm-up.
+     */
+    public enum StopReason {
+        ITERATIONS,
+        TIME_BUDGET,
+        SETTLED,
+        INTERRUPTED
+    }
+
+    private final DecisionParametersService decisionParametersService;
+    private final StartupConstants.WarmUp constants;
+    private final ObjectMapper objectMapper;
+    private final MeterRegistry meterRegistry;
+    // Never leaves the application, so no other client can send it.
+    private final String token;
+
+    public StartupWarmUp(DecisionParametersService decisionParametersService, StartupConstants startupConstants,
+                         ObjectMapper objectMapper, MeterRegistry meterRegistry) {
+        this.decisionParametersService = decisionParametersService;
+        this.constants = startupConstants.getWarmUp();
+        this.objectMapper = objectMapper;
+        this.meterRegistry = meterRegistry;
+        byte[] tokenBytes = new byte[TOKEN_BYTES];
+        new SecureRandom().nextBytes(tokenBytes);
+        this.token = HexFormat.of().formatHex(tokenBytes);
+    }
+
+    /**
+     * Whether a request is a synthetic request of the warm-up: it carries the token of this application in the
+     * {@value #HEADER} header and was sent from the loopback address.
+     *
+     * @param token Value of the {@value #HEADER} header, may be null
+     * @param remoteAddress Address the request was sent from, may be null
+     */
+    public boolean isWarmUpRequest(String token, InetAddress remoteAddress) {
+        return token != null && remoteAddress != null && remoteAddress.isLoopbackAddress()
+                && MessageDigest.isEqual(this.token.getBytes(StandardCharsets.US_ASCII),
+                token.getBytes(StandardCharsets.US_ASCII));
+    }
+
+    String token() {
+        return token;
+    }
+
+    /**
+     * Sends the synthetic requests to the web server of the application until the warm-up stops.
+     *
+     * @param context Application context with a running web server
+     * @return What the warm-up did and why it stopped
+     */
+    public Result run(WebServerApplicationContext context) {
+        URI base = URI.create("http://localhost:" + context.getWebServer().getPort());
+        // The binary format and the GET endpoint are served by the servlet stack only.
+        boolean servlet = context instanceof ServletWebServerApplicationContext;
+        CompilationMXBean jit = ManagementFactory.getCompilationMXBean();
+        boolean jitMonitored = jit != null && jit.isCompilationTimeMonitoringSupported();
+        long compilationStart = jitMonitored ? jit.getTotalCompilationTime() : 0;
+
+        Progress progress = new Progress();
+        HttpClient http = HttpClient.newBuilder()
+                .version(HttpClient.Version.HTTP_1_1)
+                .connectTimeout(REQUEST_TIMEOUT)
+                .build();
+        ExecutorService clients = Executors.newFixedThreadPool(constants.getConcurrency(),
+                Thread.ofPlatform().name("warm-up-", 0).daemon().factory());
+        long start = System.nanoTime();
+        StopReason stopReason;
+        try {
+            for (int i = 0; i < constants.getConcurrency(); i++) {
+                clients.execute(() -> sendRounds(http, base, servlet, progress));
+            }
+            clients.shutdown();
+            stopReason = awaitStop(clients, progress, jitMonitored ? jit : null, start);
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            stopReason = StopReason.INTERRUPTED;
+        } finally {
+            progress.stopped = true;
+            awaitClients(clients);
+            http.close();
+        }
+
+        Duration duration = Duration.ofNanos(System.nanoTime() - start);
+        Result result = new Result(duration, progress.rounds.get(), progress.requests.sum(), progress.failures.sum(),
+                jitMonitored ? jit.getTotalCompilationTime() - compilationStart : -1, stopReason);
+        Timer.builder(DURATION)
+                .description("Time taken to warm up the application before it is ready")
+                .tag("stopped_by", stopReason.name().toLowerCase())
+                .register(meterRegistry)
+                .record(duration);
+        log.atInfo()
+                .setMessage("Warm-up finished")
+                .addKeyValue("durationMs", duration.toMillis())
+                .addKeyValue("rounds", result.rounds())
+                .addKeyValue("requests", result.requests())
+                .addKeyValue("failures", result.failures())
+                .addKeyValue("compilationMs", result.compilationMillis())
+                .addKeyValue("stoppedBy", stopReason)
+                .log();
+        if (result.failures() > 0) {
+            log.warn("{} warm-up requests failed or were answered with a server error", result.failures());
+        }
+        return result;
+    }
+
+    /**
+     * Waits until the clients sent every round, the time budget is used up or compilation settled.
+     *
+     * @param jit Compilation bean, null if the compilation time is not available
+     */
+    private StopReason awaitStop(ExecutorService clients, Progress progress, CompilationMXBean jit, long start)
+            throws InterruptedException {
+        long deadline = start + constants.getTimeBudget().toNanos();
+        long window = constants.getSettleWindow().toNanos();
+        double settledCompilationMillis = constants.getSettledCompilationShare()
+                * constants.getSettleWindow().toMillis();
+        long compilation = jit == null ? 0 : jit.getTotalCompilationTime();
+        while (true) {
+            long remaining = deadline - System.nanoTime();
+            if (clients.awaitTermination(Math.max(0, Math.min(window, remaining)), TimeUnit.NANOSECONDS)) {
+                return StopReason.ITERATIONS;
+            }
+            if (System.nanoTime() - deadline >= 0) {
+                return StopReason.TIME_BUDGET;
+            }
+            if (jit != null) {
+                long previous = compilation;
+                compilation = jit.getTotalCompilationTime();
+                // Before the first round was sent not every path was taken yet.
+                if (progress.rounds.get() > 0 && compilation - previous < settledCompilationMillis) {
+                    return StopReason.SETTLED;
+                }
+            }
+        }
+    }
+
+    private void sendRounds(HttpClient http, URI base, boolean servlet, Progress progress) {
+        try {
+            for (int round = progress.nextRound.getAndIncrement(); round < constants.getIterations();
+                 round = progress.nextRound.getAndIncrement()) {
+                for (HttpRequest request : requests(base, servlet, round)) {
+                    if (progress.stopped) {
+                        return;
+                    }
+                    send(http, request, progress);
+                }
+                progress.rounds.incrementAndGet();
+            }
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+        } catch (RuntimeException e) {
+            log.warn("Warm-up client stopped", e);
+            progress.failures.increment();
+        }
+    }
+
+    private static void send(HttpClient http, HttpRequest request, Progress progress) throws InterruptedException {
+        progress.requests.increment();
+        try {
+            HttpResponse<Void> response = http.send(request, HttpResponse.BodyHandlers.discarding());
+            if (response.statusCode() >= 500) {
+                progress.failures.increment();
+            }
+        } catch (IOException e) {
+            progress.failures.increment();
+        }
+    }
+
+    private List<HttpRequest> requests(URI base, boolean servlet, int round) {
+        DecisionParameters parameters = decisionParametersService.current();
+        List<DecisionRequest> decisions = WarmUpRequests.decisions(parameters, round);
+        URI decision = base.resolve("/loan/decision");
+        List<HttpRequest> requests = new ArrayList<>();
+        for (DecisionRequest request : decisions) {
+            requests.add(post(decision, MediaType.APPLICATION_JSON_VALUE, json(request)));
+            if (servlet) {
+                requests.add(post(decision, DecisionBinaryCodec.MEDIA_TYPE_VALUE, binary(request)));
+            }
+        }
+        for (OfferRequest request : WarmUpRequests.offers(parameters, round)) {
+            requests.add(post(base.resolve("/loan/offers"), MediaType.APPLICATION_JSON_VALUE, json(request)));
+        }
+        DecisionRequest request = decisions.get(round % decisions.size());
+        if (servlet) {
+            requests.add(get(decision, request));
+        }
+        requests.add(post(decision, MediaType.APPLICATION_JSON_VALUE, MALFORMED_REQUEST));
+        requests.add(post(decision, MediaType.APPLICATION_JSON_VALUE, String.format(UNKNOWN_COUNTRY_REQUEST,
+                request.getPersonalCode(), request.getLoanAmount(), request.getLoanPeriod())
+                .getBytes(StandardCharsets.UTF_8)));
+        return requests;
+    }
+
+    private HttpRequest post(URI uri, String mediaType, byte[] body) {
+        return HttpRequest.newBuilder(uri)
+                .timeout(REQUEST_TIMEOUT)
+                .header(HEADER, token)
+                .header(HttpHeaders.CONTENT_TYPE, mediaType)
+                .header(HttpHeaders.ACCEPT, mediaType)
+                .POST(HttpRequest.BodyPublishers.ofByteArray(body))
+                .build();
+    }
+
+    private HttpRequest get(URI decision, DecisionRequest request) {
+        String query = "?personalCode=" + URLEncoder.encode(request.getPersonalCode(), StandardCharsets.UTF_8)
+                + "&loanAmount=" + request.getLoanAmount()
+                + "&loanPeriod=" + request.getLoanPeriod()
+                + (request.getCountry() == null ? "" : "&country=" + request.getCountry());
+        return HttpRequest.newBuilder(decision.resolve(query))
+                .timeout(REQUEST_TIMEOUT)
+                .header(HEADER, token)
+                .header(HttpHeaders.ACCEPT, MediaType.APPLICATION_JSON_VALUE)
+                .GET()
+                .build();
+    }
+
+    private byte[] json(Object request) {
+        try {
+            return objectMapper.writeValueAsBytes(request);
+        } catch (JsonProcessingException e) {
+            throw new UncheckedIOException(e);
+        }
+    }
+
+    private static byte[] binary(DecisionRequest request) {
+        ByteBuffer buffer = ByteBuffer.allocate(DecisionBinaryCodec.MAXIMUM_REQUEST_SIZE);
+        DecisionBinaryCodec.writeRequest(request, buffer);
+        return Arrays.copyOf(buffer.array(), buffer.position());
+    }
+
+    private static void awaitClients(ExecutorService clients) {
+        clients.shutdownNow();
+        try {
+            if (!clients.awaitTermination(REQUEST_TIMEOUT.toMillis(), TimeUnit.MILLISECONDS)) {
+                log.warn("Warm-up clients did not stop in {} ms", REQUEST_TIMEOUT.toMillis());
+            }
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+        }
+    }
+
+    private static final class Progress {
+        private final AtomicInteger nextRound = new AtomicInteger();
+        private final AtomicInteger rounds = new AtomicInteger();
+        private final LongAdder requests = new LongAdder();
+        private final LongAdder failures = new LongAdder();
+        private volatile boolean stopped;
+    }
+
+    /**
+     * Summary of a warm-up.
+     *
+     * @param rounds Rounds sent completely
+     * @param failures Requests that failed or were answered with a server error
+     * @param compilationMillis Time the JIT compiled during the warm-up, -1 if not available
+     */
+    public record Result(Duration duration, int rounds, long requests, long failures, long compilationMillis,
+                         StopReason stopReason) {
+    }
+}
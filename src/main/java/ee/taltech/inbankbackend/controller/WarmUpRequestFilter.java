@@ -0,0 +1,37 @@
+package ee.taltech.inbankbackend.controller;
+
+import ee.taltech.inbankbackend.service.WarmUpScope;
+import jakarta.servlet.FilterChain;
+import jakarta.servlet.ServletException;
+import jakarta.servlet.http.HttpServletRequest;
+import jakarta.servlet.http.HttpServletResponse;
+import org.springframework.web.filter.OncePerRequestFilter;
+
+import java.io.IOException;
+import java.net.InetAddress;
+
+/**
+ * Serves the synthetic requests of the startup warm-up within a {@link WarmUpScope}, see
+ * {@link StartupWarmUp#isWarmUpRequest(String, InetAddress)}. It runs before the admission control.
+ */
+public class WarmUpRequestFilter extends OncePerRequestFilter {
+    private final StartupWarmUp startupWarmUp;
+
+    public WarmUpRequestFilter(StartupWarmUp startupWarmUp) {
+        this.startupWarmUp = startupWarmUp;
+    }
+
+    @Override
+    protected void doFilterInternal(HttpServletRequest request, HttpServletResponse response, FilterChain chain)
+            throws ServletException, IOException {
+        String token = request.getHeader(StartupWarmUp.HEADER);
+        // The remote address is an IP literal, it is parsed without a name lookup.
+        if (token == null || !startupWarmUp.isWarmUpRequest(token, InetAddress.getByName(request.getRemoteAddr()))) {
+            chain.doFilter(request, response);
+            return;
+        }
+        try (WarmUpScope ignored = WarmUpScope.open()) {
+            chain.doFilter(request, response);
+        }
+    }
+}
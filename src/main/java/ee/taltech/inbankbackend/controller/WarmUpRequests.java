@@ -0,0 +1,141 @@
+package ee.taltech.inbankbackend.controller;
+
+import ee.taltech.inbankbackend.dto.Country;
+import ee.taltech.inbankbackend.dto.DecisionRequest;
+import ee.taltech.inbankbackend.dto.OfferRequest;
+import ee.taltech.inbankbackend.service.CountryRules;
+import ee.taltech.inbankbackend.service.DecisionParameters;
+import ee.taltech.inbankbackend.util.DecisionEngineConstant;
+import ee.taltech.inbankbackend.util.PersonalCodeCodec;
+
+import java.time.LocalDate;
+import java.util.ArrayList;
+import java.util.List;
+
+/**
+ * Synthetic requests of the startup warm-up, see StartupWarmUp, derived from the current decision parameters.
+ * <br><br>
+ * Every round gives, for every country loans are offered in, a customer of every credit segment and with debt,
+ * customers too young and too old for the country, and requests with an invalid personal code, loan amount and
+ * loan period. A request without a country is added once per round. The personal codes, loan amounts and loan periods
+ * change from round to round, so the requests are decided and not answered from the coalescing memo.
+ */
+final class WarmUpRequests {
+    // The last four digits of the personal code decide the credit segment in steps of 2500, see
+    // PersonalCodeCreditProfileProvider. The three digit serial before the check digit moves them in steps of 10.
+    private static final int SERIALS_PER_SEGMENT = 250;
+    private static final int SEGMENTS = 4;
+
+    private WarmUpRequests() {
+    }
+
+    /**
+     * Decision requests of the round.
+     *
+     * @param parameters Current decision parameters
+     * @param round Number of the round, from 0
+     */
+    static List<DecisionRequest> decisions(DecisionParameters parameters, int round) {
+        CountryRules rules = parameters.rules();
+        LocalDate today = parameters.ageCutoffs().today();
+        List<DecisionRequest> requests = new ArrayList<>();
+        for (Country country : offeredCountries(rules)) {
+            DecisionEngineConstant loan = rules.loanParameters(country);
+            long loanAmount = loan.getMinimumLoanAmount()
+                    + round * 100L % (loan.getMaximumLoanAmount() - loan.getMinimumLoanAmount() + 1);
+            int loanPeriods = (loan.getMaximumLoanPeriod() - loan.getMinimumLoanPeriod()) / loan.getLoanInterval() + 1;
+            int loanPeriod = loan.getMinimumLoanPeriod() + round % loanPeriods * loan.getLoanInterval();
+
+            for (int segment = 0; segment < SEGMENTS; segment++) {
+                requests.add(new DecisionRequest(customer(rules, today, country, segment, round), loanAmount,
+                        loanPeriod, country));
+            }
+            int serial = serial(SEGMENTS - 1, round);
+            requests.add(new DecisionRequest(personalCode(tooYoung(rules, today, country), serial), loanAmount,
+                    loanPeriod, country));
+            requests.add(new DecisionRequest(personalCode(tooOld(rules, today, country), serial), loanAmount,
+                    loanPeriod, country));
+
+            String personalCode = customer(rules, today, country, SEGMENTS - 1, round);
+            requests.add(new DecisionRequest(withWrongChecksum(personalCode), loanAmount, loanPeriod, country));
+            requests.add(new DecisionRequest(personalCode, loan.getMinimumLoanAmount() - 1L, loanPeriod, country));
+            requests.add(new DecisionRequest(personalCode, loanAmount,
+                    loan.getMaximumLoanPeriod() + loan.getLoanInterval(), country));
+        }
+        DecisionEngineConstant defaults = rules.loanParameters(null);
+        requests.add(new DecisionRequest(personalCode(today.minusYears(40), serial(SEGMENTS - 1, round)),
+                (long) defaults.getMinimumLoanAmount(), defaults.getMinimumLoanPeriod(), null));
+        return requests;
+    }
+
+    /**
+     * Offer requests of the round: a customer of every credit segment and with debt, and a customer too young,
+     * for every country loans are offered in.
+     *
+     * @param parameters Current decision parameters
+     * @param round Number of the round, from 0
+     */
+    static List<OfferRequest> offers(DecisionParameters parameters, int round) {
+        CountryRules rules = parameters.rules();
+        LocalDate today = parameters.ageCutoffs().today();
+        List<OfferRequest> requests = new ArrayList<>();
+        for (Country country : offeredCountries(rules)) {
+            for (int segment = 0; segment < SEGMENTS; segment++) {
+                requests.add(new OfferRequest(customer(rules, today, country, segment, round), country));
+            }
+            requests.add(new OfferRequest(personalCode(tooYoung(rules, today, country), serial(SEGMENTS - 1, round)),
+                    country));
+        }
+        return requests;
+    }
+
+    /**
+     * Builds a valid personal code of a man.
+     *
+     * @param birthDate Birth date, from 1800 to 2099
+     * @param serial Serial number, from 0 to 999
+     */
+    static String personalCode(LocalDate birthDate, int serial) {
+        int century = (birthDate.getYear() - 1800) / 100 * 2 + 1;
+        String digits = String.format("%d%02d%02d%02d%03d", century, birthDate.getYear() % 100,
+                birthDate.getMonthValue(), birthDate.getDayOfMonth(), serial);
+        return digits + PersonalCodeCodec.checksum(digits);
+    }
+
+    private static List<Country> offeredCountries(CountryRules rules) {
+        List<Country> countries = new ArrayList<>();
+        for (Country country : Country.values()) {
+            if (rules.isOffered(country)) {
+                countries.add(country);
+            }
+        }
+        return countries;
+    }
+
+    /**
+     * Personal code of a customer in the middle of the age range of the country.
+     *
+     * @param segment 0 for debt, the credit segment otherwise
+     */
+    private static String customer(CountryRules rules, LocalDate today, Country country, int segment, int round) {
+        int age = (rules.minimumAge(country) + rules.maximumAge(country)) / 2;
+        return personalCode(today.minusYears(age), serial(segment, round));
+    }
+
+    private static int serial(int segment, int round) {
+        return segment * SERIALS_PER_SEGMENT + round % SERIALS_PER_SEGMENT;
+    }
+
+    private static LocalDate tooYoung(CountryRules rules, LocalDate today, Country country) {
+        return today.minusYears(rules.minimumAge(country)).plusDays(1);
+    }
+
+    private static LocalDate tooOld(CountryRules rules, LocalDate today, Country country) {
+        return today.minusYears(rules.maximumAge(country) + 1L);
+    }
+
+    private static String withWrongChecksum(String personalCode) {
+        int checksum = personalCode.charAt(personalCode.length() - 1) - '0';
+        return personalCode.substring(0, personalCode.length() - 1) + (checksum + 1) % 10;
+    }
+}
@@ -0,0 +1,26 @@
+package ee.taltech.inbankbackend.dto;
+
+import ee.taltech.inbankbackend.util.CountryRuleConstants;
+import ee.taltech.inbankbackend.util.DecisionEngineConstant;
+import lombok.AllArgsConstructor;
+import lombok.Getter;
+import lombok.NoArgsConstructor;
+import lombok.Setter;
+import lombok.ToString;
+
+import java.util.Map;
+
+/**
+ * Holds the decision parameters of the admin REST endpoint.
+ * The version is assigned by the service when the parameters are published and is ignored in requests.
+ */
+@Getter
+@Setter
+@NoArgsConstructor
+@AllArgsConstructor
+@ToString
+public class DecisionParametersDto {
+    private Long version;
+    private DecisionEngineConstant decisionEngine;
+    private Map<Country, CountryRuleConstants.CountryRule> countries;
+}
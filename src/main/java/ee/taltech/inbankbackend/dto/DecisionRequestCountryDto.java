@@ -1,5 +1,6 @@
 package ee.taltech.inbankbackend.dto;
 
+import ee.taltech.inbankbackend.util.MaskedPersonalCode;
 import lombok.AllArgsConstructor;
 import lombok.Getter;
 import lombok.ToString;
@@ -11,8 +12,15 @@ import lombok.ToString;
 @AllArgsConstructor
 @ToString
 public class DecisionRequestCountryDto {
+    @ToString.Exclude
     private String personalCode;
     private int loanAmount;
     private int loanPeriod;
     private Country country;
+
+    // The personal code is masked wherever the request is logged.
+    @ToString.Include(name = "personalCode", rank = 1)
+    private String maskedPersonalCode() {
+        return MaskedPersonalCode.mask(personalCode);
+    }
 }
@@ -0,0 +1,17 @@
+package ee.taltech.inbankbackend.dto;
+
+import lombok.AllArgsConstructor;
+import lombok.Getter;
+import lombok.ToString;
+
+/**
+ * Holds a single offer of the offers REST endpoint: the loan amount approved for the loan period.
+ * Offers are shared between responses, so they cannot be modified.
+ */
+@Getter
+@AllArgsConstructor
+@ToString
+public class LoanOffer {
+    private Integer loanAmount;
+    private Integer loanPeriod;
+}
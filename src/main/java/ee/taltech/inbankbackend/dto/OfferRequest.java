@@ -0,0 +1,24 @@
+package ee.taltech.inbankbackend.dto;
+
+import ee.taltech.inbankbackend.util.MaskedPersonalCode;
+import lombok.AllArgsConstructor;
+import lombok.Getter;
+import lombok.ToString;
+
+/**
+ * Holds the request data of the offers REST endpoint.
+ */
+@Getter
+@AllArgsConstructor
+@ToString
+public class OfferRequest {
+    @ToString.Exclude
+    private String personalCode;
+    private Country country;
+
+    // The personal code is masked wherever the request is logged.
+    @ToString.Include(name = "personalCode", rank = 1)
+    private String maskedPersonalCode() {
+        return MaskedPersonalCode.mask(personalCode);
+    }
+}
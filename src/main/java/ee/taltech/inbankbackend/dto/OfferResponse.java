@@ -0,0 +1,18 @@
+package ee.taltech.inbankbackend.dto;
+
+import lombok.AllArgsConstructor;
+import lombok.Getter;
+import lombok.ToString;
+
+import java.util.List;
+
+/**
+ * Holds the response data of the offers REST endpoint.
+ */
+@Getter
+@AllArgsConstructor
+@ToString
+public class OfferResponse {
+    private List<LoanOffer> offers;
+    private String errorMessage;
+}
@@ -6,6 +6,6 @@ package ee.taltech.inbankbackend.exception;
  */
 public class AgeConstraintException extends RuntimeException {
     public AgeConstraintException(String message) {
-        super(message);
+        super(message, null, false, false);
     }
 }
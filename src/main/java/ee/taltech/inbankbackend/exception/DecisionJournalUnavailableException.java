@@ -0,0 +1,11 @@
+package ee.taltech.inbankbackend.exception;
+
+/**
+ * Thrown when the journal does not accept a decision, because it is closed, cannot be written or its queue stayed
+ * full for the offer timeout. The decision is then not returned.
+ */
+public class DecisionJournalUnavailableException extends RuntimeException {
+    public DecisionJournalUnavailableException(String message) {
+        super(message);
+    }
+}
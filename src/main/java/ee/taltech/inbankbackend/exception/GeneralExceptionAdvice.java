@@ -1,5 +1,6 @@
 package ee.taltech.inbankbackend.exception;
 
+import com.fasterxml.jackson.core.JsonProcessingException;
 import ee.taltech.inbankbackend.dto.DecisionResponse;
 import ee.taltech.inbankbackend.util.ErrorMessage;
 import org.springframework.http.HttpStatus;
@@ -7,6 +8,8 @@ import org.springframework.http.ResponseEntity;
 import org.springframework.http.converter.HttpMessageNotReadableException;
 import org.springframework.web.bind.annotation.ExceptionHandler;
 import org.springframework.web.bind.annotation.RestControllerAdvice;
+import org.springframework.web.method.annotation.MethodArgumentTypeMismatchException;
+import org.springframework.web.server.ServerWebInputException;
 
 
 @RestControllerAdvice
@@ -42,12 +45,69 @@ public class GeneralExceptionAdvice {
 
     }
 
+    @ExceptionHandler(InvalidBatchSizeException.class)
+    public ResponseEntity<DecisionResponse> handle(InvalidBatchSizeException exception) {
+        DecisionResponse response = new DecisionResponse(null, null, exception.getMessage());
+        return ResponseEntity.status(HttpStatus.BAD_REQUEST).body(response);
+    }
+
+    @ExceptionHandler(InvalidDecisionParametersException.class)
+    public ResponseEntity<DecisionResponse> handle(InvalidDecisionParametersException exception) {
+        DecisionResponse response = new DecisionResponse(null, null, exception.getMessage());
+        return ResponseEntity.status(HttpStatus.BAD_REQUEST).body(response);
+    }
+
+    @ExceptionHandler(UnauthorizedException.class)
+    public ResponseEntity<DecisionResponse> handle(UnauthorizedException exception) {
+        DecisionResponse response = new DecisionResponse(null, null, exception.getMessage());
+        return ResponseEntity.status(HttpStatus.UNAUTHORIZED).body(response);
+    }
+
     @ExceptionHandler(HttpMessageNotReadableException.class)
     public ResponseEntity<DecisionResponse> handle(HttpMessageNotReadableException exception) {
         DecisionResponse response = new DecisionResponse(null, null, ErrorMessage.INVALID_REQUEST.getMessage());
         return ResponseEntity.status(HttpStatus.BAD_REQUEST).body(response);
     }
 
+    /**
+     * The batch endpoint reads its body itself, so a body that is not a JSON array of decision requests is reported
+     * by Jackson directly. It is answered the same way as a request body the message converters cannot read.
+     */
+    @ExceptionHandler(JsonProcessingException.class)
+    public ResponseEntity<DecisionResponse> handle(JsonProcessingException exception) {
+        DecisionResponse response = new DecisionResponse(null, null, ErrorMessage.INVALID_REQUEST.getMessage());
+        return ResponseEntity.status(HttpStatus.BAD_REQUEST).body(response);
+    }
+
+    /**
+     * A query parameter of GET /loan/decision that cannot be converted, e.g. an unknown country, is answered
+     * the same way as a request body that cannot be read.
+     */
+    @ExceptionHandler(MethodArgumentTypeMismatchException.class)
+    public ResponseEntity<DecisionResponse> handle(MethodArgumentTypeMismatchException exception) {
+        DecisionResponse response = new DecisionResponse(null, null, ErrorMessage.INVALID_REQUEST.getMessage());
+        return ResponseEntity.status(HttpStatus.BAD_REQUEST).body(response);
+    }
+
+    /**
+     * The reactive stack reports a request body it cannot read with ServerWebInputException
+     * instead of HttpMessageNotReadableException, it is answered the same way.
+     */
+    @ExceptionHandler(ServerWebInputException.class)
+    public ResponseEntity<DecisionResponse> handle(ServerWebInputException exception) {
+        DecisionResponse response = new DecisionResponse(null, null, ErrorMessage.INVALID_REQUEST.getMessage());
+        return ResponseEntity.status(HttpStatus.BAD_REQUEST).body(response);
+    }
+
+    /**
+     * A decision that cannot be journaled is not returned, the client can try again once the journal has caught up.
+     */
+    @ExceptionHandler(DecisionJournalUnavailableException.class)
+    public ResponseEntity<DecisionResponse> handle(DecisionJournalUnavailableException exception) {
+        DecisionResponse response = new DecisionResponse(null, null, ErrorMessage.SERVICE_OVERLOADED.getMessage());
+        return ResponseEntity.status(HttpStatus.SERVICE_UNAVAILABLE).body(response);
+    }
+
     @ExceptionHandler(Exception.class)
     public ResponseEntity<DecisionResponse> handle(Exception exception) {
         DecisionResponse response = new DecisionResponse(null, null, ErrorMessage.UNEXPECTED_ERROR.getMessage());
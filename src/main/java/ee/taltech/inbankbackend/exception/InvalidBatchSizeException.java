@@ -0,0 +1,10 @@
+package ee.taltech.inbankbackend.exception;
+
+/**
+ * Thrown when the batch of decision requests is larger than allowed.
+ */
+public class InvalidBatchSizeException extends RuntimeException {
+    public InvalidBatchSizeException(String message) {
+        super(message, null, false, false);
+    }
+}
@@ -5,6 +5,6 @@ package ee.taltech.inbankbackend.exception;
  */
 public class InvalidCountryException extends RuntimeException {
     public InvalidCountryException(String message) {
-        super(message);
+        super(message, null, false, false);
     }
 }
@@ -0,0 +1,10 @@
+package ee.taltech.inbankbackend.exception;
+
+/**
+ * Thrown when a new set of decision parameters is rejected before it is published.
+ */
+public class InvalidDecisionParametersException extends RuntimeException {
+    public InvalidDecisionParametersException(String message) {
+        super(message, null, false, false);
+    }
+}
@@ -5,6 +5,6 @@ package ee.taltech.inbankbackend.exception;
  */
 public class InvalidLoanAmountException extends RuntimeException {
     public InvalidLoanAmountException(String message) {
-        super(message);
+        super(message, null, false, false);
     }
 }
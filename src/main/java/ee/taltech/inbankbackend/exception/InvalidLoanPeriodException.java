@@ -5,6 +5,6 @@ package ee.taltech.inbankbackend.exception;
  */
 public class InvalidLoanPeriodException extends RuntimeException {
     public InvalidLoanPeriodException(String message) {
-        super(message);
+        super(message, null, false, false);
     }
 }
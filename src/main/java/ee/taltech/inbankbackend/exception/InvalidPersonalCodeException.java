@@ -5,6 +5,6 @@ package ee.taltech.inbankbackend.exception;
  */
 public class InvalidPersonalCodeException extends RuntimeException {
     public InvalidPersonalCodeException(String message) {
-        super(message);
+        super(message, null, false, false);
     }
 }
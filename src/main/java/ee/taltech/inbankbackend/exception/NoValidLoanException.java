@@ -5,6 +5,6 @@ package ee.taltech.inbankbackend.exception;
  */
 public class NoValidLoanException extends RuntimeException {
     public NoValidLoanException(String message) {
-        super(message);
+        super(message, null, false, false);
     }
 }
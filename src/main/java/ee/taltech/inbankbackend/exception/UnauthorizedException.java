@@ -0,0 +1,10 @@
+package ee.taltech.inbankbackend.exception;
+
+/**
+ * Thrown when a request to the admin endpoint does not carry the admin token.
+ */
+public class UnauthorizedException extends RuntimeException {
+    public UnauthorizedException(String message) {
+        super(message, null, false, false);
+    }
+}
@@ -0,0 +1,153 @@
+package ee.taltech.inbankbackend.service;
+
+import com.github.benmanes.caffeine.cache.Ticker;
+import ee.taltech.inbankbackend.util.AdmissionControlConstants;
+
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.atomic.LongAccumulator;
+import java.util.concurrent.atomic.LongAdder;
+
+/**
+ * Limit of the requests in flight, derived from their latency.
+ * <br><br>
+ * The latencies of the requests completed in every window are compared with the long-term latency. While they stay
+ * within latency-tolerance of it, the limit grows by its square root per window, so it probes for more capacity.
+ * When the requests queue up and their latency grows beyond that, the limit shrinks in proportion, at most by half
+ * per window. Requests over the limit are shed at once instead of waiting in the queue and slowing down every
+ * other request, so the latency of the admitted requests stays close to the latency without load.
+ * <br><br>
+ * Admitting a request takes one compare-and-set on the in-flight count, the latencies are summed in striped
+ * counters and the limit is recalculated by the one request that completes a window.
+ */
+public class AdaptiveConcurrencyLimiter {
+    // Bounds of the change of the limit per window.
+    private static final double MINIMUM_GRADIENT = 0.5;
+    private static final double MAXIMUM_GRADIENT = 1.0;
+    // The long-term latency follows the window latencies over about this many windows.
+    private static final int LONG_WINDOWS = 600;
+
+    private final int minimumLimit;
+    private final int maximumLimit;
+    private final long windowNanos;
+    private final int minimumWindowRequests;
+    private final double latencyTolerance;
+    private final double smoothing;
+    private final Ticker ticker;
+
+    private final AtomicInteger inFlight = new AtomicInteger();
+    private final LongAdder windowLatency = new LongAdder();
+    private final LongAdder windowRequests = new LongAdder();
+    private final LongAccumulator windowMaximumInFlight = new LongAccumulator(Math::max, 0);
+    private final AtomicLong windowEnd;
+    // Only written by the request that completes a window.
+    private volatile double limit;
+    private double longLatency;
+
+    public AdaptiveConcurrencyLimiter(AdmissionControlConstants.ConcurrencyLimit constants) {
+        this(constants, Ticker.systemTicker());
+    }
+
+    /**
+     * @param ticker Time source of the windows
+     */
+    AdaptiveConcurrencyLimiter(AdmissionControlConstants.ConcurrencyLimit constants, Ticker ticker) {
+        if (constants.getMinimumLimit() <= 0 || constants.getMinimumLimit() > constants.getMaximumLimit()
+                || constants.getInitialLimit() < constants.getMinimumLimit()
+                || constants.getInitialLimit() > constants.getMaximumLimit()) {
+            throw new IllegalArgumentException("Concurrency limit has to be positive and within minimum and maximum");
+        }
+        this.minimumLimit = constants.getMinimumLimit();
+        this.maximumLimit = constants.getMaximumLimit();
+        this.windowNanos = constants.getWindow().toNanos();
+        this.minimumWindowRequests = constants.getMinimumWindowRequests();
+        this.latencyTolerance = constants.getLatencyTolerance();
+        this.smoothing = constants.getSmoothing();
+        this.ticker = ticker;
+        this.limit = constants.getInitialLimit();
+        this.windowEnd = new AtomicLong(ticker.read() + windowNanos);
+    }
+
+    /**
+     * Admits a request if fewer than the limit are in flight. An admitted request has to be released.
+     *
+     * @return true if the request is admitted, false if it has to be shed
+     */
+    public boolean tryAcquire() {
+        int limit = getLimit();
+        while (true) {
+            int current = inFlight.get();
+            if (current >= limit) {
+                return false;
+            }
+            if (inFlight.compareAndSet(current, current + 1)) {
+                windowMaximumInFlight.accumulate(current + 1);
+                return true;
+            }
+        }
+    }
+
+    /**
+     * Releases an admitted request.
+     *
+     * @param latencyNanos Time the request took
+     */
+    public void release(long latencyNanos) {
+        release();
+        windowLatency.add(latencyNanos);
+        windowRequests.increment();
+
+        long now = ticker.read();
+        long end = windowEnd.get();
+        if (now - end >= 0 && windowEnd.compareAndSet(end, now + windowNanos)) {
+            update();
+        }
+    }
+
+    /**
+     * Releases an admitted request whose latency depends on its size rather than the load, e.g. a batch,
+     * without using its latency for the limit.
+     */
+    public void release() {
+        inFlight.decrementAndGet();
+    }
+
+    private void update() {
+        long requests = windowRequests.sumThenReset();
+        long latency = windowLatency.sumThenReset();
+        long maximumInFlight = windowMaximumInFlight.getThenReset();
+        if (requests < minimumWindowRequests) {
+            return;
+        }
+
+        double shortLatency = (double) latency / requests;
+        if (longLatency == 0) {
+            longLatency = shortLatency;
+        } else {
+            longLatency += (shortLatency - longLatency) / LONG_WINDOWS;
+        }
+        // The latency recovered after an overload, the long-term latency is drained faster so the limit can grow.
+        if (longLatency / shortLatency > 2) {
+            longLatency *= 0.95;
+        }
+
+        double current = limit;
+        double gradient = Math.max(MINIMUM_GRADIENT,
+                Math.min(MAXIMUM_GRADIENT, latencyTolerance * longLatency / shortLatency));
+        double newLimit = current * gradient;
+        // The limit is not grown while the requests do not come close to it, it would not be tested.
+        if (gradient == MAXIMUM_GRADIENT && maximumInFlight >= current / 2) {
+            newLimit += Math.sqrt(current);
+        }
+        newLimit = current * (1 - smoothing) + newLimit * smoothing;
+        limit = Math.max(minimumLimit, Math.min(maximumLimit, newLimit));
+    }
+
+    public int getLimit() {
+        return (int) limit;
+    }
+
+    public int getInFlight() {
+        return inFlight.get();
+    }
+}
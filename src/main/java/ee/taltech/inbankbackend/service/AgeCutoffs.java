@@ -0,0 +1,117 @@
+package ee.taltech.inbankbackend.service;
+
+import ee.taltech.inbankbackend.dto.Country;
+import ee.taltech.inbankbackend.util.PersonalCodeCodec;
+
+import java.time.LocalDate;
+import java.time.Period;
+
+/**
+ * Birth date cutoffs of the age check for every country, precomputed for a single day.
+ * A customer is old enough if they were born on or before the youngest allowed birth date, and young enough
+ * at the end of the longest loan if they were born after the oldest rejected birth date. Both cutoffs are packed
+ * dates, see {@link PersonalCodeCodec#packDate(int, int, int)}, so the age check is two int comparisons.
+ * <br><br>
+ * The cutoffs are derived from the age calculation they replace, so the result is exactly the same, also on
+ * birthdays, at the end of months and on leap days. Countries that are not offered loans allow no birth date.
+ */
+public final class AgeCutoffs {
+    // The oldest rejected birth date is searched this many days around its estimate, which is off by a few days
+    // at most because of the day-of-month clamping in Period arithmetic.
+    private static final int SEARCH_DAYS = 31;
+
+    private final LocalDate today;
+    private final int packedToday;
+    private final int[] youngestAllowedBirthDates;
+    private final int[] oldestRejectedBirthDates;
+
+    private AgeCutoffs(LocalDate today, CountryRules rules) {
+        this.today = today;
+        this.packedToday = pack(today);
+
+        Country[] countries = Country.values();
+        this.youngestAllowedBirthDates = new int[countries.length];
+        this.oldestRejectedBirthDates = new int[countries.length];
+        for (Country country : countries) {
+            int i = country.ordinal();
+            if (!rules.isOffered(country)) {
+                youngestAllowedBirthDates[i] = Integer.MIN_VALUE;
+                oldestRejectedBirthDates[i] = Integer.MAX_VALUE;
+                continue;
+            }
+            int maximumLoanPeriod = rules.loanParameters(country).getMaximumLoanPeriod();
+            youngestAllowedBirthDates[i] = pack(today.minusYears(rules.minimumAge(country)));
+            oldestRejectedBirthDates[i] = pack(oldestRejectedBirthDate(today, maximumLoanPeriod,
+                    rules.maximumAge(country)));
+        }
+    }
+
+    /**
+     * Computes the cutoffs for the given day.
+     *
+     * @param today Day of the age check
+     * @param rules Rules of the countries, the age at the end of the longest loan of the country is checked
+     */
+    public static AgeCutoffs compute(LocalDate today, CountryRules rules) {
+        return new AgeCutoffs(today, rules);
+    }
+
+    /**
+     * Check whether the customer is within the age range of the country.
+     *
+     * @param country The loan requested country
+     * @param birthDate Birth date of the customer as a packed date
+     * @return true if the customer is old enough now and young enough at the end of the longest loan
+     */
+    public boolean isAllowed(Country country, int birthDate) {
+        int i = country.ordinal();
+        return birthDate <= youngestAllowedBirthDates[i] && birthDate > oldestRejectedBirthDates[i];
+    }
+
+    public LocalDate today() {
+        return today;
+    }
+
+    /**
+     * Today as a packed date.
+     */
+    public int packedToday() {
+        return packedToday;
+    }
+
+    /**
+     * Calculate user's age at the end of the loan period.
+     * This is the calculation the cutoffs are derived from. The birth date is reconstructed from the age
+     * in the same way it was when the age came from the personal code parser.
+     *
+     * @param birthDate Birth date of the customer
+     * @param today Day of the age check
+     * @param maximumLoanPeriod Maximum loan period in months
+     */
+    public static int ageAtLoanEnd(LocalDate birthDate, LocalDate today, int maximumLoanPeriod) {
+        Period age = Period.between(birthDate, today);
+        LocalDate expectedLoanEndDate = today.plusMonths(maximumLoanPeriod);
+        return Period.between(today.minus(age), expectedLoanEndDate).getYears();
+    }
+
+    /**
+     * Finds the latest birth date that is too old at the end of the loan.
+     * The age at the end of the loan only grows as the birth date moves back, so every earlier birth date
+     * is rejected as well.
+     */
+    private static LocalDate oldestRejectedBirthDate(LocalDate today, int maximumLoanPeriod, int maximumAge) {
+        LocalDate estimate = today.plusMonths(maximumLoanPeriod).minusYears(maximumAge + 1L);
+        LocalDate oldestRejected = estimate.minusDays(SEARCH_DAYS + 1L);
+        for (LocalDate birthDate = estimate.minusDays(SEARCH_DAYS);
+             !birthDate.isAfter(estimate.plusDays(SEARCH_DAYS)); birthDate = birthDate.plusDays(1)) {
+            if (ageAtLoanEnd(birthDate, today, maximumLoanPeriod) > maximumAge) {
+                oldestRejected = birthDate;
+            }
+        }
+        return oldestRejected;
+    }
+
+    private static int pack(LocalDate date) {
+        return PersonalCodeCodec.packDate(date.getYear(), date.getMonthValue(), date.getDayOfMonth());
+    }
+}
@@ -0,0 +1,99 @@
+package ee.taltech.inbankbackend.service;
+
+import java.io.IOException;
+import java.io.InputStream;
+
+/**
+ * Reads newline delimited lines of a stream, keeping at most a given number of bytes of a line in memory.
+ * A longer line is skipped up to its end and reported as too long, so a client cannot make the reader buffer
+ * an unbounded line. A trailing carriage return is not part of the line.
+ */
+final class BoundedLineReader {
+    private static final int CHUNK_SIZE = 8192;
+
+    private final InputStream input;
+    private final byte[] chunk = new byte[CHUNK_SIZE];
+    private final byte[] line;
+    private int chunkPosition;
+    private int chunkLength;
+    private int lineLength;
+    private boolean tooLong;
+
+    /**
+     * @param input Stream to read the lines from
+     * @param maximumLineLength Most bytes of a line, without the line break
+     */
+    BoundedLineReader(InputStream input, int maximumLineLength) {
+        this.input = input;
+        this.line = new byte[maximumLineLength];
+    }
+
+    /**
+     * Reads the next line, see {@link #buffer()}, {@link #length()} and {@link #isTooLong()}.
+     *
+     * @return false if the stream has ended and there is no line left
+     * @throws IOException If reading the stream fails
+     */
+    boolean next() throws IOException {
+        lineLength = 0;
+        tooLong = false;
+        boolean read = false;
+        while (true) {
+            if (chunkPosition == chunkLength) {
+                chunkLength = input.read(chunk);
+                chunkPosition = 0;
+                if (chunkLength <= 0) {
+                    chunkLength = 0;
+                    return read;
+                }
+            }
+            read = true;
+            byte b = chunk[chunkPosition++];
+            if (b == '\n') {
+                if (!tooLong && lineLength > 0 && line[lineLength - 1] == '\r') {
+                    lineLength--;
+                }
+                return true;
+            }
+            if (lineLength < line.length) {
+                line[lineLength++] = b;
+            } else if (!(b == '\r' && !tooLong)) {
+                // A carriage return right after the longest allowed line may still be its line break.
+                tooLong = true;
+            }
+        }
+    }
+
+    /**
+     * Bytes of the current line, valid until the next call of {@link #next()}.
+     */
+    byte[] buffer() {
+        return line;
+    }
+
+    int length() {
+        return lineLength;
+    }
+
+    /**
+     * Whether the current line was longer than the maximum line length, its bytes are then not available.
+     */
+    boolean isTooLong() {
+        return tooLong;
+    }
+
+    /**
+     * Whether the current line contains only whitespace.
+     */
+    boolean isBlank() {
+        if (tooLong) {
+            return false;
+        }
+        for (int i = 0; i < lineLength; i++) {
+            if (!Character.isWhitespace(line[i])) {
+                return false;
+            }
+        }
+        return true;
+    }
+}
@@ -0,0 +1,88 @@
+package ee.taltech.inbankbackend.service;
+
+import com.github.benmanes.caffeine.cache.Caffeine;
+import com.github.benmanes.caffeine.cache.LoadingCache;
+import com.github.benmanes.caffeine.cache.Ticker;
+import ee.taltech.inbankbackend.util.CreditProfileConstants;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.Timer;
+import io.micrometer.core.instrument.binder.cache.CaffeineCacheMetrics;
+
+import java.util.Objects;
+import java.util.concurrent.Executor;
+import java.util.concurrent.ForkJoinPool;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Bounded read-through cache in front of a credit profile provider.
+ * <br><br>
+ * - At most application.credit-profile.cache-maximum-size profiles are kept, the least valuable ones are evicted.<br>
+ * - A profile read after cache-refresh-after-write is reloaded in the background, the cached profile is returned
+ * meanwhile, so frequent customers never wait for the provider.<br>
+ * - A profile that has not been reloaded within cache-expire-after-write is dropped.<br>
+ * - Concurrent misses for the same personal code share a single load.<br>
+ * <br>
+ * The hit and miss counts, evictions and the size are published as the cache.* metrics of the {@value #CACHE_NAME}
+ * cache, the load latency of the provider as {@value #LOAD_DURATION}.
+ */
+public class CachingCreditProfileProvider implements CreditProfileProvider {
+    static final String CACHE_NAME = "credit.profiles";
+    static final String LOAD_DURATION = "credit.profile.load";
+
+    private final CreditProfileProvider delegate;
+    private final Timer loadDuration;
+    private final LoadingCache<String, CreditProfile> cache;
+
+    public CachingCreditProfileProvider(CreditProfileProvider delegate, CreditProfileConstants constants,
+                                        MeterRegistry registry) {
+        this(delegate, constants, registry, Ticker.systemTicker(), ForkJoinPool.commonPool());
+    }
+
+    /**
+     * @param ticker Time source of the expiry and refresh
+     * @param executor Runs the background reloads and the cache maintenance
+     */
+    CachingCreditProfileProvider(CreditProfileProvider delegate, CreditProfileConstants constants,
+                                 MeterRegistry registry, Ticker ticker, Executor executor) {
+        this.delegate = delegate;
+        this.loadDuration = Timer.builder(LOAD_DURATION)
+                .description("Time taken to load a credit profile from the provider")
+                .register(registry);
+        this.cache = Caffeine.newBuilder()
+                .maximumSize(constants.getCacheMaximumSize())
+                .refreshAfterWrite(constants.getCacheRefreshAfterWrite())
+                .expireAfterWrite(constants.getCacheExpireAfterWrite())
+                .ticker(ticker)
+                .executor(executor)
+                .recordStats()
+                .build(this::load);
+        CaffeineCacheMetrics.monitor(registry, cache, CACHE_NAME);
+    }
+
+    @Override
+    public CreditProfile getCreditProfile(String personalCode) {
+        return cache.get(personalCode);
+    }
+
+    /**
+     * Drops the cached profiles, e.g. after the credit registry was corrected.
+     */
+    public void invalidateAll() {
+        cache.invalidateAll();
+    }
+
+    long estimatedSize() {
+        cache.cleanUp();
+        return cache.estimatedSize();
+    }
+
+    private CreditProfile load(String personalCode) {
+        long start = System.nanoTime();
+        try {
+            return Objects.requireNonNull(delegate.getCreditProfile(personalCode),
+                    "Credit profile provider returned no profile");
+        } finally {
+            loadDuration.record(System.nanoTime() - start, TimeUnit.NANOSECONDS);
+        }
+    }
+}
@@ -0,0 +1,73 @@
+package ee.taltech.inbankbackend.service;
+
+import com.github.benmanes.caffeine.cache.Cache;
+import com.github.benmanes.caffeine.cache.Caffeine;
+import com.github.benmanes.caffeine.cache.Ticker;
+import ee.taltech.inbankbackend.util.AdmissionControlConstants;
+
+import java.time.Duration;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicLong;
+
+/**
+ * Token bucket rate limit per client, e.g. per API key.
+ * <br><br>
+ * Every client has a bucket of burst tokens, refilled at requests-per-second. The bucket is kept as a single
+ * timestamp, the time it is full again, and is taken from with one compare-and-set, so admitting a request
+ * takes no lock (the generic cell rate algorithm, which admits the same requests as a token bucket).
+ * The buckets of different clients are independent entries of a bounded cache, at most maximum-clients are kept.
+ * A bucket not used for as long as it takes to refill it is full, so it is dropped without changing any decision.
+ */
+public class ClientRateLimiter {
+    private final long emissionIntervalNanos;
+    // How far the time the bucket is full again may be ahead of now, burst - 1 requests.
+    private final long burstToleranceNanos;
+    private final Ticker ticker;
+    private final Cache<String, AtomicLong> buckets;
+
+    public ClientRateLimiter(AdmissionControlConstants.RateLimit constants) {
+        this(constants, Ticker.systemTicker());
+    }
+
+    /**
+     * @param ticker Time source of the refill
+     */
+    ClientRateLimiter(AdmissionControlConstants.RateLimit constants, Ticker ticker) {
+        if (constants.getRequestsPerSecond() <= 0 || constants.getBurst() <= 0) {
+            throw new IllegalArgumentException("Rate limit requests-per-second and burst have to be positive");
+        }
+        this.emissionIntervalNanos = Math.max(1,
+                (long) (TimeUnit.SECONDS.toNanos(1) / constants.getRequestsPerSecond()));
+        this.burstToleranceNanos = emissionIntervalNanos * (constants.getBurst() - 1);
+        this.ticker = ticker;
+        this.buckets = Caffeine.newBuilder()
+                .maximumSize(constants.getMaximumClients())
+                .expireAfterAccess(Duration.ofNanos(Math.max(burstToleranceNanos + emissionIntervalNanos,
+                        TimeUnit.SECONDS.toNanos(1))))
+                .ticker(ticker)
+                .build();
+    }
+
+    /**
+     * Takes a token from the bucket of the client.
+     *
+     * @param client Key of the client, e.g. the API key or the remote address
+     * @return 0 if the request is admitted, otherwise the nanoseconds until the client has a token again
+     */
+    public long tryAcquire(String client) {
+        long now = ticker.read();
+        AtomicLong fullAt = buckets.get(client, key -> new AtomicLong(now));
+        while (true) {
+            long current = fullAt.get();
+            // A bucket full since before now holds no more than burst tokens.
+            long start = current - now > 0 ? current : now;
+            long wait = start - now - burstToleranceNanos;
+            if (wait > 0) {
+                return wait;
+            }
+            if (fullAt.compareAndSet(current, start + emissionIntervalNanos)) {
+                return 0;
+            }
+        }
+    }
+}
@@ -0,0 +1,118 @@
+package ee.taltech.inbankbackend.service;
+
+import ee.taltech.inbankbackend.dto.Country;
+import ee.taltech.inbankbackend.util.CountryRuleConstants;
+import ee.taltech.inbankbackend.util.DecisionEngineConstant;
+
+import java.util.Arrays;
+import java.util.HashMap;
+import java.util.Map;
+import java.util.Objects;
+import java.util.stream.Stream;
+
+/**
+ * Rules of every country indexed by the country ordinal: the age range, the loan parameters and the decision table
+ * built from them. Countries with the same loan parameters share one decision table.
+ * Countries without rules are not offered loans.
+ */
+public final class CountryRules {
+    private final DecisionEngineConstant defaults;
+    private final boolean[] offered;
+    private final int[] minimumAges;
+    private final int[] maximumAges;
+    private final DecisionEngineConstant[] loanParameters;
+    private final DecisionTable[] decisionTables;
+
+    private CountryRules(DecisionEngineConstant defaults, CountryRuleConstants countryRuleConstants) {
+        this.defaults = copyOf(defaults);
+
+        Map<DecisionEngineConstant, DecisionTable> tables = new HashMap<>();
+        Country[] countries = Country.values();
+        this.offered = new boolean[countries.length];
+        this.minimumAges = new int[countries.length];
+        this.maximumAges = new int[countries.length];
+        this.loanParameters = new DecisionEngineConstant[countries.length];
+        this.decisionTables = new DecisionTable[countries.length];
+        for (Country country : countries) {
+            int i = country.ordinal();
+            CountryRuleConstants.CountryRule rule = countryRuleConstants.getCountries().get(country);
+            if (rule == null) {
+                loanParameters[i] = this.defaults;
+                continue;
+            }
+            offered[i] = true;
+            minimumAges[i] = rule.getMinimumAge();
+            maximumAges[i] = rule.getMaximumAge();
+            loanParameters[i] = rule.toDecisionEngineConstant(this.defaults);
+            decisionTables[i] = tables.computeIfAbsent(loanParameters[i], DecisionTable::build);
+        }
+    }
+
+    /**
+     * Builds the rules of every country and the decision tables they use.
+     *
+     * @param defaults Decision engine constants, used where a country does not override them
+     * @param countryRuleConstants Rules of the countries
+     */
+    public static CountryRules build(DecisionEngineConstant defaults, CountryRuleConstants countryRuleConstants) {
+        return new CountryRules(defaults, countryRuleConstants);
+    }
+
+    public boolean isOffered(Country country) {
+        return offered[country.ordinal()];
+    }
+
+    public int minimumAge(Country country) {
+        return minimumAges[country.ordinal()];
+    }
+
+    public int maximumAge(Country country) {
+        return maximumAges[country.ordinal()];
+    }
+
+    /**
+     * Loan parameters of the country, or the default ones if the country is null.
+     * The inputs are validated against them before the country itself is validated.
+     */
+    public DecisionEngineConstant loanParameters(Country country) {
+        return country != null ? loanParameters[country.ordinal()] : defaults;
+    }
+
+    /**
+     * Decision table of the country. Countries that are not offered loans have no decision table.
+     */
+    public DecisionTable decisionTable(Country country) {
+        return decisionTables[country.ordinal()];
+    }
+
+    /**
+     * Number of distinct decision tables.
+     */
+    public int decisionTableCount() {
+        return (int) distinctDecisionTables().count();
+    }
+
+    /**
+     * Approximate memory footprint of all distinct decision tables in bytes.
+     */
+    public long footprintBytes() {
+        return distinctDecisionTables().mapToLong(DecisionTable::footprintBytes).sum();
+    }
+
+    private Stream<DecisionTable> distinctDecisionTables() {
+        return Arrays.stream(decisionTables).filter(Objects::nonNull).distinct();
+    }
+
+    static DecisionEngineConstant copyOf(DecisionEngineConstant constant) {
+        DecisionEngineConstant copy = new DecisionEngineConstant();
+        copy.setMinimumLoanAmount(constant.getMinimumLoanAmount());
+        copy.setMaximumLoanAmount(constant.getMaximumLoanAmount());
+        copy.setMinimumLoanPeriod(constant.getMinimumLoanPeriod());
+        copy.setMaximumLoanPeriod(constant.getMaximumLoanPeriod());
+        copy.setSegment1CreditModifier(constant.getSegment1CreditModifier());
+        copy.setSegment2CreditModifier(constant.getSegment2CreditModifier());
+        copy.setSegment3CreditModifier(constant.getSegment3CreditModifier());
+        copy.setLoanInterval(constant.getLoanInterval());
+        return copy;
+    }
+}
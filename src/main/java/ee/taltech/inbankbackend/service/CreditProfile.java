@@ -0,0 +1,33 @@
+package ee.taltech.inbankbackend.service;
+
+/**
+ * Credit profile of a customer, the credit segment decides the credit modifier.
+ * Segment 0 means the customer has debt and is not offered a loan.
+ *
+ * @param segment Credit segment, 0 for debt, otherwise 1 to {@link DecisionTable#SEGMENT_COUNT}
+ */
+public record CreditProfile(int segment) {
+    public static final CreditProfile DEBT = new CreditProfile(0);
+    private static final CreditProfile[] SEGMENTS = {DEBT, new CreditProfile(1), new CreditProfile(2),
+            new CreditProfile(3)};
+
+    public CreditProfile {
+        if (segment < 0 || segment > DecisionTable.SEGMENT_COUNT) {
+            throw new IllegalArgumentException("Invalid credit segment: " + segment);
+        }
+    }
+
+    /**
+     * Returns the shared profile of the segment, so providers do not have to allocate one per customer.
+     */
+    public static CreditProfile ofSegment(int segment) {
+        if (segment < 0 || segment >= SEGMENTS.length) {
+            throw new IllegalArgumentException("Invalid credit segment: " + segment);
+        }
+        return SEGMENTS[segment];
+    }
+
+    public boolean hasDebt() {
+        return segment == 0;
+    }
+}
@@ -0,0 +1,17 @@
+package ee.taltech.inbankbackend.service;
+
+/**
+ * Provides the credit profiles of customers, e.g. from a credit registry.
+ * The decision engine asks for the profile only after the request is validated, so the personal code is valid.
+ * Implementations may block, they are called through {@link CachingCreditProfileProvider}.
+ */
+public interface CreditProfileProvider {
+
+    /**
+     * Returns the credit profile of the customer.
+     *
+     * @param personalCode Valid personal ID code of the customer
+     * @return Credit profile of the customer, never null
+     */
+    CreditProfile getCreditProfile(String personalCode);
+}
@@ -0,0 +1,234 @@
+package ee.taltech.inbankbackend.service;
+
+import com.fasterxml.jackson.core.JsonParser;
+import com.fasterxml.jackson.core.JsonProcessingException;
+import com.fasterxml.jackson.core.JsonToken;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.fasterxml.jackson.databind.ObjectReader;
+import com.fasterxml.jackson.databind.ObjectWriter;
+import com.fasterxml.jackson.databind.exc.MismatchedInputException;
+import ee.taltech.inbankbackend.dto.DecisionRequest;
+import ee.taltech.inbankbackend.dto.DecisionResponse;
+import ee.taltech.inbankbackend.exception.*;
+import ee.taltech.inbankbackend.util.BatchDecisionConstants;
+import ee.taltech.inbankbackend.util.ErrorMessage;
+import jakarta.annotation.PreDestroy;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.stereotype.Service;
+
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.OutputStream;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+import java.util.concurrent.Callable;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ForkJoinPool;
+import java.util.concurrent.Future;
+
+/**
+ * A service class that calculates loan decisions for a batch of requests.
+ * The requests are split into chunks which are evaluated in parallel, and the responses are returned
+ * in the same order as the requests. Errors are reported per request instead of failing the whole batch.
+ * Batches can also be streamed as newline delimited JSON, in which case only a bounded window of requests
+ * is kept in memory at a time.
+ */
+@Service
+@Slf4j
+public class DecisionBatchService {
+    private final DecisionEngineService decisionEngine;
+    private final BatchDecisionConstants batchDecisionConstants;
+    private final ForkJoinPool pool;
+    private final ObjectReader requestReader;
+    private final ObjectWriter responseWriter;
+
+    public DecisionBatchService(DecisionEngineService decisionEngine, BatchDecisionConstants batchDecisionConstants,
+                                ObjectMapper objectMapper) {
+        this.decisionEngine = decisionEngine;
+        this.batchDecisionConstants = batchDecisionConstants;
+        int parallelism = batchDecisionConstants.getParallelism() > 0
+                ? batchDecisionConstants.getParallelism()
+                : Runtime.getRuntime().availableProcessors();
+        this.pool = new ForkJoinPool(parallelism);
+        this.requestReader = objectMapper.readerFor(DecisionRequest.class);
+        this.responseWriter = objectMapper.writerFor(DecisionResponse.class);
+    }
+
+    @PreDestroy
+    public void shutdown() {
+        pool.shutdown();
+    }
+
+    /**
+     * Calculates the loan decisions for all requests of the batch.
+     *
+     * @param requests Decision requests
+     * @return Decision responses in the same order as the requests
+     * @throws InvalidBatchSizeException If the batch is larger than the maximum batch size
+     */
+    public List<DecisionResponse> calculateApprovedLoans(List<DecisionRequest> requests) {
+        if (requests.size() > batchDecisionConstants.getMaximumBatchSize()) {
+            log.error("Invalid batch size: {}", requests.size());
+            throw new InvalidBatchSizeException(ErrorMessage.INVALID_BATCH_SIZE.getMessage());
+        }
+
+        return Arrays.asList(calculateInChunks(requests));
+    }
+
+    /**
+     * Reads a JSON array of decision requests and calculates their loan decisions.
+     * The batch size is checked while the array is read: reading stops at the first request over the maximum batch
+     * size, so an oversized batch is never held in memory.
+     *
+     * @param input JSON array of decision requests
+     * @return Decision responses in the same order as the requests
+     * @throws InvalidBatchSizeException If the batch is larger than the maximum batch size
+     * @throws JsonProcessingException If the input is not a JSON array of decision requests
+     * @throws IOException If reading the requests fails
+     */
+    public List<DecisionResponse> calculateApprovedLoans(InputStream input) throws IOException {
+        return Arrays.asList(calculateInChunks(readBatch(input)));
+    }
+
+    /**
+     * Calculates the loan decisions for a stream of newline delimited JSON requests and writes the responses
+     * as newline delimited JSON in the same order.
+     * The requests are read and evaluated in windows of one chunk per worker thread, so the memory use does not
+     * depend on the size of the stream. Writing blocks while the client is not reading, which in turn stops
+     * reading further requests.
+     *
+     * @param input Newline delimited decision requests
+     * @param output Stream where the newline delimited decision responses are written to
+     * @throws IOException If reading the requests or writing the responses fails
+     */
+    public void streamApprovedLoans(InputStream input, OutputStream output) throws IOException {
+        int windowSize = Math.max(1, batchDecisionConstants.getChunkSize()) * pool.getParallelism();
+        List<DecisionRequest> window = new ArrayList<>(windowSize);
+        long rows = 0;
+        long start = System.nanoTime();
+
+        BoundedLineReader reader = new BoundedLineReader(input, batchDecisionConstants.getMaximumLineLength());
+        while (reader.next()) {
+            if (reader.isBlank()) {
+                continue;
+            }
+            // A line over the maximum line length is answered with an invalid request response, like a malformed one.
+            window.add(reader.isTooLong() ? null : parseRequest(reader.buffer(), reader.length()));
+            if (window.size() == windowSize) {
+                writeResponses(calculateInChunks(window), output);
+                rows += window.size();
+                window.clear();
+            }
+        }
+        if (!window.isEmpty()) {
+            writeResponses(calculateInChunks(window), output);
+            rows += window.size();
+        }
+        output.flush();
+
+        long elapsedNanos = Math.max(1, System.nanoTime() - start);
+        log.info("Streamed {} decisions in {} ms ({} rows/s)", rows, elapsedNanos / 1_000_000,
+                rows * 1_000_000_000L / elapsedNanos);
+    }
+
+    private List<DecisionRequest> readBatch(InputStream input) throws IOException {
+        List<DecisionRequest> requests = new ArrayList<>();
+        try (JsonParser parser = requestReader.createParser(input)) {
+            if (parser.nextToken() != JsonToken.START_ARRAY) {
+                throw MismatchedInputException.from(parser, List.class, "Expected an array of decision requests");
+            }
+            JsonToken token;
+            while ((token = parser.nextToken()) != JsonToken.END_ARRAY) {
+                if (token == null) {
+                    throw MismatchedInputException.from(parser, List.class, "Unexpected end of the batch");
+                }
+                if (requests.size() == batchDecisionConstants.getMaximumBatchSize()) {
+                    log.error("Invalid batch size: more than {}", batchDecisionConstants.getMaximumBatchSize());
+                    throw new InvalidBatchSizeException(ErrorMessage.INVALID_BATCH_SIZE.getMessage());
+                }
+                // A null element is answered with an invalid request response, see calculateApprovedLoan.
+                requests.add(token == JsonToken.VALUE_NULL ? null : requestReader.readValue(parser));
+            }
+        }
+        return requests;
+    }
+
+    private DecisionRequest parseRequest(byte[] line, int length) {
+        try {
+            return requestReader.readValue(line, 0, length);
+        } catch (IOException exception) {
+            // Malformed lines are answered with an invalid request response, same as the single decision endpoint.
+            return null;
+        }
+    }
+
+    private void writeResponses(DecisionResponse[] responses, OutputStream output) throws IOException {
+        for (DecisionResponse response : responses) {
+            output.write(responseWriter.writeValueAsBytes(response));
+            output.write('\n');
+        }
+        output.flush();
+    }
+
+    private DecisionResponse[] calculateInChunks(List<DecisionRequest> requests) {
+        DecisionResponse[] responses = new DecisionResponse[requests.size()];
+        int chunkSize = Math.max(1, batchDecisionConstants.getChunkSize());
+        if (requests.size() <= chunkSize) {
+            calculateChunk(requests, responses, 0, requests.size());
+            return responses;
+        }
+
+        List<Callable<Void>> chunks = new ArrayList<>();
+        for (int from = 0; from < requests.size(); from += chunkSize) {
+            int chunkStart = from;
+            int chunkEnd = Math.min(requests.size(), from + chunkSize);
+            chunks.add(() -> {
+                calculateChunk(requests, responses, chunkStart, chunkEnd);
+                return null;
+            });
+        }
+
+        try {
+            for (Future<Void> chunk : pool.invokeAll(chunks)) {
+                chunk.get();
+            }
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            throw new IllegalStateException("Batch decision was interrupted", e);
+        } catch (ExecutionException e) {
+            throw new IllegalStateException("Batch decision failed", e.getCause());
+        }
+        return responses;
+    }
+
+    private void calculateChunk(List<DecisionRequest> requests, DecisionResponse[] responses, int from, int to) {
+        for (int i = from; i < to; i++) {
+            responses[i] = calculateApprovedLoan(requests.get(i));
+        }
+    }
+
+    /**
+     * Calculates a single decision of the batch.
+     * Errors are turned into a response with the same error message the single decision endpoint would return.
+     *
+     * @param request Decision request
+     * @return Decision response, or a response with an error message if the request is invalid
+     */
+    DecisionResponse calculateApprovedLoan(DecisionRequest request) {
+        if (request == null) {
+            return new DecisionResponse(null, null, ErrorMessage.INVALID_REQUEST.getMessage());
+        }
+        try {
+            return decisionEngine.calculateApprovedLoan(request);
+        } catch (InvalidPersonalCodeException | InvalidLoanAmountException | InvalidLoanPeriodException
+                 | InvalidCountryException | AgeConstraintException | NoValidLoanException exception) {
+            return new DecisionResponse(null, null, exception.getMessage());
+        } catch (DecisionJournalUnavailableException exception) {
+            return new DecisionResponse(null, null, ErrorMessage.SERVICE_OVERLOADED.getMessage());
+        } catch (RuntimeException exception) {
+            log.error("Unexpected error while calculating decision for request: {}", request, exception);
+            return new DecisionResponse(null, null, ErrorMessage.UNEXPECTED_ERROR.getMessage());
+        }
+    }
+}
@@ -0,0 +1,235 @@
+package ee.taltech.inbankbackend.service;
+
+import com.github.benmanes.caffeine.cache.AsyncCache;
+import com.github.benmanes.caffeine.cache.Caffeine;
+import com.github.benmanes.caffeine.cache.Ticker;
+import ee.taltech.inbankbackend.dto.Country;
+import ee.taltech.inbankbackend.dto.DecisionRequest;
+import ee.taltech.inbankbackend.dto.DecisionResponse;
+import ee.taltech.inbankbackend.exception.*;
+import ee.taltech.inbankbackend.util.DecisionCoalescingConstants;
+import ee.taltech.inbankbackend.util.ErrorMessage;
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.MeterRegistry;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.stereotype.Service;
+
+import java.time.LocalDate;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CompletionException;
+import java.util.concurrent.Executor;
+
+/**
+ * Single-flight front of the decision engine for identical requests, e.g. double submits and retry storms.
+ * <br><br>
+ * - Requests with the same personal code, loan amount, loan period and country that arrive while a decision is being
+ * made wait for that decision instead of making their own.<br>
+ * - The decision is also returned to identical requests for application.decision-coalescing.memo-ttl after it was
+ * made, at most maximum-size decisions are kept.<br>
+ * - Rejections are shared and kept the same way. Unexpected errors are passed to the waiting requests, but not kept.<br>
+ * - A decision made with an older version of the decision parameters, or on an earlier day, is never returned.<br>
+ * - Every shared decision is journaled again for the request it is returned to, as a
+ * {@link DecisionRecord.Source#COALESCED} record. The record is appended on the thread of that request, or the
+ * executor it passed, never on the thread making the decision.<br>
+ * <br>
+ * The requests are counted as {@value #COALESCING}, tagged with the result computed, in_flight or memo.
+ */
+@Service
+public class DecisionCoalescingService {
+    static final String COALESCING = "decision.coalescing";
+
+    private final DecisionEngineService decisionEngine;
+    private final DecisionParametersService decisionParametersService;
+    private final DecisionJournal decisionJournal;
+    // Null when coalescing is disabled.
+    private final AsyncCache<DecisionKey, Outcome> decisions;
+    private final Counter computed;
+    private final Counter inFlight;
+    private final Counter memo;
+
+    @Autowired
+    public DecisionCoalescingService(DecisionEngineService decisionEngine,
+                                     DecisionParametersService decisionParametersService,
+                                     DecisionJournal decisionJournal, DecisionCoalescingConstants constants,
+                                     MeterRegistry registry) {
+        this(decisionEngine, decisionParametersService, decisionJournal, constants, registry, Ticker.systemTicker());
+    }
+
+    /**
+     * @param ticker Time source of the memo expiry
+     */
+    DecisionCoalescingService(DecisionEngineService decisionEngine,
+                              DecisionParametersService decisionParametersService, DecisionJournal decisionJournal,
+                              DecisionCoalescingConstants constants, MeterRegistry registry, Ticker ticker) {
+        this.decisionEngine = decisionEngine;
+        this.decisionParametersService = decisionParametersService;
+        this.decisionJournal = decisionJournal;
+        this.decisions = constants.isEnabled()
+                ? Caffeine.newBuilder()
+                        .maximumSize(constants.getMaximumSize())
+                        .expireAfterWrite(constants.getMemoTtl())
+                        .ticker(ticker)
+                        .buildAsync()
+                : null;
+        this.computed = counter(registry, "computed");
+        this.inFlight = counter(registry, "in_flight");
+        this.memo = counter(registry, "memo");
+    }
+
+    private static Counter counter(MeterRegistry registry, String result) {
+        return Counter.builder(COALESCING)
+                .description("Decision requests by whether the decision was made or shared with an identical request")
+                .tag("result", result)
+                .register(registry);
+    }
+
+    /**
+     * Calculates the loan decision, or waits for the decision of an identical request.
+     *
+     * @param request Loan decision request
+     * @return The same response as DecisionEngineService#calculateApprovedLoan
+     * @throws RuntimeException The same rejection as DecisionEngineService#calculateApprovedLoan
+     */
+    public DecisionResponse calculateApprovedLoan(DecisionRequest request) {
+        if (decisions == null) {
+            return decisionEngine.calculateApprovedLoan(request);
+        }
+        Flight flight = decide(request);
+        Outcome outcome;
+        try {
+            outcome = flight.outcome().join();
+        } catch (CompletionException e) {
+            if (e.getCause() instanceof RuntimeException cause) {
+                throw cause;
+            }
+            if (e.getCause() instanceof Error cause) {
+                throw cause;
+            }
+            throw e;
+        }
+        // Appended on this thread, not on the one that completed the decision.
+        return flight.shared() ? journal(request, flight.parametersVersion(), outcome).get() : outcome.get();
+    }
+
+    /**
+     * Calculates the loan decision without blocking the caller while an identical request is being decided.
+     *
+     * @param request Loan decision request
+     * @param executor Runs the journal append of a request that waited for an identical one, so it does not run on
+     *                 the thread completing that decision, e.g. a bounded pool that may block
+     * @return The response, completed exceptionally with the rejection if the request is rejected
+     */
+    public CompletableFuture<DecisionResponse> calculateApprovedLoanAsync(DecisionRequest request,
+                                                                          Executor executor) {
+        Flight flight = decide(request);
+        CompletableFuture<Outcome> outcome = flight.outcome();
+        if (!flight.shared()) {
+            return outcome.thenApply(Outcome::get);
+        }
+        if (outcome.isDone()) {
+            return outcome.thenApply(done -> journal(request, flight.parametersVersion(), done).get());
+        }
+        // The executor thread may have served a warm-up request before, so the scope of this request is set
+        // either way.
+        boolean warmUp = WarmUpScope.isActive();
+        return outcome.thenApplyAsync(done ->
+                WarmUpScope.call(warmUp, () -> journal(request, flight.parametersVersion(), done)).get(), executor);
+    }
+
+    private Flight decide(DecisionRequest request) {
+        CompletableFuture<Outcome> flight = new CompletableFuture<>();
+        long parametersVersion = 0;
+        if (decisions != null) {
+            // Read once, so the version and the day of the key belong to the same parameters.
+            DecisionParameters parameters = decisionParametersService.current();
+            parametersVersion = parameters.version();
+            DecisionKey key = new DecisionKey(request.getPersonalCode(), request.getLoanAmount(),
+                    request.getLoanPeriod(), request.getCountry(), parametersVersion,
+                    parameters.ageCutoffs().today());
+            // The mapping function only installs the future, the decision is made outside of the cache.
+            CompletableFuture<Outcome> shared = decisions.get(key, (k, executor) -> flight);
+            if (shared != flight) {
+                (shared.isDone() ? memo : inFlight).increment();
+                // Journaled by the caller on its own thread, a callback would run on the thread making the decision
+                // and slow it down by one append per waiting request.
+                return new Flight(shared, parametersVersion, true);
+            }
+            computed.increment();
+        }
+        // The future is always completed, otherwise the waiting requests would wait forever.
+        try {
+            DecisionResponse response = decisionEngine.calculateApprovedLoan(request);
+            flight.complete(new Outcome(response, null, DecisionJournal.errorOf(response)));
+        } catch (RuntimeException e) {
+            ErrorMessage rejection = rejectionOf(e);
+            if (rejection != null) {
+                flight.complete(new Outcome(null, e, rejection));
+            } else {
+                // A failed future is dropped from the cache, the next identical request tries again.
+                flight.completeExceptionally(e);
+            }
+        } catch (Error e) {
+            flight.completeExceptionally(e);
+            throw e;
+        }
+        return new Flight(flight, parametersVersion, false);
+    }
+
+    private Outcome journal(DecisionRequest request, long parametersVersion, Outcome outcome) {
+        decisionJournal.append(request, outcome.response(), outcome.error(), parametersVersion,
+                DecisionRecord.Source.COALESCED);
+        return outcome;
+    }
+
+    /**
+     * Error of a rejection of the decision engine, null if the exception is not a rejection.
+     */
+    private static ErrorMessage rejectionOf(RuntimeException e) {
+        if (e instanceof InvalidPersonalCodeException) {
+            return ErrorMessage.INVALID_PERSONAL_ID_CODE;
+        }
+        if (e instanceof InvalidLoanAmountException) {
+            return ErrorMessage.INVALID_LOAN_AMOUNT;
+        }
+        if (e instanceof InvalidLoanPeriodException) {
+            return ErrorMessage.INVALID_LOAN_PERIOD;
+        }
+        if (e instanceof InvalidCountryException) {
+            return ErrorMessage.INVALID_COUNTRY_NAME;
+        }
+        if (e instanceof AgeConstraintException) {
+            return ErrorMessage.INVALID_AGE_RANGE;
+        }
+        if (e instanceof NoValidLoanException) {
+            return ErrorMessage.NO_VALID_LOAN_FOUND;
+        }
+        return null;
+    }
+
+    /**
+     * Decision of a request, made for it or shared with an identical request.
+     *
+     * @param shared Whether the decision was made for an identical request, it is then journaled again
+     */
+    private record Flight(CompletableFuture<Outcome> outcome, long parametersVersion, boolean shared) {
+    }
+
+    private record DecisionKey(String personalCode, Long loanAmount, int loanPeriod, Country country,
+                               long parametersVersion, LocalDate today) {
+    }
+
+    /**
+     * Response or rejection of a request. Responses are not modified after they are made and the rejections of the
+     * decision engine are preallocated, so sharing them between requests is safe.
+     *
+     * @param error Error of the decision as journaled, null if a loan was approved
+     */
+    private record Outcome(DecisionResponse response, RuntimeException rejection, ErrorMessage error) {
+        DecisionResponse get() {
+            if (rejection != null) {
+                throw rejection;
+            }
+            return response;
+        }
+    }
+}
@@ -5,277 +5,364 @@ import com.github.vladislavgoltjajev.personalcode.locale.estonia.EstonianPersona
 import com.github.vladislavgoltjajev.personalcode.locale.estonia.EstonianPersonalCodeValidator;
 import ee.taltech.inbankbackend.dto.Country;
 import ee.taltech.inbankbackend.dto.DecisionRequest;
+import ee.taltech.inbankbackend.dto.LoanOffer;
+import ee.taltech.inbankbackend.dto.OfferRequest;
+import ee.taltech.inbankbackend.dto.OfferResponse;
 import ee.taltech.inbankbackend.exception.*;
-import ee.taltech.inbankbackend.util.AgeValidationConstants;
 import ee.taltech.inbankbackend.util.DecisionEngineConstant;
 import ee.taltech.inbankbackend.util.ErrorMessage;
+import ee.taltech.inbankbackend.util.MaskedPersonalCode;
+import ee.taltech.inbankbackend.util.PersonalCodeCodec;
 import ee.taltech.inbankbackend.dto.DecisionResponse;
 import lombok.RequiredArgsConstructor;
 import lombok.extern.slf4j.Slf4j;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
 import org.springframework.stereotype.Service;
 
 import java.time.LocalDate;
 import java.time.Period;
+import java.util.List;
 
 /**
  * A service class that provides a method for calculating an approved loan amount and period for a customer.
  * The loan amount is calculated based on the customer's credit modifier,
- * which is determined by the last four digits of their ID code.
+ * which is determined by the credit segment of their {@link CreditProfile}.
+ * Every request is decided with a single snapshot of the decision parameters, whose version is logged.
+ * The outcome and the duration of every decision stage are recorded in {@link DecisionMetrics}.
+ * Every decision is logged as a single INFO line with key-value fields and a {@link MaskedPersonalCode}.
+ * The lines explaining the failing checks are DEBUG lines of a separate logger, which is sampled in logback-spring.xml.
+ * The outcome of every decision, including rejections, is appended to the {@link DecisionJournal} for auditing.
  */
 @RequiredArgsConstructor
 @Service
 @Slf4j
 public class DecisionEngineService {
-    // Used to check for the validity of the presented ID code.
+    // Rejections are ordinary outcomes, so they are thrown as preallocated exceptions without a stack trace.
+    private static final InvalidPersonalCodeException INVALID_PERSONAL_CODE_REJECTION =
+            new InvalidPersonalCodeException(ErrorMessage.INVALID_PERSONAL_ID_CODE.getMessage());
+    private static final InvalidLoanAmountException INVALID_LOAN_AMOUNT_REJECTION =
+            new InvalidLoanAmountException(ErrorMessage.INVALID_LOAN_AMOUNT.getMessage());
+    private static final InvalidLoanPeriodException INVALID_LOAN_PERIOD_REJECTION =
+            new InvalidLoanPeriodException(ErrorMessage.INVALID_LOAN_PERIOD.getMessage());
+    private static final InvalidCountryException INVALID_COUNTRY_REJECTION =
+            new InvalidCountryException(ErrorMessage.INVALID_COUNTRY_NAME.getMessage());
+    private static final AgeConstraintException INVALID_AGE_RANGE_REJECTION =
+            new AgeConstraintException(ErrorMessage.INVALID_AGE_RANGE.getMessage());
+    private static final NoValidLoanException NO_VALID_LOAN_REJECTION =
+            new NoValidLoanException(ErrorMessage.NO_VALID_LOAN_FOUND.getMessage());
+
+    // Explains the failing checks, enabled and sampled separately from the decision lines.
+    private static final Logger STEP_LOG = LoggerFactory.getLogger(DecisionEngineService.class.getName() + ".steps");
+
+    // Used to check the validity of the few ID codes PersonalCodeCodec cannot decide on.
     private final EstonianPersonalCodeValidator validator = new EstonianPersonalCodeValidator();
     private final EstonianPersonalCodeParser estonianPersonalCodeParser = new EstonianPersonalCodeParser();
-    private final DecisionEngineConstant decisionEngineConstant;
-    private final AgeValidationConstants ageValidationConstants;
+    private final DecisionParametersService decisionParametersService;
+    private final DecisionMetrics decisionMetrics;
+    private final CreditProfileProvider creditProfileProvider;
+    private final DecisionJournal decisionJournal;
 
+    /**
+     * Calculates the loan decision for the request.
+     *
+     * @param request Decision request
+     * @return Decision response containing the approved loan amount and period, and an error message (if any)
+     * @throws InvalidPersonalCodeException If the provided personal ID code is invalid
+     * @throws InvalidLoanAmountException If the requested loan amount is invalid
+     * @throws InvalidLoanPeriodException If the requested loan period is invalid
+     * @throws InvalidCountryException If the requested country name is invalid
+     * @throws AgeConstraintException If the user's age is not in the expected range
+     * @throws NoValidLoanException If no valid loan is found
+     */
     public DecisionResponse calculateApprovedLoan(DecisionRequest request) {
-        verifyInputs(request.getPersonalCode(), request.getLoanAmount(), request.getLoanPeriod());
-        verifyCountry(request.getCountry());
-        verifyAgeBasedOnTheCountry(request.getPersonalCode(), request.getCountry());
-
-        int creditModifier = getCreditModifier(request.getPersonalCode());
-
-        if (creditModifier == 0) {
-            log.warn("Customer has debit and no valid loan found for personal code: {}", request.getPersonalCode());
-            return new DecisionResponse(null, null, ErrorMessage.NO_VALID_LOAN_FOUND.getMessage());
+        long start = System.nanoTime();
+        DecisionParameters parameters = decisionParametersService.current();
+        long parsedPersonalCode = parsePersonalCode(request.getPersonalCode(), parameters);
+        long parsed = System.nanoTime();
+        ErrorMessage rejection = validate(request, parsedPersonalCode, parameters);
+        long validated = System.nanoTime();
+        decisionMetrics.record(DecisionMetrics.Stage.PARSING, parsed - start);
+        decisionMetrics.record(DecisionMetrics.Stage.VALIDATION, validated - parsed);
+        Country country = request.getCountry();
+        if (rejection != null) {
+            decisionMetrics.rejected(country, rejection);
+            decisionMetrics.record(DecisionMetrics.Stage.TOTAL, validated - start);
+            logRejection(request.getPersonalCode(), country, rejection, parameters);
+            decisionJournal.append(request, null, rejection, parameters.version());
+            throw rejectionOf(rejection);
         }
 
-        float creditScore = calculateCreditScore(request.getLoanPeriod(), creditModifier, request.getLoanAmount());
-        int approvedLoanAmount = calculateEligibleLoanAmount(request.getLoanPeriod(), creditModifier);
-        if (creditScore < 0.1) {
-            log.info("Credit score is too low for personal code: {}, credit score: {}", request.getPersonalCode(), creditScore);
-            int expectedLoanPeriod = calculateSuitableLoanPeriod(request.getLoanAmount(), creditModifier);
-            log.info("Expected loan period: {}, expected loan amount: {}", expectedLoanPeriod, approvedLoanAmount);
+        CreditProfile creditProfile = creditProfileProvider.getCreditProfile(request.getPersonalCode());
+        long profiled = System.nanoTime();
+        decisionMetrics.record(DecisionMetrics.Stage.CREDIT_PROFILE, profiled - validated);
 
-            if (!validateExpectedLoanPeriod(expectedLoanPeriod))
-                return new DecisionResponse(approvedLoanAmount, null, ErrorMessage.NO_VALID_LOAN_FOUND.getMessage());
-
-            if(!validateExpectedLoanAmount(approvedLoanAmount))
-                return new DecisionResponse(null, expectedLoanPeriod, ErrorMessage.NO_VALID_LOAN_FOUND.getMessage());
+        if (creditProfile.hasDebt()) {
+            decisionMetrics.debt(country);
+            decisionMetrics.record(DecisionMetrics.Stage.TOTAL, profiled - start);
+            logRejection(request.getPersonalCode(), country, ErrorMessage.NO_VALID_LOAN_FOUND, parameters);
+            DecisionResponse response = new DecisionResponse(null, null, ErrorMessage.NO_VALID_LOAN_FOUND.getMessage());
+            decisionJournal.append(request, response, ErrorMessage.NO_VALID_LOAN_FOUND, parameters.version());
+            return response;
+        }
 
-            log.info("Decision response for personal code: {}, offered loan amount: {}, loan period: {}",
-                    request.getPersonalCode(), approvedLoanAmount, expectedLoanPeriod);
-            return new DecisionResponse(approvedLoanAmount, expectedLoanPeriod, ErrorMessage.NO_VALID_LOAN_FOUND.getMessage());
+        DecisionTable table = parameters.rules().decisionTable(country);
+        int outcome = table.lookup(creditProfile.segment(), request.getLoanPeriod(), request.getLoanAmount());
+        DecisionTable.OutcomeKind kind = table.kindOf(outcome);
+        long scored = System.nanoTime();
+        decisionMetrics.record(DecisionMetrics.Stage.SCORING, scored - profiled);
+        decisionMetrics.record(DecisionMetrics.Stage.TOTAL, scored - start);
+        if (kind == DecisionTable.OutcomeKind.NO_VALID_LOAN) {
+            decisionMetrics.rejected(country, ErrorMessage.NO_VALID_LOAN_FOUND);
+            logRejection(request.getPersonalCode(), country, ErrorMessage.NO_VALID_LOAN_FOUND, parameters);
+            decisionJournal.append(request, null, ErrorMessage.NO_VALID_LOAN_FOUND, parameters.version());
+            throw NO_VALID_LOAN_REJECTION;
+        }
+        DecisionResponse response = table.toResponse(outcome);
+        if (kind == DecisionTable.OutcomeKind.COUNTER_OFFER) {
+            decisionMetrics.counterOffer(country);
+            logDecision("Credit score is too low, counter offer made", request, response, parameters);
+            decisionJournal.append(request, response, null, parameters.version());
+            return response;
         }
 
-        log.info("Credit score is valid and loan amount is approved for " +
-                "personal code: {}, offered loan amount: {}, loan period: {}",
-                request.getPersonalCode(), approvedLoanAmount, request.getLoanPeriod());
-        return new DecisionResponse(approvedLoanAmount, request.getLoanPeriod(), null);
+        decisionMetrics.approved(country);
+        logDecision("Credit score is valid, loan approved", request, response, parameters);
+        decisionJournal.append(request, response, null, parameters.version());
+        return response;
     }
 
-    /**
-     * Verify that all inputs are valid according to business rules.
-     * If inputs are invalid, then throws corresponding exceptions.
-     *
-     * @param personalCode Provided personal ID code
-     * @param loanAmount Requested loan amount
-     * @param loanPeriod Requested loan period
-     * @throws InvalidPersonalCodeException If the provided personal ID code is invalid
-     * @throws InvalidLoanAmountException If the requested loan amount is invalid
-     * @throws InvalidLoanPeriodException If the requested loan period is invalid
-     * */
-    private void verifyInputs(String personalCode, Long loanAmount, int loanPeriod) {
-        if (!validator.isValid(personalCode)) {
-            log.error("Invalid personal code: {}", personalCode);
-            throw new InvalidPersonalCodeException(ErrorMessage.INVALID_PERSONAL_ID_CODE.getMessage());
-        }
-        if (loanAmount < decisionEngineConstant.getMinimumLoanAmount()
-                || loanAmount > decisionEngineConstant.getMaximumLoanAmount()) {
-            log.error("Invalid loan amount: {}", loanAmount);
-            throw new InvalidLoanAmountException(ErrorMessage.INVALID_LOAN_AMOUNT.getMessage());
-        }
-        if (loanPeriod < decisionEngineConstant.getMinimumLoanPeriod()
-                || loanPeriod > decisionEngineConstant.getMaximumLoanPeriod()
-                || loanPeriod % decisionEngineConstant.getLoanInterval() != 0) {
-            log.error("Invalid loan period: {}", loanPeriod);
-            throw new InvalidLoanPeriodException(ErrorMessage.INVALID_LOAN_PERIOD.getMessage());
-        }
+    private static void logDecision(String message, DecisionRequest request, DecisionResponse response,
+                                    DecisionParameters parameters) {
+        log.atInfo()
+                .setMessage(message)
+                .addKeyValue("personalCode", MaskedPersonalCode.of(request.getPersonalCode()))
+                .addKeyValue("country", request.getCountry())
+                .addKeyValue("loanAmount", response.getLoanAmount())
+                .addKeyValue("loanPeriod", response.getLoanPeriod())
+                .addKeyValue("parametersVersion", parameters.version())
+                .log();
+    }
+
+    private static void logRejection(String personalCode, Country country, ErrorMessage rejection,
+                                     DecisionParameters parameters) {
+        log.atInfo()
+                .setMessage("Loan rejected")
+                .addKeyValue("personalCode", MaskedPersonalCode.of(personalCode))
+                .addKeyValue("country", country)
+                .addKeyValue("error", rejection.getCode())
+                .addKeyValue("parametersVersion", parameters.version())
+                .log();
     }
 
     /**
-     * Verify user age based on the country field
-     * If inputs are invalid, then throws corresponding exceptions.
+     * Calculates the offers for the customer: the approved loan amount for every valid loan period.
+     * The offers are precomputed in the decision table of the country, so a single request replaces one decision
+     * request per loan period.
      *
-     * @param personalCode Provided personal ID code
-     * @param country The loan requested country
+     * @param request Offer request
+     * @return Offer response containing the offers in increasing loan period order, or no offers and an error message
+     * if the customer has debt
      * @throws InvalidPersonalCodeException If the provided personal ID code is invalid
      * @throws InvalidCountryException If the requested country name is invalid
      * @throws AgeConstraintException If the user's age is not in the expected range
-     * */
-    private void verifyAgeBasedOnTheCountry(String personalCode, Country country) {
-        int minAge;
-        int maxAge;
-
-        switch (country.name()) {
-            case "ESTONIA" -> {
-                minAge = ageValidationConstants.getMinimumAgeEs();
-                maxAge = ageValidationConstants.getMaximumAgeEs();
-            }
-            case "LATVIA" -> {
-                minAge = ageValidationConstants.getMinimumAgeLv();
-                maxAge = ageValidationConstants.getMaximumAgeLv();
-            }
-            case "LITHUANIA" -> {
-                minAge = ageValidationConstants.getMinimumAgeLt();
-                maxAge = ageValidationConstants.getMaximumAgeLt();
+     * @throws NoValidLoanException If no loan period has an approved amount
+     */
+    public OfferResponse calculateOffers(OfferRequest request) {
+        DecisionParameters parameters = decisionParametersService.current();
+        long parsedPersonalCode = parsePersonalCode(request.getPersonalCode(), parameters);
+        ErrorMessage rejection = null;
+        if (parsedPersonalCode == PersonalCodeCodec.INVALID) {
+            if (STEP_LOG.isDebugEnabled()) {
+                STEP_LOG.debug("Invalid personal code: {}", MaskedPersonalCode.of(request.getPersonalCode()));
             }
-            default -> throw new InvalidCountryException(ErrorMessage.INVALID_COUNTRY_NAME.getMessage());
+            rejection = ErrorMessage.INVALID_PERSONAL_ID_CODE;
+        }
+        if (rejection == null) {
+            rejection = verifyCountry(request.getCountry(), parameters.rules());
+        }
+        if (rejection == null) {
+            rejection = verifyAgeBasedOnTheCountry(request.getPersonalCode(), parsedPersonalCode, request.getCountry(),
+                    parameters);
+        }
+        if (rejection != null) {
+            logRejection(request.getPersonalCode(), request.getCountry(), rejection, parameters);
+            throw rejectionOf(rejection);
         }
 
-        try {
-            Period period = estonianPersonalCodeParser.getAge(personalCode);
-            int age = period.getYears();
-            int customerAgeAtLoanEnd = calculateCustomerAgeAtLoanEnd(period);
-
-            if (age < minAge || customerAgeAtLoanEnd > maxAge) {
-                log.error("Invalid age range for personal code: {}, age: {}, age in the end of loan: {}, " +
-                                "the expected age range are from {} to {}",
-                        personalCode, age, customerAgeAtLoanEnd, minAge, maxAge);
-                throw new AgeConstraintException(ErrorMessage.INVALID_AGE_RANGE.getMessage());
-            }
-        } catch (PersonalCodeException e) {
-            throw new InvalidPersonalCodeException(e.getMessage());
+        CreditProfile creditProfile = creditProfileProvider.getCreditProfile(request.getPersonalCode());
+        if (creditProfile.hasDebt()) {
+            logRejection(request.getPersonalCode(), request.getCountry(), ErrorMessage.NO_VALID_LOAN_FOUND, parameters);
+            return new OfferResponse(List.of(), ErrorMessage.NO_VALID_LOAN_FOUND.getMessage());
         }
-    }
 
-    /**
-     * Verify that country name is valid.
-     * If inputs are invalid, then throws corresponding exceptions.
-     *
-     * @param country The loan requested country
-     * @throws InvalidCountryException If the requested country name is invalid
-     * */
-    private void verifyCountry(Country country) {
-        if (country == null || country.name().isEmpty()) {
-            throw new InvalidCountryException(ErrorMessage.INVALID_COUNTRY_NAME.getMessage());
+        List<LoanOffer> offers = parameters.rules().decisionTable(request.getCountry())
+                .offers(creditProfile.segment());
+        if (offers.isEmpty()) {
+            logRejection(request.getPersonalCode(), request.getCountry(), ErrorMessage.NO_VALID_LOAN_FOUND, parameters);
+            throw NO_VALID_LOAN_REJECTION;
         }
+        log.atInfo()
+                .setMessage("Offers calculated")
+                .addKeyValue("personalCode", MaskedPersonalCode.of(request.getPersonalCode()))
+                .addKeyValue("country", request.getCountry())
+                .addKeyValue("loanPeriods", offers.size())
+                .addKeyValue("parametersVersion", parameters.version())
+                .log();
+        return new OfferResponse(offers, null);
     }
 
     /**
-     * Calculates the credit modifier of the customer to according to the last four digits of their ID code.
-     * Debt - 0000...2499
-     * Segment 1 - 2500...4999
-     * Segment 2 - 5000...7499
-     * Segment 3 - 7500...9999
+     * Validate the request without throwing exceptions.
+     * The checks are done in the same order as before, so the first failing check decides the error.
      *
-     * @param personalCode ID code of the customer that made the request.
-     * @return Segment to which the customer belongs.
+     * @param request Decision request
+     * @return Error of the first failing check, or null if the request is valid
      */
-    private int getCreditModifier(String personalCode) {
-        int segment = Integer.parseInt(personalCode.substring(personalCode.length() - 4));
-        // I'm not changing this part because it's hardcoded on purpose.
+    public ErrorMessage validate(DecisionRequest request) {
+        DecisionParameters parameters = decisionParametersService.current();
+        return validate(request, parsePersonalCode(request.getPersonalCode(), parameters), parameters);
+    }
 
-        if (segment < 2500) {
-            return 0;
-        } else if (segment < 5000) {
-            return decisionEngineConstant.getSegment1CreditModifier();
-        } else if (segment < 7500) {
-            return decisionEngineConstant.getSegment2CreditModifier();
+    private ErrorMessage validate(DecisionRequest request, long parsedPersonalCode, DecisionParameters parameters) {
+        DecisionEngineConstant loanParameters = parameters.rules().loanParameters(request.getCountry());
+        ErrorMessage rejection = verifyInputs(request.getPersonalCode(), parsedPersonalCode,
+                request.getLoanAmount(), request.getLoanPeriod(), loanParameters);
+        if (rejection == null) {
+            rejection = verifyCountry(request.getCountry(), parameters.rules());
+        }
+        if (rejection == null) {
+            rejection = verifyAgeBasedOnTheCountry(request.getPersonalCode(), parsedPersonalCode, request.getCountry(),
+                    parameters);
         }
-        // This part open to future possible bugs
-        return decisionEngineConstant.getSegment3CreditModifier();
+        return rejection;
     }
 
     /**
-     * Calculates the largest valid loan for the current credit modifier and loan period.
+     * Parses the personal code in a single pass with {@link PersonalCodeCodec}.
+     * The few codes the codec cannot decide on are resolved with the personal code library.
      *
-     * @return Largest valid loan amount
+     * @param personalCode Provided personal ID code
+     * @param parameters Decision parameters of the request, today is taken from them
+     * @return Parsed personal code, or {@link PersonalCodeCodec#INVALID} if the code is invalid
      */
-    private int highestValidLoanAmount(int loanPeriod, int creditModifier) {
-        log.info("Calculate highest valid loan amount for loan period: {}, credit modifier: {}", loanPeriod, creditModifier);
-        return creditModifier * loanPeriod;
-    }
+    private long parsePersonalCode(String personalCode, DecisionParameters parameters) {
+        long parsed = PersonalCodeCodec.parse(personalCode, parameters.ageCutoffs().packedToday());
+        if (parsed != PersonalCodeCodec.UNDECIDED) {
+            return parsed;
+        }
 
-    /**
-     * Calculate user's credit score
-     *
-     * @param loanPeriod Requested loan period
-     * @param creditModifier User's calculated credit modifier based on the last four digits of their ID code
-     * @param loanAmount Requested loan amount
-     * */
-    private float calculateCreditScore(int loanPeriod, int creditModifier, long loanAmount) {
-        return (((float) creditModifier / loanAmount) * loanPeriod) / 10;
+        if (!validator.isValid(personalCode)) {
+            return PersonalCodeCodec.INVALID;
+        }
+        try {
+            LocalDate dateOfBirth = estonianPersonalCodeParser.getDateOfBirth(personalCode);
+            int segment = Integer.parseInt(personalCode.substring(personalCode.length() - 4));
+            return PersonalCodeCodec.of(PersonalCodeCodec.packDate(dateOfBirth.getYear(),
+                    dateOfBirth.getMonthValue(), dateOfBirth.getDayOfMonth()), segment);
+        } catch (PersonalCodeException e) {
+            if (STEP_LOG.isDebugEnabled()) {
+                STEP_LOG.debug("Invalid personal code: {}, {}", MaskedPersonalCode.of(personalCode), e.getMessage());
+            }
+            return PersonalCodeCodec.INVALID;
+        }
     }
 
     /**
-     * Calculates eligible loan amount for the user
+     * Verify that all inputs are valid according to business rules.
      *
+     * @param personalCode Provided personal ID code
+     * @param parsedPersonalCode Personal ID code parsed with {@link #parsePersonalCode(String, DecisionParameters)}
+     * @param loanAmount Requested loan amount
      * @param loanPeriod Requested loan period
-     * @param creditModifier User's calculated credit modifier based on the last four digits of their ID code
-     * @throws NoValidLoanException If the loan period is larger than the maximum loan period
+     * @param loanParameters Loan parameters of the requested country
+     * @return INVALID_PERSONAL_ID_CODE, INVALID_LOAN_AMOUNT or INVALID_LOAN_PERIOD if the corresponding input
+     * is invalid, otherwise null
      * */
-    private int calculateEligibleLoanAmount(int loanPeriod, int creditModifier) {
-        int approvedLoanAmount;
-
-        while (highestValidLoanAmount(loanPeriod, creditModifier) < decisionEngineConstant.getMinimumLoanPeriod()) {
-            loanPeriod++;
+    private ErrorMessage verifyInputs(String personalCode, long parsedPersonalCode, Long loanAmount, int loanPeriod,
+                                      DecisionEngineConstant loanParameters) {
+        if (parsedPersonalCode == PersonalCodeCodec.INVALID) {
+            if (STEP_LOG.isDebugEnabled()) {
+                STEP_LOG.debug("Invalid personal code: {}", MaskedPersonalCode.of(personalCode));
+            }
+            return ErrorMessage.INVALID_PERSONAL_ID_CODE;
         }
-
-        if (loanPeriod <= decisionEngineConstant.getMaximumLoanPeriod()) {
-            approvedLoanAmount = Math.min(decisionEngineConstant.getMaximumLoanAmount(),
-                    highestValidLoanAmount(loanPeriod, creditModifier));
-        } else {
-            throw new NoValidLoanException(ErrorMessage.NO_VALID_LOAN_FOUND.getMessage());
+        if (loanAmount < loanParameters.getMinimumLoanAmount()
+                || loanAmount > loanParameters.getMaximumLoanAmount()) {
+            STEP_LOG.debug("Invalid loan amount: {}", loanAmount);
+            return ErrorMessage.INVALID_LOAN_AMOUNT;
         }
-        return approvedLoanAmount;
-    }
-
-
-    /**
-     * Calculate suitable loan period for the user
-     * If the expected loan period is not in the valid range, then return the nearest possible option
-     * @param loanAmount Requested loan amount
-     * @param creditModifier User's calculated credit modifier based on the last four digits of their ID code
-     * */
-    private int calculateSuitableLoanPeriod(Long loanAmount, int creditModifier) {
-        int expectedLoanPeriod = Math.toIntExact((loanAmount / creditModifier));
-        log.info("For the current amount, the minimum loan period could be: {}", expectedLoanPeriod);
-
-        int remainingLoanMonths = expectedLoanPeriod % decisionEngineConstant.getLoanInterval();
-        if (remainingLoanMonths != 0) {
-            expectedLoanPeriod += (decisionEngineConstant.getLoanInterval() -
-                    (remainingLoanMonths));
+        if (loanPeriod < loanParameters.getMinimumLoanPeriod()
+                || loanPeriod > loanParameters.getMaximumLoanPeriod()
+                || loanPeriod % loanParameters.getLoanInterval() != 0) {
+            STEP_LOG.debug("Invalid loan period: {}", loanPeriod);
+            return ErrorMessage.INVALID_LOAN_PERIOD;
         }
-
-        log.info("Adjusted loan period to the nearest possible option: {}", expectedLoanPeriod);
-        return expectedLoanPeriod;
+        return null;
     }
 
     /**
-     * Calculate user's age at the end of the loan period
+     * Verify user age based on the country field
      *
-     * @param period user's age based on the personal code
+     * @param personalCode Provided personal ID code
+     * @param parsedPersonalCode Personal ID code parsed with {@link #parsePersonalCode(String, DecisionParameters)}
+     * @param country The loan requested country
+     * @param parameters Decision parameters of the request
+     * @return INVALID_AGE_RANGE if the customer is not in the age range of the country, otherwise null
      * */
-    private int calculateCustomerAgeAtLoanEnd(Period period) {
-        LocalDate birthDate = LocalDate.now().minus(period);
-        LocalDate expectedLoanEndDate = LocalDate.now().plusMonths(decisionEngineConstant.getMaximumLoanPeriod());
-        return Period.between(birthDate, expectedLoanEndDate).getYears();
+    private ErrorMessage verifyAgeBasedOnTheCountry(String personalCode, long parsedPersonalCode, Country country,
+                                                    DecisionParameters parameters) {
+        AgeCutoffs cutoffs = parameters.ageCutoffs();
+        int birthDate = PersonalCodeCodec.birthDate(parsedPersonalCode);
+        if (cutoffs.isAllowed(country, birthDate)) {
+            return null;
+        }
+        if (!STEP_LOG.isDebugEnabled()) {
+            return ErrorMessage.INVALID_AGE_RANGE;
+        }
+
+        // Only rejected requests that are logged pay for calculating the ages.
+        LocalDate dateOfBirth = LocalDate.of(PersonalCodeCodec.year(birthDate), PersonalCodeCodec.month(birthDate),
+                PersonalCodeCodec.day(birthDate));
+        CountryRules rules = parameters.rules();
+        int age = Period.between(dateOfBirth, cutoffs.today()).getYears();
+        int customerAgeAtLoanEnd = AgeCutoffs.ageAtLoanEnd(dateOfBirth, cutoffs.today(),
+                rules.loanParameters(country).getMaximumLoanPeriod());
+        STEP_LOG.debug("Invalid age range for personal code: {}, age: {}, age in the end of loan: {}, " +
+                        "the expected age range are from {} to {}, parameters version: {}",
+                MaskedPersonalCode.of(personalCode), age, customerAgeAtLoanEnd, rules.minimumAge(country), rules.maximumAge(country),
+                parameters.version());
+        return ErrorMessage.INVALID_AGE_RANGE;
     }
 
     /**
-     * Validate expected loan period
-     * If the expected loan period is not in the valid range, then return false
+     * Verify that country name is valid and loans are offered in the country.
      *
-     * @param expectedLoanPeriod Provided personal ID code
+     * @param country The loan requested country
+     * @param rules Rules of the countries
+     * @return INVALID_COUNTRY_NAME if the requested country name is invalid, otherwise null
      * */
-    private boolean validateExpectedLoanPeriod(int expectedLoanPeriod) {
-        return expectedLoanPeriod >= decisionEngineConstant.getMinimumLoanPeriod() &&
-                expectedLoanPeriod <= decisionEngineConstant.getMaximumLoanPeriod();
+    private ErrorMessage verifyCountry(Country country, CountryRules rules) {
+        if (country == null || !rules.isOffered(country)) {
+            return ErrorMessage.INVALID_COUNTRY_NAME;
+        }
+        return null;
     }
 
     /**
-     * Validate expected loan amount
-     * If the expected loan amount is not in the valid range, then return false
+     * Returns the preallocated exception for the rejection, which is turned into a response by GeneralExceptionAdvice.
      *
-     * @param expectedLoanAmount Provided personal ID code
-     * */
-    private boolean validateExpectedLoanAmount(int expectedLoanAmount) {
-        return expectedLoanAmount >= decisionEngineConstant.getMinimumLoanAmount() &&
-                expectedLoanAmount <= decisionEngineConstant.getMaximumLoanAmount();
+     * @param rejection Error returned by {@link #validate(DecisionRequest)}
+     */
+    private static RuntimeException rejectionOf(ErrorMessage rejection) {
+        return switch (rejection) {
+            case INVALID_PERSONAL_ID_CODE -> INVALID_PERSONAL_CODE_REJECTION;
+            case INVALID_LOAN_AMOUNT -> INVALID_LOAN_AMOUNT_REJECTION;
+            case INVALID_LOAN_PERIOD -> INVALID_LOAN_PERIOD_REJECTION;
+            case INVALID_COUNTRY_NAME -> INVALID_COUNTRY_REJECTION;
+            case INVALID_AGE_RANGE -> INVALID_AGE_RANGE_REJECTION;
+            case NO_VALID_LOAN_FOUND -> NO_VALID_LOAN_REJECTION;
+            default -> new IllegalStateException("Unexpected rejection: " + rejection);
+        };
     }
 }
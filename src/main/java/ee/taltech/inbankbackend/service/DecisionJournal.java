@@ -0,0 +1,50 @@
+package ee.taltech.inbankbackend.service;
+
+import ee.taltech.inbankbackend.dto.DecisionRequest;
+import ee.taltech.inbankbackend.dto.DecisionResponse;
+import ee.taltech.inbankbackend.exception.DecisionJournalUnavailableException;
+import ee.taltech.inbankbackend.util.ErrorMessage;
+
+/**
+ * Keeps an audit record of every decision returned by the decision engine, e.g. in {@link MappedDecisionJournal}.
+ * Appending is called on the request thread before the decision is returned, a decision the journal does not accept
+ * fails the request. An accepted record may still be written after the decision is returned, see the implementation
+ * for what survives a crash.
+ */
+public interface DecisionJournal {
+    /**
+     * Journal that keeps nothing, used when the journal is disabled.
+     */
+    DecisionJournal NONE = (request, response, rejection, parametersVersion, source) -> {
+    };
+
+    /**
+     * Error of a decision that is returned as a response, only the response to a customer with debt has one.
+     */
+    static ErrorMessage errorOf(DecisionResponse response) {
+        return response.getErrorMessage() == null ? null : ErrorMessage.NO_VALID_LOAN_FOUND;
+    }
+
+    /**
+     * Appends the outcome of a decision made for the request.
+     *
+     * @see #append(DecisionRequest, DecisionResponse, ErrorMessage, long, DecisionRecord.Source)
+     */
+    default void append(DecisionRequest request, DecisionResponse response, ErrorMessage rejection,
+                        long parametersVersion) {
+        append(request, response, rejection, parametersVersion, DecisionRecord.Source.DECIDED);
+    }
+
+    /**
+     * Appends the outcome of a decision.
+     *
+     * @param request Decision request, as received
+     * @param response Decision response, null if the request was rejected
+     * @param rejection Error of the decision, null if a loan was approved
+     * @param parametersVersion Version of the decision parameters the decision was made with
+     * @param source Whether the decision was made for the request or an earlier decision is returned
+     * @throws DecisionJournalUnavailableException If the decision cannot be journaled in time
+     */
+    void append(DecisionRequest request, DecisionResponse response, ErrorMessage rejection, long parametersVersion,
+                DecisionRecord.Source source);
+}
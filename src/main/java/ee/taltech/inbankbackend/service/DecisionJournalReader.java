@@ -0,0 +1,133 @@
+package ee.taltech.inbankbackend.service;
+
+import java.io.IOException;
+import java.nio.MappedByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
+import java.util.Comparator;
+import java.util.List;
+import java.util.function.Consumer;
+import java.util.regex.Matcher;
+import java.util.regex.Pattern;
+import java.util.stream.Stream;
+
+/**
+ * Reads the records of a decision journal directory in the order they were written, also while
+ * {@link MappedDecisionJournal} is appending to it. Every call of {@link #read(Consumer)} continues after the last
+ * record read, so the journal can be exported once or followed.
+ * <br><br>
+ * A segment is read until its first incomplete record. The rest of it is skipped only when a newer segment exists,
+ * i.e. the writer has moved on or a crash tore the last record.
+ */
+public class DecisionJournalReader implements AutoCloseable {
+    private static final Pattern SEGMENT_NAME = Pattern.compile(Pattern.quote(MappedDecisionJournal.SEGMENT_PREFIX)
+            + "(\\d{1,19})" + Pattern.quote(MappedDecisionJournal.SEGMENT_SUFFIX));
+
+    private final Path directory;
+
+    private long segmentNumber;
+    private FileChannel channel;
+    private MappedByteBuffer segment;
+
+    public DecisionJournalReader(Path directory) {
+        this.directory = directory;
+    }
+
+    /**
+     * Reads the records written since the previous call.
+     *
+     * @param consumer Receives the records in the order they were written
+     * @return Number of records read
+     * @throws IOException If a segment cannot be read
+     */
+    public int read(Consumer<DecisionRecord> consumer) throws IOException {
+        int count = 0;
+        while (segment != null || openNextSegment()) {
+            remapIfGrown();
+            DecisionRecord record = DecisionRecordCodec.decode(segment);
+            if (record == null && hasNewerSegment()) {
+                // The writer completes a segment before it starts the next one, so the segment is read once more.
+                record = DecisionRecordCodec.decode(segment);
+                if (record == null) {
+                    closeSegment();
+                    continue;
+                }
+            }
+            if (record == null) {
+                break;
+            }
+            consumer.accept(record);
+            count++;
+        }
+        return count;
+    }
+
+    @Override
+    public void close() throws IOException {
+        closeSegment();
+    }
+
+    private boolean openNextSegment() throws IOException {
+        Path next = segments(directory).stream()
+                .filter(path -> segmentNumber(path) > segmentNumber)
+                .findFirst()
+                .orElse(null);
+        if (next == null) {
+            return false;
+        }
+        segmentNumber = segmentNumber(next);
+        channel = FileChannel.open(next, StandardOpenOption.READ);
+        segment = channel.map(FileChannel.MapMode.READ_ONLY, 0, channel.size());
+        return true;
+    }
+
+    // The writer may have created the file but not extended it yet.
+    private void remapIfGrown() throws IOException {
+        long size = channel.size();
+        if (size > segment.capacity()) {
+            int position = segment.position();
+            segment = channel.map(FileChannel.MapMode.READ_ONLY, 0, size);
+            segment.position(position);
+        }
+    }
+
+    private boolean hasNewerSegment() throws IOException {
+        return segments(directory).stream().anyMatch(path -> segmentNumber(path) > segmentNumber);
+    }
+
+    private void closeSegment() throws IOException {
+        if (channel != null) {
+            channel.close();
+        }
+        channel = null;
+        segment = null;
+    }
+
+    /**
+     * Returns the segment files of the journal directory in the order they were written.
+     */
+    static List<Path> segments(Path directory) throws IOException {
+        if (!Files.isDirectory(directory)) {
+            return List.of();
+        }
+        try (Stream<Path> files = Files.list(directory)) {
+            return files.filter(DecisionJournalReader::isSegment)
+                    .sorted(Comparator.comparingLong(DecisionJournalReader::segmentNumber))
+                    .toList();
+        }
+    }
+
+    private static boolean isSegment(Path path) {
+        return SEGMENT_NAME.matcher(path.getFileName().toString()).matches();
+    }
+
+    static long segmentNumber(Path segment) {
+        Matcher matcher = SEGMENT_NAME.matcher(segment.getFileName().toString());
+        if (!matcher.matches()) {
+            throw new IllegalArgumentException("Not a decision journal segment: " + segment);
+        }
+        return Long.parseLong(matcher.group(1));
+    }
+}
@@ -0,0 +1,148 @@
+package ee.taltech.inbankbackend.service;
+
+import ee.taltech.inbankbackend.dto.Country;
+import ee.taltech.inbankbackend.util.ErrorMessage;
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.Timer;
+import org.springframework.stereotype.Component;
+
+import java.util.Arrays;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Metrics of the decision engine.
+ * Every decision is counted by its outcome and country in {@value #DECISIONS}, except the synthetic ones of the
+ * startup warm-up, see {@link WarmUpScope}. The duration of every decision is recorded
+ * in {@value #DURATION} for the whole decision and for every stage. The distribution of the timers, e.g.
+ * the percentile histogram, is configured under management.metrics.distribution in application.yml.
+ * <br><br>
+ * All meters are registered up front and looked up by array index, so recording a decision does not allocate
+ * and does not touch the meter registry.
+ */
+@Component
+public class DecisionMetrics {
+    static final String DECISIONS = "decision.outcomes";
+    static final String DURATION = "decision.duration";
+
+    /**
+     * Stage of the decision, the whole decision is recorded as {@link #TOTAL}.
+     */
+    public enum Stage {
+        PARSING,
+        VALIDATION,
+        CREDIT_PROFILE,
+        SCORING,
+        TOTAL
+    }
+
+    // Rejections the decision engine can make, other errors are answered before a decision is made.
+    private static final ErrorMessage[] REJECTIONS = {
+            ErrorMessage.INVALID_PERSONAL_ID_CODE,
+            ErrorMessage.INVALID_LOAN_AMOUNT,
+            ErrorMessage.INVALID_LOAN_PERIOD,
+            ErrorMessage.NO_VALID_LOAN_FOUND,
+            ErrorMessage.INVALID_AGE_RANGE,
+            ErrorMessage.INVALID_COUNTRY_NAME
+    };
+    private static final int APPROVED = 0;
+    private static final int COUNTER_OFFER = 1;
+    private static final int DEBT = 2;
+    private static final int FIRST_REJECTION = 3;
+
+    // Indexed by the country ordinal, the last row is for requests without a country.
+    private final Counter[][] decisions;
+    private final int[] rejectionIndexes;
+    private final Timer[] durations;
+
+    public DecisionMetrics(MeterRegistry registry) {
+        Country[] countries = Country.values();
+        this.decisions = new Counter[countries.length + 1][FIRST_REJECTION + REJECTIONS.length];
+        for (int i = 0; i <= countries.length; i++) {
+            String country = i < countries.length ? countries[i].name().toLowerCase() : "none";
+            decisions[i][APPROVED] = decisionCounter(registry, country, "approved", "none");
+            decisions[i][COUNTER_OFFER] = decisionCounter(registry, country, "counter_offer", "none");
+            decisions[i][DEBT] = decisionCounter(registry, country, "debt", "none");
+            for (int j = 0; j < REJECTIONS.length; j++) {
+                decisions[i][FIRST_REJECTION + j] = decisionCounter(registry, country, "rejected",
+                        REJECTIONS[j].getCode());
+            }
+        }
+
+        this.rejectionIndexes = new int[ErrorMessage.values().length];
+        Arrays.fill(rejectionIndexes, -1);
+        for (int j = 0; j < REJECTIONS.length; j++) {
+            rejectionIndexes[REJECTIONS[j].ordinal()] = FIRST_REJECTION + j;
+        }
+
+        Stage[] stages = Stage.values();
+        this.durations = new Timer[stages.length];
+        for (Stage stage : stages) {
+            durations[stage.ordinal()] = Timer.builder(DURATION)
+                    .description("Time taken by the decision engine")
+                    .tag("stage", stage.name().toLowerCase())
+                    .register(registry);
+        }
+    }
+
+    private static Counter decisionCounter(MeterRegistry registry, String country, String outcome, String error) {
+        return Counter.builder(DECISIONS)
+                .description("Decisions made by the decision engine")
+                .tag("country", country)
+                .tag("outcome", outcome)
+                .tag("error", error)
+                .register(registry);
+    }
+
+    public void approved(Country country) {
+        count(country, APPROVED);
+    }
+
+    /**
+     * Counts a decision that offers a different amount or period than requested because the credit score is too low.
+     */
+    public void counterOffer(Country country) {
+        count(country, COUNTER_OFFER);
+    }
+
+    /**
+     * Counts a decision of a customer with debt.
+     */
+    public void debt(Country country) {
+        count(country, DEBT);
+    }
+
+    /**
+     * Counts a rejected decision.
+     *
+     * @param country The loan requested country, may be null
+     * @param rejection Error of the rejection
+     */
+    public void rejected(Country country, ErrorMessage rejection) {
+        int index = rejectionIndexes[rejection.ordinal()];
+        if (index < 0) {
+            throw new IllegalArgumentException("Not a decision rejection: " + rejection);
+        }
+        count(country, index);
+    }
+
+    /**
+     * Records the duration of a stage.
+     *
+     * @param stage Stage of the decision
+     * @param nanos Duration in nanoseconds, measured with {@link System#nanoTime()}
+     */
+    public void record(Stage stage, long nanos) {
+        durations[stage.ordinal()].record(nanos, TimeUnit.NANOSECONDS);
+    }
+
+    private void count(Country country, int outcome) {
+        if (!WarmUpScope.isActive()) {
+            decisions[row(country)][outcome].increment();
+        }
+    }
+
+    private int row(Country country) {
+        return country != null ? country.ordinal() : decisions.length - 1;
+    }
+}
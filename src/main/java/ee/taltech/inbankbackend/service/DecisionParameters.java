@@ -0,0 +1,56 @@
+package ee.taltech.inbankbackend.service;
+
+import ee.taltech.inbankbackend.util.CountryRuleConstants;
+import ee.taltech.inbankbackend.util.DecisionEngineConstant;
+
+import java.time.LocalDate;
+
+/**
+ * Immutable snapshot of everything decisions are made with: the rules of every country, the decision tables
+ * built from them and the age cutoffs of the current day. Snapshots are published as a whole, so a request that
+ * reads the snapshot once sees the parameters of a single version, even while a new version is being published.
+ */
+public final class DecisionParameters {
+    private final long version;
+    private final CountryRules rules;
+    private final AgeCutoffs ageCutoffs;
+
+    private DecisionParameters(long version, CountryRules rules, AgeCutoffs ageCutoffs) {
+        this.version = version;
+        this.rules = rules;
+        this.ageCutoffs = ageCutoffs;
+    }
+
+    /**
+     * Builds the snapshot, including the decision tables and age cutoffs.
+     *
+     * @param version Version of the parameters, logged with every decision
+     * @param defaults Decision engine constants, used where a country does not override them
+     * @param countryRuleConstants Rules of the countries
+     * @param today Day the age cutoffs are computed for
+     */
+    public static DecisionParameters build(long version, DecisionEngineConstant defaults,
+                                           CountryRuleConstants countryRuleConstants, LocalDate today) {
+        CountryRules rules = CountryRules.build(defaults, countryRuleConstants);
+        return new DecisionParameters(version, rules, AgeCutoffs.compute(today, rules));
+    }
+
+    /**
+     * Returns the same version of the parameters with the age cutoffs computed for another day.
+     */
+    public DecisionParameters withAgeCutoffsFor(LocalDate today) {
+        return new DecisionParameters(version, rules, AgeCutoffs.compute(today, rules));
+    }
+
+    public long version() {
+        return version;
+    }
+
+    public CountryRules rules() {
+        return rules;
+    }
+
+    public AgeCutoffs ageCutoffs() {
+        return ageCutoffs;
+    }
+}
@@ -0,0 +1,222 @@
+package ee.taltech.inbankbackend.service;
+
+import ee.taltech.inbankbackend.dto.Country;
+import ee.taltech.inbankbackend.dto.DecisionParametersDto;
+import ee.taltech.inbankbackend.exception.InvalidDecisionParametersException;
+import ee.taltech.inbankbackend.util.CountryRuleConstants;
+import ee.taltech.inbankbackend.util.DecisionEngineConstant;
+import ee.taltech.inbankbackend.util.ErrorMessage;
+import jakarta.annotation.PostConstruct;
+import lombok.RequiredArgsConstructor;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Service;
+
+import java.time.Clock;
+import java.time.LocalDate;
+import java.util.EnumMap;
+import java.util.Map;
+import java.util.concurrent.locks.ReentrantLock;
+
+/**
+ * A service class that publishes the decision parameters.
+ * The parameters bound from application.yml are published at startup as version 1. New parameters can be published
+ * at runtime without a restart: they are validated and the decision tables are built before the new snapshot
+ * replaces the old one with a single volatile write. Requests read the snapshot without locking.
+ */
+@RequiredArgsConstructor
+@Service
+@Slf4j
+public class DecisionParametersService {
+    // Limits the memory a parameter set can take, a decision table entry takes one or two bytes.
+    private static final long MAXIMUM_DECISION_TABLE_SIZE = 1 << 24;
+    // Keep the birth date cutoffs within the dates LocalDate and the packed dates can hold.
+    private static final int MAXIMUM_AGE = 150;
+    private static final int MAXIMUM_LOAN_PERIOD = 1200;
+
+    private final DecisionEngineConstant decisionEngineConstant;
+    private final CountryRuleConstants countryRuleConstants;
+    private final Clock clock;
+
+    // A lock rather than synchronized, so a publisher on a virtual thread does not pin its carrier while it logs.
+    private final ReentrantLock publishLock = new ReentrantLock();
+    private volatile DecisionParameters current;
+    // Guarded by publishLock, only the publishers use it.
+    private long lastVersion;
+
+    @PostConstruct
+    public void initialize() {
+        publish(decisionEngineConstant, countryRuleConstants);
+    }
+
+    /**
+     * Returns the current snapshot. A request has to read it once and use the same snapshot for every decision step.
+     */
+    public DecisionParameters current() {
+        DecisionParameters parameters = current;
+        if (parameters == null) {
+            publishLock.lock();
+            try {
+                if (current == null) {
+                    initialize();
+                }
+                parameters = current;
+            } finally {
+                publishLock.unlock();
+            }
+        }
+        return parameters;
+    }
+
+    /**
+     * Validates the parameters and publishes them as a new version.
+     *
+     * @param defaults Decision engine constants, used where a country does not override them
+     * @param countryRules Rules of the countries
+     * @return The published snapshot
+     * @throws InvalidDecisionParametersException If the parameters are invalid, the current snapshot is kept
+     */
+    public DecisionParameters publish(DecisionEngineConstant defaults, CountryRuleConstants countryRules) {
+        publishLock.lock();
+        try {
+            String problem = findProblem(defaults, countryRules);
+            if (problem != null) {
+                log.error("Decision parameters rejected: {}", problem);
+                throw new InvalidDecisionParametersException(ErrorMessage.INVALID_DECISION_PARAMETERS.getMessage());
+            }
+
+            long start = System.nanoTime();
+            DecisionParameters parameters = DecisionParameters.build(lastVersion + 1, defaults, countryRules,
+                    LocalDate.now(clock));
+            lastVersion = parameters.version();
+            current = parameters;
+            log.info("Decision parameters version {} published in {} ms: {} decision tables, {} KiB",
+                    parameters.version(), (System.nanoTime() - start) / 1_000_000,
+                    parameters.rules().decisionTableCount(), parameters.rules().footprintBytes() / 1024);
+            return parameters;
+        } finally {
+            publishLock.unlock();
+        }
+    }
+
+    /**
+     * Publishes the parameters received by the admin endpoint.
+     *
+     * @param request New decision parameters, the version is ignored
+     * @return The published parameters with their version
+     * @throws InvalidDecisionParametersException If the parameters are invalid, the current snapshot is kept
+     */
+    public DecisionParametersDto publish(DecisionParametersDto request) {
+        CountryRuleConstants countryRules = new CountryRuleConstants();
+        if (request.getCountries() != null) {
+            countryRules.getCountries().putAll(request.getCountries());
+        }
+        return describe(publish(request.getDecisionEngine(), countryRules));
+    }
+
+    /**
+     * Returns the current parameters with the loan parameters of every country resolved.
+     */
+    public DecisionParametersDto describe() {
+        return describe(current());
+    }
+
+    /**
+     * Recomputes the age cutoffs for today. Runs at midnight, so the requests do not have to ask the clock for
+     * the current date. The cron expression uses the same time zone as the default clock.
+     */
+    @Scheduled(cron = "0 0 0 * * *")
+    public void refreshAgeCutoffs() {
+        publishLock.lock();
+        try {
+            LocalDate today = LocalDate.now(clock);
+            current = current().withAgeCutoffsFor(today);
+            log.info("Age cutoffs of decision parameters version {} computed for {}", current.version(), today);
+        } finally {
+            publishLock.unlock();
+        }
+    }
+
+    private static DecisionParametersDto describe(DecisionParameters parameters) {
+        CountryRules rules = parameters.rules();
+        Map<Country, CountryRuleConstants.CountryRule> countries = new EnumMap<>(Country.class);
+        for (Country country : Country.values()) {
+            if (!rules.isOffered(country)) {
+                continue;
+            }
+            DecisionEngineConstant loanParameters = rules.loanParameters(country);
+            CountryRuleConstants.CountryRule rule = new CountryRuleConstants.CountryRule();
+            rule.setMinimumAge(rules.minimumAge(country));
+            rule.setMaximumAge(rules.maximumAge(country));
+            rule.setMinimumLoanAmount(loanParameters.getMinimumLoanAmount());
+            rule.setMaximumLoanAmount(loanParameters.getMaximumLoanAmount());
+            rule.setMinimumLoanPeriod(loanParameters.getMinimumLoanPeriod());
+            rule.setMaximumLoanPeriod(loanParameters.getMaximumLoanPeriod());
+            rule.setSegment1CreditModifier(loanParameters.getSegment1CreditModifier());
+            rule.setSegment2CreditModifier(loanParameters.getSegment2CreditModifier());
+            rule.setSegment3CreditModifier(loanParameters.getSegment3CreditModifier());
+            rule.setLoanInterval(loanParameters.getLoanInterval());
+            countries.put(country, rule);
+        }
+        return new DecisionParametersDto(parameters.version(), CountryRules.copyOf(rules.loanParameters(null)),
+                countries);
+    }
+
+    /**
+     * Finds the first problem of the parameters.
+     *
+     * @return Description of the problem, or null if the parameters are valid
+     */
+    private static String findProblem(DecisionEngineConstant defaults, CountryRuleConstants countryRules) {
+        if (defaults == null) {
+            return "decision engine constants are missing";
+        }
+        String problem = findProblem("defaults", defaults);
+        if (problem != null) {
+            return problem;
+        }
+        for (Map.Entry<Country, CountryRuleConstants.CountryRule> entry : countryRules.getCountries().entrySet()) {
+            CountryRuleConstants.CountryRule rule = entry.getValue();
+            if (entry.getKey() == null || rule == null) {
+                return "country rules are missing";
+            }
+            if (rule.getMinimumAge() < 0 || rule.getMinimumAge() > rule.getMaximumAge()
+                    || rule.getMaximumAge() > MAXIMUM_AGE) {
+                return entry.getKey() + ": invalid age range";
+            }
+            problem = findProblem(entry.getKey().name(), rule.toDecisionEngineConstant(defaults));
+            if (problem != null) {
+                return problem;
+            }
+        }
+        return null;
+    }
+
+    private static String findProblem(String name, DecisionEngineConstant parameters) {
+        if (parameters.getMinimumLoanAmount() <= 0
+                || parameters.getMinimumLoanAmount() > parameters.getMaximumLoanAmount()) {
+            return name + ": invalid loan amount range";
+        }
+        if (parameters.getMinimumLoanPeriod() <= 0 || parameters.getLoanInterval() <= 0
+                || parameters.getMinimumLoanPeriod() > parameters.getMaximumLoanPeriod()
+                || parameters.getMaximumLoanPeriod() > MAXIMUM_LOAN_PERIOD) {
+            return name + ": invalid loan period range";
+        }
+        if (parameters.getSegment1CreditModifier() <= 0 || parameters.getSegment2CreditModifier() <= 0
+                || parameters.getSegment3CreditModifier() <= 0) {
+            return name + ": credit modifiers must be positive";
+        }
+        // The highest valid loan amount, the credit modifier times the loan period, has to fit into an int.
+        int highestCreditModifier = Math.max(parameters.getSegment1CreditModifier(),
+                Math.max(parameters.getSegment2CreditModifier(), parameters.getSegment3CreditModifier()));
+        if ((long) highestCreditModifier * parameters.getMaximumLoanPeriod() > Integer.MAX_VALUE) {
+            return name + ": credit modifiers are too large";
+        }
+        long periods = parameters.getMaximumLoanPeriod() / parameters.getLoanInterval() + 1;
+        long amounts = (long) parameters.getMaximumLoanAmount() - parameters.getMinimumLoanAmount() + 1;
+        if (DecisionTable.SEGMENT_COUNT * periods * amounts > MAXIMUM_DECISION_TABLE_SIZE) {
+            return name + ": decision table would be too large";
+        }
+        return null;
+    }
+}
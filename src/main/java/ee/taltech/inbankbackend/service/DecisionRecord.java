@@ -0,0 +1,36 @@
+package ee.taltech.inbankbackend.service;
+
+import ee.taltech.inbankbackend.dto.Country;
+
+import java.time.Instant;
+
+/**
+ * Audit record of a decision, as written to the decision journal.
+ *
+ * @param timestamp When the decision was made, in milliseconds
+ * @param personalCode Requested personal ID code, not masked
+ * @param loanAmount Requested loan amount, may be null
+ * @param loanPeriod Requested loan period
+ * @param country Requested country, may be null
+ * @param parametersVersion Version of the decision parameters the decision was made with
+ * @param approvedLoanAmount Approved loan amount, null if no loan was approved
+ * @param approvedLoanPeriod Approved loan period, null if no loan was approved
+ * @param errorCode Code of the {@link ee.taltech.inbankbackend.util.ErrorMessage}, null if a loan was approved
+ * @param source Whether the decision was made for the request or an earlier decision was returned
+ */
+public record DecisionRecord(Instant timestamp, String personalCode, Long loanAmount, int loanPeriod,
+                             Country country, long parametersVersion, Integer approvedLoanAmount,
+                             Integer approvedLoanPeriod, String errorCode, Source source) {
+
+    /**
+     * Where the returned decision came from.
+     */
+    public enum Source {
+        // Made by the decision engine for the request.
+        DECIDED,
+        // Shared with an identical request by DecisionCoalescingService, while or shortly after it was made.
+        COALESCED,
+        // Kept by DecisionResultCache.
+        CACHED
+    }
+}
@@ -0,0 +1,144 @@
+package ee.taltech.inbankbackend.service;
+
+import ee.taltech.inbankbackend.dto.Country;
+
+import java.nio.ByteBuffer;
+import java.nio.charset.StandardCharsets;
+import java.time.Instant;
+import java.util.zip.CRC32C;
+
+/**
+ * Binary format of the decision journal records.
+ * <br><br>
+ * A record is its payload length (int), the CRC32C of the payload (int) and the payload. Segments are zero filled,
+ * so a zero length marks the end of the written records. The length is written last, a record with a length
+ * is complete unless the write was torn by a crash, which the checksum detects.
+ * <br><br>
+ * The payload is the format version (byte), the timestamp in milliseconds (long), the parameters version (long),
+ * the country ordinal (byte, -1 for none), the loan amount (long), the loan period (int), the approved loan amount
+ * and period (int, {@link Integer#MIN_VALUE} for none), the error code and the personal code (unsigned byte length
+ * and the UTF-8 bytes, 255 for none) and the source ordinal (byte). Personal codes longer than 254 bytes, which are
+ * invalid anyway, are truncated. Records of format version 1 have no source, they were all decided.
+ */
+public final class DecisionRecordCodec {
+    static final int HEADER_SIZE = 2 * Integer.BYTES;
+    // Largest record, so a segment can always hold at least one record.
+    static final int MAXIMUM_RECORD_SIZE = HEADER_SIZE + 1 + 3 * Long.BYTES + 1 + 3 * Integer.BYTES + 2 * 255 + 1;
+
+    private static final byte FORMAT_VERSION = 2;
+    private static final byte FORMAT_VERSION_WITHOUT_SOURCE = 1;
+    private static final int MAXIMUM_STRING_SIZE = 254;
+    private static final int NO_STRING = 255;
+    private static final Country[] COUNTRIES = Country.values();
+    private static final DecisionRecord.Source[] SOURCES = DecisionRecord.Source.values();
+
+    private DecisionRecordCodec() {
+    }
+
+    /**
+     * Writes the record at the position of the buffer and moves the position after it.
+     *
+     * @return False if the record does not fit into the remaining buffer, which is then left unchanged
+     */
+    public static boolean encode(DecisionRecord record, ByteBuffer buffer) {
+        byte[] errorCode = bytesOf(record.errorCode());
+        byte[] personalCode = bytesOf(record.personalCode());
+        int payloadSize = 1 + 3 * Long.BYTES + 1 + 3 * Integer.BYTES + sizeOf(errorCode) + sizeOf(personalCode) + 1;
+        if (buffer.remaining() < HEADER_SIZE + payloadSize) {
+            return false;
+        }
+        int start = buffer.position();
+        int payloadStart = start + HEADER_SIZE;
+        buffer.position(payloadStart);
+        buffer.put(FORMAT_VERSION);
+        buffer.putLong(record.timestamp().toEpochMilli());
+        buffer.putLong(record.parametersVersion());
+        buffer.put(record.country() == null ? -1 : (byte) record.country().ordinal());
+        buffer.putLong(record.loanAmount() == null ? Long.MIN_VALUE : record.loanAmount());
+        buffer.putInt(record.loanPeriod());
+        buffer.putInt(record.approvedLoanAmount() == null ? Integer.MIN_VALUE : record.approvedLoanAmount());
+        buffer.putInt(record.approvedLoanPeriod() == null ? Integer.MIN_VALUE : record.approvedLoanPeriod());
+        putString(buffer, errorCode);
+        putString(buffer, personalCode);
+        buffer.put((byte) record.source().ordinal());
+
+        CRC32C crc = new CRC32C();
+        crc.update(buffer.slice(payloadStart, payloadSize));
+        buffer.putInt(start + Integer.BYTES, (int) crc.getValue());
+        buffer.putInt(start, payloadSize);
+        return true;
+    }
+
+    /**
+     * Reads the record at the position of the buffer and moves the position after it.
+     *
+     * @return The record, or null if there is no complete record at the position, the position is then unchanged
+     */
+    public static DecisionRecord decode(ByteBuffer buffer) {
+        int start = buffer.position();
+        if (buffer.remaining() < HEADER_SIZE) {
+            return null;
+        }
+        int payloadSize = buffer.getInt(start);
+        int checksum = buffer.getInt(start + Integer.BYTES);
+        if (payloadSize <= 0 || payloadSize > buffer.remaining() - HEADER_SIZE) {
+            return null;
+        }
+        CRC32C crc = new CRC32C();
+        crc.update(buffer.slice(start + HEADER_SIZE, payloadSize));
+        if ((int) crc.getValue() != checksum) {
+            return null;
+        }
+
+        buffer.position(start + HEADER_SIZE);
+        byte version = buffer.get();
+        if (version != FORMAT_VERSION && version != FORMAT_VERSION_WITHOUT_SOURCE) {
+            throw new IllegalStateException("Unknown decision record format version: " + version);
+        }
+        Instant timestamp = Instant.ofEpochMilli(buffer.getLong());
+        long parametersVersion = buffer.getLong();
+        byte country = buffer.get();
+        long loanAmount = buffer.getLong();
+        int loanPeriod = buffer.getInt();
+        int approvedLoanAmount = buffer.getInt();
+        int approvedLoanPeriod = buffer.getInt();
+        String errorCode = getString(buffer);
+        String personalCode = getString(buffer);
+        DecisionRecord.Source source = version == FORMAT_VERSION_WITHOUT_SOURCE
+                ? DecisionRecord.Source.DECIDED
+                : SOURCES[buffer.get()];
+        buffer.position(start + HEADER_SIZE + payloadSize);
+        return new DecisionRecord(timestamp, personalCode, loanAmount == Long.MIN_VALUE ? null : loanAmount,
+                loanPeriod, country < 0 ? null : COUNTRIES[country], parametersVersion,
+                approvedLoanAmount == Integer.MIN_VALUE ? null : approvedLoanAmount,
+                approvedLoanPeriod == Integer.MIN_VALUE ? null : approvedLoanPeriod, errorCode, source);
+    }
+
+    private static byte[] bytesOf(String value) {
+        return value == null ? null : value.getBytes(StandardCharsets.UTF_8);
+    }
+
+    private static int sizeOf(byte[] bytes) {
+        return 1 + (bytes == null ? 0 : Math.min(bytes.length, MAXIMUM_STRING_SIZE));
+    }
+
+    private static void putString(ByteBuffer buffer, byte[] bytes) {
+        if (bytes == null) {
+            buffer.put((byte) NO_STRING);
+            return;
+        }
+        int length = Math.min(bytes.length, MAXIMUM_STRING_SIZE);
+        buffer.put((byte) length);
+        buffer.put(bytes, 0, length);
+    }
+
+    private static String getString(ByteBuffer buffer) {
+        int length = Byte.toUnsignedInt(buffer.get());
+        if (length == NO_STRING) {
+            return null;
+        }
+        byte[] bytes = new byte[length];
+        buffer.get(bytes);
+        return new String(bytes, StandardCharsets.UTF_8);
+    }
+}
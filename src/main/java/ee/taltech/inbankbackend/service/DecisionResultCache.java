@@ -0,0 +1,164 @@
+package ee.taltech.inbankbackend.service;
+
+import com.github.benmanes.caffeine.cache.Cache;
+import com.github.benmanes.caffeine.cache.Caffeine;
+import com.github.benmanes.caffeine.cache.Ticker;
+import ee.taltech.inbankbackend.dto.Country;
+import ee.taltech.inbankbackend.dto.DecisionRequest;
+import ee.taltech.inbankbackend.dto.DecisionResponse;
+import ee.taltech.inbankbackend.util.DecisionCacheConstants;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.binder.cache.CaffeineCacheMetrics;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.stereotype.Service;
+
+import java.nio.ByteBuffer;
+import java.nio.charset.StandardCharsets;
+import java.security.MessageDigest;
+import java.security.NoSuchAlgorithmException;
+import java.time.LocalDate;
+import java.util.HexFormat;
+
+/**
+ * Bounded cache of decisions with the entity tags of their responses, behind GET /loan/decision.
+ * <br><br>
+ * A decision only depends on the request, the version of the decision parameters and the day the age is checked on,
+ * so the decisions are kept under exactly that key. A new parameter version or a new day is a new key, the old
+ * decisions are never returned and are evicted in time.<br>
+ * - The kept decisions take at most application.decision-cache.maximum-memory, estimated per entry, the least
+ * valuable ones are evicted beyond it.<br>
+ * - A decision is dropped expire-after-write after it was made, so a changed credit profile is seen in time.<br>
+ * - Rejections are not kept, they are answered with an error status that is not cached anyway.<br>
+ * - Every kept decision is journaled again for the request it is returned to, as a
+ * {@link DecisionRecord.Source#CACHED} record.<br>
+ * <br>
+ * The hit and miss counts, evictions and the size are published as the cache.* metrics of the {@value #CACHE_NAME}
+ * cache.
+ */
+@Service
+public class DecisionResultCache {
+    static final String CACHE_NAME = "decision.results";
+    // Estimated heap of an entry without the strings: the cache node, the key, the decision and the boxed numbers.
+    private static final int ENTRY_OVERHEAD_BYTES = 320;
+    // Bytes of the digest used in the entity tag, 128 bits make a collision practically impossible.
+    private static final int TAG_BYTES = 16;
+
+    private final DecisionCoalescingService decisionCoalescingService;
+    private final DecisionParametersService decisionParametersService;
+    private final DecisionJournal decisionJournal;
+    // Null when the cache is disabled.
+    private final Cache<DecisionKey, Decision> decisions;
+
+    @Autowired
+    public DecisionResultCache(DecisionCoalescingService decisionCoalescingService,
+                               DecisionParametersService decisionParametersService, DecisionJournal decisionJournal,
+                               DecisionCacheConstants constants, MeterRegistry registry) {
+        this(decisionCoalescingService, decisionParametersService, decisionJournal, constants, registry,
+                Ticker.systemTicker());
+    }
+
+    /**
+     * @param ticker Time source of the expiry
+     */
+    DecisionResultCache(DecisionCoalescingService decisionCoalescingService,
+                        DecisionParametersService decisionParametersService, DecisionJournal decisionJournal,
+                        DecisionCacheConstants constants, MeterRegistry registry, Ticker ticker) {
+        this.decisionCoalescingService = decisionCoalescingService;
+        this.decisionParametersService = decisionParametersService;
+        this.decisionJournal = decisionJournal;
+        if (constants.isEnabled()) {
+            this.decisions = Caffeine.newBuilder()
+                    .maximumWeight(constants.getMaximumMemory().toBytes())
+                    .weigher(DecisionResultCache::weigh)
+                    .expireAfterWrite(constants.getExpireAfterWrite())
+                    .ticker(ticker)
+                    .recordStats()
+                    .build();
+            CaffeineCacheMetrics.monitor(registry, decisions, CACHE_NAME);
+        } else {
+            this.decisions = null;
+        }
+    }
+
+    /**
+     * Returns the kept decision of the request, or makes the decision and keeps it.
+     *
+     * @param request Loan decision request
+     * @return The same response as DecisionEngineService#calculateApprovedLoan with its entity tag
+     * @throws RuntimeException The same rejection as DecisionEngineService#calculateApprovedLoan
+     */
+    public Decision calculateApprovedLoan(DecisionRequest request) {
+        if (decisions == null) {
+            return tag(decisionCoalescingService.calculateApprovedLoan(request));
+        }
+        DecisionParameters parameters = decisionParametersService.current();
+        DecisionKey key = new DecisionKey(request.getPersonalCode(), request.getLoanAmount(), request.getLoanPeriod(),
+                request.getCountry(), parameters.version(), parameters.ageCutoffs().today());
+        Decision decision = decisions.getIfPresent(key);
+        if (decision != null) {
+            decisionJournal.append(request, decision.response(), DecisionJournal.errorOf(decision.response()),
+                    parameters.version(), DecisionRecord.Source.CACHED);
+            return decision;
+        }
+        decision = tag(decisionCoalescingService.calculateApprovedLoan(request));
+        // A decision made while new parameters or the next day's age cutoffs were published may have been made with
+        // either, it is returned but not kept.
+        if (decisionParametersService.current() == parameters) {
+            decisions.put(key, decision);
+        }
+        return decision;
+    }
+
+    long estimatedSize() {
+        decisions.cleanUp();
+        return decisions.estimatedSize();
+    }
+
+    /**
+     * Computes the strong entity tag of the response from its content, so every instance tags the same response
+     * the same way and a response keeps its tag across parameter versions, days and evictions.
+     */
+    static Decision tag(DecisionResponse response) {
+        MessageDigest digest = sha256();
+        ByteBuffer numbers = ByteBuffer.allocate(2 * Integer.BYTES + 1);
+        numbers.putInt(response.getLoanAmount() == null ? Integer.MIN_VALUE : response.getLoanAmount());
+        numbers.putInt(response.getLoanPeriod() == null ? Integer.MIN_VALUE : response.getLoanPeriod());
+        numbers.put((byte) (response.getErrorMessage() == null ? 0 : 1));
+        digest.update(numbers.array());
+        if (response.getErrorMessage() != null) {
+            digest.update(response.getErrorMessage().getBytes(StandardCharsets.UTF_8));
+        }
+        byte[] hash = digest.digest();
+        return new Decision(response, '"' + HexFormat.of().formatHex(hash, 0, TAG_BYTES) + '"');
+    }
+
+    private static MessageDigest sha256() {
+        try {
+            return MessageDigest.getInstance("SHA-256");
+        } catch (NoSuchAlgorithmException e) {
+            // Every Java platform has to support SHA-256.
+            throw new IllegalStateException(e);
+        }
+    }
+
+    private static int weigh(DecisionKey key, Decision decision) {
+        String personalCode = key.personalCode();
+        String errorMessage = decision.response().getErrorMessage();
+        return ENTRY_OVERHEAD_BYTES + decision.eTag().length()
+                + (personalCode == null ? 0 : 2 * personalCode.length())
+                + (errorMessage == null ? 0 : 2 * errorMessage.length());
+    }
+
+    private record DecisionKey(String personalCode, Long loanAmount, int loanPeriod, Country country,
+                               long parametersVersion, LocalDate today) {
+    }
+
+    /**
+     * Response of a request with its entity tag. Responses are not modified after they are made, so sharing them
+     * between requests is safe.
+     *
+     * @param eTag Quoted strong entity tag of the response, for the ETag header
+     */
+    public record Decision(DecisionResponse response, String eTag) {
+    }
+}
@@ -0,0 +1,308 @@
+package ee.taltech.inbankbackend.service;
+
+import ee.taltech.inbankbackend.dto.DecisionResponse;
+import ee.taltech.inbankbackend.dto.LoanOffer;
+import ee.taltech.inbankbackend.util.DecisionEngineConstant;
+import ee.taltech.inbankbackend.util.ErrorMessage;
+
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+
+/**
+ * Precomputed loan decisions for every valid combination of credit segment, loan period and loan amount.
+ * The input space is small and bounded by {@link DecisionEngineConstant}, so every decision is calculated once
+ * and stored as an index into a pool of distinct outcomes. Looking up a decision is a single array read.
+ * The offers of every segment, the approved loan amount for every loan period, are collected while the table is built.
+ */
+public final class DecisionTable {
+    /**
+     * Number of credit segments with a non-zero credit modifier. The debt segment is not stored in the table.
+     */
+    public static final int SEGMENT_COUNT = 3;
+
+    /**
+     * Kind of the outcome, used by the caller to decide what to log.
+     */
+    public enum OutcomeKind {
+        APPROVED,
+        COUNTER_OFFER,
+        NO_VALID_LOAN
+    }
+
+    private final int minimumLoanAmount;
+    private final int maximumLoanAmount;
+    private final int minimumLoanPeriod;
+    private final int maximumLoanPeriod;
+    private final int segment1CreditModifier;
+    private final int segment2CreditModifier;
+    private final int segment3CreditModifier;
+    private final int loanInterval;
+
+    private final int firstSlotPeriod;
+    private final int periodSlots;
+    private final int amountCount;
+
+    // Exactly one of the index arrays is used, bytes are preferred to keep the table small.
+    private final byte[] byteIndex;
+    private final char[] charIndex;
+
+    private final Integer[] outcomeAmounts;
+    private final Integer[] outcomePeriods;
+    private final String[] outcomeErrors;
+    private final OutcomeKind[] outcomeKinds;
+
+    private final List<List<LoanOffer>> offers;
+
+    private DecisionTable(DecisionEngineConstant constant) {
+        this.minimumLoanAmount = constant.getMinimumLoanAmount();
+        this.maximumLoanAmount = constant.getMaximumLoanAmount();
+        this.minimumLoanPeriod = constant.getMinimumLoanPeriod();
+        this.maximumLoanPeriod = constant.getMaximumLoanPeriod();
+        this.segment1CreditModifier = constant.getSegment1CreditModifier();
+        this.segment2CreditModifier = constant.getSegment2CreditModifier();
+        this.segment3CreditModifier = constant.getSegment3CreditModifier();
+        this.loanInterval = constant.getLoanInterval();
+
+        this.firstSlotPeriod = Math.floorDiv(minimumLoanPeriod + loanInterval - 1, loanInterval) * loanInterval;
+        // No slot when the first aligned period is already beyond the maximum loan period.
+        this.periodSlots = Math.max(0, Math.floorDiv(maximumLoanPeriod - firstSlotPeriod, loanInterval) + 1);
+        this.amountCount = Math.max(0, maximumLoanAmount - minimumLoanAmount + 1);
+
+        Map<Outcome, Integer> outcomeIds = new HashMap<>();
+        List<Outcome> outcomes = new ArrayList<>();
+        int[] index = new int[SEGMENT_COUNT * periodSlots * amountCount];
+
+        List<List<LoanOffer>> segmentOffers = new ArrayList<>(SEGMENT_COUNT);
+        int[] creditModifiers = {segment1CreditModifier, segment2CreditModifier, segment3CreditModifier};
+        for (int segment = 0; segment < SEGMENT_COUNT; segment++) {
+            int creditModifier = creditModifiers[segment];
+            List<LoanOffer> periodOffers = new ArrayList<>(periodSlots);
+            for (int slot = 0; slot < periodSlots; slot++) {
+                int loanPeriod = firstSlotPeriod + slot * loanInterval;
+                int highestApprovedAmount = -1;
+                for (int amount = 0; amount < amountCount; amount++) {
+                    Outcome outcome = decide(creditModifier, loanPeriod, minimumLoanAmount + amount);
+                    Integer id = outcomeIds.computeIfAbsent(outcome, o -> {
+                        outcomes.add(o);
+                        return outcomes.size() - 1;
+                    });
+                    index[(segment * periodSlots + slot) * amountCount + amount] = id;
+                    if (outcome.kind == OutcomeKind.APPROVED) {
+                        highestApprovedAmount = minimumLoanAmount + amount;
+                    }
+                }
+                // The offer is the highest amount a request is approved for, the credit score is a float,
+                // so it can be lower than the eligible amount.
+                if (highestApprovedAmount >= 0) {
+                    periodOffers.add(new LoanOffer(highestApprovedAmount, loanPeriod));
+                }
+            }
+            segmentOffers.add(List.copyOf(periodOffers));
+        }
+        this.offers = List.copyOf(segmentOffers);
+
+        if (outcomes.size() <= 256) {
+            this.byteIndex = new byte[index.length];
+            this.charIndex = null;
+            for (int i = 0; i < index.length; i++) {
+                byteIndex[i] = (byte) index[i];
+            }
+        } else {
+            this.byteIndex = null;
+            this.charIndex = new char[index.length];
+            for (int i = 0; i < index.length; i++) {
+                charIndex[i] = (char) index[i];
+            }
+        }
+
+        this.outcomeAmounts = new Integer[outcomes.size()];
+        this.outcomePeriods = new Integer[outcomes.size()];
+        this.outcomeErrors = new String[outcomes.size()];
+        this.outcomeKinds = new OutcomeKind[outcomes.size()];
+        for (int i = 0; i < outcomes.size(); i++) {
+            Outcome outcome = outcomes.get(i);
+            outcomeAmounts[i] = outcome.loanAmount;
+            outcomePeriods[i] = outcome.loanPeriod;
+            outcomeErrors[i] = outcome.errorMessage;
+            outcomeKinds[i] = outcome.kind;
+        }
+    }
+
+    /**
+     * Builds the decision table for the current decision engine constants.
+     *
+     * @param constant Decision engine constants
+     * @return Decision table covering all valid loan periods and amounts
+     */
+    public static DecisionTable build(DecisionEngineConstant constant) {
+        return new DecisionTable(constant);
+    }
+
+    /**
+     * Check whether the table was built from the same values as the given constants.
+     *
+     * @param constant Current decision engine constants
+     * @return true if the table is still up-to-date
+     */
+    public boolean isBuiltFrom(DecisionEngineConstant constant) {
+        return minimumLoanAmount == constant.getMinimumLoanAmount()
+                && maximumLoanAmount == constant.getMaximumLoanAmount()
+                && minimumLoanPeriod == constant.getMinimumLoanPeriod()
+                && maximumLoanPeriod == constant.getMaximumLoanPeriod()
+                && segment1CreditModifier == constant.getSegment1CreditModifier()
+                && segment2CreditModifier == constant.getSegment2CreditModifier()
+                && segment3CreditModifier == constant.getSegment3CreditModifier()
+                && loanInterval == constant.getLoanInterval();
+    }
+
+    /**
+     * Finds the outcome of an already validated request.
+     *
+     * @param segment Credit segment of the customer, 1 to 3
+     * @param loanPeriod Requested loan period
+     * @param loanAmount Requested loan amount
+     * @return Outcome id to be passed to {@link #toResponse(int)} and {@link #kindOf(int)}
+     */
+    public int lookup(int segment, int loanPeriod, long loanAmount) {
+        int index = ((segment - 1) * periodSlots + (loanPeriod - firstSlotPeriod) / loanInterval) * amountCount
+                + (int) (loanAmount - minimumLoanAmount);
+        return byteIndex != null ? byteIndex[index] & 0xFF : charIndex[index];
+    }
+
+    /**
+     * Creates the response for the given outcome.
+     * Outcomes of kind {@link OutcomeKind#NO_VALID_LOAN} have no response, the caller has to reject them.
+     *
+     * @param outcome Outcome id returned by {@link #lookup(int, int, long)}
+     */
+    public DecisionResponse toResponse(int outcome) {
+        return new DecisionResponse(outcomeAmounts[outcome], outcomePeriods[outcome], outcomeErrors[outcome]);
+    }
+
+    /**
+     * Returns the offers of the segment: for every valid loan period, in increasing order, the highest loan amount
+     * a request for that period is approved for. Loan periods without an approved amount are left out.
+     *
+     * @param segment Credit segment of the customer, 1 to 3
+     * @return Offers shared by every caller, the list cannot be modified
+     */
+    public List<LoanOffer> offers(int segment) {
+        return offers.get(segment - 1);
+    }
+
+    public OutcomeKind kindOf(int outcome) {
+        return outcomeKinds[outcome];
+    }
+
+    public int size() {
+        return byteIndex != null ? byteIndex.length : charIndex.length;
+    }
+
+    public int outcomeCount() {
+        return outcomeKinds.length;
+    }
+
+    /**
+     * Approximate memory footprint of the lookup array in bytes.
+     */
+    public long footprintBytes() {
+        return byteIndex != null ? byteIndex.length : (long) charIndex.length * Character.BYTES;
+    }
+
+    private Outcome decide(int creditModifier, int loanPeriod, long loanAmount) {
+        float creditScore = calculateCreditScore(loanPeriod, creditModifier, loanAmount);
+        Integer approvedLoanAmount = calculateEligibleLoanAmount(loanPeriod, creditModifier);
+        if (approvedLoanAmount == null) {
+            return new Outcome(OutcomeKind.NO_VALID_LOAN, null, null, null);
+        }
+        if (creditScore < 0.1) {
+            int expectedLoanPeriod = calculateSuitableLoanPeriod(loanAmount, creditModifier);
+
+            if (!validateExpectedLoanPeriod(expectedLoanPeriod))
+                return new Outcome(OutcomeKind.COUNTER_OFFER, approvedLoanAmount, null,
+                        ErrorMessage.NO_VALID_LOAN_FOUND.getMessage());
+
+            if (!validateExpectedLoanAmount(approvedLoanAmount))
+                return new Outcome(OutcomeKind.COUNTER_OFFER, null, expectedLoanPeriod,
+                        ErrorMessage.NO_VALID_LOAN_FOUND.getMessage());
+
+            return new Outcome(OutcomeKind.COUNTER_OFFER, approvedLoanAmount, expectedLoanPeriod,
+                    ErrorMessage.NO_VALID_LOAN_FOUND.getMessage());
+        }
+        return new Outcome(OutcomeKind.APPROVED, approvedLoanAmount, loanPeriod, null);
+    }
+
+    /**
+     * Calculates the largest valid loan for the current credit modifier and loan period.
+     * The parameters are validated so the product fits into an int, see DecisionParametersService.
+     *
+     * @return Largest valid loan amount
+     */
+    private int highestValidLoanAmount(int loanPeriod, int creditModifier) {
+        return Math.multiplyExact(creditModifier, loanPeriod);
+    }
+
+    /**
+     * Calculate user's credit score
+     *
+     * @param loanPeriod Requested loan period
+     * @param creditModifier User's calculated credit modifier based on the last four digits of their ID code
+     * @param loanAmount Requested loan amount
+     * */
+    private float calculateCreditScore(int loanPeriod, int creditModifier, long loanAmount) {
+        return (((float) creditModifier / loanAmount) * loanPeriod) / 10;
+    }
+
+    /**
+     * Calculates eligible loan amount for the user
+     * The loan periods of the table are at least the minimum loan period, so with a positive credit modifier the
+     * highest valid loan amount of the requested period always reaches it and no longer period has to be searched.
+     *
+     * @param loanPeriod Requested loan period
+     * @param creditModifier User's calculated credit modifier based on the last four digits of their ID code
+     * @return Eligible loan amount, or null if the credit modifier is not positive
+     * */
+    private Integer calculateEligibleLoanAmount(int loanPeriod, int creditModifier) {
+        if (creditModifier <= 0) {
+            return null;
+        }
+        return Math.min(maximumLoanAmount, highestValidLoanAmount(loanPeriod, creditModifier));
+    }
+
+    /**
+     * Calculate suitable loan period for the user
+     * If the expected loan period is not in the valid range, then return the nearest possible option
+     * @param loanAmount Requested loan amount
+     * @param creditModifier User's calculated credit modifier based on the last four digits of their ID code
+     * */
+    private int calculateSuitableLoanPeriod(long loanAmount, int creditModifier) {
+        int expectedLoanPeriod = Math.toIntExact((loanAmount / creditModifier));
+
+        int remainingLoanMonths = expectedLoanPeriod % loanInterval;
+        if (remainingLoanMonths != 0) {
+            expectedLoanPeriod += (loanInterval - (remainingLoanMonths));
+        }
+        return expectedLoanPeriod;
+    }
+
+    /**
+     * Validate expected loan period
+     * If the expected loan period is not in the valid range, then return false
+     * */
+    private boolean validateExpectedLoanPeriod(int expectedLoanPeriod) {
+        return expectedLoanPeriod >= minimumLoanPeriod && expectedLoanPeriod <= maximumLoanPeriod;
+    }
+
+    /**
+     * Validate expected loan amount
+     * If the expected loan amount is not in the valid range, then return false
+     * */
+    private boolean validateExpectedLoanAmount(int expectedLoanAmount) {
+        return expectedLoanAmount >= minimumLoanAmount && expectedLoanAmount <= maximumLoanAmount;
+    }
+
+    private record Outcome(OutcomeKind kind, Integer loanAmount, Integer loanPeriod, String errorMessage) {
+    }
+}
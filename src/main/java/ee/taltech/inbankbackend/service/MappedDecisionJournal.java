@@ -0,0 +1,316 @@
+package ee.taltech.inbankbackend.service;
+
+import ee.taltech.inbankbackend.dto.DecisionRequest;
+import ee.taltech.inbankbackend.dto.DecisionResponse;
+import ee.taltech.inbankbackend.exception.DecisionJournalUnavailableException;
+import ee.taltech.inbankbackend.util.DecisionJournalConstants;
+import ee.taltech.inbankbackend.util.ErrorMessage;
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.Gauge;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.Timer;
+import lombok.extern.slf4j.Slf4j;
+
+import java.io.IOException;
+import java.nio.MappedByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
+import java.time.Clock;
+import java.time.Instant;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.ArrayBlockingQueue;
+import java.util.concurrent.BlockingQueue;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Append-only decision journal in memory-mapped segment files.
+ * <br><br>
+ * - The request thread offers the record to a bounded queue and returns once it is queued, before it is written.
+ * When the queue is full it waits up to offer-timeout for a free slot, then fails with
+ * {@link DecisionJournalUnavailableException}. A closed journal fails the same way.<br>
+ * - A single writer thread takes the queued records, copies up to maximum-batch-size of them into the current
+ * segment and forces the segment to disk once for the whole batch (group commit).<br>
+ * - A segment is a file of segment-size bytes, mapped into memory. When a record does not fit, the segment is
+ * forced and the next segment is started. Segments are numbered, every start of the application begins a new
+ * segment after the existing ones. The directory and the first segment are created by the constructor, so a
+ * directory that cannot be written fails the startup.<br>
+ * - A batch that cannot be written is retried in a new segment until it is written. Until then the journal is not
+ * writable, see {@link #isWritable()}, and appends fail at once instead of filling the queue. Only a batch that
+ * still fails once the journal is closed is dropped, and logged.<br>
+ * <br>
+ * So every returned decision was accepted by the journal, but it is durable only once its batch is forced: the
+ * records still queued or in an unforced batch are lost when the process crashes, and the ones of a batch that
+ * fails at shutdown are dropped.
+ * <br><br>
+ * The records are in the format of {@link DecisionRecordCodec} and are read with {@link DecisionJournalReader}.
+ * Records are counted as {@value #RECORDS}, tagged with the result written, rejected (the request failed) or dropped,
+ * the duration of the forces
+ * is recorded as {@value #COMMIT_DURATION} and the queued records are published as {@value #QUEUE}.
+ */
+@Slf4j
+public class MappedDecisionJournal implements DecisionJournal, AutoCloseable {
+    static final String RECORDS = "decision.journal.records";
+    static final String COMMIT_DURATION = "decision.journal.commit";
+    static final String QUEUE = "decision.journal.queue";
+    static final String SEGMENT_PREFIX = "decisions-";
+    static final String SEGMENT_SUFFIX = ".journal";
+
+    // Time the writer waits for a record before checking whether the journal is closed, and before retrying a batch.
+    private static final long POLL_MILLIS = 100;
+
+    private final Path directory;
+    private final long offerTimeoutNanos;
+    private final int segmentSize;
+    private final int maximumBatchSize;
+    private final Clock clock;
+    private final BlockingQueue<DecisionRecord> queue;
+    private final Counter written;
+    private final Counter rejected;
+    private final Counter dropped;
+    private final Timer commitDuration;
+    private final Thread writer;
+
+    private volatile boolean closed;
+    // Cleared while the writer fails to write a batch, set again once it is written.
+    private volatile boolean writable = true;
+    // Accessed only by the writer thread once it started, null after a failed write until the retry.
+    private FileChannel segmentChannel;
+    private MappedByteBuffer segment;
+    private long segmentNumber;
+    // Records of the current batch before this index are forced to disk, the others start at batchStart.
+    private int batchForced;
+    private int batchStart;
+
+    public MappedDecisionJournal(DecisionJournalConstants constants, MeterRegistry registry, Clock clock) {
+        long segmentBytes = constants.getSegmentSize().toBytes();
+        if (segmentBytes < DecisionRecordCodec.MAXIMUM_RECORD_SIZE || segmentBytes > Integer.MAX_VALUE) {
+            throw new IllegalArgumentException("Invalid decision journal segment size: " + constants.getSegmentSize());
+        }
+        if (constants.getDirectory() == null || !constants.getDirectory().isAbsolute()) {
+            throw new IllegalArgumentException("The decision journal directory must be an absolute path: "
+                    + constants.getDirectory());
+        }
+        this.directory = constants.getDirectory();
+        this.offerTimeoutNanos = constants.getOfferTimeout().toNanos();
+        this.segmentSize = (int) segmentBytes;
+        this.maximumBatchSize = constants.getMaximumBatchSize();
+        this.clock = clock;
+        this.queue = new ArrayBlockingQueue<>(constants.getQueueCapacity());
+        this.written = counter(registry, "written");
+        this.rejected = counter(registry, "rejected");
+        this.dropped = counter(registry, "dropped");
+        this.commitDuration = Timer.builder(COMMIT_DURATION)
+                .description("Time taken to force a batch of decision records to disk")
+                .register(registry);
+        Gauge.builder(QUEUE, queue, BlockingQueue::size)
+                .description("Decision records waiting to be written to the journal")
+                .register(registry);
+        try {
+            Files.createDirectories(directory);
+            segmentNumber = DecisionJournalReader.segments(directory).stream()
+                    .mapToLong(DecisionJournalReader::segmentNumber)
+                    .max()
+                    .orElse(0);
+            nextSegment();
+        } catch (IOException | RuntimeException e) {
+            closeSegment();
+            throw new IllegalStateException("Cannot open the decision journal in " + directory, e);
+        }
+        this.writer = new Thread(this::write, "decision-journal");
+        this.writer.setDaemon(true);
+        this.writer.start();
+    }
+
+    private static Counter counter(MeterRegistry registry, String result) {
+        return Counter.builder(RECORDS)
+                .description("Decision records by whether they were written to the journal, rejected or dropped")
+                .tag("result", result)
+                .register(registry);
+    }
+
+    @Override
+    public void append(DecisionRequest request, DecisionResponse response, ErrorMessage rejection,
+                       long parametersVersion, DecisionRecord.Source source) {
+        if (closed) {
+            throw reject("Decision journal is closed");
+        }
+        if (!writable) {
+            throw reject("Decision journal cannot be written");
+        }
+        DecisionRecord record = new DecisionRecord(Instant.ofEpochMilli(clock.millis()), request.getPersonalCode(),
+                request.getLoanAmount(), request.getLoanPeriod(), request.getCountry(), parametersVersion,
+                response == null ? null : response.getLoanAmount(), response == null ? null : response.getLoanPeriod(),
+                rejection == null ? null : rejection.getCode(), source);
+        try {
+            if (!queue.offer(record, offerTimeoutNanos, TimeUnit.NANOSECONDS)) {
+                throw reject("Decision journal queue is full");
+            }
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            throw reject("Interrupted while waiting for the decision journal");
+        }
+        // The writer may have stopped after the check above. A record it has not taken is taken back, the writer
+        // writes every record it took.
+        if (closed && queue.remove(record)) {
+            throw reject("Decision journal is closed");
+        }
+    }
+
+    private DecisionJournalUnavailableException reject(String message) {
+        rejected.increment();
+        return new DecisionJournalUnavailableException(message);
+    }
+
+    /**
+     * Whether the writer is writing the records, false while it retries a batch it failed to write.
+     */
+    public boolean isWritable() {
+        return writable && !closed;
+    }
+
+    /**
+     * Stops taking records, writes the queued ones and forces them to disk.
+     */
+    @Override
+    public void close() throws InterruptedException {
+        closed = true;
+        writer.join();
+    }
+
+    private void write() {
+        List<DecisionRecord> batch = new ArrayList<>(maximumBatchSize);
+        while (true) {
+            try {
+                DecisionRecord first = queue.poll(POLL_MILLIS, TimeUnit.MILLISECONDS);
+                if (first == null) {
+                    if (closed && queue.isEmpty()) {
+                        break;
+                    }
+                    continue;
+                }
+                batch.add(first);
+                queue.drainTo(batch, maximumBatchSize - 1);
+                writeUntilWritten(batch);
+            } catch (InterruptedException e) {
+                // Only close() stops the writer, so the queued records are not lost.
+                Thread.interrupted();
+            }
+            batch.clear();
+        }
+        closeSegment();
+    }
+
+    /**
+     * Writes the batch, retrying the records not yet forced to disk in a new segment while writing fails.
+     */
+    private void writeUntilWritten(List<DecisionRecord> batch) {
+        batchForced = 0;
+        while (true) {
+            try {
+                writeBatch(batch);
+                if (!writable) {
+                    writable = true;
+                    log.info("Decision journal is written again");
+                }
+                return;
+            } catch (IOException | RuntimeException e) {
+                abandonSegment();
+                int unwritten = batch.size() - batchForced;
+                if (closed) {
+                    log.error("Failed to write {} decision records to the closed journal, they are dropped",
+                            unwritten, e);
+                    dropped.increment(unwritten);
+                    return;
+                }
+                // The stack trace is logged once per outage, not on every retry.
+                if (writable) {
+                    writable = false;
+                    log.error("Failed to write {} decision records to the journal, retrying", unwritten, e);
+                } else {
+                    log.debug("Failed to write {} decision records to the journal again: {}", unwritten,
+                            e.toString());
+                }
+            }
+            try {
+                Thread.sleep(POLL_MILLIS);
+            } catch (InterruptedException e) {
+                // Only close() stops the writer.
+                Thread.interrupted();
+            }
+        }
+    }
+
+    /**
+     * Writes the records of the batch from batchForced on and forces them to disk.
+     */
+    private void writeBatch(List<DecisionRecord> batch) throws IOException {
+        batchStart = segment == null ? 0 : segment.position();
+        for (int i = batchForced; i < batch.size(); i++) {
+            DecisionRecord record = batch.get(i);
+            if (segment == null || !DecisionRecordCodec.encode(record, segment)) {
+                if (segment != null) {
+                    segment.force();
+                    written.increment(i - batchForced);
+                    batchForced = i;
+                }
+                nextSegment();
+                batchStart = 0;
+                DecisionRecordCodec.encode(record, segment);
+            }
+        }
+        long start = System.nanoTime();
+        segment.force();
+        commitDuration.record(System.nanoTime() - start, TimeUnit.NANOSECONDS);
+        written.increment(batch.size() - batchForced);
+        batchForced = batch.size();
+    }
+
+    /**
+     * Closes the current segment after a failed write. The length of the first record not forced to disk is zeroed,
+     * so its retry is not read twice: the reader stops there and moves on to the newer segment.
+     */
+    private void abandonSegment() {
+        if (segment != null) {
+            try {
+                segment.putInt(batchStart, 0);
+            } catch (RuntimeException e) {
+                log.warn("Failed to mark the end of decision journal segment {}", segmentNumber, e);
+            }
+        }
+        closeSegment();
+    }
+
+    private void nextSegment() throws IOException {
+        closeSegment();
+        // Also recreates a directory removed while the application runs.
+        Files.createDirectories(directory);
+        segmentNumber++;
+        Path path = directory.resolve(segmentName(segmentNumber));
+        segmentChannel = FileChannel.open(path, StandardOpenOption.CREATE_NEW, StandardOpenOption.READ,
+                StandardOpenOption.WRITE);
+        // Mapping beyond the end of the file extends it, the new bytes are zero.
+        segment = segmentChannel.map(FileChannel.MapMode.READ_WRITE, 0, segmentSize);
+        log.info("Started decision journal segment {}", path);
+    }
+
+    private void closeSegment() {
+        if (segmentChannel == null) {
+            return;
+        }
+        try {
+            segmentChannel.close();
+        } catch (IOException e) {
+            log.warn("Failed to close decision journal segment {}", segmentNumber, e);
+        }
+        segmentChannel = null;
+        // The mapping is released when the buffer is collected, the next record starts a new segment.
+        segment = null;
+    }
+
+    static String segmentName(long segmentNumber) {
+        return String.format("%s%019d%s", SEGMENT_PREFIX, segmentNumber, SEGMENT_SUFFIX);
+    }
+}
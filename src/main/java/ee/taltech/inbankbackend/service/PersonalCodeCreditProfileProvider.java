@@ -0,0 +1,40 @@
+package ee.taltech.inbankbackend.service;
+
+/**
+ * Default credit profile provider, which derives the credit segment from the last four digits of the personal code.
+ * Debt - 0000...2499
+ * Segment 1 - 2500...4999
+ * Segment 2 - 5000...7499
+ * Segment 3 - 7500...9999
+ */
+public class PersonalCodeCreditProfileProvider implements CreditProfileProvider {
+
+    @Override
+    public CreditProfile getCreditProfile(String personalCode) {
+        int segmentDigits = 0;
+        for (int i = personalCode.length() - 4; i < personalCode.length(); i++) {
+            segmentDigits = segmentDigits * 10 + personalCode.charAt(i) - '0';
+        }
+        return CreditProfile.ofSegment(getSegment(segmentDigits));
+    }
+
+    /**
+     * Calculates the credit segment of the customer to according to the last four digits of their ID code.
+     *
+     * @param segmentDigits Last four digits of the ID code of the customer that made the request.
+     * @return Segment to which the customer belongs, 0 for debt.
+     */
+    static int getSegment(int segmentDigits) {
+        // I'm not changing this part because it's hardcoded on purpose.
+
+        if (segmentDigits < 2500) {
+            return 0;
+        } else if (segmentDigits < 5000) {
+            return 1;
+        } else if (segmentDigits < 7500) {
+            return 2;
+        }
+        // This part open to future possible bugs
+        return 3;
+    }
+}
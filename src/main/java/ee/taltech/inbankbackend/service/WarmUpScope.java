@@ -0,0 +1,60 @@
+package ee.taltech.inbankbackend.service;
+
+import java.util.function.Supplier;
+
+/**
+ * Marks the synthetic requests of the startup warm-up on the thread serving them. Within the scope the decisions
+ * are not journaled, not counted in the decision outcomes and not admission controlled, every other request is
+ * treated as usual, also while the warm-up runs.
+ */
+public final class WarmUpScope implements AutoCloseable {
+    private static final ThreadLocal<Boolean> ACTIVE = ThreadLocal.withInitial(() -> Boolean.FALSE);
+
+    private final boolean previous;
+
+    private WarmUpScope(boolean previous) {
+        this.previous = previous;
+    }
+
+    /**
+     * Starts the scope on the current thread, it ends when the returned scope is closed.
+     */
+    public static WarmUpScope open() {
+        return open(true);
+    }
+
+    private static WarmUpScope open(boolean active) {
+        WarmUpScope scope = new WarmUpScope(ACTIVE.get());
+        ACTIVE.set(active);
+        return scope;
+    }
+
+    /**
+     * Calls the action within the scope.
+     */
+    public static <T> T call(Supplier<T> action) {
+        return call(true, action);
+    }
+
+    /**
+     * Calls the action within the scope if active is true, and outside of it otherwise, whatever the scope of the
+     * current thread. Used to carry the scope of a request over to a callback run on another thread.
+     */
+    public static <T> T call(boolean active, Supplier<T> action) {
+        try (WarmUpScope ignored = open(active)) {
+            return action.get();
+        }
+    }
+
+    /**
+     * Whether the current thread serves a synthetic request of the warm-up.
+     */
+    public static boolean isActive() {
+        return ACTIVE.get();
+    }
+
+    @Override
+    public void close() {
+        ACTIVE.set(previous);
+    }
+}
@@ -0,0 +1,61 @@
+package ee.taltech.inbankbackend.tool;
+
+import com.fasterxml.jackson.databind.ObjectWriter;
+import com.fasterxml.jackson.databind.SerializationFeature;
+import com.fasterxml.jackson.databind.json.JsonMapper;
+import ee.taltech.inbankbackend.service.DecisionJournalReader;
+import ee.taltech.inbankbackend.service.DecisionRecord;
+
+import java.io.BufferedWriter;
+import java.io.IOException;
+import java.io.OutputStreamWriter;
+import java.io.UncheckedIOException;
+import java.io.Writer;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Path;
+import java.time.Duration;
+
+/**
+ * Exports the decision journal as newline delimited JSON to the standard output, one decision per line.
+ * With --follow the journal is tailed: the tool keeps running and exports the decisions as they are written.
+ * <br><br>
+ * Arguments: the journal directory, and optionally --follow.
+ */
+public final class DecisionJournalExport {
+    private static final Duration FOLLOW_INTERVAL = Duration.ofMillis(200);
+
+    private DecisionJournalExport() {
+    }
+
+    public static void main(String[] args) throws Exception {
+        if (args.length < 1) {
+            System.err.println("Usage: DecisionJournalExport <journal directory> [--follow]");
+            System.exit(2);
+        }
+        Path directory = Path.of(args[0]);
+        boolean follow = args.length > 1 && args[1].equals("--follow");
+
+        ObjectWriter writer = JsonMapper.builder()
+                .findAndAddModules()
+                .disable(SerializationFeature.WRITE_DATES_AS_TIMESTAMPS)
+                .build()
+                .writerFor(DecisionRecord.class);
+        Writer out = new BufferedWriter(new OutputStreamWriter(System.out, StandardCharsets.UTF_8));
+        try (DecisionJournalReader reader = new DecisionJournalReader(directory)) {
+            do {
+                int read = reader.read(record -> {
+                    try {
+                        out.write(writer.writeValueAsString(record));
+                        out.write('\n');
+                    } catch (IOException e) {
+                        throw new UncheckedIOException(e);
+                    }
+                });
+                out.flush();
+                if (read == 0 && follow) {
+                    Thread.sleep(FOLLOW_INTERVAL.toMillis());
+                }
+            } while (follow);
+        }
+    }
+}
@@ -0,0 +1,254 @@
+package ee.taltech.inbankbackend.tool;
+
+import ch.qos.logback.classic.Level;
+import com.fasterxml.jackson.core.JsonProcessingException;
+import com.fasterxml.jackson.databind.DeserializationFeature;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.fasterxml.jackson.databind.ObjectReader;
+import com.fasterxml.jackson.databind.json.JsonMapper;
+import ee.taltech.inbankbackend.dto.DecisionParametersDto;
+import ee.taltech.inbankbackend.dto.DecisionRequest;
+import ee.taltech.inbankbackend.dto.DecisionResponse;
+import ee.taltech.inbankbackend.exception.*;
+import ee.taltech.inbankbackend.service.DecisionEngineService;
+import ee.taltech.inbankbackend.service.DecisionJournal;
+import ee.taltech.inbankbackend.service.DecisionMetrics;
+import ee.taltech.inbankbackend.service.DecisionParametersService;
+import ee.taltech.inbankbackend.service.PersonalCodeCreditProfileProvider;
+import ee.taltech.inbankbackend.util.CountryRuleConstants;
+import ee.taltech.inbankbackend.util.ErrorMessage;
+import io.micrometer.core.instrument.composite.CompositeMeterRegistry;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+import java.io.BufferedReader;
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.InputStreamReader;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.time.Clock;
+import java.util.ArrayList;
+import java.util.Iterator;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.Semaphore;
+import java.util.function.Function;
+import java.util.stream.Collectors;
+import java.util.stream.Stream;
+import java.util.zip.GZIPInputStream;
+
+/**
+ * Replays archived decision requests under two parameter sets, e.g. the current parameters and a proposed change
+ * of the credit modifiers or age limits, and prints how the decisions would change: the approval rate per country,
+ * the requests that would be approved or rejected instead, the approved amount histogram and the rejections.
+ * <br><br>
+ * The requests are newline delimited JSON, e.g. the body of POST /loan/decisions/stream or the decision journal
+ * export, optionally gzipped. They are read in chunks on the calling thread and decided on one worker thread per
+ * available processor. At most two chunks per worker are in memory at a time, so the memory use does not depend
+ * on the number of rows.
+ * <br><br>
+ * The parameter sets are JSON files in the format of GET /admin/decision-parameters. Credit profiles are derived
+ * from the personal codes and the ages are checked on the current date.
+ * <br><br>
+ * Arguments: the requests file, the baseline parameters file and the candidate parameters file.
+ */
+public final class DecisionReplay {
+    static final int CHUNK_SIZE = 4096;
+
+    private static final Map<String, ErrorMessage> ERRORS_BY_MESSAGE = Stream.of(ErrorMessage.values())
+            .collect(Collectors.toMap(ErrorMessage::getMessage, Function.identity()));
+
+    private final DecisionEngineService baseline;
+    private final DecisionEngineService candidate;
+    private final ObjectReader requestReader;
+    private final int parallelism;
+
+    /**
+     * @param baseline Decision engine with the current parameters
+     * @param candidate Decision engine with the proposed parameters
+     * @param parallelism Number of worker threads
+     */
+    DecisionReplay(DecisionEngineService baseline, DecisionEngineService candidate, ObjectMapper objectMapper,
+                   int parallelism) {
+        this.baseline = baseline;
+        this.candidate = candidate;
+        // Journal exports have more fields than the requests.
+        this.requestReader = objectMapper.readerFor(DecisionRequest.class)
+                .without(DeserializationFeature.FAIL_ON_UNKNOWN_PROPERTIES);
+        this.parallelism = parallelism;
+    }
+
+    public static void main(String[] args) throws Exception {
+        if (args.length < 3) {
+            System.err.println("Usage: DecisionReplay <requests.ndjson[.gz]> <baseline.json> <candidate.json>");
+            System.exit(2);
+        }
+        // Every decision is logged at INFO, which would dominate the replay.
+        ((ch.qos.logback.classic.Logger) LoggerFactory.getLogger(Logger.ROOT_LOGGER_NAME)).setLevel(Level.WARN);
+
+        ObjectMapper objectMapper = JsonMapper.builder().findAndAddModules().build();
+        DecisionReplay replay = new DecisionReplay(decisionEngine(objectMapper, Path.of(args[1])),
+                decisionEngine(objectMapper, Path.of(args[2])), objectMapper,
+                Runtime.getRuntime().availableProcessors());
+
+        Path requests = Path.of(args[0]);
+        long start = System.nanoTime();
+        DecisionReplaySummary summary;
+        try (InputStream input = requests.toString().endsWith(".gz")
+                ? new GZIPInputStream(Files.newInputStream(requests), 1 << 16)
+                : Files.newInputStream(requests)) {
+            summary = replay.replay(input);
+        }
+        summary.print(System.out, System.nanoTime() - start);
+    }
+
+    /**
+     * Builds a decision engine with the parameters of the file. Decisions are not journaled and the metrics are
+     * not kept.
+     *
+     * @throws InvalidDecisionParametersException If the parameters are invalid
+     */
+    static DecisionEngineService decisionEngine(ObjectMapper objectMapper, Path parametersFile) throws IOException {
+        DecisionParametersDto parameters = objectMapper.readValue(parametersFile.toFile(), DecisionParametersDto.class);
+        return decisionEngine(parameters);
+    }
+
+    static DecisionEngineService decisionEngine(DecisionParametersDto parameters) {
+        CountryRuleConstants countryRules = new CountryRuleConstants();
+        if (parameters.getCountries() != null) {
+            countryRules.getCountries().putAll(parameters.getCountries());
+        }
+        DecisionParametersService parametersService = new DecisionParametersService(parameters.getDecisionEngine(),
+                countryRules, Clock.systemDefaultZone());
+        parametersService.publish(parameters.getDecisionEngine(), countryRules);
+        // A composite registry without registries ignores every measurement.
+        return new DecisionEngineService(parametersService, new DecisionMetrics(new CompositeMeterRegistry()),
+                new PersonalCodeCreditProfileProvider(), DecisionJournal.NONE);
+    }
+
+    /**
+     * Replays the newline delimited requests under both parameter sets.
+     *
+     * @param input Newline delimited decision requests, malformed lines are counted and skipped
+     * @return Summary of the decisions under both parameter sets
+     * @throws IOException If reading the requests fails
+     */
+    DecisionReplaySummary replay(InputStream input) throws IOException {
+        // Only this thread merges the summaries of the chunks, the workers never share one.
+        DecisionReplaySummary total = new DecisionReplaySummary();
+        // Bounds the chunks read ahead of the workers.
+        Semaphore chunksInMemory = new Semaphore(2 * parallelism);
+        ExecutorService workers = Executors.newFixedThreadPool(parallelism);
+        List<Future<DecisionReplaySummary>> pending = new ArrayList<>();
+        try {
+            BufferedReader reader = new BufferedReader(new InputStreamReader(input, StandardCharsets.UTF_8), 1 << 16);
+            List<String> chunk = new ArrayList<>(CHUNK_SIZE);
+            String line;
+            while ((line = reader.readLine()) != null) {
+                if (line.isBlank()) {
+                    continue;
+                }
+                chunk.add(line);
+                if (chunk.size() == CHUNK_SIZE) {
+                    pending.add(submit(chunk, chunksInMemory, workers));
+                    chunk = new ArrayList<>(CHUNK_SIZE);
+                    // Completed chunks are merged right away, so the list of pending chunks stays bounded
+                    // and a failed chunk stops the replay.
+                    merge(pending, total, false);
+                }
+            }
+            if (!chunk.isEmpty()) {
+                pending.add(submit(chunk, chunksInMemory, workers));
+            }
+            merge(pending, total, true);
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            throw new IllegalStateException("Replay was interrupted", e);
+        } catch (ExecutionException e) {
+            throw new IllegalStateException("Replay failed", e.getCause());
+        } finally {
+            workers.shutdownNow();
+        }
+        return total;
+    }
+
+    /**
+     * Adds the summaries of the completed chunks to the total and removes them from the pending chunks.
+     *
+     * @param wait Whether to wait for every pending chunk
+     * @throws ExecutionException If a chunk failed
+     */
+    private static void merge(List<Future<DecisionReplaySummary>> pending, DecisionReplaySummary total,
+                              boolean wait) throws InterruptedException, ExecutionException {
+        Iterator<Future<DecisionReplaySummary>> futures = pending.iterator();
+        while (futures.hasNext()) {
+            Future<DecisionReplaySummary> future = futures.next();
+            if (wait || future.isDone()) {
+                total.add(future.get());
+                futures.remove();
+            }
+        }
+    }
+
+    private Future<DecisionReplaySummary> submit(List<String> chunk, Semaphore chunksInMemory,
+                                                 ExecutorService workers) throws InterruptedException {
+        chunksInMemory.acquire();
+        return workers.submit(() -> {
+            try {
+                return replayChunk(chunk);
+            } finally {
+                chunksInMemory.release();
+            }
+        });
+    }
+
+    private DecisionReplaySummary replayChunk(List<String> lines) {
+        DecisionReplaySummary summary = new DecisionReplaySummary();
+        for (String line : lines) {
+            DecisionRequest request;
+            try {
+                request = requestReader.readValue(line);
+            } catch (JsonProcessingException e) {
+                summary.malformed();
+                continue;
+            }
+            if (request == null) {
+                summary.malformed();
+                continue;
+            }
+            DecisionResponse baselineResponse = decide(baseline, request);
+            DecisionResponse candidateResponse = decide(candidate, request);
+            summary.decided(request.getCountry(), amountOf(baselineResponse), errorOf(baselineResponse),
+                    amountOf(candidateResponse), errorOf(candidateResponse));
+        }
+        return summary;
+    }
+
+    private static DecisionResponse decide(DecisionEngineService engine, DecisionRequest request) {
+        try {
+            return engine.calculateApprovedLoan(request);
+        } catch (InvalidPersonalCodeException | InvalidLoanAmountException | InvalidLoanPeriodException
+                 | InvalidCountryException | AgeConstraintException | NoValidLoanException exception) {
+            return new DecisionResponse(null, null, exception.getMessage());
+        } catch (RuntimeException exception) {
+            return new DecisionResponse(null, null, ErrorMessage.UNEXPECTED_ERROR.getMessage());
+        }
+    }
+
+    private static int amountOf(DecisionResponse response) {
+        return response.getLoanAmount() == null ? 0 : response.getLoanAmount();
+    }
+
+    private static ErrorMessage errorOf(DecisionResponse response) {
+        if (response.getLoanAmount() != null) {
+            return null;
+        }
+        return ERRORS_BY_MESSAGE.getOrDefault(response.getErrorMessage(), ErrorMessage.UNEXPECTED_ERROR);
+    }
+}
@@ -0,0 +1,204 @@
+package ee.taltech.inbankbackend.tool;
+
+import ee.taltech.inbankbackend.dto.Country;
+import ee.taltech.inbankbackend.util.ErrorMessage;
+
+import java.io.PrintStream;
+
+/**
+ * Counts of a replay under the baseline and the candidate parameters, and of the decisions that changed between them.
+ * Every chunk of requests is counted into its own summary, which is then added to the total, so the counting does not
+ * need any synchronization.
+ */
+public class DecisionReplaySummary {
+    public static final int BASELINE = 0;
+    public static final int CANDIDATE = 1;
+    // Approved amounts are counted in buckets of this width, the last bucket holds every larger amount.
+    static final int AMOUNT_BUCKET_WIDTH = 1000;
+    static final int AMOUNT_BUCKETS = 11;
+
+    private static final Country[] COUNTRIES = Country.values();
+    private static final ErrorMessage[] ERRORS = ErrorMessage.values();
+    // Index of the requests without a country.
+    private static final int NO_COUNTRY = COUNTRIES.length;
+
+    private long rows;
+    private long malformedRows;
+    private final long[] decisions = new long[COUNTRIES.length + 1];
+    // Indexed by the parameter set and the country.
+    private final long[][] approved = new long[2][COUNTRIES.length + 1];
+    private final long[][] approvedAmount = new long[2][COUNTRIES.length + 1];
+    private final long[][] errors = new long[2][ERRORS.length];
+    private final long[][] amountHistogram = new long[2][AMOUNT_BUCKETS];
+    // Indexed by the country.
+    private final long[] becameApproved = new long[COUNTRIES.length + 1];
+    private final long[] becameRejected = new long[COUNTRIES.length + 1];
+    private final long[] amountIncreased = new long[COUNTRIES.length + 1];
+    private final long[] amountDecreased = new long[COUNTRIES.length + 1];
+
+    void malformed() {
+        rows++;
+        malformedRows++;
+    }
+
+    /**
+     * Counts the decisions of a request under both parameter sets.
+     *
+     * @param baselineAmount Approved amount under the baseline parameters, 0 if rejected
+     * @param baselineError Error under the baseline parameters, null if approved
+     * @param candidateAmount Approved amount under the candidate parameters, 0 if rejected
+     * @param candidateError Error under the candidate parameters, null if approved
+     */
+    void decided(Country country, int baselineAmount, ErrorMessage baselineError, int candidateAmount,
+                 ErrorMessage candidateError) {
+        int c = country == null ? NO_COUNTRY : country.ordinal();
+        rows++;
+        decisions[c]++;
+        count(BASELINE, c, baselineAmount, baselineError);
+        count(CANDIDATE, c, candidateAmount, candidateError);
+        if (baselineError == null && candidateError != null) {
+            becameRejected[c]++;
+        } else if (baselineError != null && candidateError == null) {
+            becameApproved[c]++;
+        } else if (candidateAmount > baselineAmount) {
+            amountIncreased[c]++;
+        } else if (candidateAmount < baselineAmount) {
+            amountDecreased[c]++;
+        }
+    }
+
+    private void count(int parameters, int country, int amount, ErrorMessage error) {
+        if (error != null) {
+            errors[parameters][error.ordinal()]++;
+            return;
+        }
+        approved[parameters][country]++;
+        approvedAmount[parameters][country] += amount;
+        amountHistogram[parameters][Math.min(amount / AMOUNT_BUCKET_WIDTH, AMOUNT_BUCKETS - 1)]++;
+    }
+
+    /**
+     * Adds the counts of another summary to this one.
+     */
+    void add(DecisionReplaySummary other) {
+        rows += other.rows;
+        malformedRows += other.malformedRows;
+        add(decisions, other.decisions);
+        add(becameApproved, other.becameApproved);
+        add(becameRejected, other.becameRejected);
+        add(amountIncreased, other.amountIncreased);
+        add(amountDecreased, other.amountDecreased);
+        for (int p = BASELINE; p <= CANDIDATE; p++) {
+            add(approved[p], other.approved[p]);
+            add(approvedAmount[p], other.approvedAmount[p]);
+            add(errors[p], other.errors[p]);
+            add(amountHistogram[p], other.amountHistogram[p]);
+        }
+    }
+
+    private static void add(long[] counts, long[] other) {
+        for (int i = 0; i < counts.length; i++) {
+            counts[i] += other[i];
+        }
+    }
+
+    public long rows() {
+        return rows;
+    }
+
+    public long malformedRows() {
+        return malformedRows;
+    }
+
+    /**
+     * Returns the approved requests under the parameter set, of every country.
+     */
+    public long approved(int parameters) {
+        long sum = 0;
+        for (long count : approved[parameters]) {
+            sum += count;
+        }
+        return sum;
+    }
+
+    public long approved(int parameters, Country country) {
+        return approved[parameters][country.ordinal()];
+    }
+
+    public long errors(int parameters, ErrorMessage error) {
+        return errors[parameters][error.ordinal()];
+    }
+
+    public long amountHistogram(int parameters, int bucket) {
+        return amountHistogram[parameters][bucket];
+    }
+
+    /**
+     * Returns the requests whose decision changed between the parameter sets, of every country.
+     */
+    public long changed() {
+        long sum = 0;
+        for (int c = 0; c <= NO_COUNTRY; c++) {
+            sum += changed(c);
+        }
+        return sum;
+    }
+
+    private long changed(int country) {
+        return becameApproved[country] + becameRejected[country] + amountIncreased[country] + amountDecreased[country];
+    }
+
+    /**
+     * Prints the summary as a table.
+     *
+     * @param elapsedNanos Duration of the replay, for the rows per second
+     */
+    public void print(PrintStream out, long elapsedNanos) {
+        long decided = rows - malformedRows;
+        out.printf("Replayed %,d rows in %.1f s (%,.0f rows/s), %,d malformed%n", rows, elapsedNanos / 1e9,
+                rows / Math.max(elapsedNanos / 1e9, 1e-9), malformedRows);
+        out.printf("Decisions changed: %,d of %,d (%.2f%%)%n%n", changed(), decided, percent(changed(), decided));
+
+        out.printf("%-10s %12s %10s %10s %9s %12s %12s %12s %12s %12s %12s%n", "country", "requests", "baseline",
+                "candidate", "change", "approved+", "rejected+", "amount up", "amount down", "avg before",
+                "avg after");
+        for (int c = 0; c <= NO_COUNTRY; c++) {
+            if (decisions[c] == 0) {
+                continue;
+            }
+            double baselineRate = percent(approved[BASELINE][c], decisions[c]);
+            double candidateRate = percent(approved[CANDIDATE][c], decisions[c]);
+            out.printf("%-10s %,12d %9.2f%% %9.2f%% %+6.2f pp %,12d %,12d %,12d %,12d %,12.0f %,12.0f%n",
+                    c == NO_COUNTRY ? "none" : COUNTRIES[c].name().toLowerCase(), decisions[c], baselineRate,
+                    candidateRate, candidateRate - baselineRate, becameApproved[c], becameRejected[c],
+                    amountIncreased[c], amountDecreased[c], average(approvedAmount[BASELINE][c], approved[BASELINE][c]),
+                    average(approvedAmount[CANDIDATE][c], approved[CANDIDATE][c]));
+        }
+
+        out.printf("%n%-16s %14s %14s%n", "approved amount", "baseline", "candidate");
+        for (int b = 0; b < AMOUNT_BUCKETS; b++) {
+            String bucket = b == AMOUNT_BUCKETS - 1
+                    ? b * AMOUNT_BUCKET_WIDTH + "+"
+                    : b * AMOUNT_BUCKET_WIDTH + "-" + ((b + 1) * AMOUNT_BUCKET_WIDTH - 1);
+            if (amountHistogram[BASELINE][b] + amountHistogram[CANDIDATE][b] > 0) {
+                out.printf("%-16s %,14d %,14d%n", bucket, amountHistogram[BASELINE][b], amountHistogram[CANDIDATE][b]);
+            }
+        }
+
+        out.printf("%n%-16s %14s %14s%n", "rejection", "baseline", "candidate");
+        for (ErrorMessage error : ERRORS) {
+            if (errors[BASELINE][error.ordinal()] + errors[CANDIDATE][error.ordinal()] > 0) {
+                out.printf("%-16s %,14d %,14d%n", error.getCode(), errors[BASELINE][error.ordinal()],
+                        errors[CANDIDATE][error.ordinal()]);
+            }
+        }
+    }
+
+    private static double percent(long count, long total) {
+        return total == 0 ? 0 : count * 100.0 / total;
+    }
+
+    private static double average(long sum, long count) {
+        return count == 0 ? 0 : (double) sum / count;
+    }
+}
@@ -0,0 +1,55 @@
+package ee.taltech.inbankbackend.util;
+
+import lombok.Data;
+import org.springframework.boot.context.properties.ConfigurationProperties;
+import org.springframework.stereotype.Component;
+
+import java.time.Duration;
+import java.util.List;
+
+/**
+ * Holds all necessary constants for the per-client rate limit and the adaptive concurrency limit
+ * in front of the decision endpoints.
+ */
+@ConfigurationProperties(prefix = "application.admission-control")
+@Component
+@Data
+public class AdmissionControlConstants {
+    // Requests the limits apply to, as servlet URL patterns.
+    private List<String> paths = List.of();
+    // Requests the limits apply to whose latency depends on their size, as servlet paths. Their latency is not used
+    // for the concurrency limit.
+    private List<String> batchPaths = List.of();
+    private RateLimit rateLimit = new RateLimit();
+    private ConcurrencyLimit concurrencyLimit = new ConcurrencyLimit();
+
+    @Data
+    public static class RateLimit {
+        private boolean enabled;
+        // Addresses of the proxies in front of the application, e.g. the load balancers. A request from one of them
+        // is limited by the client address it forwarded in X-Forwarded-For instead of the proxy address.
+        private List<String> trustedProxies = List.of();
+        // Sustained requests per second of a client.
+        private double requestsPerSecond;
+        // Requests a client can make at once after being idle.
+        private int burst;
+        // Clients whose limits are kept, the least recently seen ones are dropped first.
+        private long maximumClients;
+    }
+
+    @Data
+    public static class ConcurrencyLimit {
+        private boolean enabled;
+        private int initialLimit;
+        private int minimumLimit;
+        private int maximumLimit;
+        // The limit is recalculated from the latencies of the requests completed in every window.
+        private Duration window;
+        // Windows with fewer requests are not used to recalculate the limit.
+        private int minimumWindowRequests;
+        // Latency increase over the no-load latency that is tolerated before the limit is lowered, e.g. 2.0.
+        private double latencyTolerance;
+        // Share of the new limit taken in every window, from 0 to 1.
+        private double smoothing;
+    }
+}
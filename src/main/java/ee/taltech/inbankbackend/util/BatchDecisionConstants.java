@@ -0,0 +1,20 @@
+package ee.taltech.inbankbackend.util;
+
+import lombok.Data;
+import org.springframework.boot.context.properties.ConfigurationProperties;
+import org.springframework.stereotype.Component;
+
+/**
+ * Holds all necessary constants for the batch decision endpoint.
+ */
+@ConfigurationProperties(prefix = "application.batch-decision")
+@Component
+@Data
+public class BatchDecisionConstants {
+    private int maximumBatchSize;
+    private int chunkSize;
+    // Number of worker threads, 0 means one per available processor.
+    private int parallelism;
+    // Longest line of the streaming endpoint in bytes, longer lines are answered as invalid requests.
+    private int maximumLineLength;
+}
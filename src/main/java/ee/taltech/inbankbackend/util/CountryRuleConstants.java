@@ -0,0 +1,60 @@
+package ee.taltech.inbankbackend.util;
+
+import ee.taltech.inbankbackend.dto.Country;
+import lombok.Data;
+import org.springframework.boot.context.properties.ConfigurationProperties;
+import org.springframework.stereotype.Component;
+
+import java.util.HashMap;
+import java.util.Map;
+
+/**
+ * Holds the rules of every country loans are offered in. Loans are only offered in the countries listed here.
+ * Loan bounds and credit modifiers that are not set for a country are taken from {@link DecisionEngineConstant}.
+ */
+@ConfigurationProperties(prefix = "application.country-rules")
+@Component
+@Data
+public class CountryRuleConstants {
+    private Map<Country, CountryRule> countries = new HashMap<>();
+
+    @Data
+    public static class CountryRule {
+        private int minimumAge;
+        private int maximumAge;
+        private Integer minimumLoanAmount;
+        private Integer maximumLoanAmount;
+        private Integer minimumLoanPeriod;
+        private Integer maximumLoanPeriod;
+        private Integer segment1CreditModifier;
+        private Integer segment2CreditModifier;
+        private Integer segment3CreditModifier;
+        private Integer loanInterval;
+
+        /**
+         * Resolves the loan parameters of the country.
+         *
+         * @param defaults Decision engine constants used for the values not set for the country
+         * @return Decision engine constants of the country
+         */
+        public DecisionEngineConstant toDecisionEngineConstant(DecisionEngineConstant defaults) {
+            DecisionEngineConstant constant = new DecisionEngineConstant();
+            constant.setMinimumLoanAmount(valueOrDefault(minimumLoanAmount, defaults.getMinimumLoanAmount()));
+            constant.setMaximumLoanAmount(valueOrDefault(maximumLoanAmount, defaults.getMaximumLoanAmount()));
+            constant.setMinimumLoanPeriod(valueOrDefault(minimumLoanPeriod, defaults.getMinimumLoanPeriod()));
+            constant.setMaximumLoanPeriod(valueOrDefault(maximumLoanPeriod, defaults.getMaximumLoanPeriod()));
+            constant.setSegment1CreditModifier(
+                    valueOrDefault(segment1CreditModifier, defaults.getSegment1CreditModifier()));
+            constant.setSegment2CreditModifier(
+                    valueOrDefault(segment2CreditModifier, defaults.getSegment2CreditModifier()));
+            constant.setSegment3CreditModifier(
+                    valueOrDefault(segment3CreditModifier, defaults.getSegment3CreditModifier()));
+            constant.setLoanInterval(valueOrDefault(loanInterval, defaults.getLoanInterval()));
+            return constant;
+        }
+
+        private static int valueOrDefault(Integer value, int defaultValue) {
+            return value != null ? value : defaultValue;
+        }
+    }
+}
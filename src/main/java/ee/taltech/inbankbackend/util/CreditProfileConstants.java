@@ -0,0 +1,21 @@
+package ee.taltech.inbankbackend.util;
+
+import lombok.Data;
+import org.springframework.boot.context.properties.ConfigurationProperties;
+import org.springframework.stereotype.Component;
+
+import java.time.Duration;
+
+/**
+ * Holds all necessary constants for the credit profile cache.
+ */
+@ConfigurationProperties(prefix = "application.credit-profile")
+@Component
+@Data
+public class CreditProfileConstants {
+    private long cacheMaximumSize;
+    // A profile is reloaded in the background when it is read after this time, the old one is returned meanwhile.
+    private Duration cacheRefreshAfterWrite;
+    // A profile that has not been reloaded is dropped after this time, it has to be longer than the refresh time.
+    private Duration cacheExpireAfterWrite;
+}
@@ -0,0 +1,25 @@
+package ee.taltech.inbankbackend.util;
+
+import lombok.Data;
+import org.springframework.boot.context.properties.ConfigurationProperties;
+import org.springframework.stereotype.Component;
+import org.springframework.util.unit.DataSize;
+
+import java.time.Duration;
+
+/**
+ * Holds all necessary constants for caching the responses of GET /loan/decision.
+ */
+@ConfigurationProperties(prefix = "application.decision-cache")
+@Component
+@Data
+public class DecisionCacheConstants {
+    // Keeps the decisions on the server, the ETag and Cache-Control headers are sent either way.
+    private boolean enabled;
+    // Estimated heap the kept decisions may take, the least valuable ones are evicted beyond it.
+    private DataSize maximumMemory;
+    // A decision is kept at most this long, which bounds how stale the credit profile behind it can be.
+    private Duration expireAfterWrite;
+    // Cache-Control max-age of the responses, which only the browser of the customer may keep.
+    private Duration maxAge;
+}
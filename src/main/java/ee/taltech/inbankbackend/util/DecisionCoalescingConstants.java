@@ -0,0 +1,20 @@
+package ee.taltech.inbankbackend.util;
+
+import lombok.Data;
+import org.springframework.boot.context.properties.ConfigurationProperties;
+import org.springframework.stereotype.Component;
+
+import java.time.Duration;
+
+/**
+ * Holds all necessary constants for coalescing identical decision requests.
+ */
+@ConfigurationProperties(prefix = "application.decision-coalescing")
+@Component
+@Data
+public class DecisionCoalescingConstants {
+    private boolean enabled;
+    // A decision is returned to identical requests for this long after it was made, it has to be positive.
+    private Duration memoTtl;
+    private long maximumSize;
+}
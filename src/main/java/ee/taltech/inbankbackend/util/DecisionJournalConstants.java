@@ -0,0 +1,29 @@
+package ee.taltech.inbankbackend.util;
+
+import lombok.Data;
+import org.springframework.boot.context.properties.ConfigurationProperties;
+import org.springframework.stereotype.Component;
+import org.springframework.util.unit.DataSize;
+
+import java.nio.file.Path;
+import java.time.Duration;
+
+/**
+ * Holds all necessary constants for the decision audit journal.
+ */
+@ConfigurationProperties(prefix = "application.decision-journal")
+@Component
+@Data
+public class DecisionJournalConstants {
+    private boolean enabled;
+    // Absolute directory of the segment files, created at startup.
+    private Path directory;
+    // Size of a segment file, a new segment is started when a record does not fit.
+    private DataSize segmentSize;
+    // Decisions waiting to be written.
+    private int queueCapacity;
+    // Longest wait for a free slot in the queue, the request fails after it.
+    private Duration offerTimeout;
+    // Most decisions written per fsync.
+    private int maximumBatchSize;
+}
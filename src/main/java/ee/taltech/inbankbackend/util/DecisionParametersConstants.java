@@ -0,0 +1,17 @@
+package ee.taltech.inbankbackend.util;
+
+import lombok.Data;
+import org.springframework.boot.context.properties.ConfigurationProperties;
+import org.springframework.stereotype.Component;
+
+/**
+ * Holds all necessary constants for the decision parameters admin endpoint.
+ */
+@ConfigurationProperties(prefix = "application.decision-parameters")
+@Component
+@Data
+public class DecisionParametersConstants {
+    private boolean adminEndpointEnabled;
+    // Shared secret the admin requests send in the X-Admin-Token header, required when the endpoint is enabled.
+    private String adminToken;
+}
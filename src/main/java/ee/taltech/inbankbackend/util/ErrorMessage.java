@@ -17,7 +17,12 @@ public enum ErrorMessage {
     INVALID_AGE_RANGE("E1005", "Unfortunately, we cannot offer a loan based on our age policy"),
     INVALID_COUNTRY_NAME("E1006", "Invalid country!"),
     INVALID_REQUEST("E1007", "Invalid request!"),
-    UNEXPECTED_ERROR("E1008", "An unexpected error occurred"),;
+    UNEXPECTED_ERROR("E1008", "An unexpected error occurred"),
+    INVALID_BATCH_SIZE("E1009", "Invalid batch size!"),
+    INVALID_DECISION_PARAMETERS("E1010", "Invalid decision parameters!"),
+    TOO_MANY_REQUESTS("E1011", "Too many requests!"),
+    SERVICE_OVERLOADED("E1012", "Service is overloaded, try again later"),
+    UNAUTHORIZED("E1013", "Unauthorized!"),;
 
     private final String code;
     private final String message;
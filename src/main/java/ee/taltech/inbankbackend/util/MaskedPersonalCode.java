@@ -0,0 +1,58 @@
+package ee.taltech.inbankbackend.util;
+
+/**
+ * Personal ID code as it is written to the logs. The first digit, the gender and century, and the last four digits,
+ * which decide the credit segment, are kept, so the logs still explain the decisions. The birth date in between is
+ * masked. Anything that is not an 11 character code is masked completely.
+ * <br><br>
+ * {@link #of(String)} masks the code only for lines that are not filtered out. As a key-value field, e.g. of the
+ * decision lines, it is masked when the line is written, on the thread of the async appender. As a {} argument, e.g.
+ * of the sampled DEBUG step lines, it is masked on the logging thread, because the async appender formats the message
+ * before queueing the line.
+ */
+public final class MaskedPersonalCode {
+    private static final int LENGTH = 11;
+    private static final int KEPT_PREFIX = 1;
+    private static final int KEPT_SUFFIX = 4;
+
+    private final String personalCode;
+
+    private MaskedPersonalCode(String personalCode) {
+        this.personalCode = personalCode;
+    }
+
+    /**
+     * Wraps the personal code for a log line, its string value is the masked code.
+     */
+    public static MaskedPersonalCode of(String personalCode) {
+        return new MaskedPersonalCode(personalCode);
+    }
+
+    /**
+     * Masks the personal code.
+     *
+     * @param personalCode Provided personal ID code, may be invalid or null
+     * @return Masked code, e.g. 5******2740 for 50307172740
+     */
+    public static String mask(String personalCode) {
+        if (personalCode == null) {
+            return null;
+        }
+        if (personalCode.length() != LENGTH) {
+            return "*".repeat(Math.min(personalCode.length(), LENGTH));
+        }
+        char[] masked = new char[LENGTH];
+        for (int i = 0; i < LENGTH; i++) {
+            char c = personalCode.charAt(i);
+            boolean kept = i < KEPT_PREFIX || i >= LENGTH - KEPT_SUFFIX;
+            // Only digits are kept, so a crafted code cannot inject line breaks into the logs.
+            masked[i] = kept && c >= '0' && c <= '9' ? c : '*';
+        }
+        return new String(masked);
+    }
+
+    @Override
+    public String toString() {
+        return mask(personalCode);
+    }
+}
@@ -0,0 +1,16 @@
+package ee.taltech.inbankbackend.util;
+
+import lombok.Data;
+import org.springframework.boot.context.properties.ConfigurationProperties;
+import org.springframework.stereotype.Component;
+
+/**
+ * Holds all necessary constants for the reactive stack, used with the reactive profile.
+ */
+@ConfigurationProperties(prefix = "application.reactive")
+@Component
+@Data
+public class ReactiveServerConstants {
+    // Number of event loop threads, 0 means one per available processor.
+    private int eventLoopThreads;
+}
@@ -0,0 +1,43 @@
+package ee.taltech.inbankbackend.util;
+
+import ch.qos.logback.classic.Level;
+import ch.qos.logback.classic.Logger;
+import ch.qos.logback.classic.turbo.TurboFilter;
+import ch.qos.logback.core.spi.FilterReply;
+import lombok.Setter;
+import org.slf4j.Marker;
+
+import java.util.concurrent.ThreadLocalRandom;
+
+/**
+ * Logback turbo filter that lets through only a sample of the DEBUG and TRACE lines of a logger and its children,
+ * e.g. the per-step lines of the decision engine. The lines that are not sampled are dropped before the logging event
+ * is created. Checks like isDebugEnabled() are not sampled, only the lines are, so a guarded line is sampled once.
+ * Configured in logback-spring.xml.
+ */
+@Setter
+public class SamplingTurboFilter extends TurboFilter {
+    // Name of the sampled logger.
+    private String loggerName;
+    // Share of the lines that are logged, from 0 to 1.
+    private double rate = 1;
+
+    @Override
+    public void start() {
+        if (loggerName == null) {
+            addError("No loggerName set for the sampling turbo filter " + getName());
+            return;
+        }
+        super.start();
+    }
+
+    @Override
+    public FilterReply decide(Marker marker, Logger logger, Level level, String format, Object[] params, Throwable t) {
+        // isXxxEnabled() checks have no format, only the lines themselves are sampled.
+        if (!isStarted() || format == null || level == null || level.isGreaterOrEqual(Level.INFO)
+                || !level.isGreaterOrEqual(logger.getEffectiveLevel()) || !logger.getName().startsWith(loggerName)) {
+            return FilterReply.NEUTRAL;
+        }
+        return ThreadLocalRandom.current().nextDouble() < rate ? FilterReply.NEUTRAL : FilterReply.DENY;
+    }
+}
@@ -0,0 +1,33 @@
+package ee.taltech.inbankbackend.util;
+
+import lombok.Data;
+import org.springframework.boot.context.properties.ConfigurationProperties;
+import org.springframework.stereotype.Component;
+
+import java.time.Duration;
+
+/**
+ * Holds all necessary constants for starting the application.
+ */
+@ConfigurationProperties(prefix = "application.startup")
+@Component
+@Data
+public class StartupConstants {
+    // Exits once the application is ready, so the JVM can write the classes it loaded to an AppCDS archive.
+    private boolean trainingRun;
+    private WarmUp warmUp = new WarmUp();
+
+    @Data
+    public static class WarmUp {
+        private boolean enabled;
+        // Most rounds over the synthetic requests, a round sends every request once.
+        private int iterations;
+        // The application reports readiness after this long at the latest.
+        private Duration timeBudget;
+        // Clients sending the rounds at once.
+        private int concurrency;
+        // Compilation is checked once per window, it settled when the JIT compiled for less than the share of it.
+        private Duration settleWindow;
+        private double settledCompilationShare;
+    }
+}
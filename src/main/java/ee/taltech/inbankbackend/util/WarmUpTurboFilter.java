@@ -0,0 +1,40 @@
+package ee.taltech.inbankbackend.util;
+
+import ch.qos.logback.classic.Level;
+import ch.qos.logback.classic.Logger;
+import ch.qos.logback.classic.turbo.TurboFilter;
+import ch.qos.logback.core.spi.FilterReply;
+import ee.taltech.inbankbackend.service.WarmUpScope;
+import lombok.Setter;
+import org.slf4j.Marker;
+
+/**
+ * Logback turbo filter that drops the lines below WARN of a logger and its children, e.g. the decision lines of the
+ * decision engine, while the current thread serves a synthetic request of the startup warm-up, see
+ * {@link WarmUpScope}. The lines of the real requests served meanwhile are logged as configured.
+ * Configured in logback-spring.xml.
+ */
+@Setter
+public class WarmUpTurboFilter extends TurboFilter {
+    // Name of the quieted logger.
+    private String loggerName;
+
+    @Override
+    public void start() {
+        if (loggerName == null) {
+            addError("No loggerName set for the warm-up turbo filter " + getName());
+            return;
+        }
+        super.start();
+    }
+
+    @Override
+    public FilterReply decide(Marker marker, Logger logger, Level level, String format, Object[] params, Throwable t) {
+        // Also denies the isXxxEnabled() checks, so the guarded lines are not even built.
+        if (!isStarted() || level == null || level.isGreaterOrEqual(Level.WARN)
+                || !logger.getName().startsWith(loggerName) || !WarmUpScope.isActive()) {
+            return FilterReply.NEUTRAL;
+        }
+        return FilterReply.DENY;
+    }
+}
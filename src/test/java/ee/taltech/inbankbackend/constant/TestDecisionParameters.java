@@ -0,0 +1,100 @@
+package ee.taltech.inbankbackend.constant;
+
+import ee.taltech.inbankbackend.dto.Country;
+import ee.taltech.inbankbackend.service.CreditProfileProvider;
+import ee.taltech.inbankbackend.service.DecisionEngineService;
+import ee.taltech.inbankbackend.service.DecisionJournal;
+import ee.taltech.inbankbackend.service.DecisionMetrics;
+import ee.taltech.inbankbackend.service.DecisionParametersService;
+import ee.taltech.inbankbackend.util.CountryRuleConstants;
+import ee.taltech.inbankbackend.util.DecisionEngineConstant;
+import io.micrometer.core.instrument.MeterRegistry;
+
+import java.time.Clock;
+import java.time.Instant;
+import java.time.ZoneId;
+import java.time.ZoneOffset;
+import java.util.function.Supplier;
+
+/**
+ * Decision parameters with the values of application.yml, and the services built from them, shared by the tests
+ * and the benchmarks. Every call returns new objects, so a test can change them.
+ */
+public final class TestDecisionParameters {
+    // The ages of the test personal codes are checked on a fixed date.
+    public static final Clock CLOCK = Clock.fixed(Instant.parse("2024-05-01T10:00:00Z"), ZoneOffset.UTC);
+
+    private TestDecisionParameters() {
+    }
+
+    /**
+     * Clock in UTC at the instant the supplier returns, for tests that move the date forward.
+     */
+    public static Clock clock(Supplier<Instant> now) {
+        return new Clock() {
+            @Override
+            public ZoneId getZone() {
+                return ZoneOffset.UTC;
+            }
+
+            @Override
+            public Clock withZone(ZoneId zone) {
+                throw new UnsupportedOperationException();
+            }
+
+            @Override
+            public Instant instant() {
+                return now.get();
+            }
+        };
+    }
+
+    public static DecisionEngineConstant decisionEngineConstant() {
+        DecisionEngineConstant constant = new DecisionEngineConstant();
+        constant.setMinimumLoanAmount(2000);
+        constant.setMaximumLoanAmount(10000);
+        constant.setMinimumLoanPeriod(12);
+        constant.setMaximumLoanPeriod(48);
+        constant.setSegment1CreditModifier(100);
+        constant.setSegment2CreditModifier(300);
+        constant.setSegment3CreditModifier(1000);
+        constant.setLoanInterval(6);
+        return constant;
+    }
+
+    public static CountryRuleConstants.CountryRule ageRange(int minimumAge, int maximumAge) {
+        CountryRuleConstants.CountryRule rule = new CountryRuleConstants.CountryRule();
+        rule.setMinimumAge(minimumAge);
+        rule.setMaximumAge(maximumAge);
+        return rule;
+    }
+
+    /**
+     * Rules of Estonia only, loans are not offered in the other countries.
+     */
+    public static CountryRuleConstants estonia() {
+        CountryRuleConstants constants = new CountryRuleConstants();
+        constants.getCountries().put(Country.ESTONIA, ageRange(18, 78));
+        return constants;
+    }
+
+    /**
+     * Rules of every country, as in application.yml.
+     */
+    public static CountryRuleConstants countryRuleConstants() {
+        CountryRuleConstants constants = estonia();
+        constants.getCountries().put(Country.LATVIA, ageRange(18, 95));
+        constants.getCountries().put(Country.LITHUANIA, ageRange(40, 70));
+        return constants;
+    }
+
+    /**
+     * Decision engine without a journal, the parameters are published on the first decision.
+     */
+    public static DecisionEngineService decisionEngineService(DecisionParametersService decisionParametersService,
+                                                              MeterRegistry meterRegistry,
+                                                              CreditProfileProvider creditProfileProvider) {
+        return new DecisionEngineService(decisionParametersService, new DecisionMetrics(meterRegistry),
+                creditProfileProvider, DecisionJournal.NONE);
+    }
+}
@@ -0,0 +1,74 @@
+package ee.taltech.inbankbackend.controller;
+
+import ee.taltech.inbankbackend.dto.Country;
+import ee.taltech.inbankbackend.dto.DecisionRequest;
+import ee.taltech.inbankbackend.dto.DecisionResponse;
+import org.junit.jupiter.api.Test;
+
+import java.nio.ByteBuffer;
+import java.util.Arrays;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+/**
+ * This class checks that decision requests and responses are read back as they were written in the binary format,
+ * and that anything but exactly one valid request is not read.
+ */
+class DecisionBinaryCodecTest {
+
+    private static byte[] write(DecisionRequest request) {
+        ByteBuffer buffer = ByteBuffer.allocate(DecisionBinaryCodec.MAXIMUM_REQUEST_SIZE);
+        DecisionBinaryCodec.writeRequest(request, buffer);
+        return Arrays.copyOf(buffer.array(), buffer.position());
+    }
+
+    @Test
+    void testReadRequest_readsWrittenRequest() {
+        DecisionRequest[] requests = {
+                new DecisionRequest("50307172740", 4000L, 12, Country.ESTONIA),
+                new DecisionRequest(null, null, -1, null),
+                new DecisionRequest("", Long.MAX_VALUE, Integer.MAX_VALUE, Country.LITHUANIA)
+        };
+        for (DecisionRequest request : requests) {
+            byte[] bytes = write(request);
+            DecisionRequest read = DecisionBinaryCodec.readRequest(ByteBuffer.wrap(bytes));
+            assertEquals(request.getPersonalCode(), read.getPersonalCode());
+            assertEquals(request.getLoanAmount(), read.getLoanAmount());
+            assertEquals(request.getLoanPeriod(), read.getLoanPeriod());
+            assertEquals(request.getCountry(), read.getCountry());
+        }
+        assertEquals(26, write(requests[0]).length);
+    }
+
+    @Test
+    void testReadRequest_whenRequestIsInvalid_returnsNull() {
+        byte[] valid = write(new DecisionRequest("50307172740", 4000L, 12, Country.ESTONIA));
+
+        assertNull(DecisionBinaryCodec.readRequest(ByteBuffer.allocate(0)));
+        assertNull(DecisionBinaryCodec.readRequest(ByteBuffer.wrap(valid, 0, valid.length - 1)));
+        assertNull(DecisionBinaryCodec.readRequest(ByteBuffer.wrap(Arrays.copyOf(valid, valid.length + 1))));
+
+        byte[] version = valid.clone();
+        version[0] = 2;
+        assertNull(DecisionBinaryCodec.readRequest(ByteBuffer.wrap(version)));
+        byte[] country = valid.clone();
+        country[1] = (byte) Country.values().length;
+        assertNull(DecisionBinaryCodec.readRequest(ByteBuffer.wrap(country)));
+    }
+
+    @Test
+    void testReadResponse_readsWrittenResponse() {
+        DecisionResponse[] responses = {
+                new DecisionResponse(7200, 24, null),
+                new DecisionResponse(null, null, "No valid loan found!")
+        };
+        for (DecisionResponse response : responses) {
+            byte[] bytes = DecisionBinaryCodec.writeResponse(response);
+            DecisionResponse read = DecisionBinaryCodec.readResponse(ByteBuffer.wrap(bytes));
+            assertEquals(response.getLoanAmount(), read.getLoanAmount());
+            assertEquals(response.getLoanPeriod(), read.getLoanPeriod());
+            assertEquals(response.getErrorMessage(), read.getErrorMessage());
+        }
+        assertEquals(11, DecisionBinaryCodec.writeResponse(responses[0]).length);
+    }
+}
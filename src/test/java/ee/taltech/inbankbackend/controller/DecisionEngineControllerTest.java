@@ -5,12 +5,12 @@ import com.fasterxml.jackson.databind.ObjectMapper;
 import ee.taltech.inbankbackend.dto.Country;
 import ee.taltech.inbankbackend.dto.DecisionRequest;
 import ee.taltech.inbankbackend.dto.DecisionResponse;
+import ee.taltech.inbankbackend.dto.LoanOffer;
+import ee.taltech.inbankbackend.dto.OfferRequest;
+import ee.taltech.inbankbackend.dto.OfferResponse;
 import ee.taltech.inbankbackend.exception.*;
 import ee.taltech.inbankbackend.service.DecisionEngineService;
-import ee.taltech.inbankbackend.util.AgeValidationConstants;
-import ee.taltech.inbankbackend.util.DecisionEngineConstant;
 import ee.taltech.inbankbackend.util.ErrorMessage;
-import org.junit.jupiter.api.BeforeEach;
 import org.junit.jupiter.api.Test;
 import org.junit.jupiter.api.extension.ExtendWith;
 import org.mockito.InjectMocks;
@@ -27,10 +27,17 @@ import org.springframework.test.context.junit.jupiter.SpringExtension;
 import org.springframework.test.web.servlet.MockMvc;
 import org.springframework.test.web.servlet.MvcResult;
 
+import java.nio.ByteBuffer;
+import java.util.Arrays;
+import java.util.List;
+
 import static org.mockito.ArgumentMatchers.anyInt;
 import static org.mockito.ArgumentMatchers.anyLong;
 import static org.mockito.ArgumentMatchers.anyString;
+import static org.mockito.Mockito.times;
+import static org.mockito.Mockito.verify;
 import static org.mockito.Mockito.when;
+import static org.springframework.test.web.servlet.request.MockMvcRequestBuilders.get;
 import static org.springframework.test.web.servlet.request.MockMvcRequestBuilders.post;
 import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.*;
 import static ee.taltech.inbankbackend.constant.TestConstant.*;
@@ -38,7 +45,8 @@ import static ee.taltech.inbankbackend.constant.TestConstant.*;
 /**
  * This class holds integration tests for the DecisionEngineController endpoint.
  */
-@SpringBootTest
+// The decision engine is mocked per test, so decisions must not be shared between the tests.
+@SpringBootTest(properties = "application.decision-coalescing.enabled=false")
 @AutoConfigureMockMvc
 @ExtendWith(SpringExtension.class)
 @ExtendWith(MockitoExtension.class)
@@ -53,27 +61,6 @@ public class DecisionEngineControllerTest {
     @Autowired
     private ObjectMapper objectMapper;
 
-    @MockBean
-    private DecisionEngineConstant decisionEngineConstant;
-
-    @MockBean
-    private AgeValidationConstants ageValidationConstants;
-
-    @BeforeEach
-    void setUp() {
-        Mockito.lenient().when(decisionEngineConstant.getMinimumLoanAmount()).thenReturn(2000);
-        Mockito.lenient().when(decisionEngineConstant.getMaximumLoanAmount()).thenReturn(10000);
-        Mockito.lenient().when(decisionEngineConstant.getMinimumLoanPeriod()).thenReturn(12);
-        Mockito.lenient().when(decisionEngineConstant.getMaximumLoanPeriod()).thenReturn(48);
-        Mockito.lenient().when(decisionEngineConstant.getSegment1CreditModifier()).thenReturn(100);
-        Mockito.lenient().when(decisionEngineConstant.getSegment2CreditModifier()).thenReturn(300);
-        Mockito.lenient().when(decisionEngineConstant.getSegment3CreditModifier()).thenReturn(1000);
-        Mockito.lenient().when(decisionEngineConstant.getLoanInterval()).thenReturn(6);
-        Mockito.lenient().when(ageValidationConstants.getMaximumAgeEs()).thenReturn(78);
-        Mockito.lenient().when(ageValidationConstants.getMinimumAgeEs()).thenReturn(18);
-        Mockito.lenient().when(ageValidationConstants.getMaximumAgeLv()).thenReturn(95);
-        Mockito.lenient().when(ageValidationConstants.getMinimumAgeLv()).thenReturn(18);
-    }
     /**
      * This method tests the /loan/decision endpoint with valid inputs.
      */
@@ -98,6 +85,42 @@ public class DecisionEngineControllerTest {
         assert response.getErrorMessage() == null;
     }
 
+    /**
+     * This method tests the /loan/offers endpoint with valid inputs.
+     */
+    @Test
+    public void givenValidRequest_whenRequestOffers_thenReturnsOffersForEveryLoanPeriod() throws Exception {
+        OfferResponse offers = new OfferResponse(List.of(new LoanOffer(3600, 12), new LoanOffer(5400, 18)), null);
+        when(decisionEngine.calculateOffers(Mockito.any(OfferRequest.class))).thenReturn(offers);
+
+        mockMvc.perform(post("/loan/offers")
+                        .content(objectMapper.writeValueAsString(new OfferRequest(SEGMENT_2_PERSONAL_CODE, COUNTRY)))
+                        .contentType(MediaType.APPLICATION_JSON))
+                .andExpect(status().isOk())
+                .andExpect(content().contentType(MediaType.APPLICATION_JSON))
+                .andExpect(jsonPath("$.offers.length()").value(2))
+                .andExpect(jsonPath("$.offers[0].loanAmount").value(3600))
+                .andExpect(jsonPath("$.offers[0].loanPeriod").value(12))
+                .andExpect(jsonPath("$.offers[1].loanAmount").value(5400))
+                .andExpect(jsonPath("$.offers[1].loanPeriod").value(18))
+                .andExpect(jsonPath("$.errorMessage").isEmpty());
+    }
+
+    /**
+     * This test ensures that the /loan/offers endpoint returns the same error response as the decision endpoint.
+     */
+    @Test
+    public void givenInvalidPersonalCode_whenRequestOffers_thenReturnsBadRequest() throws Exception {
+        when(decisionEngine.calculateOffers(Mockito.any(OfferRequest.class)))
+                .thenThrow(new InvalidPersonalCodeException(ErrorMessage.INVALID_PERSONAL_ID_CODE.getMessage()));
+
+        mockMvc.perform(post("/loan/offers")
+                        .content(objectMapper.writeValueAsString(new OfferRequest(INVALID_PERSONAL_CODE, COUNTRY)))
+                        .contentType(MediaType.APPLICATION_JSON))
+                .andExpect(status().isBadRequest())
+                .andExpect(jsonPath("$.errorMessage").value(ErrorMessage.INVALID_PERSONAL_ID_CODE.getMessage()));
+    }
+
     /**
      * This test ensures that if an invalid personal code is provided, the controller returns
      * an HTTP Bad Request (400) response with the appropriate error message in the response body.
@@ -271,4 +294,144 @@ public class DecisionEngineControllerTest {
         assert response.getLoanPeriod() == null;
         assert response.getErrorMessage().equals(ErrorMessage.INVALID_REQUEST.getMessage());
     }
+
+    /**
+     * This test ensures that the batch endpoint returns the responses in the same order as the requests,
+     * and that an invalid request is reported in its own response instead of failing the whole batch.
+     */
+    @Test
+    public void givenBatchWithInvalidRequest_whenRequestDecisions_thenReturnsResponsePerRequest() throws Exception {
+        when(decisionEngine.calculateApprovedLoan(Mockito.argThat(request -> request != null
+                && INVALID_PERSONAL_CODE.equals(request.getPersonalCode()))))
+                .thenThrow(new InvalidPersonalCodeException(ErrorMessage.INVALID_PERSONAL_ID_CODE.getMessage()));
+        when(decisionEngine.calculateApprovedLoan(Mockito.argThat(request -> request != null
+                && SEGMENT_2_PERSONAL_CODE.equals(request.getPersonalCode()))))
+                .thenReturn(new DecisionResponse(7200, 24, null));
+
+        mockMvc.perform(post("/loan/decisions")
+                        .content(objectMapper.writeValueAsString(List.of(SEGMENT_2_REQUEST, INVALID_PERSONAL_CODE_REQUEST)))
+                        .contentType(MediaType.APPLICATION_JSON))
+                .andExpect(status().isOk())
+                .andExpect(content().contentType(MediaType.APPLICATION_JSON))
+                .andExpect(jsonPath("$.length()").value(2))
+                .andExpect(jsonPath("$[0].loanAmount").value(7200))
+                .andExpect(jsonPath("$[0].loanPeriod").value(24))
+                .andExpect(jsonPath("$[0].errorMessage").isEmpty())
+                .andExpect(jsonPath("$[1].loanAmount").isEmpty())
+                .andExpect(jsonPath("$[1].loanPeriod").isEmpty())
+                .andExpect(jsonPath("$[1].errorMessage").value(ErrorMessage.INVALID_PERSONAL_ID_CODE.getMessage()));
+    }
+
+    /**
+     * This test ensures that a batch body that is not an array of decision requests is answered as an invalid request.
+     */
+    @Test
+    public void givenMalformedBatch_whenRequestDecisions_thenReturnsBadRequest() throws Exception {
+        mockMvc.perform(post("/loan/decisions")
+                        .content("[" + objectMapper.writeValueAsString(SEGMENT_2_REQUEST) + ", {\"loanAmount\":")
+                        .contentType(MediaType.APPLICATION_JSON))
+                .andExpect(status().isBadRequest())
+                .andExpect(jsonPath("$.errorMessage").value(ErrorMessage.INVALID_REQUEST.getMessage()));
+    }
+
+    /**
+     * This test ensures that requests the decision JSON converter leaves to Jackson, e.g. malformed ones
+     * or ones with an unknown country, are still answered with a bad request response.
+     */
+    @Test
+    public void givenMalformedRequest_whenRequestDecision_thenReturnsBadRequest() throws Exception {
+        String[] bodies = {
+                "{\"personalCode\":\"50307172740\",\"loanAmount\":",
+                "{\"personalCode\":\"50307172740\",\"loanAmount\":4000,\"loanPeriod\":12,\"country\":\"FINLAND\"}"
+        };
+        for (String body : bodies) {
+            mockMvc.perform(post("/loan/decision")
+                            .content(body)
+                            .contentType(MediaType.APPLICATION_JSON))
+                    .andExpect(status().isBadRequest())
+                    .andExpect(content().contentType(MediaType.APPLICATION_JSON))
+                    .andExpect(jsonPath("$.loanAmount").isEmpty())
+                    .andExpect(jsonPath("$.loanPeriod").isEmpty())
+                    .andExpect(jsonPath("$.errorMessage").value(ErrorMessage.INVALID_REQUEST.getMessage()));
+        }
+    }
+
+    /**
+     * This test ensures that the decision endpoint reads requests and writes responses in the binary format
+     * when asked for, including the error responses.
+     */
+    @Test
+    public void givenBinaryRequest_whenRequestDecision_thenReturnsBinaryResponse() throws Exception {
+        when(decisionEngine.calculateApprovedLoan(Mockito.any(DecisionRequest.class)))
+                .thenReturn(new DecisionResponse(7200, 24, null));
+        ByteBuffer request = ByteBuffer.allocate(DecisionBinaryCodec.MAXIMUM_REQUEST_SIZE);
+        DecisionBinaryCodec.writeRequest(SEGMENT_2_REQUEST, request);
+
+        MvcResult result = mockMvc.perform(post("/loan/decision")
+                        .content(Arrays.copyOf(request.array(), request.position()))
+                        .contentType(DecisionBinaryHttpMessageConverter.MEDIA_TYPE)
+                        .accept(DecisionBinaryHttpMessageConverter.MEDIA_TYPE))
+                .andExpect(status().isOk())
+                .andExpect(content().contentType(DecisionBinaryHttpMessageConverter.MEDIA_TYPE))
+                .andReturn();
+        DecisionResponse response = DecisionBinaryCodec.readResponse(
+                ByteBuffer.wrap(result.getResponse().getContentAsByteArray()));
+        assert response.getLoanAmount() == 7200;
+        assert response.getLoanPeriod() == 24;
+        assert response.getErrorMessage() == null;
+
+        result = mockMvc.perform(post("/loan/decision")
+                        .content(new byte[]{1, 2, 3})
+                        .contentType(DecisionBinaryHttpMessageConverter.MEDIA_TYPE)
+                        .accept(DecisionBinaryHttpMessageConverter.MEDIA_TYPE))
+                .andExpect(status().isBadRequest())
+                .andExpect(content().contentType(DecisionBinaryHttpMessageConverter.MEDIA_TYPE))
+                .andReturn();
+        response = DecisionBinaryCodec.readResponse(ByteBuffer.wrap(result.getResponse().getContentAsByteArray()));
+        assert response.getErrorMessage().equals(ErrorMessage.INVALID_REQUEST.getMessage());
+    }
+
+    /**
+     * This test ensures that the GET form of the decision endpoint sends an ETag and Cache-Control, answers
+     * a conditional request with 304 without deciding again and rejects an unknown country with a bad request.
+     */
+    @Test
+    public void givenMatchingETag_whenGetDecision_thenReturnsNotModified() throws Exception {
+        when(decisionEngine.calculateApprovedLoan(Mockito.any(DecisionRequest.class)))
+                .thenReturn(new DecisionResponse(10000, 24, null));
+
+        MvcResult result = mockMvc.perform(get("/loan/decision")
+                        .param("personalCode", SEGMENT_3_PERSONAL_CODE)
+                        .param("loanAmount", "2000")
+                        .param("loanPeriod", "24")
+                        .param("country", "ESTONIA"))
+                .andExpect(status().isOk())
+                .andExpect(content().contentType(MediaType.APPLICATION_JSON))
+                .andExpect(jsonPath("$.loanAmount").value(10000))
+                .andExpect(jsonPath("$.loanPeriod").value(24))
+                .andExpect(header().string("Cache-Control", "max-age=60, private"))
+                .andReturn();
+        String eTag = result.getResponse().getHeader("ETag");
+        assert eTag != null && eTag.startsWith("\"");
+
+        result = mockMvc.perform(get("/loan/decision")
+                        .param("personalCode", SEGMENT_3_PERSONAL_CODE)
+                        .param("loanAmount", "2000")
+                        .param("loanPeriod", "24")
+                        .param("country", "ESTONIA")
+                        .header("If-None-Match", eTag))
+                .andExpect(status().isNotModified())
+                .andExpect(header().string("ETag", eTag))
+                .andReturn();
+        assert result.getResponse().getContentAsByteArray().length == 0;
+        verify(decisionEngine, times(1)).calculateApprovedLoan(Mockito.any(DecisionRequest.class));
+
+        mockMvc.perform(get("/loan/decision")
+                        .param("personalCode", SEGMENT_3_PERSONAL_CODE)
+                        .param("loanAmount", "2000")
+                        .param("loanPeriod", "24")
+                        .param("country", "FINLAND"))
+                .andExpect(status().isBadRequest())
+                .andExpect(jsonPath("$.errorMessage").value(ErrorMessage.INVALID_REQUEST.getMessage()));
+    }
 }
@@ -0,0 +1,154 @@
+package ee.taltech.inbankbackend.controller;
+
+import com.fasterxml.jackson.databind.ObjectMapper;
+import ee.taltech.inbankbackend.dto.DecisionRequest;
+import ee.taltech.inbankbackend.dto.DecisionResponse;
+import ee.taltech.inbankbackend.service.DecisionEngineService;
+import ee.taltech.inbankbackend.util.ErrorMessage;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.extension.ExtendWith;
+import org.mockito.Mockito;
+import org.mockito.junit.jupiter.MockitoExtension;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.autoconfigure.web.servlet.AutoConfigureMockMvc;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.boot.test.mock.mockito.MockBean;
+import org.springframework.http.MediaType;
+import org.springframework.test.context.junit.jupiter.SpringExtension;
+import org.springframework.test.web.servlet.MockMvc;
+import org.springframework.test.web.servlet.MvcResult;
+
+import java.nio.ByteBuffer;
+
+import static org.mockito.Mockito.when;
+import static org.springframework.test.web.servlet.request.MockMvcRequestBuilders.post;
+import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.*;
+import static ee.taltech.inbankbackend.constant.TestConstant.*;
+
+/**
+ * This class holds integration tests for the rate limit of the decision endpoints behind a trusted proxy,
+ * and for the startup warm-up requests that skip it.
+ */
+// The decision engine is mocked per test, so decisions must not be shared between the tests.
+// The rate limit practically does not refill during the tests, so the requests it admits are exactly the burst.
+// Every test uses its own client addresses, so the tests do not share a bucket.
+@SpringBootTest(properties = {"application.decision-coalescing.enabled=false",
+        "application.admission-control.rate-limit.enabled=true",
+        "application.admission-control.rate-limit.requests-per-second=0.001",
+        "application.admission-control.rate-limit.burst=" + DecisionEngineRateLimitTest.RATE_LIMIT_BURST,
+        "application.admission-control.rate-limit.trusted-proxies=127.0.0.1"})
+@AutoConfigureMockMvc
+@ExtendWith(SpringExtension.class)
+@ExtendWith(MockitoExtension.class)
+public class DecisionEngineRateLimitTest {
+    static final int RATE_LIMIT_BURST = 100;
+
+    @Autowired
+    private MockMvc mockMvc;
+
+    @MockBean
+    private DecisionEngineService decisionEngine;
+
+    @Autowired
+    private ObjectMapper objectMapper;
+
+    @Autowired
+    private StartupWarmUp startupWarmUp;
+
+    /**
+     * This test ensures that a client over its rate limit, identified by the address the trusted proxy forwarded,
+     * is answered with 429 and a Retry-After header on the first request over its burst, in the format it accepts,
+     * while the requests of other clients are still decided.
+     */
+    @Test
+    public void givenClientOverRateLimit_whenRequestDecision_thenReturnsTooManyRequests() throws Exception {
+        when(decisionEngine.calculateApprovedLoan(Mockito.any(DecisionRequest.class)))
+                .thenReturn(new DecisionResponse(7200, 24, null));
+        String body = objectMapper.writeValueAsString(SEGMENT_2_REQUEST);
+
+        for (int i = 0; i < RATE_LIMIT_BURST; i++) {
+            mockMvc.perform(post("/loan/decision")
+                            .header("X-Forwarded-For", "192.0.2.1, 198.51.100.7")
+                            .content(body)
+                            .contentType(MediaType.APPLICATION_JSON))
+                    .andExpect(status().isOk());
+        }
+
+        mockMvc.perform(post("/loan/decision")
+                        .header("X-Forwarded-For", "198.51.100.7")
+                        .content(body)
+                        .contentType(MediaType.APPLICATION_JSON))
+                .andExpect(status().isTooManyRequests())
+                .andExpect(header().exists("Retry-After"))
+                .andExpect(content().contentType(MediaType.APPLICATION_JSON))
+                .andExpect(jsonPath("$.errorMessage").value(ErrorMessage.TOO_MANY_REQUESTS.getMessage()));
+
+        MvcResult binary = mockMvc.perform(post("/loan/decision")
+                        .header("X-Forwarded-For", "198.51.100.7")
+                        .content(body)
+                        .contentType(MediaType.APPLICATION_JSON)
+                        .accept(DecisionBinaryHttpMessageConverter.MEDIA_TYPE))
+                .andExpect(status().isTooManyRequests())
+                .andExpect(content().contentType(DecisionBinaryHttpMessageConverter.MEDIA_TYPE))
+                .andReturn();
+        DecisionResponse response = DecisionBinaryCodec.readResponse(
+                ByteBuffer.wrap(binary.getResponse().getContentAsByteArray()));
+        assert response.getErrorMessage().equals(ErrorMessage.TOO_MANY_REQUESTS.getMessage());
+
+        // The batch endpoints share the limit.
+        mockMvc.perform(post("/loan/decisions")
+                        .header("X-Forwarded-For", "198.51.100.7")
+                        .content("[" + body + "]")
+                        .contentType(MediaType.APPLICATION_JSON))
+                .andExpect(status().isTooManyRequests());
+
+        mockMvc.perform(post("/loan/decision")
+                        .header("X-Forwarded-For", "198.51.100.8")
+                        .content(body)
+                        .contentType(MediaType.APPLICATION_JSON))
+                .andExpect(status().isOk());
+    }
+
+    /**
+     * This test ensures that only the requests carrying the warm-up token from the loopback address skip the rate
+     * limit, a wrong token or the right token from another address does not.
+     */
+    @Test
+    public void givenWarmUpToken_whenRequestDecisionOverRateLimit_thenSkipsOnlyFromLoopback() throws Exception {
+        when(decisionEngine.calculateApprovedLoan(Mockito.any(DecisionRequest.class)))
+                .thenReturn(new DecisionResponse(7200, 24, null));
+        String body = objectMapper.writeValueAsString(SEGMENT_2_REQUEST);
+
+        for (int i = 0; i < RATE_LIMIT_BURST; i++) {
+            mockMvc.perform(post("/loan/decision")
+                            .header("X-Forwarded-For", "198.51.100.20")
+                            .content(body)
+                            .contentType(MediaType.APPLICATION_JSON))
+                    .andExpect(status().isOk());
+        }
+
+        mockMvc.perform(post("/loan/decision")
+                        .header("X-Forwarded-For", "198.51.100.20")
+                        .header(StartupWarmUp.HEADER, startupWarmUp.token())
+                        .content(body)
+                        .contentType(MediaType.APPLICATION_JSON))
+                .andExpect(status().isOk());
+
+        mockMvc.perform(post("/loan/decision")
+                        .header("X-Forwarded-For", "198.51.100.20")
+                        .header(StartupWarmUp.HEADER, "not-the-token")
+                        .content(body)
+                        .contentType(MediaType.APPLICATION_JSON))
+                .andExpect(status().isTooManyRequests());
+
+        mockMvc.perform(post("/loan/decision")
+                        .with(request -> {
+                            request.setRemoteAddr("198.51.100.20");
+                            return request;
+                        })
+                        .header(StartupWarmUp.HEADER, startupWarmUp.token())
+                        .content(body)
+                        .contentType(MediaType.APPLICATION_JSON))
+                .andExpect(status().isTooManyRequests());
+    }
+}
@@ -0,0 +1,137 @@
+package ee.taltech.inbankbackend.controller;
+
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.fasterxml.jackson.module.paramnames.ParameterNamesModule;
+import ee.taltech.inbankbackend.dto.Country;
+import ee.taltech.inbankbackend.dto.DecisionRequest;
+import ee.taltech.inbankbackend.dto.DecisionResponse;
+import org.junit.jupiter.api.Test;
+import org.springframework.http.converter.json.Jackson2ObjectMapperBuilder;
+
+import java.nio.charset.StandardCharsets;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+/**
+ * This class checks that the plain form of a decision request is read, that every other request is left
+ * to Jackson, and that decision responses are written as Jackson writes them.
+ */
+class DecisionJsonCodecTest {
+    // Configured as the ObjectMapper of Spring Boot, which reads the requests through their constructors.
+    private final ObjectMapper objectMapper = Jackson2ObjectMapperBuilder.json()
+            .modulesToInstall(new ParameterNamesModule())
+            .build();
+
+    private static DecisionRequest read(String json) {
+        byte[] bytes = json.getBytes(StandardCharsets.UTF_8);
+        return DecisionJsonCodec.readRequest(bytes, 0, bytes.length);
+    }
+
+    private static String write(DecisionResponse response) {
+        return new String(DecisionJsonCodec.writeResponse(response), StandardCharsets.UTF_8);
+    }
+
+    @Test
+    void testReadRequest_readsFieldsInAnyOrder() {
+        DecisionRequest request = read("{\"personalCode\":\"50307172740\",\"loanAmount\":4000,"
+                + "\"loanPeriod\":12,\"country\":\"ESTONIA\"}");
+        assertEquals("50307172740", request.getPersonalCode());
+        assertEquals(4000L, request.getLoanAmount());
+        assertEquals(12, request.getLoanPeriod());
+        assertEquals(Country.ESTONIA, request.getCountry());
+
+        request = read(" {\n  \"country\" : \"LITHUANIA\",\n  \"loanPeriod\" : -6,\n  \"loanAmount\" : 0\n}\n");
+        assertNull(request.getPersonalCode());
+        assertEquals(0L, request.getLoanAmount());
+        assertEquals(-6, request.getLoanPeriod());
+        assertEquals(Country.LITHUANIA, request.getCountry());
+    }
+
+    @Test
+    void testReadRequest_readsNullsAndMissingFields() {
+        DecisionRequest request = read("{\"personalCode\":null,\"loanAmount\":null,\"country\":null}");
+        assertNull(request.getPersonalCode());
+        assertNull(request.getLoanAmount());
+        assertEquals(0, request.getLoanPeriod());
+        assertNull(request.getCountry());
+
+        assertNotNull(read("{}"));
+    }
+
+    @Test
+    void testReadRequest_whenRequestIsNotPlain_leavesItToJackson() {
+        String[] requests = {
+                "",
+                "[]",
+                "{\"loanAmount\":4000",
+                "{\"loanAmount\":4000,}",
+                "{\"loanAmount\":4000}{}",
+                "{\"loanAmount\":4000.0}",
+                "{\"loanAmount\":4e3}",
+                "{\"loanAmount\":04000}",
+                "{\"loanAmount\":\"4000\"}",
+                "{\"loanAmount\":1234567890123456789}",
+                "{\"loanPeriod\":null}",
+                "{\"loanPeriod\":1234567890}",
+                "{\"loanAmount\":4000,\"loanAmount\":5000}",
+                "{\"personalCode\":\"5030717\\u0032740\"}",
+                "{\"personalCode\":\"50307172740\u00e4\"}",
+                "{\"country\":\"estonia\"}",
+                "{\"country\":\"FINLAND\"}",
+                "{\"unknown\":1}",
+                "{'loanAmount':4000}"
+        };
+        for (String request : requests) {
+            assertNull(read(request), request);
+        }
+    }
+
+    @Test
+    void testWriteResponse_writesEveryField() {
+        assertEquals("{\"loanAmount\":7200,\"loanPeriod\":24,\"errorMessage\":null}",
+                write(new DecisionResponse(7200, 24, null)));
+        assertEquals("{\"loanAmount\":null,\"loanPeriod\":null,\"errorMessage\":\"No valid loan found!\"}",
+                write(new DecisionResponse(null, null, "No valid loan found!")));
+    }
+
+    @Test
+    void testWriteResponse_whenLongestIntegers_writesEveryField() {
+        assertEquals("{\"loanAmount\":-2147483648,\"loanPeriod\":-2147483648,\"errorMessage\":\"\"}",
+                write(new DecisionResponse(Integer.MIN_VALUE, Integer.MIN_VALUE, "")));
+        assertEquals("{\"loanAmount\":-2147483648,\"loanPeriod\":-2147483648,\"errorMessage\":null}",
+                write(new DecisionResponse(Integer.MIN_VALUE, Integer.MIN_VALUE, null)));
+    }
+
+    @Test
+    void testWriteResponse_escapesErrorMessage() {
+        assertEquals("{\"loanAmount\":-1,\"loanPeriod\":0,\"errorMessage\":\"\\\"a\\\\b\\\"\\n\\t\\u0001 \u00e4\u20ac\ud83d\ude00\"}",
+                write(new DecisionResponse(-1, 0, "\"a\\b\"\n\t\u0001 \u00e4\u20ac\ud83d\ude00")));
+    }
+
+    @Test
+    void testCodec_matchesJackson() throws Exception {
+        String[] requests = {
+                "{\"personalCode\":\"50307172740\",\"loanAmount\":4000,\"loanPeriod\":12,\"country\":\"ESTONIA\"}",
+                "{\"country\":\"LATVIA\",\"loanAmount\":-9223372036854775,\"personalCode\":\"\"}",
+                "\t{ \"loanPeriod\" : 48 }\r\n",
+                "{}"
+        };
+        for (String json : requests) {
+            DecisionRequest expected = objectMapper.readValue(json, DecisionRequest.class);
+            DecisionRequest actual = read(json);
+            assertEquals(expected.getPersonalCode(), actual.getPersonalCode(), json);
+            assertEquals(expected.getLoanAmount(), actual.getLoanAmount(), json);
+            assertEquals(expected.getLoanPeriod(), actual.getLoanPeriod(), json);
+            assertEquals(expected.getCountry(), actual.getCountry(), json);
+        }
+
+        DecisionResponse[] responses = {
+                new DecisionResponse(7200, 24, null),
+                new DecisionResponse(null, null, "Invalid personal ID code!"),
+                new DecisionResponse(Integer.MIN_VALUE, Integer.MAX_VALUE, "\"a\\b\"\n\t\u0001\u001f \u00e4\u20ac\ud83d\ude00")
+        };
+        for (DecisionResponse response : responses) {
+            assertEquals(objectMapper.writeValueAsString(response), write(response));
+        }
+    }
+}
@@ -0,0 +1,86 @@
+package ee.taltech.inbankbackend.controller;
+
+import com.fasterxml.jackson.databind.ObjectMapper;
+import ee.taltech.inbankbackend.service.DecisionParametersService;
+import ee.taltech.inbankbackend.util.ErrorMessage;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.extension.ExtendWith;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.autoconfigure.web.servlet.AutoConfigureMockMvc;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.http.MediaType;
+import org.springframework.test.context.junit.jupiter.SpringExtension;
+import org.springframework.test.web.servlet.MockMvc;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.springframework.test.web.servlet.request.MockMvcRequestBuilders.get;
+import static org.springframework.test.web.servlet.request.MockMvcRequestBuilders.put;
+import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.jsonPath;
+import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.status;
+
+/**
+ * This class holds integration tests for the authentication of the decision parameters admin endpoint.
+ */
+@SpringBootTest(properties = {"application.decision-parameters.admin-endpoint-enabled=true",
+        "application.decision-parameters.admin-token=" + DecisionParametersControllerTest.ADMIN_TOKEN})
+@AutoConfigureMockMvc
+@ExtendWith(SpringExtension.class)
+public class DecisionParametersControllerTest {
+    static final String ADMIN_TOKEN = "test-admin-token";
+
+    @Autowired
+    private MockMvc mockMvc;
+
+    @Autowired
+    private ObjectMapper objectMapper;
+
+    @Autowired
+    private DecisionParametersService decisionParametersService;
+
+    /**
+     * This test ensures that the parameters are not replaced by a request without the admin token or with
+     * a wrong one.
+     */
+    @Test
+    public void givenNoOrWrongAdminToken_whenPublishParameters_thenReturnsUnauthorized() throws Exception {
+        long version = decisionParametersService.current().version();
+        String body = objectMapper.writeValueAsString(decisionParametersService.describe());
+
+        mockMvc.perform(put("/admin/decision-parameters")
+                        .content(body)
+                        .contentType(MediaType.APPLICATION_JSON))
+                .andExpect(status().isUnauthorized())
+                .andExpect(jsonPath("$.errorMessage").value(ErrorMessage.UNAUTHORIZED.getMessage()));
+
+        mockMvc.perform(put("/admin/decision-parameters")
+                        .header(DecisionParametersController.TOKEN_HEADER, ADMIN_TOKEN + "x")
+                        .content(body)
+                        .contentType(MediaType.APPLICATION_JSON))
+                .andExpect(status().isUnauthorized());
+
+        mockMvc.perform(get("/admin/decision-parameters"))
+                .andExpect(status().isUnauthorized());
+
+        assertEquals(version, decisionParametersService.current().version());
+    }
+
+    /**
+     * This test ensures that a request with the admin token reads and publishes the parameters.
+     */
+    @Test
+    public void givenAdminToken_whenPublishParameters_thenPublishesNewVersion() throws Exception {
+        long version = decisionParametersService.current().version();
+        String body = objectMapper.writeValueAsString(decisionParametersService.describe());
+
+        mockMvc.perform(get("/admin/decision-parameters")
+                        .header(DecisionParametersController.TOKEN_HEADER, ADMIN_TOKEN))
+                .andExpect(status().isOk());
+
+        mockMvc.perform(put("/admin/decision-parameters")
+                        .header(DecisionParametersController.TOKEN_HEADER, ADMIN_TOKEN)
+                        .content(body)
+                        .contentType(MediaType.APPLICATION_JSON))
+                .andExpect(status().isOk())
+                .andExpect(jsonPath("$.version").value(version + 1));
+    }
+}
@@ -0,0 +1,162 @@
+package ee.taltech.inbankbackend.controller;
+
+import ee.taltech.inbankbackend.dto.DecisionRequest;
+import ee.taltech.inbankbackend.dto.DecisionResponse;
+import ee.taltech.inbankbackend.dto.LoanOffer;
+import ee.taltech.inbankbackend.dto.OfferRequest;
+import ee.taltech.inbankbackend.dto.OfferResponse;
+import ee.taltech.inbankbackend.exception.*;
+import ee.taltech.inbankbackend.service.DecisionEngineService;
+import ee.taltech.inbankbackend.util.ErrorMessage;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.params.ParameterizedTest;
+import org.junit.jupiter.params.provider.Arguments;
+import org.junit.jupiter.params.provider.MethodSource;
+import org.junit.jupiter.params.provider.ValueSource;
+import org.mockito.Mockito;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.autoconfigure.web.reactive.AutoConfigureWebTestClient;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.boot.test.mock.mockito.MockBean;
+import org.springframework.http.HttpStatus;
+import org.springframework.http.MediaType;
+import org.springframework.test.web.reactive.server.WebTestClient;
+
+import java.util.List;
+import java.util.concurrent.atomic.AtomicReference;
+import java.util.stream.Stream;
+
+import static ee.taltech.inbankbackend.constant.TestConstant.*;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+import static org.mockito.Mockito.when;
+
+/**
+ * This class holds integration tests for the ReactiveDecisionEngineController endpoint.
+ * The responses must be the same as the ones of DecisionEngineController.
+ */
+// The decision engine is mocked per test, so decisions must not be shared between the tests.
+@SpringBootTest(properties = {"spring.main.web-application-type=reactive",
+        "application.decision-coalescing.enabled=false"})
+@AutoConfigureWebTestClient
+class ReactiveDecisionEngineControllerTest {
+
+    @Autowired
+    private WebTestClient webTestClient;
+
+    @MockBean
+    private DecisionEngineService decisionEngine;
+
+    static Stream<Arguments> rejections() {
+        return Stream.of(
+                Arguments.of(new InvalidPersonalCodeException(ErrorMessage.INVALID_PERSONAL_ID_CODE.getMessage()),
+                        HttpStatus.BAD_REQUEST, ErrorMessage.INVALID_PERSONAL_ID_CODE.getMessage()),
+                Arguments.of(new InvalidLoanAmountException(ErrorMessage.INVALID_LOAN_AMOUNT.getMessage()),
+                        HttpStatus.BAD_REQUEST, ErrorMessage.INVALID_LOAN_AMOUNT.getMessage()),
+                Arguments.of(new InvalidLoanPeriodException(ErrorMessage.INVALID_LOAN_PERIOD.getMessage()),
+                        HttpStatus.BAD_REQUEST, ErrorMessage.INVALID_LOAN_PERIOD.getMessage()),
+                Arguments.of(new AgeConstraintException(ErrorMessage.INVALID_AGE_RANGE.getMessage()),
+                        HttpStatus.BAD_REQUEST, ErrorMessage.INVALID_AGE_RANGE.getMessage()),
+                Arguments.of(new NoValidLoanException(ErrorMessage.NO_VALID_LOAN_FOUND.getMessage()),
+                        HttpStatus.NOT_FOUND, ErrorMessage.NO_VALID_LOAN_FOUND.getMessage()),
+                Arguments.of(new InvalidCountryException(ErrorMessage.INVALID_COUNTRY_NAME.getMessage()),
+                        HttpStatus.INTERNAL_SERVER_ERROR, ErrorMessage.UNEXPECTED_ERROR.getMessage()),
+                Arguments.of(new IllegalStateException("Unexpected"),
+                        HttpStatus.INTERNAL_SERVER_ERROR, ErrorMessage.UNEXPECTED_ERROR.getMessage()));
+    }
+
+    @Test
+    void givenValidRequest_whenRequestDecision_thenReturnsExpectedResponse() {
+        when(decisionEngine.calculateApprovedLoan(Mockito.any(DecisionRequest.class)))
+                .thenReturn(new DecisionResponse(7200, 24, null));
+
+        webTestClient.post().uri("/loan/decision")
+                .contentType(MediaType.APPLICATION_JSON)
+                .bodyValue(SEGMENT_2_REQUEST)
+                .exchange()
+                .expectStatus().isOk()
+                .expectHeader().contentType(MediaType.APPLICATION_JSON)
+                .expectBody()
+                .jsonPath("$.loanAmount").isEqualTo(7200)
+                .jsonPath("$.loanPeriod").isEqualTo(24)
+                .jsonPath("$.errorMessage").isEmpty();
+    }
+
+    /**
+     * A credit profile cache miss blocks the decision engine, so it must never be called on an event loop thread.
+     */
+    @Test
+    void givenValidRequest_whenRequestDecisionAndOffers_thenDecidesOffTheEventLoop() {
+        AtomicReference<String> decisionThread = new AtomicReference<>();
+        AtomicReference<String> offersThread = new AtomicReference<>();
+        when(decisionEngine.calculateApprovedLoan(Mockito.any(DecisionRequest.class))).thenAnswer(invocation -> {
+            decisionThread.set(Thread.currentThread().getName());
+            return new DecisionResponse(7200, 24, null);
+        });
+        when(decisionEngine.calculateOffers(Mockito.any(OfferRequest.class))).thenAnswer(invocation -> {
+            offersThread.set(Thread.currentThread().getName());
+            return new OfferResponse(List.of(new LoanOffer(3600, 12)), null);
+        });
+
+        webTestClient.post().uri("/loan/decision")
+                .contentType(MediaType.APPLICATION_JSON)
+                .bodyValue(SEGMENT_2_REQUEST)
+                .exchange()
+                .expectStatus().isOk();
+        webTestClient.post().uri("/loan/offers")
+                .contentType(MediaType.APPLICATION_JSON)
+                .bodyValue(new OfferRequest(SEGMENT_2_PERSONAL_CODE, COUNTRY))
+                .exchange()
+                .expectStatus().isOk();
+
+        assertTrue(decisionThread.get().startsWith("boundedElastic"), decisionThread.get());
+        assertTrue(offersThread.get().startsWith("boundedElastic"), offersThread.get());
+    }
+
+    @Test
+    void givenValidRequest_whenRequestOffers_thenReturnsExpectedResponse() {
+        when(decisionEngine.calculateOffers(Mockito.any(OfferRequest.class)))
+                .thenReturn(new OfferResponse(List.of(new LoanOffer(3600, 12)), null));
+
+        webTestClient.post().uri("/loan/offers")
+                .contentType(MediaType.APPLICATION_JSON)
+                .bodyValue(new OfferRequest(SEGMENT_2_PERSONAL_CODE, COUNTRY))
+                .exchange()
+                .expectStatus().isOk()
+                .expectBody()
+                .jsonPath("$.offers[0].loanAmount").isEqualTo(3600)
+                .jsonPath("$.offers[0].loanPeriod").isEqualTo(12)
+                .jsonPath("$.errorMessage").isEmpty();
+    }
+
+    @ParameterizedTest
+    @MethodSource("rejections")
+    void givenRejectedRequest_whenRequestDecision_thenReturnsSameErrorAsServletStack(RuntimeException rejection,
+                                                                                   HttpStatus status,
+                                                                                   String errorMessage) {
+        when(decisionEngine.calculateApprovedLoan(Mockito.any(DecisionRequest.class))).thenThrow(rejection);
+
+        webTestClient.post().uri("/loan/decision")
+                .contentType(MediaType.APPLICATION_JSON)
+                .bodyValue(SEGMENT_2_REQUEST)
+                .exchange()
+                .expectStatus().isEqualTo(status)
+                .expectHeader().contentType(MediaType.APPLICATION_JSON)
+                .expectBody()
+                .jsonPath("$.loanAmount").isEmpty()
+                .jsonPath("$.loanPeriod").isEmpty()
+                .jsonPath("$.errorMessage").isEqualTo(errorMessage);
+    }
+
+    @ParameterizedTest
+    @ValueSource(strings = {"{\"personalCode\": ", "{\"personalCode\":\"50307172740\",\"loanAmount\":4000,"
+            + "\"loanPeriod\":12,\"country\":\"FINLAND\"}"})
+    void givenUnreadableRequest_whenRequestDecision_thenReturnsBadRequest(String body) {
+        webTestClient.post().uri("/loan/decision")
+                .contentType(MediaType.APPLICATION_JSON)
+                .bodyValue(body)
+                .exchange()
+                .expectStatus().isBadRequest()
+                .expectBody()
+                .jsonPath("$.errorMessage").isEqualTo(ErrorMessage.INVALID_REQUEST.getMessage());
+    }
+}
@@ -0,0 +1,144 @@
+package ee.taltech.inbankbackend.controller;
+
+import ee.taltech.inbankbackend.dto.Country;
+import ee.taltech.inbankbackend.dto.DecisionRequest;
+import ee.taltech.inbankbackend.dto.OfferRequest;
+import ee.taltech.inbankbackend.dto.OfferResponse;
+import ee.taltech.inbankbackend.exception.AgeConstraintException;
+import ee.taltech.inbankbackend.service.DecisionEngineService;
+import ee.taltech.inbankbackend.service.DecisionParameters;
+import ee.taltech.inbankbackend.service.DecisionParametersService;
+import ee.taltech.inbankbackend.service.PersonalCodeCreditProfileProvider;
+import ee.taltech.inbankbackend.util.ErrorMessage;
+import ee.taltech.inbankbackend.util.PersonalCodeCodec;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+
+import java.time.LocalDate;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Set;
+
+import static ee.taltech.inbankbackend.constant.TestDecisionParameters.*;
+import static org.junit.jupiter.api.Assertions.*;
+
+/**
+ * This class checks that the synthetic requests of the startup warm-up take every branch of the decision engine
+ * in every country, and that they change from round to round.
+ */
+class WarmUpRequestsTest {
+    private static final Country[] OFFERED = {Country.ESTONIA, Country.LATVIA, Country.LITHUANIA};
+    private static final int ROUNDS = 50;
+
+    private final SimpleMeterRegistry meterRegistry = new SimpleMeterRegistry();
+    private DecisionParameters parameters;
+    private DecisionEngineService decisionEngine;
+
+    @BeforeEach
+    void setUp() {
+        DecisionParametersService decisionParametersService =
+                new DecisionParametersService(decisionEngineConstant(), countryRuleConstants(), CLOCK);
+        parameters = decisionParametersService.current();
+        decisionEngine = decisionEngineService(decisionParametersService, meterRegistry,
+                new PersonalCodeCreditProfileProvider());
+    }
+
+    @Test
+    void testDecisions_takeEveryBranchInEveryCountry() {
+        for (int round = 0; round < ROUNDS; round++) {
+            for (DecisionRequest request : WarmUpRequests.decisions(parameters, round)) {
+                try {
+                    decisionEngine.calculateApprovedLoan(request);
+                } catch (RuntimeException e) {
+                    // Rejections are counted in the metrics.
+                }
+            }
+        }
+
+        for (Country country : OFFERED) {
+            String name = country.name().toLowerCase();
+            assertTrue(outcomes(name, "approved", "none") > 0, name);
+            assertTrue(outcomes(name, "counter_offer", "none") > 0, name);
+            assertTrue(outcomes(name, "debt", "none") > 0, name);
+            assertEquals(ROUNDS, outcomes(name, "rejected", ErrorMessage.INVALID_PERSONAL_ID_CODE.getCode()), name);
+            assertEquals(ROUNDS, outcomes(name, "rejected", ErrorMessage.INVALID_LOAN_AMOUNT.getCode()), name);
+            assertEquals(ROUNDS, outcomes(name, "rejected", ErrorMessage.INVALID_LOAN_PERIOD.getCode()), name);
+            // Too young and too old.
+            assertEquals(2 * ROUNDS, outcomes(name, "rejected", ErrorMessage.INVALID_AGE_RANGE.getCode()), name);
+        }
+        assertEquals(ROUNDS, outcomes("none", "rejected", ErrorMessage.INVALID_COUNTRY_NAME.getCode()));
+    }
+
+    @Test
+    void testDecisions_changeFromRoundToRound() {
+        Set<String> previous = keys(WarmUpRequests.decisions(parameters, 0));
+        for (int round = 1; round < ROUNDS; round++) {
+            Set<String> keys = keys(WarmUpRequests.decisions(parameters, round));
+            for (String key : keys) {
+                assertFalse(previous.contains(key), key);
+            }
+            previous = keys;
+        }
+    }
+
+    @Test
+    void testOffers_takeEveryBranchInEveryCountry() {
+        for (Country country : OFFERED) {
+            int debt = 0;
+            int offered = 0;
+            int rejected = 0;
+            for (OfferRequest request : WarmUpRequests.offers(parameters, 0)) {
+                if (request.getCountry() != country) {
+                    continue;
+                }
+                try {
+                    OfferResponse response = decisionEngine.calculateOffers(request);
+                    if (response.getOffers().isEmpty()) {
+                        debt++;
+                    } else {
+                        offered++;
+                    }
+                } catch (AgeConstraintException e) {
+                    rejected++;
+                }
+            }
+            assertEquals(1, debt, country.name());
+            assertEquals(3, offered, country.name());
+            assertEquals(1, rejected, country.name());
+        }
+    }
+
+    @Test
+    void testPersonalCode_isValidWithTheBirthDateAndSerial() {
+        LocalDate today = LocalDate.now(CLOCK);
+        int packedToday = PersonalCodeCodec.packDate(today.getYear(), today.getMonthValue(), today.getDayOfMonth());
+        for (LocalDate birthDate : new LocalDate[]{LocalDate.of(1899, 12, 31), LocalDate.of(1984, 2, 29),
+                LocalDate.of(2006, 5, 1)}) {
+            for (int serial = 0; serial < 1000; serial += 37) {
+                long parsed = PersonalCodeCodec.parse(WarmUpRequests.personalCode(birthDate, serial), packedToday);
+                assertEquals(PersonalCodeCodec.packDate(birthDate.getYear(), birthDate.getMonthValue(),
+                        birthDate.getDayOfMonth()), PersonalCodeCodec.birthDate(parsed));
+                assertEquals(serial, PersonalCodeCodec.segment(parsed) / 10);
+            }
+        }
+    }
+
+    private static Set<String> keys(List<DecisionRequest> requests) {
+        Set<String> keys = new HashSet<>();
+        for (DecisionRequest request : requests) {
+            keys.add(request.getPersonalCode() + "/" + request.getLoanAmount() + "/" + request.getLoanPeriod()
+                    + "/" + request.getCountry());
+        }
+        return keys;
+    }
+
+    private double outcomes(String country, String outcome, String error) {
+        return meterRegistry.get("decision.outcomes")
+                .tag("country", country)
+                .tag("outcome", outcome)
+                .tag("error", error)
+                .counter()
+                .count();
+    }
+}
@@ -0,0 +1,99 @@
+package ee.taltech.inbankbackend.service;
+
+import ee.taltech.inbankbackend.util.AdmissionControlConstants;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+
+import java.time.Duration;
+import java.util.concurrent.atomic.AtomicLong;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+/**
+ * This class checks that requests over the concurrency limit are shed, and that the limit shrinks when
+ * the latency grows and grows again while the latency stays low.
+ */
+class AdaptiveConcurrencyLimiterTest {
+    private static final Duration WINDOW = Duration.ofMillis(100);
+
+    // Time source of the limiter, moved forward by the tests.
+    private final AtomicLong nanos = new AtomicLong();
+    private AdaptiveConcurrencyLimiter limiter;
+
+    @BeforeEach
+    void setUp() {
+        AdmissionControlConstants.ConcurrencyLimit constants = new AdmissionControlConstants.ConcurrencyLimit();
+        constants.setEnabled(true);
+        constants.setInitialLimit(100);
+        constants.setMinimumLimit(10);
+        constants.setMaximumLimit(200);
+        constants.setWindow(WINDOW);
+        constants.setMinimumWindowRequests(10);
+        constants.setLatencyTolerance(2.0);
+        constants.setSmoothing(1.0);
+        limiter = new AdaptiveConcurrencyLimiter(constants, nanos::get);
+    }
+
+    /**
+     * Completes a window of requests, all in flight at once. The last request ends the window.
+     */
+    private void window(int requests, Duration latency) {
+        for (int i = 0; i < requests; i++) {
+            assertTrue(limiter.tryAcquire());
+        }
+        for (int i = 1; i < requests; i++) {
+            limiter.release(latency.toNanos());
+        }
+        nanos.addAndGet(WINDOW.toNanos());
+        limiter.release(latency.toNanos());
+    }
+
+    @Test
+    void testTryAcquire_whenLimitIsReached_shedsRequest() {
+        for (int i = 0; i < 100; i++) {
+            assertTrue(limiter.tryAcquire());
+        }
+        assertFalse(limiter.tryAcquire());
+        assertEquals(100, limiter.getInFlight());
+
+        limiter.release(Duration.ofMillis(10).toNanos());
+        assertTrue(limiter.tryAcquire());
+    }
+
+    @Test
+    void testRelease_whenLatencyGrows_shrinksLimit() {
+        window(80, Duration.ofMillis(10));
+        int limit = limiter.getLimit();
+
+        window(40, Duration.ofMillis(100));
+
+        assertTrue(limiter.getLimit() < limit);
+        assertTrue(limiter.getLimit() >= limit / 2);
+    }
+
+    @Test
+    void testRelease_whenLatencyStaysLow_growsLimitUpToMaximum() {
+        window(80, Duration.ofMillis(10));
+        assertEquals(110, limiter.getLimit());
+
+        for (int i = 0; i < 100; i++) {
+            window(limiter.getLimit(), Duration.ofMillis(10));
+        }
+        assertEquals(200, limiter.getLimit());
+    }
+
+    @Test
+    void testRelease_whenRequestsStayFarBelowLimit_keepsLimit() {
+        window(20, Duration.ofMillis(10));
+        window(20, Duration.ofMillis(10));
+
+        assertEquals(100, limiter.getLimit());
+    }
+
+    @Test
+    void testRelease_whenWindowHasTooFewRequests_keepsLimit() {
+        window(5, Duration.ofMillis(500));
+
+        assertEquals(100, limiter.getLimit());
+    }
+}
@@ -0,0 +1,105 @@
+package ee.taltech.inbankbackend.service;
+
+import ee.taltech.inbankbackend.dto.Country;
+import ee.taltech.inbankbackend.util.CountryRuleConstants;
+import ee.taltech.inbankbackend.util.DecisionEngineConstant;
+import ee.taltech.inbankbackend.util.PersonalCodeCodec;
+import org.junit.jupiter.api.Test;
+
+import java.time.LocalDate;
+import java.time.Period;
+
+import static ee.taltech.inbankbackend.constant.TestDecisionParameters.*;
+import static org.junit.jupiter.api.Assertions.*;
+
+/**
+ * This class checks that the precomputed age cutoffs give the same result as calculating the ages,
+ * around birthdays, month ends and leap days.
+ */
+class AgeCutoffsTest {
+    private static final int MAXIMUM_LOAN_PERIOD = 48;
+
+    private static CountryRules rules(int maximumLoanPeriod) {
+        // A single loan amount keeps the decision tables small, only the loan period matters for the ages.
+        DecisionEngineConstant constant = decisionEngineConstant();
+        constant.setMaximumLoanAmount(2000);
+        constant.setMinimumLoanPeriod(1);
+        constant.setMaximumLoanPeriod(maximumLoanPeriod);
+        constant.setLoanInterval(1);
+        return CountryRules.build(constant, countryRuleConstants());
+    }
+
+    /**
+     * The age check as it was calculated before the cutoffs were introduced, kept here as the reference.
+     */
+    private static boolean referenceIsAllowed(LocalDate birthDate, LocalDate today, int maximumLoanPeriod,
+                                              int minimumAge, int maximumAge) {
+        Period period = Period.between(birthDate, today);
+        LocalDate reconstructedBirthDate = today.minus(period);
+        int ageAtLoanEnd = Period.between(reconstructedBirthDate, today.plusMonths(maximumLoanPeriod)).getYears();
+        return period.getYears() >= minimumAge && ageAtLoanEnd <= maximumAge;
+    }
+
+    private static int pack(LocalDate date) {
+        return PersonalCodeCodec.packDate(date.getYear(), date.getMonthValue(), date.getDayOfMonth());
+    }
+
+    private static void assertMatchesReference(LocalDate today, CountryRules rules) {
+        int maximumLoanPeriod = rules.loanParameters(null).getMaximumLoanPeriod();
+        AgeCutoffs cutoffs = AgeCutoffs.compute(today, rules);
+        for (Country country : Country.values()) {
+            int minimumAge = rules.minimumAge(country);
+            int maximumAge = rules.maximumAge(country);
+            LocalDate youngest = today.minusYears(minimumAge);
+            LocalDate oldest = today.plusMonths(maximumLoanPeriod).minusYears(maximumAge + 1L);
+            for (LocalDate edge : new LocalDate[]{youngest, oldest}) {
+                for (LocalDate birthDate = edge.minusDays(40); birthDate.isBefore(edge.plusDays(40));
+                     birthDate = birthDate.plusDays(1)) {
+                    assertEquals(referenceIsAllowed(birthDate, today, maximumLoanPeriod, minimumAge, maximumAge),
+                            cutoffs.isAllowed(country, pack(birthDate)),
+                            country + ", today " + today + ", born " + birthDate);
+                }
+            }
+        }
+    }
+
+    @Test
+    void testIsAllowed_matchesReferenceForEveryDayAroundLeapYear() {
+        CountryRules rules = rules(MAXIMUM_LOAN_PERIOD);
+        for (LocalDate today = LocalDate.of(2023, 12, 1); today.isBefore(LocalDate.of(2025, 4, 1));
+             today = today.plusDays(1)) {
+            assertMatchesReference(today, rules);
+        }
+    }
+
+    @Test
+    void testIsAllowed_matchesReferenceWhenLoanPeriodIsNotWholeYears() {
+        CountryRules thirteenMonths = rules(13);
+        CountryRules oneMonth = rules(1);
+        for (LocalDate today = LocalDate.of(2028, 1, 1); today.isBefore(LocalDate.of(2028, 4, 1));
+             today = today.plusDays(1)) {
+            assertMatchesReference(today, thirteenMonths);
+            assertMatchesReference(today, oneMonth);
+        }
+    }
+
+    @Test
+    void testIsAllowed_onLeapDays() {
+        AgeCutoffs cutoffs = AgeCutoffs.compute(LocalDate.of(2024, 2, 29), rules(MAXIMUM_LOAN_PERIOD));
+        assertTrue(cutoffs.isAllowed(Country.ESTONIA, PersonalCodeCodec.packDate(2006, 2, 28)));
+        assertFalse(cutoffs.isAllowed(Country.ESTONIA, PersonalCodeCodec.packDate(2006, 3, 1)));
+
+        cutoffs = AgeCutoffs.compute(LocalDate.of(2022, 2, 28), rules(MAXIMUM_LOAN_PERIOD));
+        assertFalse(cutoffs.isAllowed(Country.ESTONIA, PersonalCodeCodec.packDate(2004, 2, 29)));
+        cutoffs = AgeCutoffs.compute(LocalDate.of(2022, 3, 1), rules(MAXIMUM_LOAN_PERIOD));
+        assertTrue(cutoffs.isAllowed(Country.ESTONIA, PersonalCodeCodec.packDate(2004, 2, 29)));
+    }
+
+    @Test
+    void testIsAllowed_whenCountryHasNoRules() {
+        DecisionEngineConstant constant = rules(MAXIMUM_LOAN_PERIOD).loanParameters(null);
+        CountryRules rules = CountryRules.build(constant, new CountryRuleConstants());
+        AgeCutoffs cutoffs = AgeCutoffs.compute(LocalDate.of(2024, 5, 1), rules);
+        assertFalse(cutoffs.isAllowed(Country.ESTONIA, PersonalCodeCodec.packDate(1990, 1, 1)));
+    }
+}
@@ -0,0 +1,148 @@
+package ee.taltech.inbankbackend.service;
+
+import ee.taltech.inbankbackend.util.CreditProfileConstants;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+
+import java.time.Duration;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.atomic.AtomicLong;
+
+import static ee.taltech.inbankbackend.constant.TestConstant.*;
+import static org.junit.jupiter.api.Assertions.*;
+
+/**
+ * This class checks the eviction, refresh-ahead and stampede protection of the credit profile cache
+ * against a stub provider with a configurable latency.
+ */
+class CachingCreditProfileProviderTest {
+    private final StubCreditProfileProvider stub = new StubCreditProfileProvider();
+    private SimpleMeterRegistry meterRegistry;
+    // Time source of the cache, moved forward by the tests.
+    private final AtomicLong nanos = new AtomicLong();
+    private final CreditProfileConstants constants = new CreditProfileConstants();
+
+    private CachingCreditProfileProvider cache;
+
+    @BeforeEach
+    void setUp() {
+        constants.setCacheMaximumSize(100);
+        constants.setCacheRefreshAfterWrite(Duration.ofMinutes(5));
+        constants.setCacheExpireAfterWrite(Duration.ofHours(1));
+        cache = newCache();
+    }
+
+    private CachingCreditProfileProvider newCache() {
+        meterRegistry = new SimpleMeterRegistry();
+        // Reloads run on the calling thread, so their result is visible as soon as the read returns.
+        return new CachingCreditProfileProvider(stub, constants, meterRegistry, nanos::get, Runnable::run);
+    }
+
+    private void advance(Duration duration) {
+        nanos.addAndGet(duration.toNanos());
+    }
+
+    @Test
+    void testGetCreditProfile_loadsOncePerPersonalCode() {
+        assertEquals(CreditProfile.ofSegment(1), cache.getCreditProfile(SEGMENT_1_PERSONAL_CODE));
+        assertEquals(CreditProfile.ofSegment(1), cache.getCreditProfile(SEGMENT_1_PERSONAL_CODE));
+        assertEquals(CreditProfile.DEBT, cache.getCreditProfile(DEBTOR_PERSONAL_CODE));
+
+        assertEquals(2, stub.loads());
+        assertEquals(1, meterRegistry.get("cache.gets").tag("cache", CachingCreditProfileProvider.CACHE_NAME)
+                .tag("result", "hit").functionCounter().count());
+        assertEquals(2, meterRegistry.get("cache.gets").tag("cache", CachingCreditProfileProvider.CACHE_NAME)
+                .tag("result", "miss").functionCounter().count());
+        assertEquals(2, meterRegistry.get(CachingCreditProfileProvider.LOAD_DURATION).timer().count());
+    }
+
+    @Test
+    void testGetCreditProfile_whenConcurrentMisses_sharesOneLoad() throws Exception {
+        stub.setLatency(Duration.ofMillis(200));
+        int threads = 16;
+        CountDownLatch start = new CountDownLatch(1);
+        ExecutorService executor = Executors.newFixedThreadPool(threads);
+        try {
+            List<Future<CreditProfile>> profiles = new ArrayList<>();
+            for (int i = 0; i < threads; i++) {
+                profiles.add(executor.submit(() -> {
+                    start.await();
+                    return cache.getCreditProfile(SEGMENT_2_PERSONAL_CODE);
+                }));
+            }
+            start.countDown();
+            for (Future<CreditProfile> profile : profiles) {
+                assertEquals(CreditProfile.ofSegment(2), profile.get());
+            }
+        } finally {
+            executor.shutdownNow();
+        }
+
+        assertEquals(1, stub.loads());
+    }
+
+    @Test
+    void testGetCreditProfile_refreshesAheadOfExpiry() {
+        assertEquals(CreditProfile.ofSegment(3), cache.getCreditProfile(SEGMENT_3_PERSONAL_CODE));
+        stub.setFixedProfile(CreditProfile.DEBT);
+
+        advance(Duration.ofMinutes(4));
+        assertEquals(CreditProfile.ofSegment(3), cache.getCreditProfile(SEGMENT_3_PERSONAL_CODE));
+        assertEquals(1, stub.loads());
+
+        // The first read after the refresh time triggers the reload. The reload runs on the calling thread here,
+        // so it is complete and returned at once; with a background executor the cached profile is returned meanwhile.
+        advance(Duration.ofMinutes(2));
+        assertEquals(CreditProfile.DEBT, cache.getCreditProfile(SEGMENT_3_PERSONAL_CODE));
+        assertEquals(2, stub.loads());
+        assertEquals(CreditProfile.DEBT, cache.getCreditProfile(SEGMENT_3_PERSONAL_CODE));
+        assertEquals(2, stub.loads());
+    }
+
+    @Test
+    void testGetCreditProfile_whenRefreshFails_keepsCachedProfileUntilExpiry() {
+        assertEquals(CreditProfile.ofSegment(1), cache.getCreditProfile(SEGMENT_1_PERSONAL_CODE));
+        stub.setFailure(new IllegalStateException("Credit registry is down"));
+
+        advance(Duration.ofMinutes(6));
+        assertEquals(CreditProfile.ofSegment(1), cache.getCreditProfile(SEGMENT_1_PERSONAL_CODE));
+        assertEquals(CreditProfile.ofSegment(1), cache.getCreditProfile(SEGMENT_1_PERSONAL_CODE));
+
+        advance(Duration.ofHours(1));
+        assertThrows(IllegalStateException.class, () -> cache.getCreditProfile(SEGMENT_1_PERSONAL_CODE));
+    }
+
+    @Test
+    void testGetCreditProfile_whenExpired_loadsAgain() {
+        constants.setCacheRefreshAfterWrite(Duration.ofHours(2));
+        constants.setCacheExpireAfterWrite(Duration.ofHours(1));
+        cache = newCache();
+        cache.getCreditProfile(SEGMENT_1_PERSONAL_CODE);
+        stub.setFixedProfile(CreditProfile.ofSegment(2));
+
+        advance(Duration.ofMinutes(61));
+
+        assertEquals(CreditProfile.ofSegment(2), cache.getCreditProfile(SEGMENT_1_PERSONAL_CODE));
+        assertEquals(2, stub.loads());
+    }
+
+    @Test
+    void testGetCreditProfile_keepsAtMostMaximumSize() {
+        constants.setCacheMaximumSize(2);
+        cache = newCache();
+
+        cache.getCreditProfile(SEGMENT_1_PERSONAL_CODE);
+        cache.getCreditProfile(SEGMENT_2_PERSONAL_CODE);
+        cache.getCreditProfile(SEGMENT_3_PERSONAL_CODE);
+
+        assertEquals(2, cache.estimatedSize());
+        assertEquals(1, meterRegistry.get("cache.evictions").tag("cache", CachingCreditProfileProvider.CACHE_NAME)
+                .functionCounter().count());
+    }
+}
@@ -0,0 +1,103 @@
+package ee.taltech.inbankbackend.service;
+
+import ee.taltech.inbankbackend.util.AdmissionControlConstants;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+
+import java.time.Duration;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.atomic.AtomicLong;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+/**
+ * This class checks that every client can make a burst of requests and then requests at the configured rate,
+ * independently of the other clients and also when its requests arrive at the same time.
+ */
+class ClientRateLimiterTest {
+    private static final int BURST = 20;
+
+    // Time source of the limiter, moved forward by the tests.
+    private final AtomicLong nanos = new AtomicLong();
+    private ClientRateLimiter rateLimiter;
+
+    @BeforeEach
+    void setUp() {
+        AdmissionControlConstants.RateLimit constants = new AdmissionControlConstants.RateLimit();
+        constants.setEnabled(true);
+        constants.setRequestsPerSecond(10);
+        constants.setBurst(BURST);
+        constants.setMaximumClients(1000);
+        rateLimiter = new ClientRateLimiter(constants, nanos::get);
+    }
+
+    private void advance(Duration duration) {
+        nanos.addAndGet(duration.toNanos());
+    }
+
+    private int admitted(String client, int requests) {
+        int admitted = 0;
+        for (int i = 0; i < requests; i++) {
+            if (rateLimiter.tryAcquire(client) == 0) {
+                admitted++;
+            }
+        }
+        return admitted;
+    }
+
+    @Test
+    void testTryAcquire_admitsBurstThenThrottles() {
+        assertEquals(BURST, admitted("partner", BURST));
+
+        long wait = rateLimiter.tryAcquire("partner");
+        assertEquals(Duration.ofMillis(100).toNanos(), wait);
+    }
+
+    @Test
+    void testTryAcquire_refillsAtRequestsPerSecond() {
+        admitted("partner", BURST);
+
+        advance(Duration.ofMillis(350));
+        assertEquals(3, admitted("partner", 10));
+
+        // An idle client gets no more than the burst.
+        advance(Duration.ofMinutes(1));
+        assertEquals(BURST, admitted("partner", 2 * BURST));
+    }
+
+    @Test
+    void testTryAcquire_limitsEveryClientSeparately() {
+        assertEquals(BURST, admitted("partner", 2 * BURST));
+
+        assertEquals(BURST, admitted("other", 2 * BURST));
+    }
+
+    @Test
+    void testTryAcquire_whenRequestsArriveAtOnce_admitsBurst() throws Exception {
+        int threads = 8;
+        CountDownLatch start = new CountDownLatch(1);
+        ExecutorService executor = Executors.newFixedThreadPool(threads);
+        try {
+            List<Future<Integer>> futures = new ArrayList<>();
+            for (int i = 0; i < threads; i++) {
+                futures.add(executor.submit(() -> {
+                    start.await();
+                    return admitted("partner", 100);
+                }));
+            }
+            start.countDown();
+            int admitted = 0;
+            for (Future<Integer> future : futures) {
+                admitted += future.get();
+            }
+            assertEquals(BURST, admitted);
+        } finally {
+            executor.shutdownNow();
+        }
+    }
+}
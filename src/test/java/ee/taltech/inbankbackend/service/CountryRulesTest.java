@@ -0,0 +1,48 @@
+package ee.taltech.inbankbackend.service;
+
+import ee.taltech.inbankbackend.dto.Country;
+import ee.taltech.inbankbackend.util.CountryRuleConstants;
+import org.junit.jupiter.api.Test;
+
+import static ee.taltech.inbankbackend.constant.TestDecisionParameters.*;
+import static org.junit.jupiter.api.Assertions.*;
+
+/**
+ * This class checks that the country rules fall back to the decision engine constants
+ * and share decision tables between countries with the same loan parameters.
+ */
+class CountryRulesTest {
+
+    @Test
+    void testBuild_whenCountriesOverrideLoanParameters() {
+        CountryRuleConstants constants = countryRuleConstants();
+        CountryRuleConstants.CountryRule lithuania = constants.getCountries().get(Country.LITHUANIA);
+        lithuania.setMaximumLoanPeriod(60);
+        lithuania.setSegment1CreditModifier(120);
+
+        CountryRules rules = CountryRules.build(decisionEngineConstant(), constants);
+
+        assertEquals(decisionEngineConstant(), rules.loanParameters(Country.ESTONIA));
+        assertSame(rules.decisionTable(Country.ESTONIA), rules.decisionTable(Country.LATVIA));
+        assertNotSame(rules.decisionTable(Country.ESTONIA), rules.decisionTable(Country.LITHUANIA));
+        assertEquals(2, rules.decisionTableCount());
+
+        assertEquals(60, rules.loanParameters(Country.LITHUANIA).getMaximumLoanPeriod());
+        assertEquals(120, rules.loanParameters(Country.LITHUANIA).getSegment1CreditModifier());
+        assertEquals(10000, rules.loanParameters(Country.LITHUANIA).getMaximumLoanAmount());
+        assertEquals(40, rules.minimumAge(Country.LITHUANIA));
+        assertEquals(70, rules.maximumAge(Country.LITHUANIA));
+    }
+
+    @Test
+    void testBuild_whenCountryHasNoRules() {
+        CountryRules rules = CountryRules.build(decisionEngineConstant(), estonia());
+
+        assertTrue(rules.isOffered(Country.ESTONIA));
+        assertFalse(rules.isOffered(Country.LATVIA));
+        assertNull(rules.decisionTable(Country.LATVIA));
+        assertEquals(decisionEngineConstant(), rules.loanParameters(Country.LATVIA));
+        assertEquals(decisionEngineConstant(), rules.loanParameters(null));
+        assertEquals(1, rules.decisionTableCount());
+    }
+}
@@ -0,0 +1,193 @@
+package ee.taltech.inbankbackend.service;
+
+import com.fasterxml.jackson.core.JsonProcessingException;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import ee.taltech.inbankbackend.dto.DecisionRequest;
+import ee.taltech.inbankbackend.dto.DecisionResponse;
+import ee.taltech.inbankbackend.exception.AgeConstraintException;
+import ee.taltech.inbankbackend.exception.InvalidBatchSizeException;
+import ee.taltech.inbankbackend.exception.InvalidPersonalCodeException;
+import ee.taltech.inbankbackend.util.BatchDecisionConstants;
+import ee.taltech.inbankbackend.util.ErrorMessage;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.extension.ExtendWith;
+import org.mockito.Mock;
+import org.mockito.junit.jupiter.MockitoExtension;
+
+import java.io.ByteArrayInputStream;
+import java.io.ByteArrayOutputStream;
+import java.nio.charset.StandardCharsets;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.List;
+
+import static ee.taltech.inbankbackend.constant.TestConstant.*;
+import static org.junit.jupiter.api.Assertions.*;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.Mockito.lenient;
+
+@ExtendWith(MockitoExtension.class)
+class DecisionBatchServiceTest {
+
+    @Mock
+    private DecisionEngineService decisionEngine;
+
+    private DecisionBatchService decisionBatchService;
+
+    @BeforeEach
+    void setUp() {
+        BatchDecisionConstants batchDecisionConstants = new BatchDecisionConstants();
+        batchDecisionConstants.setMaximumBatchSize(1000);
+        batchDecisionConstants.setChunkSize(8);
+        batchDecisionConstants.setParallelism(4);
+        batchDecisionConstants.setMaximumLineLength(256);
+        decisionBatchService = new DecisionBatchService(decisionEngine, batchDecisionConstants,
+                new ObjectMapper().findAndRegisterModules());
+
+        lenient().when(decisionEngine.calculateApprovedLoan(any(DecisionRequest.class))).thenAnswer(invocation -> {
+            DecisionRequest request = invocation.getArgument(0);
+            if (request == INVALID_PERSONAL_CODE_REQUEST) {
+                throw new InvalidPersonalCodeException(ErrorMessage.INVALID_PERSONAL_ID_CODE.getMessage());
+            }
+            if (request == INVALID_MAXIMUM_AGE_FOR_ESTONIA_REQUEST) {
+                throw new AgeConstraintException(ErrorMessage.INVALID_AGE_RANGE.getMessage());
+            }
+            if (request == INVALID_LOAN_AMOUNT_REQUEST) {
+                throw new IllegalStateException();
+            }
+            return new DecisionResponse(Math.toIntExact(request.getLoanAmount()), request.getLoanPeriod(), null);
+        });
+    }
+
+    @AfterEach
+    void tearDown() {
+        decisionBatchService.shutdown();
+    }
+
+    @Test
+    void testCalculateApprovedLoans_whenBatchIsEmpty() {
+        assertTrue(decisionBatchService.calculateApprovedLoans(Collections.emptyList()).isEmpty());
+    }
+
+    @Test
+    void testCalculateApprovedLoans_whenSomeRequestsAreInvalid() {
+        List<DecisionResponse> responses = decisionBatchService.calculateApprovedLoans(Arrays.asList(
+                SEGMENT_1_REQUEST, INVALID_PERSONAL_CODE_REQUEST, INVALID_MAXIMUM_AGE_FOR_ESTONIA_REQUEST,
+                INVALID_LOAN_AMOUNT_REQUEST, null));
+
+        assertEquals(5, responses.size());
+        assertEquals(2000, responses.get(0).getLoanAmount());
+        assertNull(responses.get(0).getErrorMessage());
+        assertEquals(ErrorMessage.INVALID_PERSONAL_ID_CODE.getMessage(), responses.get(1).getErrorMessage());
+        assertEquals(ErrorMessage.INVALID_AGE_RANGE.getMessage(), responses.get(2).getErrorMessage());
+        assertEquals(ErrorMessage.UNEXPECTED_ERROR.getMessage(), responses.get(3).getErrorMessage());
+        assertEquals(ErrorMessage.INVALID_REQUEST.getMessage(), responses.get(4).getErrorMessage());
+    }
+
+    @Test
+    void testCalculateApprovedLoans_keepsOrderAcrossChunks() {
+        List<DecisionRequest> requests = new ArrayList<>();
+        for (int i = 0; i < 500; i++) {
+            requests.add(new DecisionRequest(SEGMENT_1_PERSONAL_CODE, 2000L + i, VALID_LOAN_PERIOD, COUNTRY));
+        }
+
+        List<DecisionResponse> responses = decisionBatchService.calculateApprovedLoans(requests);
+
+        assertEquals(requests.size(), responses.size());
+        for (int i = 0; i < requests.size(); i++) {
+            assertEquals(2000 + i, responses.get(i).getLoanAmount());
+        }
+    }
+
+    @Test
+    void testCalculateApprovedLoans_whenBatchIsLargerThanMaximumBatchSize() {
+        List<DecisionRequest> requests = Collections.nCopies(1001, SEGMENT_1_REQUEST);
+        assertThrows(InvalidBatchSizeException.class, () -> decisionBatchService.calculateApprovedLoans(requests));
+    }
+
+    @Test
+    void testCalculateApprovedLoans_readsBatchFromStream() throws Exception {
+        String batch = "[" + requestJson(2000) + ",null," + requestJson(2001) + "]";
+
+        List<DecisionResponse> responses = decisionBatchService.calculateApprovedLoans(
+                new ByteArrayInputStream(batch.getBytes(StandardCharsets.UTF_8)));
+
+        assertEquals(3, responses.size());
+        assertEquals(2000, responses.get(0).getLoanAmount());
+        assertEquals(ErrorMessage.INVALID_REQUEST.getMessage(), responses.get(1).getErrorMessage());
+        assertEquals(2001, responses.get(2).getLoanAmount());
+    }
+
+    /**
+     * The batch size is checked while the body is read, so the rest of an oversized body is never parsed.
+     */
+    @Test
+    void testCalculateApprovedLoans_whenStreamedBatchIsLargerThanMaximumBatchSize_stopsReading() {
+        StringBuilder batch = new StringBuilder("[");
+        for (int i = 0; i < 1001; i++) {
+            batch.append(requestJson(2000)).append(',');
+        }
+        batch.append("not json");
+
+        assertThrows(InvalidBatchSizeException.class, () -> decisionBatchService.calculateApprovedLoans(
+                new ByteArrayInputStream(batch.toString().getBytes(StandardCharsets.UTF_8))));
+    }
+
+    @Test
+    void testCalculateApprovedLoans_whenStreamedBatchIsNotAnArray() {
+        for (String batch : new String[]{requestJson(2000), "[" + requestJson(2000), "[{\"loanAmount\": \"x\"}]"}) {
+            assertThrows(JsonProcessingException.class, () -> decisionBatchService.calculateApprovedLoans(
+                    new ByteArrayInputStream(batch.getBytes(StandardCharsets.UTF_8))), batch);
+        }
+    }
+
+    private static String requestJson(int loanAmount) {
+        return "{\"personalCode\":\"" + SEGMENT_1_PERSONAL_CODE + "\",\"loanAmount\":" + loanAmount
+                + ",\"loanPeriod\":12,\"country\":\"ESTONIA\"}";
+    }
+
+    @Test
+    void testStreamApprovedLoans_writesOneResponseLinePerRequestLine() throws Exception {
+        StringBuilder input = new StringBuilder();
+        for (int i = 0; i < 100; i++) {
+            input.append("{\"personalCode\":\"").append(SEGMENT_1_PERSONAL_CODE).append("\",\"loanAmount\":")
+                    .append(2000 + i).append(",\"loanPeriod\":12,\"country\":\"ESTONIA\"}\n");
+        }
+        input.append("not json\n\n");
+
+        ByteArrayOutputStream output = new ByteArrayOutputStream();
+        decisionBatchService.streamApprovedLoans(
+                new ByteArrayInputStream(input.toString().getBytes(StandardCharsets.UTF_8)), output);
+
+        String[] lines = output.toString(StandardCharsets.UTF_8).split("\n");
+        assertEquals(101, lines.length);
+        for (int i = 0; i < 100; i++) {
+            assertEquals("{\"loanAmount\":" + (2000 + i) + ",\"loanPeriod\":12,\"errorMessage\":null}", lines[i]);
+        }
+        assertEquals("{\"loanAmount\":null,\"loanPeriod\":null,\"errorMessage\":\""
+                + ErrorMessage.INVALID_REQUEST.getMessage() + "\"}", lines[100]);
+    }
+
+    @Test
+    void testStreamApprovedLoans_answersLinesOverMaximumLengthAsInvalid() throws Exception {
+        String padded = requestJson(2000).replace("{", "{" + " ".repeat(256));
+        String exactlyMaximum = requestJson(2001).replace("{", "{" + " ".repeat(256 - requestJson(2001).length()));
+        String input = padded + "\n" + exactlyMaximum + "\r\n" + "x".repeat(100_000) + "\n" + requestJson(2002);
+
+        ByteArrayOutputStream output = new ByteArrayOutputStream();
+        decisionBatchService.streamApprovedLoans(
+                new ByteArrayInputStream(input.getBytes(StandardCharsets.UTF_8)), output);
+
+        String invalid = "{\"loanAmount\":null,\"loanPeriod\":null,\"errorMessage\":\""
+                + ErrorMessage.INVALID_REQUEST.getMessage() + "\"}";
+        assertArrayEquals(new String[]{
+                invalid,
+                "{\"loanAmount\":2001,\"loanPeriod\":12,\"errorMessage\":null}",
+                invalid,
+                "{\"loanAmount\":2002,\"loanPeriod\":12,\"errorMessage\":null}"
+        }, output.toString(StandardCharsets.UTF_8).split("\n"));
+    }
+}
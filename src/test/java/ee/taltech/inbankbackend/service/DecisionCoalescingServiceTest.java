@@ -0,0 +1,337 @@
+package ee.taltech.inbankbackend.service;
+
+import ee.taltech.inbankbackend.dto.Country;
+import ee.taltech.inbankbackend.dto.DecisionRequest;
+import ee.taltech.inbankbackend.dto.DecisionResponse;
+import ee.taltech.inbankbackend.exception.InvalidLoanAmountException;
+import ee.taltech.inbankbackend.util.DecisionCoalescingConstants;
+import ee.taltech.inbankbackend.util.ErrorMessage;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+
+import java.time.Duration;
+import java.time.Instant;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Objects;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CopyOnWriteArrayList;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.ThreadLocalRandom;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.atomic.AtomicReference;
+
+import static ee.taltech.inbankbackend.constant.TestConstant.*;
+import static ee.taltech.inbankbackend.constant.TestDecisionParameters.*;
+import static org.junit.jupiter.api.Assertions.*;
+
+/**
+ * This class checks that identical decision requests share one decision, also under contention,
+ * against a stub credit profile provider with a configurable latency.
+ */
+class DecisionCoalescingServiceTest {
+    private static final Duration MEMO_TTL = Duration.ofSeconds(2);
+
+    private final StubCreditProfileProvider stub = new StubCreditProfileProvider();
+    private final SimpleMeterRegistry meterRegistry = new SimpleMeterRegistry();
+    // Time source of the memo, moved forward by the tests.
+    private final AtomicLong nanos = new AtomicLong();
+    // Date of the age checks, moved forward by the tests.
+    private final AtomicReference<Instant> now = new AtomicReference<>(CLOCK.instant());
+    // Sources and errors of the decisions journaled by the coalescing service, the engine journals nothing.
+    private final List<DecisionRecord.Source> journaledSources = new CopyOnWriteArrayList<>();
+    private final List<ErrorMessage> journaledErrors = new CopyOnWriteArrayList<>();
+    // Whether each record was appended within the warm-up scope, i.e. would be skipped by the journal.
+    private final List<Boolean> journaledWarmUp = new CopyOnWriteArrayList<>();
+    private final List<Thread> journaledThreads = new CopyOnWriteArrayList<>();
+
+    private DecisionEngineService decisionEngine;
+    private DecisionParametersService decisionParametersService;
+    private DecisionCoalescingService coalescingService;
+
+    @BeforeEach
+    void setUp() {
+        decisionParametersService = new DecisionParametersService(decisionEngineConstant(), estonia(), clock(now::get));
+        decisionEngine = decisionEngineService(decisionParametersService, new SimpleMeterRegistry(), stub);
+        DecisionCoalescingConstants constants = new DecisionCoalescingConstants();
+        constants.setEnabled(true);
+        constants.setMemoTtl(MEMO_TTL);
+        constants.setMaximumSize(1000);
+        DecisionJournal journal = (request, response, rejection, parametersVersion, source) -> {
+            journaledSources.add(source);
+            journaledWarmUp.add(WarmUpScope.isActive());
+            journaledThreads.add(Thread.currentThread());
+            if (rejection != null) {
+                journaledErrors.add(rejection);
+            }
+        };
+        coalescingService = new DecisionCoalescingService(decisionEngine, decisionParametersService, journal,
+                constants, meterRegistry, nanos::get);
+    }
+
+    private double count(String result) {
+        return meterRegistry.get(DecisionCoalescingService.COALESCING).tag("result", result).counter().count();
+    }
+
+    private static void assertSameDecision(DecisionResponse expected, DecisionResponse actual) {
+        assertEquals(expected.getLoanAmount(), actual.getLoanAmount());
+        assertEquals(expected.getLoanPeriod(), actual.getLoanPeriod());
+        assertEquals(expected.getErrorMessage(), actual.getErrorMessage());
+    }
+
+    @Test
+    void testCalculateApprovedLoan_whenConcurrentDuplicates_decidesOnce() throws Exception {
+        stub.setLatency(Duration.ofMillis(200));
+        int threads = 32;
+        CountDownLatch start = new CountDownLatch(1);
+        ExecutorService executor = Executors.newFixedThreadPool(threads);
+        try {
+            List<Future<DecisionResponse>> responses = new ArrayList<>();
+            for (int i = 0; i < threads; i++) {
+                responses.add(executor.submit(() -> {
+                    start.await();
+                    return coalescingService.calculateApprovedLoan(SEGMENT_2_REQUEST);
+                }));
+            }
+            start.countDown();
+            DecisionResponse first = responses.get(0).get();
+            for (Future<DecisionResponse> response : responses) {
+                assertSame(first, response.get());
+            }
+        } finally {
+            executor.shutdownNow();
+        }
+
+        assertEquals(1, stub.loads());
+        assertEquals(1, count("computed"));
+        assertEquals(threads - 1, count("in_flight") + count("memo"));
+    }
+
+    @Test
+    void testCalculateApprovedLoan_returnsMemoUntilTtlExpires() {
+        DecisionResponse first = coalescingService.calculateApprovedLoan(SEGMENT_1_REQUEST);
+        advance(MEMO_TTL.minusMillis(1));
+        assertSame(first, coalescingService.calculateApprovedLoan(SEGMENT_1_REQUEST));
+        assertEquals(1, stub.loads());
+        assertEquals(1, count("memo"));
+        assertEquals(List.of(DecisionRecord.Source.COALESCED), journaledSources);
+
+        advance(Duration.ofMillis(1));
+        assertSameDecision(first, coalescingService.calculateApprovedLoan(SEGMENT_1_REQUEST));
+        assertEquals(2, stub.loads());
+        assertEquals(2, count("computed"));
+    }
+
+    @Test
+    void testCalculateApprovedLoan_sharesRejections() {
+        InvalidLoanAmountException first = assertThrows(InvalidLoanAmountException.class,
+                () -> coalescingService.calculateApprovedLoan(INVALID_LOAN_AMOUNT_REQUEST));
+        InvalidLoanAmountException second = assertThrows(InvalidLoanAmountException.class,
+                () -> coalescingService.calculateApprovedLoan(INVALID_LOAN_AMOUNT_REQUEST));
+
+        assertSame(first, second);
+        assertEquals(1, count("computed"));
+        assertEquals(1, count("memo"));
+        assertEquals(List.of(ErrorMessage.INVALID_LOAN_AMOUNT), journaledErrors);
+    }
+
+    @Test
+    void testCalculateApprovedLoan_doesNotKeepUnexpectedErrors() {
+        IllegalStateException failure = new IllegalStateException("Credit registry unavailable");
+        stub.setFailure(failure);
+        assertSame(failure, assertThrows(IllegalStateException.class,
+                () -> coalescingService.calculateApprovedLoan(SEGMENT_3_REQUEST)));
+
+        stub.setFailure(null);
+        assertSameDecision(decisionEngine.calculateApprovedLoan(SEGMENT_3_REQUEST),
+                coalescingService.calculateApprovedLoan(SEGMENT_3_REQUEST));
+        assertEquals(2, count("computed"));
+    }
+
+    @Test
+    void testCalculateApprovedLoan_whenParametersPublished_decidesAgain() {
+        DecisionResponse first = coalescingService.calculateApprovedLoan(SEGMENT_1_REQUEST);
+        decisionParametersService.publish(decisionParametersService.describe());
+
+        assertNotSame(first, coalescingService.calculateApprovedLoan(SEGMENT_1_REQUEST));
+        assertEquals(2, count("computed"));
+    }
+
+    @Test
+    void testCalculateApprovedLoan_whenWaitingOnDecision_journalsOnOwnThread() throws Exception {
+        stub.setLatency(Duration.ofMillis(200));
+        ExecutorService executor = Executors.newFixedThreadPool(2);
+        try {
+            Future<DecisionResponse> decision = executor.submit(
+                    () -> coalescingService.calculateApprovedLoan(SEGMENT_2_REQUEST));
+            while (stub.loads() == 0) {
+                Thread.sleep(1);
+            }
+            Future<Thread> waiter = executor.submit(() -> {
+                coalescingService.calculateApprovedLoan(SEGMENT_2_REQUEST);
+                return Thread.currentThread();
+            });
+            decision.get();
+            assertEquals(List.of(waiter.get()), journaledThreads);
+        } finally {
+            executor.shutdownNow();
+        }
+        assertEquals(1, count("in_flight"));
+    }
+
+    @Test
+    void testCalculateApprovedLoanAsync_whenWaitingOnDecision_journalsOnExecutor() throws Exception {
+        stub.setLatency(Duration.ofMillis(200));
+        ExecutorService executor = Executors.newSingleThreadExecutor();
+        ExecutorService journalExecutor = Executors.newSingleThreadExecutor();
+        try {
+            Future<DecisionResponse> decision = executor.submit(
+                    () -> coalescingService.calculateApprovedLoan(SEGMENT_2_REQUEST));
+            while (stub.loads() == 0) {
+                Thread.sleep(1);
+            }
+            CompletableFuture<DecisionResponse> waiter =
+                    coalescingService.calculateApprovedLoanAsync(SEGMENT_2_REQUEST, journalExecutor);
+            assertSame(decision.get(), waiter.get());
+            Thread journalThread = journalExecutor.submit(Thread::currentThread).get();
+            assertEquals(List.of(journalThread), journaledThreads);
+        } finally {
+            executor.shutdownNow();
+            journalExecutor.shutdownNow();
+        }
+    }
+
+    @Test
+    void testCalculateApprovedLoanAsync_whenWaitingOnWarmUpDecision_journalsOutsideWarmUp() throws Exception {
+        assertEquals(List.of(false), journaledWarmUpOfWaiter(true, false));
+    }
+
+    @Test
+    void testCalculateApprovedLoanAsync_whenWarmUpWaitsOnDecision_journalsInWarmUp() throws Exception {
+        assertEquals(List.of(true), journaledWarmUpOfWaiter(false, true));
+    }
+
+    /**
+     * Starts a decision in or outside the warm-up scope and waits for it with an identical request, also in or
+     * outside of it, so the record of the waiter is appended on the thread of the decision.
+     */
+    private List<Boolean> journaledWarmUpOfWaiter(boolean warmUpDecision, boolean warmUpWaiter) throws Exception {
+        stub.setLatency(Duration.ofMillis(200));
+        ExecutorService executor = Executors.newSingleThreadExecutor();
+        try {
+            Future<DecisionResponse> decision = executor.submit(() -> WarmUpScope.call(warmUpDecision,
+                    () -> coalescingService.calculateApprovedLoan(SEGMENT_2_REQUEST)));
+            while (stub.loads() == 0) {
+                Thread.sleep(1);
+            }
+            CompletableFuture<DecisionResponse> waiter = WarmUpScope.call(warmUpWaiter,
+                    () -> coalescingService.calculateApprovedLoanAsync(SEGMENT_2_REQUEST, Runnable::run));
+            assertFalse(waiter.isDone());
+            assertSame(decision.get(), waiter.get());
+        } finally {
+            executor.shutdownNow();
+        }
+        assertEquals(List.of(DecisionRecord.Source.COALESCED), journaledSources);
+        return journaledWarmUp;
+    }
+
+    @Test
+    void testCalculateApprovedLoan_whenAgeCutoffsRefreshed_decidesAgain() {
+        DecisionResponse first = coalescingService.calculateApprovedLoan(SEGMENT_1_REQUEST);
+        now.set(Instant.parse("2024-05-02T00:00:00Z"));
+        decisionParametersService.refreshAgeCutoffs();
+
+        assertNotSame(first, coalescingService.calculateApprovedLoan(SEGMENT_1_REQUEST));
+        assertEquals(2, count("computed"));
+    }
+
+    @Test
+    void testCalculateApprovedLoanAsync_completesWithRejection() {
+        Throwable rejection = assertThrows(Exception.class,
+                () -> coalescingService.calculateApprovedLoanAsync(INVALID_LOAN_AMOUNT_REQUEST, Runnable::run).join()).getCause();
+
+        assertInstanceOf(InvalidLoanAmountException.class, rejection);
+    }
+
+    @Test
+    void testCalculateApprovedLoan_underContention_returnsOwnDecision() throws Exception {
+        DecisionRequest[] requests = {SEGMENT_1_REQUEST, SEGMENT_2_REQUEST, SEGMENT_3_REQUEST, DEBTOR_REQUEST,
+                SEGMENT_1_REQUEST_INVALID, INVALID_LOAN_AMOUNT_REQUEST, INVALID_LOAN_PERIOD_REQUEST,
+                new DecisionRequest(SEGMENT_2_PERSONAL_CODE, 4000L, 24, Country.ESTONIA),
+                new DecisionRequest(SEGMENT_2_PERSONAL_CODE, 4000L, 36, Country.ESTONIA)};
+        Object[] expected = new Object[requests.length];
+        for (int i = 0; i < requests.length; i++) {
+            expected[i] = calculateOrReject(decisionEngine, requests[i]);
+        }
+        stub.setLatency(Duration.ofMillis(1));
+
+        int threads = 16;
+        int iterations = 500;
+        CountDownLatch start = new CountDownLatch(1);
+        ExecutorService executor = Executors.newFixedThreadPool(threads);
+        try {
+            List<Future<Integer>> mismatches = new ArrayList<>();
+            for (int t = 0; t < threads; t++) {
+                mismatches.add(executor.submit(() -> {
+                    start.await();
+                    ThreadLocalRandom random = ThreadLocalRandom.current();
+                    int mismatch = 0;
+                    for (int i = 0; i < iterations; i++) {
+                        int index = random.nextInt(requests.length);
+                        Object actual = calculateOrReject(coalescingService, requests[index]);
+                        if (!sameOutcome(expected[index], actual)) {
+                            mismatch++;
+                        }
+                        // Expires the memo now and then, so decisions are made while others are being returned.
+                        if (random.nextInt(64) == 0) {
+                            advance(MEMO_TTL);
+                        }
+                    }
+                    return mismatch;
+                }));
+            }
+            start.countDown();
+            for (Future<Integer> mismatch : mismatches) {
+                assertEquals(0, mismatch.get());
+            }
+        } finally {
+            executor.shutdownNow();
+        }
+
+        assertEquals(threads * iterations, count("computed") + count("in_flight") + count("memo"));
+        assertTrue(count("computed") < threads * iterations);
+    }
+
+    private void advance(Duration duration) {
+        nanos.addAndGet(duration.toNanos());
+    }
+
+    private static Object calculateOrReject(DecisionEngineService engine, DecisionRequest request) {
+        try {
+            return engine.calculateApprovedLoan(request);
+        } catch (RuntimeException rejection) {
+            return rejection;
+        }
+    }
+
+    private static Object calculateOrReject(DecisionCoalescingService service, DecisionRequest request) {
+        try {
+            return service.calculateApprovedLoan(request);
+        } catch (RuntimeException rejection) {
+            return rejection;
+        }
+    }
+
+    private static boolean sameOutcome(Object expected, Object actual) {
+        if (expected instanceof DecisionResponse e && actual instanceof DecisionResponse a) {
+            return Objects.equals(e.getLoanAmount(), a.getLoanAmount())
+                    && Objects.equals(e.getLoanPeriod(), a.getLoanPeriod())
+                    && Objects.equals(e.getErrorMessage(), a.getErrorMessage());
+        }
+        return expected.getClass() == actual.getClass();
+    }
+}
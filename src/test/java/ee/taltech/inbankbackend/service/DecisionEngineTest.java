@@ -1,50 +1,45 @@
 package ee.taltech.inbankbackend.service;
 
+import ee.taltech.inbankbackend.dto.DecisionRequest;
 import ee.taltech.inbankbackend.dto.DecisionResponse;
+import ee.taltech.inbankbackend.dto.LoanOffer;
+import ee.taltech.inbankbackend.dto.OfferRequest;
+import ee.taltech.inbankbackend.dto.OfferResponse;
 import ee.taltech.inbankbackend.exception.*;
-import ee.taltech.inbankbackend.util.AgeValidationConstants;
-import ee.taltech.inbankbackend.util.DecisionEngineConstant;
+import ee.taltech.inbankbackend.constant.TestDecisionParameters;
+import ee.taltech.inbankbackend.dto.Country;
+import ee.taltech.inbankbackend.util.CountryRuleConstants;
+import ee.taltech.inbankbackend.util.ErrorMessage;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
 import org.junit.jupiter.api.BeforeEach;
 import org.junit.jupiter.api.Test;
-import org.junit.jupiter.api.extension.ExtendWith;
-import org.mockito.InjectMocks;
-import org.mockito.Mock;
-import org.mockito.Mockito;
-import org.mockito.junit.jupiter.MockitoExtension;
+
+import java.util.List;
 
 import static org.junit.jupiter.api.Assertions.*;
 import static ee.taltech.inbankbackend.constant.TestConstant.*;
+import static ee.taltech.inbankbackend.constant.TestDecisionParameters.*;
 
-@ExtendWith(MockitoExtension.class)
 class DecisionEngineTest {
 
-
-    @InjectMocks
     private DecisionEngineService decisionEngine;
 
-    @Mock
-    private DecisionEngineConstant decisionEngineConstant;
-
-    @Mock
-    private AgeValidationConstants ageValidationConstants;
+    private CountryRuleConstants countryRuleConstants;
 
+    private final SimpleMeterRegistry meterRegistry = new SimpleMeterRegistry();
 
     @BeforeEach
     void setUp() {
-        Mockito.lenient().when(decisionEngineConstant.getMinimumLoanAmount()).thenReturn(2000);
-        Mockito.lenient().when(decisionEngineConstant.getMaximumLoanAmount()).thenReturn(10000);
-        Mockito.lenient().when(decisionEngineConstant.getMinimumLoanPeriod()).thenReturn(12);
-        Mockito.lenient().when(decisionEngineConstant.getMaximumLoanPeriod()).thenReturn(48);
-        Mockito.lenient().when(decisionEngineConstant.getSegment1CreditModifier()).thenReturn(100);
-        Mockito.lenient().when(decisionEngineConstant.getSegment2CreditModifier()).thenReturn(300);
-        Mockito.lenient().when(decisionEngineConstant.getSegment3CreditModifier()).thenReturn(1000);
-        Mockito.lenient().when(decisionEngineConstant.getLoanInterval()).thenReturn(6);
-        Mockito.lenient().when(ageValidationConstants.getMaximumAgeEs()).thenReturn(78);
-        Mockito.lenient().when(ageValidationConstants.getMinimumAgeEs()).thenReturn(18);
-        Mockito.lenient().when(ageValidationConstants.getMaximumAgeLv()).thenReturn(95);
-        Mockito.lenient().when(ageValidationConstants.getMinimumAgeLv()).thenReturn(18);
+        countryRuleConstants = estonia();
+        countryRuleConstants.getCountries().put(Country.LATVIA, ageRange(18, 95));
+        decisionEngine = decisionEngineService();
     }
 
+    private DecisionEngineService decisionEngineService() {
+        return TestDecisionParameters.decisionEngineService(
+                new DecisionParametersService(decisionEngineConstant(), countryRuleConstants, CLOCK),
+                meterRegistry, new PersonalCodeCreditProfileProvider());
+    }
 
     @Test
     void testDebtorPersonalCode_whenRequestValid() {
@@ -123,5 +118,151 @@ class DecisionEngineTest {
         assertEquals(24, decision.getLoanPeriod());
     }
 
-}
+    @Test
+    void testValidate_returnsFirstFailingCheckWithoutThrowing() {
+        assertNull(decisionEngine.validate(SEGMENT_1_REQUEST));
+        assertEquals(ErrorMessage.INVALID_PERSONAL_ID_CODE, decisionEngine.validate(INVALID_PERSONAL_CODE_REQUEST));
+        assertEquals(ErrorMessage.INVALID_LOAN_AMOUNT, decisionEngine.validate(INVALID_LOAN_AMOUNT_REQUEST));
+        assertEquals(ErrorMessage.INVALID_LOAN_PERIOD, decisionEngine.validate(INVALID_LOAN_PERIOD_REQUEST));
+        assertEquals(ErrorMessage.INVALID_COUNTRY_NAME, decisionEngine.validate(INVALID_COUNTRY_NAME_REQUEST));
+        assertEquals(ErrorMessage.INVALID_AGE_RANGE, decisionEngine.validate(INVALID_MINIMUM_AGE_FOR_ESTONIA_REQUEST));
+    }
+
+    @Test
+    void testCalculateApprovedLoan_rejectionsHaveNoStackTrace() {
+        InvalidLoanAmountException exception = assertThrows(InvalidLoanAmountException.class,
+                () -> decisionEngine.calculateApprovedLoan(INVALID_LOAN_AMOUNT_REQUEST));
+        assertEquals(ErrorMessage.INVALID_LOAN_AMOUNT.getMessage(), exception.getMessage());
+        assertEquals(0, exception.getStackTrace().length);
+    }
+
+    @Test
+    void testValidate_whenCustomerTurnsMinimumAgeToday() {
+        // Born on 2006-05-01 and 2006-05-02, the clock is fixed to 2024-05-01.
+        assertNull(decisionEngine.validate(new DecisionRequest("60605015008", VALID_LOAN_AMOUNT_2, VALID_LOAN_PERIOD_2, COUNTRY)));
+        assertEquals(ErrorMessage.INVALID_AGE_RANGE,
+                decisionEngine.validate(new DecisionRequest("60605025004", VALID_LOAN_AMOUNT_2, VALID_LOAN_PERIOD_2, COUNTRY)));
+    }
+
+    @Test
+    void testValidate_whenCustomerTurnsMaximumAgeOnLastDayOfLongestLoan() {
+        // Born on 1949-05-01 and 1949-05-02, the longest loan ends on 2028-05-01.
+        assertEquals(ErrorMessage.INVALID_AGE_RANGE,
+                decisionEngine.validate(new DecisionRequest("34905015000", VALID_LOAN_AMOUNT_2, VALID_LOAN_PERIOD_2, COUNTRY)));
+        assertNull(decisionEngine.validate(new DecisionRequest("34905025007", VALID_LOAN_AMOUNT_2, VALID_LOAN_PERIOD_2, COUNTRY)));
+    }
+
+    @Test
+    void testCalculateApprovedLoan_whenCountryHasNoRules() {
+        assertThrows(InvalidCountryException.class, () -> decisionEngine.calculateApprovedLoan(
+                new DecisionRequest(SEGMENT_2_PERSONAL_CODE, VALID_LOAN_AMOUNT_2, VALID_LOAN_PERIOD_2, Country.LITHUANIA)));
+    }
+
+    @Test
+    void testCalculateApprovedLoan_usesLoanParametersOfTheCountry() {
+        CountryRuleConstants.CountryRule lithuania = ageRange(18, 78);
+        lithuania.setMaximumLoanAmount(5000);
+        lithuania.setSegment2CreditModifier(150);
+        countryRuleConstants.getCountries().put(Country.LITHUANIA, lithuania);
+        decisionEngine = decisionEngineService();
+
+        DecisionResponse decision = decisionEngine.calculateApprovedLoan(
+                new DecisionRequest(SEGMENT_2_PERSONAL_CODE, VALID_LOAN_AMOUNT_2, VALID_LOAN_PERIOD_2, Country.LITHUANIA));
+        assertEquals(3600, decision.getLoanAmount());
+        assertEquals(24, decision.getLoanPeriod());
+        assertThrows(InvalidLoanAmountException.class, () -> decisionEngine.calculateApprovedLoan(
+                new DecisionRequest(SEGMENT_2_PERSONAL_CODE, 6000L, VALID_LOAN_PERIOD_2, Country.LITHUANIA)));
+
+        decision = decisionEngine.calculateApprovedLoan(SEGMENT_2_REQUEST);
+        assertEquals(7200, decision.getLoanAmount());
+    }
+
+    @Test
+    void testCalculateApprovedLoan_countsOutcomesPerCountry() {
+        decisionEngine.calculateApprovedLoan(SEGMENT_1_REQUEST);
+        decisionEngine.calculateApprovedLoan(SEGMENT_2_REQUEST);
+        decisionEngine.calculateApprovedLoan(SEGMENT_1_REQUEST_INVALID);
+        decisionEngine.calculateApprovedLoan(DEBTOR_REQUEST);
+        assertThrows(InvalidLoanAmountException.class,
+                () -> decisionEngine.calculateApprovedLoan(INVALID_LOAN_AMOUNT_REQUEST));
+        assertThrows(InvalidCountryException.class,
+                () -> decisionEngine.calculateApprovedLoan(INVALID_COUNTRY_NAME_REQUEST));
+
+        assertEquals(2, outcomes("estonia", "approved", "none"));
+        assertEquals(1, outcomes("estonia", "counter_offer", "none"));
+        assertEquals(1, outcomes("estonia", "debt", "none"));
+        assertEquals(1, outcomes("estonia", "rejected", ErrorMessage.INVALID_LOAN_AMOUNT.getCode()));
+        assertEquals(1, outcomes("none", "rejected", ErrorMessage.INVALID_COUNTRY_NAME.getCode()));
+        assertEquals(0, outcomes("latvia", "approved", "none"));
+        assertEquals(6, meterRegistry.get(DecisionMetrics.DURATION).tag("stage", "total").timer().count());
+        assertEquals(6, meterRegistry.get(DecisionMetrics.DURATION).tag("stage", "parsing").timer().count());
+        assertEquals(4, meterRegistry.get(DecisionMetrics.DURATION).tag("stage", "credit_profile").timer().count());
+        assertEquals(3, meterRegistry.get(DecisionMetrics.DURATION).tag("stage", "scoring").timer().count());
+    }
+
+    @Test
+    void testCalculateApprovedLoan_doesNotCountOutcomesOfWarmUp() {
+        WarmUpScope.call(() -> decisionEngine.calculateApprovedLoan(SEGMENT_1_REQUEST));
+        assertThrows(InvalidLoanAmountException.class, () -> WarmUpScope.call(
+                () -> decisionEngine.calculateApprovedLoan(INVALID_LOAN_AMOUNT_REQUEST)));
+        decisionEngine.calculateApprovedLoan(SEGMENT_2_REQUEST);
 
+        assertEquals(1, outcomes("estonia", "approved", "none"));
+        assertEquals(0, outcomes("estonia", "rejected", ErrorMessage.INVALID_LOAN_AMOUNT.getCode()));
+        assertEquals(3, meterRegistry.get(DecisionMetrics.DURATION).tag("stage", "total").timer().count());
+    }
+
+    @Test
+    void testCalculateOffers_returnsApprovedAmountForEveryLoanPeriod() {
+        OfferResponse response = decisionEngine.calculateOffers(new OfferRequest(SEGMENT_1_PERSONAL_CODE, COUNTRY));
+
+        assertNull(response.getErrorMessage());
+        List<LoanOffer> offers = response.getOffers();
+        assertEquals(5, offers.size());
+        int[] periods = {24, 30, 36, 42, 48};
+        for (int i = 0; i < periods.length; i++) {
+            assertEquals(periods[i], offers.get(i).getLoanPeriod());
+            assertEquals(periods[i] * 100, offers.get(i).getLoanAmount());
+            DecisionResponse decision = decisionEngine.calculateApprovedLoan(new DecisionRequest(SEGMENT_1_PERSONAL_CODE,
+                    offers.get(i).getLoanAmount().longValue(), periods[i], COUNTRY));
+            assertEquals(offers.get(i).getLoanAmount(), decision.getLoanAmount());
+            assertEquals(periods[i], decision.getLoanPeriod());
+        }
+    }
+
+    @Test
+    void testCalculateOffers_whenSegmentReachesMaximumAmount() {
+        List<LoanOffer> offers = decisionEngine.calculateOffers(new OfferRequest(SEGMENT_3_PERSONAL_CODE, COUNTRY))
+                .getOffers();
+
+        assertEquals(7, offers.size());
+        assertTrue(offers.stream().allMatch(offer -> offer.getLoanAmount() == 10000));
+    }
+
+    @Test
+    void testCalculateOffers_whenCustomerHasDebt() {
+        OfferResponse response = decisionEngine.calculateOffers(new OfferRequest(DEBTOR_PERSONAL_CODE, COUNTRY));
+
+        assertTrue(response.getOffers().isEmpty());
+        assertEquals(ErrorMessage.NO_VALID_LOAN_FOUND.getMessage(), response.getErrorMessage());
+    }
+
+    @Test
+    void testCalculateOffers_rejectsLikeDecisions() {
+        assertThrows(InvalidPersonalCodeException.class,
+                () -> decisionEngine.calculateOffers(new OfferRequest(INVALID_PERSONAL_CODE, COUNTRY)));
+        assertThrows(InvalidCountryException.class,
+                () -> decisionEngine.calculateOffers(new OfferRequest(SEGMENT_1_PERSONAL_CODE, INVALID_COUNTRY)));
+        assertThrows(AgeConstraintException.class, () -> decisionEngine.calculateOffers(
+                new OfferRequest(PERSONAL_CODE_AGE_LESS_THEN_MINIMUM_AGE, COUNTRY)));
+    }
+
+    private double outcomes(String country, String outcome, String error) {
+        return meterRegistry.get(DecisionMetrics.DECISIONS)
+                .tag("country", country)
+                .tag("outcome", outcome)
+                .tag("error", error)
+                .counter()
+                .count();
+    }
+}
@@ -0,0 +1,148 @@
+package ee.taltech.inbankbackend.service;
+
+import ee.taltech.inbankbackend.dto.Country;
+import ee.taltech.inbankbackend.dto.DecisionParametersDto;
+import ee.taltech.inbankbackend.exception.InvalidDecisionParametersException;
+import ee.taltech.inbankbackend.util.CountryRuleConstants;
+import ee.taltech.inbankbackend.util.DecisionEngineConstant;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+
+import java.time.LocalDate;
+import java.util.EnumMap;
+import java.util.Map;
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.concurrent.atomic.AtomicReference;
+
+import static ee.taltech.inbankbackend.constant.TestDecisionParameters.*;
+import static org.junit.jupiter.api.Assertions.*;
+
+/**
+ * This class checks that decision parameters are validated before they are published,
+ * and that a published snapshot is never seen half-updated.
+ */
+class DecisionParametersServiceTest {
+    private DecisionParametersService decisionParametersService;
+
+    private static DecisionEngineConstant constant(int maximumLoanAmount) {
+        DecisionEngineConstant constant = decisionEngineConstant();
+        constant.setMaximumLoanAmount(maximumLoanAmount);
+        return constant;
+    }
+
+    private static CountryRuleConstants countryRules(Integer estonianMaximumLoanAmount) {
+        CountryRuleConstants constants = estonia();
+        constants.getCountries().get(Country.ESTONIA).setMaximumLoanAmount(estonianMaximumLoanAmount);
+        return constants;
+    }
+
+    @BeforeEach
+    void setUp() {
+        decisionParametersService = new DecisionParametersService(constant(10000), countryRules(null), CLOCK);
+        decisionParametersService.initialize();
+    }
+
+    @Test
+    void testPublish_whenParametersAreValid() {
+        DecisionParameters previous = decisionParametersService.current();
+        assertEquals(1, previous.version());
+
+        DecisionParameters published = decisionParametersService.publish(constant(8000), countryRules(null));
+
+        assertEquals(2, published.version());
+        assertSame(published, decisionParametersService.current());
+        assertEquals(8000, published.rules().loanParameters(Country.ESTONIA).getMaximumLoanAmount());
+        assertEquals(10000, previous.rules().loanParameters(Country.ESTONIA).getMaximumLoanAmount());
+    }
+
+    @Test
+    void testPublish_whenParametersAreInvalid() {
+        DecisionEngineConstant invalidPeriod = constant(10000);
+        invalidPeriod.setLoanInterval(0);
+        DecisionEngineConstant invalidModifier = constant(10000);
+        invalidModifier.setSegment2CreditModifier(0);
+        CountryRuleConstants invalidAge = countryRules(null);
+        invalidAge.getCountries().get(Country.ESTONIA).setMinimumAge(80);
+        DecisionEngineConstant hugeModifier = constant(10000);
+        hugeModifier.setSegment3CreditModifier(Integer.MAX_VALUE / 40);
+        DecisionEngineConstant hugePeriod = constant(10000);
+        hugePeriod.setMaximumLoanPeriod(Integer.MAX_VALUE);
+        hugePeriod.setLoanInterval(Integer.MAX_VALUE / 2);
+        CountryRuleConstants hugeAge = countryRules(null);
+        hugeAge.getCountries().get(Country.ESTONIA).setMaximumAge(Integer.MAX_VALUE);
+
+        assertThrows(InvalidDecisionParametersException.class,
+                () -> decisionParametersService.publish(constant(1000), countryRules(null)));
+        assertThrows(InvalidDecisionParametersException.class,
+                () -> decisionParametersService.publish(invalidPeriod, countryRules(null)));
+        assertThrows(InvalidDecisionParametersException.class,
+                () -> decisionParametersService.publish(invalidModifier, countryRules(null)));
+        assertThrows(InvalidDecisionParametersException.class,
+                () -> decisionParametersService.publish(constant(10000), countryRules(1000)));
+        assertThrows(InvalidDecisionParametersException.class,
+                () -> decisionParametersService.publish(constant(10000), invalidAge));
+        assertThrows(InvalidDecisionParametersException.class,
+                () -> decisionParametersService.publish(constant(Integer.MAX_VALUE), countryRules(null)));
+        assertThrows(InvalidDecisionParametersException.class,
+                () -> decisionParametersService.publish(hugeModifier, countryRules(null)));
+        assertThrows(InvalidDecisionParametersException.class,
+                () -> decisionParametersService.publish(hugePeriod, countryRules(null)));
+        assertThrows(InvalidDecisionParametersException.class,
+                () -> decisionParametersService.publish(constant(10000), hugeAge));
+
+        assertEquals(1, decisionParametersService.current().version());
+    }
+
+    @Test
+    void testPublish_whenParametersComeFromAdminEndpoint() {
+        Map<Country, CountryRuleConstants.CountryRule> countries = new EnumMap<>(countryRules(9000).getCountries());
+        DecisionParametersDto published = decisionParametersService.publish(
+                new DecisionParametersDto(100L, constant(10000), countries));
+
+        assertEquals(2, published.getVersion());
+        assertEquals(9000, published.getCountries().get(Country.ESTONIA).getMaximumLoanAmount());
+        assertEquals(48, published.getCountries().get(Country.ESTONIA).getMaximumLoanPeriod());
+        assertFalse(published.getCountries().containsKey(Country.LATVIA));
+        assertEquals(2, decisionParametersService.describe().getVersion());
+    }
+
+    @Test
+    void testRefreshAgeCutoffs_keepsVersion() {
+        DecisionParameters previous = decisionParametersService.current();
+
+        decisionParametersService.refreshAgeCutoffs();
+
+        DecisionParameters refreshed = decisionParametersService.current();
+        assertNotSame(previous, refreshed);
+        assertEquals(previous.version(), refreshed.version());
+        assertSame(previous.rules(), refreshed.rules());
+        assertEquals(LocalDate.of(2024, 5, 1), refreshed.ageCutoffs().today());
+    }
+
+    @Test
+    void testCurrent_neverSeesHalfUpdatedParameters() throws InterruptedException {
+        AtomicBoolean running = new AtomicBoolean(true);
+        AtomicReference<String> failure = new AtomicReference<>();
+        Thread reader = new Thread(() -> {
+            while (running.get()) {
+                DecisionParameters parameters = decisionParametersService.current();
+                // Every published version sets the default and the Estonian maximum loan amount to the same value.
+                int defaultMaximum = parameters.rules().loanParameters(null).getMaximumLoanAmount();
+                int estonianMaximum = parameters.rules().loanParameters(Country.ESTONIA).getMaximumLoanAmount();
+                if (defaultMaximum != estonianMaximum && parameters.version() > 1) {
+                    failure.set("version " + parameters.version() + ": " + defaultMaximum + " != " + estonianMaximum);
+                }
+            }
+        });
+        reader.start();
+        for (int i = 0; i < 50; i++) {
+            int maximumLoanAmount = i % 2 == 0 ? 5000 : 6000;
+            decisionParametersService.publish(constant(maximumLoanAmount), countryRules(maximumLoanAmount));
+        }
+        running.set(false);
+        reader.join();
+
+        assertNull(failure.get());
+        assertEquals(51, decisionParametersService.current().version());
+    }
+}
@@ -0,0 +1,133 @@
+package ee.taltech.inbankbackend.service;
+
+import ee.taltech.inbankbackend.dto.DecisionResponse;
+import ee.taltech.inbankbackend.exception.InvalidLoanAmountException;
+import ee.taltech.inbankbackend.util.DecisionCacheConstants;
+import ee.taltech.inbankbackend.util.DecisionCoalescingConstants;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.util.unit.DataSize;
+
+import java.time.Duration;
+import java.time.Instant;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.atomic.AtomicReference;
+
+import static ee.taltech.inbankbackend.constant.TestConstant.*;
+import static ee.taltech.inbankbackend.constant.TestDecisionParameters.*;
+import static org.junit.jupiter.api.Assertions.*;
+
+/**
+ * This class checks that decisions are kept per parameter version and day, and that equal responses get equal
+ * entity tags, against a stub credit profile provider that counts the decisions made.
+ */
+class DecisionResultCacheTest {
+    private static final Duration EXPIRE_AFTER_WRITE = Duration.ofMinutes(5);
+
+    private final StubCreditProfileProvider stub = new StubCreditProfileProvider();
+    // Date of the age check, moved to the next day by a test.
+    private final AtomicReference<Instant> now = new AtomicReference<>(Instant.parse("2024-05-01T10:00:00Z"));
+    // Time source of the cache, moved forward by the tests.
+    private final AtomicLong nanos = new AtomicLong();
+    // Sources of the decisions journaled by the cache, the engine journals nothing.
+    private final List<DecisionRecord.Source> journaled = new ArrayList<>();
+
+    private DecisionParametersService decisionParametersService;
+    private DecisionCoalescingService coalescingService;
+    private DecisionCacheConstants constants;
+
+    @BeforeEach
+    void setUp() {
+        decisionParametersService = new DecisionParametersService(decisionEngineConstant(), estonia(), clock(now::get));
+        DecisionEngineService decisionEngine = decisionEngineService(decisionParametersService,
+                new SimpleMeterRegistry(), stub);
+        // Without coalescing every decision made loads the credit profile once.
+        DecisionCoalescingConstants coalescingConstants = new DecisionCoalescingConstants();
+        coalescingConstants.setEnabled(false);
+        coalescingService = new DecisionCoalescingService(decisionEngine, decisionParametersService,
+                DecisionJournal.NONE, coalescingConstants, new SimpleMeterRegistry());
+
+        constants = new DecisionCacheConstants();
+        constants.setEnabled(true);
+        constants.setMaximumMemory(DataSize.ofMegabytes(1));
+        constants.setExpireAfterWrite(EXPIRE_AFTER_WRITE);
+        constants.setMaxAge(Duration.ofSeconds(60));
+    }
+
+    private DecisionResultCache cache() {
+        return new DecisionResultCache(coalescingService, decisionParametersService,
+                (request, response, rejection, parametersVersion, source) -> journaled.add(source), constants,
+                new SimpleMeterRegistry(), nanos::get);
+    }
+
+    @Test
+    void testCalculateApprovedLoan_returnsKeptDecisionUntilItExpires() {
+        DecisionResultCache cache = cache();
+        DecisionResultCache.Decision first = cache.calculateApprovedLoan(SEGMENT_2_REQUEST);
+        nanos.addAndGet(EXPIRE_AFTER_WRITE.minusMillis(1).toNanos());
+        assertSame(first, cache.calculateApprovedLoan(SEGMENT_2_REQUEST));
+        assertEquals(1, stub.loads());
+        assertEquals(List.of(DecisionRecord.Source.CACHED), journaled);
+
+        nanos.addAndGet(Duration.ofMillis(1).toNanos());
+        DecisionResultCache.Decision second = cache.calculateApprovedLoan(SEGMENT_2_REQUEST);
+        assertNotSame(first, second);
+        assertEquals(first.eTag(), second.eTag());
+        assertEquals(2, stub.loads());
+    }
+
+    @Test
+    void testCalculateApprovedLoan_whenParametersPublished_decidesAgain() {
+        DecisionResultCache cache = cache();
+        DecisionResultCache.Decision first = cache.calculateApprovedLoan(SEGMENT_1_REQUEST);
+        decisionParametersService.publish(decisionParametersService.describe());
+
+        assertNotSame(first, cache.calculateApprovedLoan(SEGMENT_1_REQUEST));
+        assertEquals(2, stub.loads());
+    }
+
+    @Test
+    void testCalculateApprovedLoan_whenDayChanges_decidesAgain() {
+        DecisionResultCache cache = cache();
+        DecisionResultCache.Decision first = cache.calculateApprovedLoan(SEGMENT_1_REQUEST);
+        now.set(Instant.parse("2024-05-02T00:00:00Z"));
+        decisionParametersService.refreshAgeCutoffs();
+
+        assertNotSame(first, cache.calculateApprovedLoan(SEGMENT_1_REQUEST));
+        assertEquals(2, stub.loads());
+    }
+
+    @Test
+    void testCalculateApprovedLoan_doesNotKeepRejections() {
+        DecisionResultCache cache = cache();
+        assertThrows(InvalidLoanAmountException.class, () -> cache.calculateApprovedLoan(INVALID_LOAN_AMOUNT_REQUEST));
+
+        assertEquals(0, cache.estimatedSize());
+    }
+
+    @Test
+    void testCalculateApprovedLoan_whenDisabled_decidesEveryTime() {
+        constants.setEnabled(false);
+        DecisionResultCache cache = cache();
+        DecisionResultCache.Decision first = cache.calculateApprovedLoan(DEBTOR_REQUEST);
+        DecisionResultCache.Decision second = cache.calculateApprovedLoan(DEBTOR_REQUEST);
+
+        assertEquals(first.eTag(), second.eTag());
+        assertEquals(2, stub.loads());
+    }
+
+    @Test
+    void testTag_isQuotedAndDependsOnlyOnContent() {
+        String approved = DecisionResultCache.tag(new DecisionResponse(4000, 12, null)).eTag();
+
+        assertTrue(approved.matches("\"[0-9a-f]{32}\""));
+        assertEquals(approved, DecisionResultCache.tag(new DecisionResponse(4000, 12, null)).eTag());
+        assertNotEquals(approved, DecisionResultCache.tag(new DecisionResponse(4000, 18, null)).eTag());
+        assertNotEquals(approved, DecisionResultCache.tag(new DecisionResponse(4000, 12, "")).eTag());
+        assertNotEquals(DecisionResultCache.tag(INVALID_DEBTOR_RESPONSE).eTag(),
+                DecisionResultCache.tag(new DecisionResponse(null, null, "No valid loan found")).eTag());
+    }
+}
@@ -0,0 +1,211 @@
+package ee.taltech.inbankbackend.service;
+
+import ee.taltech.inbankbackend.dto.DecisionResponse;
+import ee.taltech.inbankbackend.dto.LoanOffer;
+import ee.taltech.inbankbackend.exception.NoValidLoanException;
+import ee.taltech.inbankbackend.util.DecisionEngineConstant;
+import ee.taltech.inbankbackend.util.ErrorMessage;
+import org.junit.jupiter.api.Test;
+
+import java.util.Iterator;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+/**
+ * This class checks that the precomputed decision table gives the same decisions
+ * as calculating them for every request.
+ */
+class DecisionTableTest {
+
+    private static DecisionEngineConstant constant(int minimumLoanAmount, int maximumLoanAmount,
+                                                   int minimumLoanPeriod, int maximumLoanPeriod,
+                                                   int segment1, int segment2, int segment3, int loanInterval) {
+        DecisionEngineConstant constant = new DecisionEngineConstant();
+        constant.setMinimumLoanAmount(minimumLoanAmount);
+        constant.setMaximumLoanAmount(maximumLoanAmount);
+        constant.setMinimumLoanPeriod(minimumLoanPeriod);
+        constant.setMaximumLoanPeriod(maximumLoanPeriod);
+        constant.setSegment1CreditModifier(segment1);
+        constant.setSegment2CreditModifier(segment2);
+        constant.setSegment3CreditModifier(segment3);
+        constant.setLoanInterval(loanInterval);
+        return constant;
+    }
+
+    /**
+     * The decision as it was calculated before the table was introduced, kept here as the reference.
+     */
+    private static DecisionResponse referenceDecision(DecisionEngineConstant constant, int creditModifier,
+                                                      int loanPeriod, long loanAmount) {
+        float creditScore = (((float) creditModifier / loanAmount) * loanPeriod) / 10;
+
+        int eligiblePeriod = loanPeriod;
+        while (creditModifier * eligiblePeriod < constant.getMinimumLoanPeriod()) {
+            eligiblePeriod++;
+        }
+        if (eligiblePeriod > constant.getMaximumLoanPeriod()) {
+            throw new NoValidLoanException(ErrorMessage.NO_VALID_LOAN_FOUND.getMessage());
+        }
+        int approvedLoanAmount = Math.min(constant.getMaximumLoanAmount(), creditModifier * eligiblePeriod);
+
+        if (creditScore < 0.1) {
+            int expectedLoanPeriod = Math.toIntExact(loanAmount / creditModifier);
+            int remainingLoanMonths = expectedLoanPeriod % constant.getLoanInterval();
+            if (remainingLoanMonths != 0) {
+                expectedLoanPeriod += constant.getLoanInterval() - remainingLoanMonths;
+            }
+            if (expectedLoanPeriod < constant.getMinimumLoanPeriod()
+                    || expectedLoanPeriod > constant.getMaximumLoanPeriod())
+                return new DecisionResponse(approvedLoanAmount, null, ErrorMessage.NO_VALID_LOAN_FOUND.getMessage());
+            if (approvedLoanAmount < constant.getMinimumLoanAmount()
+                    || approvedLoanAmount > constant.getMaximumLoanAmount())
+                return new DecisionResponse(null, expectedLoanPeriod, ErrorMessage.NO_VALID_LOAN_FOUND.getMessage());
+            return new DecisionResponse(approvedLoanAmount, expectedLoanPeriod, ErrorMessage.NO_VALID_LOAN_FOUND.getMessage());
+        }
+        return new DecisionResponse(approvedLoanAmount, loanPeriod, null);
+    }
+
+    private static void assertMatchesReference(DecisionEngineConstant constant) {
+        DecisionTable table = DecisionTable.build(constant);
+        int[] creditModifiers = {constant.getSegment1CreditModifier(), constant.getSegment2CreditModifier(),
+                constant.getSegment3CreditModifier()};
+
+        for (int segment = 1; segment <= DecisionTable.SEGMENT_COUNT; segment++) {
+            for (int period = constant.getMinimumLoanPeriod(); period <= constant.getMaximumLoanPeriod(); period++) {
+                if (period % constant.getLoanInterval() != 0) {
+                    continue;
+                }
+                for (long amount = constant.getMinimumLoanAmount(); amount <= constant.getMaximumLoanAmount(); amount++) {
+                    int outcome = table.lookup(segment, period, amount);
+                    DecisionResponse expected;
+                    try {
+                        expected = referenceDecision(constant, creditModifiers[segment - 1], period, amount);
+                    } catch (NoValidLoanException e) {
+                        assertEquals(DecisionTable.OutcomeKind.NO_VALID_LOAN, table.kindOf(outcome));
+                        continue;
+                    }
+                    DecisionResponse actual = table.toResponse(outcome);
+                    String message = "segment " + segment + ", period " + period + ", amount " + amount;
+                    assertEquals(expected.getLoanAmount(), actual.getLoanAmount(), message);
+                    assertEquals(expected.getLoanPeriod(), actual.getLoanPeriod(), message);
+                    assertEquals(expected.getErrorMessage(), actual.getErrorMessage(), message);
+                }
+            }
+        }
+    }
+
+    /**
+     * Checks the offers against the decisions: a period is offered exactly when a request for it is approved,
+     * and the offered amount is the highest amount a request for the period is approved for.
+     */
+    private static void assertOffersMatchDecisions(DecisionEngineConstant constant) {
+        DecisionTable table = DecisionTable.build(constant);
+
+        for (int segment = 1; segment <= DecisionTable.SEGMENT_COUNT; segment++) {
+            Iterator<LoanOffer> offers = table.offers(segment).iterator();
+            LoanOffer offer = offers.hasNext() ? offers.next() : null;
+            for (int period = constant.getMinimumLoanPeriod(); period <= constant.getMaximumLoanPeriod(); period++) {
+                if (period % constant.getLoanInterval() != 0) {
+                    continue;
+                }
+                Integer highestApprovedAmount = null;
+                for (int amount = constant.getMinimumLoanAmount(); amount <= constant.getMaximumLoanAmount(); amount++) {
+                    if (table.kindOf(table.lookup(segment, period, amount)) == DecisionTable.OutcomeKind.APPROVED) {
+                        highestApprovedAmount = amount;
+                    }
+                }
+                String message = "segment " + segment + ", period " + period;
+                if (highestApprovedAmount == null) {
+                    assertTrue(offer == null || offer.getLoanPeriod() != period, message);
+                    continue;
+                }
+                assertNotNull(offer, message);
+                assertEquals(period, offer.getLoanPeriod(), message);
+                assertEquals(highestApprovedAmount, offer.getLoanAmount(), message);
+                offer = offers.hasNext() ? offers.next() : null;
+            }
+            assertNull(offer, "segment " + segment + " has offers outside of the valid loan periods");
+        }
+    }
+
+    @Test
+    void testDecisionTable_matchesReferenceForDefaultConstants() {
+        assertMatchesReference(constant(2000, 10000, 12, 48, 100, 300, 1000, 6));
+    }
+
+    @Test
+    void testDecisionTable_matchesReferenceWhenMinimumPeriodIsNotAlignedToInterval() {
+        assertMatchesReference(constant(1000, 5000, 10, 60, 1, 50, 2000, 7));
+    }
+
+    /**
+     * Compares every decision with the reference over a grid of constants, including minimum periods that are not
+     * aligned to the interval, single period and single amount ranges, and credit modifiers from 1 to above
+     * the maximum loan amount.
+     */
+    @Test
+    void testDecisionTable_matchesReferenceAcrossParameterGrid() {
+        int[][] creditModifiers = {{1, 2, 3}, {7, 100, 1000}, {50, 300, 5000}};
+        for (int minimumLoanAmount : new int[]{1, 500, 2000}) {
+            for (int amountRange : new int[]{0, 300}) {
+                for (int minimumLoanPeriod : new int[]{1, 5, 12}) {
+                    for (int periodRange : new int[]{0, 13, 36}) {
+                        for (int loanInterval : new int[]{1, 4, 6}) {
+                            for (int[] modifiers : creditModifiers) {
+                                DecisionEngineConstant constant = constant(minimumLoanAmount,
+                                        minimumLoanAmount + amountRange, minimumLoanPeriod,
+                                        minimumLoanPeriod + periodRange, modifiers[0], modifiers[1], modifiers[2],
+                                        loanInterval);
+                                assertMatchesReference(constant);
+                                assertOffersMatchDecisions(constant);
+                            }
+                        }
+                    }
+                }
+            }
+        }
+    }
+
+    @Test
+    void testDecisionTable_whenCreditModifierIsNotPositive_offersNoLoan() {
+        DecisionTable table = DecisionTable.build(constant(2000, 10000, 12, 48, 0, -300, 1000, 6));
+
+        for (int segment = 1; segment <= 2; segment++) {
+            for (int period = 12; period <= 48; period += 6) {
+                for (long amount = 2000; amount <= 10000; amount += 250) {
+                    assertEquals(DecisionTable.OutcomeKind.NO_VALID_LOAN,
+                            table.kindOf(table.lookup(segment, period, amount)));
+                }
+            }
+            assertTrue(table.offers(segment).isEmpty());
+        }
+        assertFalse(table.offers(3).isEmpty());
+    }
+
+    @Test
+    void testOffers_matchDecisionsForDefaultConstants() {
+        assertOffersMatchDecisions(constant(2000, 10000, 12, 48, 100, 300, 1000, 6));
+    }
+
+    @Test
+    void testOffers_matchDecisionsWhenMinimumPeriodIsNotAlignedToInterval() {
+        assertOffersMatchDecisions(constant(1000, 5000, 10, 60, 1, 50, 2000, 7));
+    }
+
+    @Test
+    void testDecisionTable_usesOneByteIndexForDefaultConstants() {
+        DecisionTable table = DecisionTable.build(constant(2000, 10000, 12, 48, 100, 300, 1000, 6));
+        assertEquals(3 * 7 * 8001, table.size());
+        assertEquals(table.size(), table.footprintBytes());
+    }
+
+    @Test
+    void testIsBuiltFrom_whenConstantsChange() {
+        DecisionEngineConstant constant = constant(2000, 10000, 12, 48, 100, 300, 1000, 6);
+        DecisionTable table = DecisionTable.build(constant);
+        assertTrue(table.isBuiltFrom(constant));
+
+        constant.setSegment2CreditModifier(400);
+        assertFalse(table.isBuiltFrom(constant));
+    }
+}
@@ -0,0 +1,248 @@
+package ee.taltech.inbankbackend.service;
+
+import ee.taltech.inbankbackend.dto.Country;
+import ee.taltech.inbankbackend.dto.DecisionRequest;
+import ee.taltech.inbankbackend.dto.DecisionResponse;
+import ee.taltech.inbankbackend.exception.DecisionJournalUnavailableException;
+import ee.taltech.inbankbackend.util.DecisionJournalConstants;
+import ee.taltech.inbankbackend.util.ErrorMessage;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+import org.springframework.util.unit.DataSize;
+
+import java.nio.ByteBuffer;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.time.Clock;
+import java.time.Duration;
+import java.time.Instant;
+import java.time.ZoneOffset;
+import java.util.ArrayList;
+import java.util.List;
+
+import static ee.taltech.inbankbackend.constant.TestConstant.*;
+import static org.junit.jupiter.api.Assertions.*;
+
+/**
+ * This class checks that the decisions appended to the journal are read back in order, across segments
+ * and restarts, and that incomplete records are not read.
+ */
+class MappedDecisionJournalTest {
+    private static final Clock CLOCK = Clock.fixed(Instant.parse("2024-05-01T10:00:00Z"), ZoneOffset.UTC);
+
+    @TempDir
+    Path directory;
+
+    private final SimpleMeterRegistry meterRegistry = new SimpleMeterRegistry();
+    private DecisionJournalConstants constants;
+
+    @BeforeEach
+    void setUp() {
+        constants = new DecisionJournalConstants();
+        constants.setEnabled(true);
+        constants.setDirectory(directory);
+        constants.setSegmentSize(DataSize.ofKilobytes(4));
+        constants.setQueueCapacity(100_000);
+        constants.setOfferTimeout(Duration.ofMillis(500));
+        constants.setMaximumBatchSize(64);
+    }
+
+    private double count(String result) {
+        return meterRegistry.get(MappedDecisionJournal.RECORDS).tag("result", result).counter().count();
+    }
+
+    private static DecisionRecord recordOf(DecisionRequest request, DecisionResponse response, ErrorMessage rejection,
+                                           long parametersVersion) {
+        return new DecisionRecord(CLOCK.instant(), request.getPersonalCode(), request.getLoanAmount(),
+                request.getLoanPeriod(), request.getCountry(), parametersVersion,
+                response == null ? null : response.getLoanAmount(), response == null ? null : response.getLoanPeriod(),
+                rejection == null ? null : rejection.getCode(), DecisionRecord.Source.DECIDED);
+    }
+
+    private List<DecisionRecord> appendDecisions(MappedDecisionJournal journal, int decisions) {
+        List<DecisionRecord> expected = new ArrayList<>();
+        for (int i = 0; i < decisions; i++) {
+            DecisionRequest request = new DecisionRequest(SEGMENT_2_PERSONAL_CODE, 2000L + i, 12 + i % 37,
+                    i % 5 == 0 ? null : Country.ESTONIA);
+            DecisionResponse response = i % 3 == 0 ? null : new DecisionResponse(2000 + i, 24, null);
+            ErrorMessage rejection = response == null ? ErrorMessage.NO_VALID_LOAN_FOUND : null;
+            journal.append(request, response, rejection, i);
+            expected.add(recordOf(request, response, rejection, i));
+        }
+        return expected;
+    }
+
+    private List<DecisionRecord> readAll(DecisionJournalReader reader) throws Exception {
+        List<DecisionRecord> records = new ArrayList<>();
+        reader.read(records::add);
+        return records;
+    }
+
+    @Test
+    void testAppend_readsBackDecisionsInOrderAcrossSegments() throws Exception {
+        MappedDecisionJournal journal = new MappedDecisionJournal(constants, meterRegistry, CLOCK);
+        List<DecisionRecord> expected = appendDecisions(journal, 500);
+        journal.close();
+
+        try (DecisionJournalReader reader = new DecisionJournalReader(directory)) {
+            assertEquals(expected, readAll(reader));
+        }
+        assertTrue(DecisionJournalReader.segments(directory).size() > 1);
+        assertEquals(500, count("written"));
+        assertEquals(0, count("dropped"));
+    }
+
+    @Test
+    void testRead_continuesAfterLastRecordWhenJournalIsRestarted() throws Exception {
+        MappedDecisionJournal journal = new MappedDecisionJournal(constants, meterRegistry, CLOCK);
+        List<DecisionRecord> first = appendDecisions(journal, 10);
+        journal.close();
+
+        try (DecisionJournalReader reader = new DecisionJournalReader(directory)) {
+            assertEquals(first, readAll(reader));
+            assertEquals(List.of(), readAll(reader));
+
+            MappedDecisionJournal restarted = new MappedDecisionJournal(constants, new SimpleMeterRegistry(), CLOCK);
+            List<DecisionRecord> second = appendDecisions(restarted, 10);
+            restarted.close();
+            assertEquals(second, readAll(reader));
+        }
+        assertEquals(2, DecisionJournalReader.segments(directory).size());
+    }
+
+    @Test
+    void testAppend_whenClosed_rejectsDecision() throws Exception {
+        MappedDecisionJournal journal = new MappedDecisionJournal(constants, meterRegistry, CLOCK);
+        journal.close();
+
+        assertThrows(DecisionJournalUnavailableException.class, () -> appendDecisions(journal, 1));
+        assertEquals(1, count("rejected"));
+        try (DecisionJournalReader reader = new DecisionJournalReader(directory)) {
+            assertEquals(List.of(), readAll(reader));
+        }
+    }
+
+    @Test
+    void testAppend_whenWriterFails_rejectsDecisionAtOnceUntilWrittenAgain() throws Exception {
+        Path journalDirectory = directory.resolve("journal");
+        constants.setDirectory(journalDirectory);
+        constants.setSegmentSize(DataSize.ofBytes(DecisionRecordCodec.MAXIMUM_RECORD_SIZE));
+        constants.setOfferTimeout(Duration.ofSeconds(30));
+        MappedDecisionJournal journal = new MappedDecisionJournal(constants, meterRegistry, CLOCK);
+        int firstSegment = fillSegment(journal);
+        breakDirectory(journalDirectory);
+        // Does not fit in the first segment, and the next segment cannot be created.
+        List<DecisionRecord> expected = appendDecisions(journal, 1);
+        awaitWritable(journal, false);
+
+        long start = System.nanoTime();
+        assertThrows(DecisionJournalUnavailableException.class, () -> appendDecisions(journal, 1));
+        assertTrue(System.nanoTime() - start < constants.getOfferTimeout().toNanos());
+        assertEquals(1, count("rejected"));
+
+        Files.delete(journalDirectory);
+        awaitWritable(journal, true);
+        expected.addAll(appendDecisions(journal, 1));
+        journal.close();
+
+        try (DecisionJournalReader reader = new DecisionJournalReader(journalDirectory)) {
+            assertEquals(expected, readAll(reader));
+        }
+        assertEquals(firstSegment + 2, count("written"));
+        assertEquals(0, count("dropped"));
+    }
+
+    @Test
+    void testClose_whenWriterFails_dropsUnwrittenDecisions() throws Exception {
+        Path journalDirectory = directory.resolve("journal");
+        constants.setDirectory(journalDirectory);
+        constants.setSegmentSize(DataSize.ofBytes(DecisionRecordCodec.MAXIMUM_RECORD_SIZE));
+        MappedDecisionJournal journal = new MappedDecisionJournal(constants, meterRegistry, CLOCK);
+        int firstSegment = fillSegment(journal);
+        breakDirectory(journalDirectory);
+        appendDecisions(journal, 1);
+        awaitWritable(journal, false);
+
+        journal.close();
+        assertEquals(firstSegment, count("written"));
+        assertEquals(1, count("dropped"));
+    }
+
+    /**
+     * Appends as many identical decisions as fit in the first segment and waits until they are written.
+     */
+    private int fillSegment(MappedDecisionJournal journal) throws InterruptedException {
+        DecisionResponse response = new DecisionResponse(2000, 24, null);
+        ByteBuffer buffer = ByteBuffer.allocate(DecisionRecordCodec.MAXIMUM_RECORD_SIZE);
+        DecisionRecordCodec.encode(recordOf(SEGMENT_1_REQUEST, response, null, 1), buffer);
+        int decisions = DecisionRecordCodec.MAXIMUM_RECORD_SIZE / buffer.position();
+        for (int i = 0; i < decisions; i++) {
+            journal.append(SEGMENT_1_REQUEST, response, null, 1);
+        }
+        long deadline = System.nanoTime() + Duration.ofSeconds(10).toNanos();
+        while (count("written") < decisions) {
+            assertTrue(System.nanoTime() < deadline, "The decisions were not written");
+            Thread.sleep(10);
+        }
+        return decisions;
+    }
+
+    /**
+     * Replaces the journal directory with a file, so no segment can be created in it.
+     */
+    private static void breakDirectory(Path journalDirectory) throws Exception {
+        for (Path segment : DecisionJournalReader.segments(journalDirectory)) {
+            Files.delete(segment);
+        }
+        Files.delete(journalDirectory);
+        Files.createFile(journalDirectory);
+    }
+
+    private static void awaitWritable(MappedDecisionJournal journal, boolean writable) throws InterruptedException {
+        long deadline = System.nanoTime() + Duration.ofSeconds(10).toNanos();
+        while (journal.isWritable() != writable) {
+            assertTrue(System.nanoTime() < deadline, "The journal writable state did not change");
+            Thread.sleep(10);
+        }
+    }
+
+    @Test
+    void testConstructor_whenDirectoryCannotBeCreated_throwsException() throws Exception {
+        constants.setDirectory(Files.createFile(directory.resolve("file")).resolve("journal"));
+
+        assertThrows(IllegalStateException.class,
+                () -> new MappedDecisionJournal(constants, meterRegistry, CLOCK));
+    }
+
+    @Test
+    void testConstructor_whenDirectoryIsRelative_throwsException() {
+        constants.setDirectory(Path.of("journal"));
+
+        assertThrows(IllegalArgumentException.class,
+                () -> new MappedDecisionJournal(constants, meterRegistry, CLOCK));
+    }
+
+    @Test
+    void testDecode_whenRecordIsIncomplete_returnsNull() {
+        DecisionRecord record = recordOf(SEGMENT_1_REQUEST, new DecisionResponse(2000, 24, null), null, 1);
+        ByteBuffer buffer = ByteBuffer.allocate(DecisionRecordCodec.MAXIMUM_RECORD_SIZE);
+        assertTrue(DecisionRecordCodec.encode(record, buffer));
+        int size = buffer.position();
+
+        buffer.position(0);
+        assertEquals(record, DecisionRecordCodec.decode(buffer));
+        assertEquals(size, buffer.position());
+
+        // A torn write, the checksum no longer matches the payload.
+        buffer.put(size - 1, (byte) (buffer.get(size - 1) ^ 1));
+        buffer.position(0);
+        assertNull(DecisionRecordCodec.decode(buffer));
+        assertEquals(0, buffer.position());
+
+        // Nothing written yet.
+        assertNull(DecisionRecordCodec.decode(ByteBuffer.allocate(64)));
+        assertFalse(DecisionRecordCodec.encode(record, ByteBuffer.allocate(16)));
+    }
+}
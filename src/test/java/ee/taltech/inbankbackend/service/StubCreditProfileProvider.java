@@ -0,0 +1,50 @@
+package ee.taltech.inbankbackend.service;
+
+import java.time.Duration;
+import java.util.concurrent.atomic.AtomicInteger;
+
+/**
+ * Credit profile provider standing in for a credit registry in tests.
+ * It answers like the default provider, or with a fixed profile once one is set, after a configurable latency,
+ * and counts the loads.
+ */
+class StubCreditProfileProvider implements CreditProfileProvider {
+    private final PersonalCodeCreditProfileProvider profiles = new PersonalCodeCreditProfileProvider();
+    private final AtomicInteger loads = new AtomicInteger();
+    private volatile Duration latency = Duration.ZERO;
+    private volatile CreditProfile fixedProfile;
+    private volatile RuntimeException failure;
+
+    @Override
+    public CreditProfile getCreditProfile(String personalCode) {
+        loads.incrementAndGet();
+        if (!latency.isZero()) {
+            try {
+                Thread.sleep(latency.toMillis());
+            } catch (InterruptedException e) {
+                Thread.currentThread().interrupt();
+                throw new IllegalStateException("Interrupted while loading the credit profile", e);
+            }
+        }
+        if (failure != null) {
+            throw failure;
+        }
+        return fixedProfile != null ? fixedProfile : profiles.getCreditProfile(personalCode);
+    }
+
+    void setLatency(Duration latency) {
+        this.latency = latency;
+    }
+
+    void setFixedProfile(CreditProfile fixedProfile) {
+        this.fixedProfile = fixedProfile;
+    }
+
+    void setFailure(RuntimeException failure) {
+        this.failure = failure;
+    }
+
+    int loads() {
+        return loads.get();
+    }
+}
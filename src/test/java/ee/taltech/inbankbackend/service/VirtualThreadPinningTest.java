@@ -0,0 +1,97 @@
+package ee.taltech.inbankbackend.service;
+
+import ee.taltech.inbankbackend.dto.DecisionRequest;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import jdk.jfr.consumer.RecordingStream;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+
+import java.time.Clock;
+import java.time.Duration;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import static ee.taltech.inbankbackend.constant.TestConstant.*;
+import static ee.taltech.inbankbackend.constant.TestDecisionParameters.*;
+import static org.junit.jupiter.api.Assertions.*;
+
+/**
+ * This class checks that decisions made on virtual threads do not pin them to their carrier threads.
+ * Pinning is detected with the jdk.VirtualThreadPinned JFR event, the same event the load test counts.
+ */
+class VirtualThreadPinningTest {
+    private static final String PINNED_EVENT = "jdk.VirtualThreadPinned";
+    private static final int DECISIONS = 2000;
+
+    private DecisionEngineService decisionEngine;
+    private DecisionParametersService decisionParametersService;
+
+    @BeforeEach
+    void setUp() {
+        decisionParametersService = new DecisionParametersService(decisionEngineConstant(), estonia(),
+                Clock.systemDefaultZone());
+        decisionEngine = decisionEngineService(decisionParametersService, new SimpleMeterRegistry(),
+                new PersonalCodeCreditProfileProvider());
+    }
+
+    @Test
+    void testPinningIsDetected() {
+        Object lock = new Object();
+
+        // On Java 21 a virtual thread that sleeps while holding a monitor cannot unmount from its carrier.
+        int pinned = countPinnedEvents(10, () -> {
+            synchronized (lock) {
+                sleep();
+            }
+        });
+
+        assertTrue(pinned > 0);
+    }
+
+    @Test
+    void testCalculateApprovedLoan_doesNotPinVirtualThreads() {
+        DecisionRequest[] requests = {SEGMENT_1_REQUEST, SEGMENT_2_REQUEST, DEBTOR_REQUEST, INVALID_LOAN_AMOUNT_REQUEST};
+        AtomicInteger next = new AtomicInteger();
+
+        int pinned = countPinnedEvents(DECISIONS, () -> {
+            // Waiting for a simulated downstream call, the request parks outside the decision engine.
+            sleep();
+            try {
+                decisionEngine.calculateApprovedLoan(requests[next.getAndIncrement() % requests.length]);
+            } catch (RuntimeException rejection) {
+                // Rejections are expected outcomes.
+            }
+            if (next.get() % 100 == 0) {
+                decisionParametersService.refreshAgeCutoffs();
+            }
+        });
+
+        assertEquals(0, pinned);
+    }
+
+    private static int countPinnedEvents(int tasks, Runnable task) {
+        AtomicInteger pinned = new AtomicInteger();
+        try (RecordingStream recording = new RecordingStream()) {
+            recording.enable(PINNED_EVENT).withThreshold(Duration.ZERO);
+            recording.onEvent(PINNED_EVENT, event -> pinned.incrementAndGet());
+            recording.startAsync();
+            try (ExecutorService executor = Executors.newVirtualThreadPerTaskExecutor()) {
+                for (int i = 0; i < tasks; i++) {
+                    executor.submit(task);
+                }
+            }
+            // Waits until every recorded event is consumed.
+            recording.stop();
+        }
+        return pinned.get();
+    }
+
+    private static void sleep() {
+        try {
+            Thread.sleep(1);
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+        }
+    }
+}
@@ -0,0 +1,87 @@
+package ee.taltech.inbankbackend.tool;
+
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.fasterxml.jackson.databind.json.JsonMapper;
+import ee.taltech.inbankbackend.dto.Country;
+import ee.taltech.inbankbackend.dto.DecisionParametersDto;
+import ee.taltech.inbankbackend.dto.DecisionRequest;
+import ee.taltech.inbankbackend.util.CountryRuleConstants;
+import ee.taltech.inbankbackend.util.ErrorMessage;
+import org.junit.jupiter.api.Test;
+
+import java.io.ByteArrayInputStream;
+import java.nio.charset.StandardCharsets;
+
+import static ee.taltech.inbankbackend.constant.TestConstant.*;
+import static ee.taltech.inbankbackend.constant.TestDecisionParameters.*;
+import static ee.taltech.inbankbackend.tool.DecisionReplaySummary.BASELINE;
+import static ee.taltech.inbankbackend.tool.DecisionReplaySummary.CANDIDATE;
+import static org.junit.jupiter.api.Assertions.*;
+
+/**
+ * This class checks that replaying requests under two parameter sets counts the decisions that change,
+ * also when the requests are split into chunks decided in parallel.
+ */
+class DecisionReplayTest {
+    // More than one chunk of each request, so the chunks are decided in parallel.
+    private static final int REPEATS = DecisionReplay.CHUNK_SIZE;
+
+    private final ObjectMapper objectMapper = JsonMapper.builder().findAndAddModules().build();
+
+    private static DecisionParametersDto parameters(int estoniaMinimumAge) {
+        CountryRuleConstants countryRules = estonia();
+        countryRules.getCountries().get(Country.ESTONIA).setMinimumAge(estoniaMinimumAge);
+        return new DecisionParametersDto(null, decisionEngineConstant(), countryRules.getCountries());
+    }
+
+    private DecisionReplaySummary replay(DecisionParametersDto baseline, DecisionParametersDto candidate,
+                                         String requests) throws Exception {
+        DecisionReplay replay = new DecisionReplay(DecisionReplay.decisionEngine(baseline),
+                DecisionReplay.decisionEngine(candidate), objectMapper, 4);
+        return replay.replay(new ByteArrayInputStream(requests.getBytes(StandardCharsets.UTF_8)));
+    }
+
+    private String requests(DecisionRequest... requests) throws Exception {
+        StringBuilder lines = new StringBuilder();
+        for (int i = 0; i < REPEATS; i++) {
+            for (DecisionRequest request : requests) {
+                lines.append(objectMapper.writeValueAsString(request)).append('\n');
+            }
+        }
+        return lines.toString();
+    }
+
+    @Test
+    void testReplay_whenParametersAreTheSame_changesNothing() throws Exception {
+        String requests = requests(SEGMENT_1_REQUEST, SEGMENT_2_REQUEST, DEBTOR_REQUEST, INVALID_LOAN_AMOUNT_REQUEST)
+                + "\nnot json\n{\"loanAmount\": \n";
+
+        DecisionReplaySummary summary = replay(parameters(18), parameters(18), requests);
+
+        assertEquals(4L * REPEATS + 2, summary.rows());
+        assertEquals(2, summary.malformedRows());
+        assertEquals(0, summary.changed());
+        assertEquals(2L * REPEATS, summary.approved(BASELINE));
+        assertEquals(2L * REPEATS, summary.approved(CANDIDATE));
+        assertEquals(REPEATS, summary.errors(BASELINE, ErrorMessage.NO_VALID_LOAN_FOUND));
+        assertEquals(REPEATS, summary.errors(CANDIDATE, ErrorMessage.INVALID_LOAN_AMOUNT));
+    }
+
+    @Test
+    void testReplay_whenMinimumAgeIsRaised_countsRejectedCustomers() throws Exception {
+        // The segment 1 customer was born in 2003, the segment 2 customer in 1984.
+        DecisionReplaySummary summary = replay(parameters(18), parameters(30),
+                requests(SEGMENT_1_REQUEST, SEGMENT_2_REQUEST));
+
+        assertEquals(2L * REPEATS, summary.rows());
+        assertEquals(REPEATS, summary.changed());
+        assertEquals(2L * REPEATS, summary.approved(BASELINE, Country.ESTONIA));
+        assertEquals(REPEATS, summary.approved(CANDIDATE, Country.ESTONIA));
+        assertEquals(REPEATS, summary.errors(CANDIDATE, ErrorMessage.INVALID_AGE_RANGE));
+        long approvedAmounts = 0;
+        for (int bucket = 0; bucket < DecisionReplaySummary.AMOUNT_BUCKETS; bucket++) {
+            approvedAmounts += summary.amountHistogram(CANDIDATE, bucket);
+        }
+        assertEquals(REPEATS, approvedAmounts);
+    }
+}
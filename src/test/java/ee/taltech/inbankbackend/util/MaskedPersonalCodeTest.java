@@ -0,0 +1,89 @@
+package ee.taltech.inbankbackend.util;
+
+import ch.qos.logback.classic.Level;
+import ch.qos.logback.classic.Logger;
+import ch.qos.logback.classic.LoggerContext;
+import ch.qos.logback.core.spi.FilterReply;
+import ee.taltech.inbankbackend.dto.Country;
+import ee.taltech.inbankbackend.dto.DecisionRequest;
+import ee.taltech.inbankbackend.service.WarmUpScope;
+import org.junit.jupiter.api.Test;
+
+import static ee.taltech.inbankbackend.constant.TestConstant.*;
+import static org.junit.jupiter.api.Assertions.*;
+
+/**
+ * This class checks that personal codes are masked in the logs, that the decision step lines are sampled and that
+ * the decision lines of the startup warm-up are dropped.
+ */
+class MaskedPersonalCodeTest {
+    private static final String ENGINE = "ee.taltech.inbankbackend.service.DecisionEngineService";
+    private static final String STEPS = ENGINE + ".steps";
+
+    @Test
+    void testMask_keepsFirstAndLastFourDigits() {
+        assertEquals("5******2740", MaskedPersonalCode.mask(SEGMENT_1_PERSONAL_CODE));
+        assertEquals("5******2740", MaskedPersonalCode.of(SEGMENT_1_PERSONAL_CODE).toString());
+    }
+
+    @Test
+    void testMask_whenNotAPersonalCode_masksEverything() {
+        assertNull(MaskedPersonalCode.mask(null));
+        assertEquals("", MaskedPersonalCode.mask(""));
+        assertEquals("****", MaskedPersonalCode.mask("5030"));
+        assertEquals("***********", MaskedPersonalCode.mask("503071727401234"));
+        assertEquals("5******2**7", MaskedPersonalCode.mask("50307172\r\n7"));
+    }
+
+    @Test
+    void testRequestToString_masksPersonalCode() {
+        String logged = new DecisionRequest(SEGMENT_1_PERSONAL_CODE, 4000L, 12, Country.ESTONIA).toString();
+
+        assertFalse(logged.contains(SEGMENT_1_PERSONAL_CODE));
+        assertTrue(logged.contains("personalCode=5******2740"));
+    }
+
+    @Test
+    void testSamplingTurboFilter_samplesOnlyDebugLinesOfLogger() {
+        LoggerContext context = new LoggerContext();
+        Logger steps = context.getLogger(STEPS);
+        steps.setLevel(Level.DEBUG);
+        Logger other = context.getLogger("ee.taltech.inbankbackend.service.DecisionBatchService");
+        other.setLevel(Level.DEBUG);
+        SamplingTurboFilter filter = new SamplingTurboFilter();
+        filter.setContext(context);
+        filter.setLoggerName(STEPS);
+        filter.setRate(0);
+        filter.start();
+
+        assertEquals(FilterReply.DENY, filter.decide(null, steps, Level.DEBUG, "Invalid loan amount: {}", null, null));
+        assertEquals(FilterReply.NEUTRAL, filter.decide(null, steps, Level.DEBUG, null, null, null));
+        assertEquals(FilterReply.NEUTRAL, filter.decide(null, steps, Level.INFO, "Loan approved", null, null));
+        assertEquals(FilterReply.NEUTRAL, filter.decide(null, other, Level.DEBUG, "Batch chunk", null, null));
+
+        filter.setRate(1);
+        assertEquals(FilterReply.NEUTRAL, filter.decide(null, steps, Level.DEBUG, "Invalid loan amount: {}", null, null));
+    }
+
+    @Test
+    void testWarmUpTurboFilter_dropsLinesBelowWarnOnlyInWarmUpScope() {
+        LoggerContext context = new LoggerContext();
+        Logger engine = context.getLogger(ENGINE);
+        Logger steps = context.getLogger(STEPS);
+        Logger other = context.getLogger("ee.taltech.inbankbackend.service.DecisionBatchService");
+        WarmUpTurboFilter filter = new WarmUpTurboFilter();
+        filter.setContext(context);
+        filter.setLoggerName(ENGINE);
+        filter.start();
+
+        assertEquals(FilterReply.NEUTRAL, filter.decide(null, engine, Level.INFO, "Loan approved", null, null));
+        WarmUpScope.call(() -> {
+            assertEquals(FilterReply.DENY, filter.decide(null, engine, Level.INFO, "Loan approved", null, null));
+            assertEquals(FilterReply.DENY, filter.decide(null, engine, Level.INFO, null, null, null));
+            assertEquals(FilterReply.DENY, filter.decide(null, steps, Level.DEBUG, "Invalid loan amount: {}", null, null));
+            assertEquals(FilterReply.NEUTRAL, filter.decide(null, engine, Level.WARN, "Slow decision", null, null));
+            assertEquals(FilterReply.NEUTRAL, filter.decide(null, other, Level.INFO, "Batch chunk", null, null));
+            return null;
+        });
+    }
+}
@@ -0,0 +1,134 @@
+package ee.taltech.inbankbackend.util;
+
+import com.github.vladislavgoltjajev.personalcode.locale.estonia.EstonianPersonalCodeParser;
+import com.github.vladislavgoltjajev.personalcode.locale.estonia.EstonianPersonalCodeValidator;
+import org.junit.jupiter.api.Test;
+
+import java.time.LocalDate;
+import java.util.Random;
+
+import static ee.taltech.inbankbackend.constant.TestConstant.*;
+import static org.junit.jupiter.api.Assertions.*;
+
+/**
+ * This class checks that the personal code codec agrees with the personal code library
+ * on a generated corpus of valid, mutated and random personal codes.
+ */
+class PersonalCodeCodecTest {
+    private static final int CORPUS_SIZE = 200_000;
+
+    private final EstonianPersonalCodeValidator validator = new EstonianPersonalCodeValidator();
+    private final EstonianPersonalCodeParser parser = new EstonianPersonalCodeParser();
+    private final LocalDate today = LocalDate.now();
+    private final int packedToday = PersonalCodeCodec.packDate(today.getYear(), today.getMonthValue(), today.getDayOfMonth());
+
+    private static String withChecksum(String first10Digits) {
+        int[] weights1 = {1, 2, 3, 4, 5, 6, 7, 8, 9, 1};
+        int[] weights2 = {3, 4, 5, 6, 7, 8, 9, 1, 2, 3};
+        int sum1 = 0;
+        int sum2 = 0;
+        for (int i = 0; i < 10; i++) {
+            sum1 += (first10Digits.charAt(i) - '0') * weights1[i];
+            sum2 += (first10Digits.charAt(i) - '0') * weights2[i];
+        }
+        int checksum = sum1 % 11;
+        if (checksum == 10) {
+            checksum = sum2 % 11 == 10 ? 0 : sum2 % 11;
+        }
+        return first10Digits + checksum;
+    }
+
+    private String validCode(Random random) {
+        LocalDate birthDate = LocalDate.ofEpochDay(random.nextLong(LocalDate.of(1800, 1, 1).toEpochDay(),
+                today.toEpochDay() + 1));
+        int century = (birthDate.getYear() - 1800) / 100 * 2 + 1 + random.nextInt(2);
+        return withChecksum(String.format("%d%02d%02d%02d%03d", century, birthDate.getYear() % 100,
+                birthDate.getMonthValue(), birthDate.getDayOfMonth(), random.nextInt(1000)));
+    }
+
+    private static String mutate(String code, Random random) {
+        char[] chars = code.toCharArray();
+        chars[random.nextInt(chars.length)] = (char) ('0' + random.nextInt(10));
+        return new String(chars);
+    }
+
+    private static String randomDigits(Random random) {
+        StringBuilder code = new StringBuilder();
+        for (int i = 0; i < 11; i++) {
+            code.append(random.nextInt(10));
+        }
+        return code.toString();
+    }
+
+    private void assertAgreesWithLibrary(String code) throws Exception {
+        long parsed = PersonalCodeCodec.parse(code, packedToday);
+        if (parsed == PersonalCodeCodec.UNDECIDED) {
+            return;
+        }
+        assertEquals(parsed != PersonalCodeCodec.INVALID, validator.isValid(code), code);
+        if (parsed != PersonalCodeCodec.INVALID) {
+            LocalDate dateOfBirth = parser.getDateOfBirth(code);
+            int birthDate = PersonalCodeCodec.birthDate(parsed);
+            assertEquals(dateOfBirth, LocalDate.of(PersonalCodeCodec.year(birthDate),
+                    PersonalCodeCodec.month(birthDate), PersonalCodeCodec.day(birthDate)), code);
+            assertEquals(Integer.parseInt(code.substring(7)), PersonalCodeCodec.segment(parsed), code);
+        }
+    }
+
+    @Test
+    void testParse_agreesWithLibraryOnGeneratedCorpus() throws Exception {
+        Random random = new Random(20240501L);
+        int undecided = 0;
+        for (int i = 0; i < CORPUS_SIZE; i++) {
+            String code = switch (i % 3) {
+                case 0 -> validCode(random);
+                case 1 -> mutate(validCode(random), random);
+                default -> randomDigits(random);
+            };
+            assertAgreesWithLibrary(code);
+            if (PersonalCodeCodec.parse(code, packedToday) == PersonalCodeCodec.UNDECIDED) {
+                undecided++;
+            }
+        }
+        // Only codes with impossible or future dates are left to the library.
+        assertTrue(undecided < CORPUS_SIZE / 20, "undecided: " + undecided);
+    }
+
+    @Test
+    void testParse_whenCodeIsValid() throws Exception {
+        for (String code : new String[]{DEBTOR_PERSONAL_CODE, SEGMENT_1_PERSONAL_CODE, SEGMENT_2_PERSONAL_CODE,
+                SEGMENT_3_PERSONAL_CODE, PERSONAL_CODE_AGE_LESS_THEN_MINIMUM_AGE, PERSONAL_CODE_AGE_LARGER_THEN_MINIMUM_AGE}) {
+            assertTrue(PersonalCodeCodec.parse(code, packedToday) >= 0, code);
+            assertAgreesWithLibrary(code);
+        }
+        long parsed = PersonalCodeCodec.parse(SEGMENT_1_PERSONAL_CODE, packedToday);
+        assertEquals(PersonalCodeCodec.packDate(2003, 7, 17), PersonalCodeCodec.birthDate(parsed));
+        assertEquals(2740, PersonalCodeCodec.segment(parsed));
+    }
+
+    @Test
+    void testParse_whenCodeIsMalformed() {
+        assertEquals(PersonalCodeCodec.INVALID, PersonalCodeCodec.parse(INVALID_PERSONAL_CODE, packedToday));
+        assertEquals(PersonalCodeCodec.INVALID, PersonalCodeCodec.parse("", packedToday));
+        assertEquals(PersonalCodeCodec.INVALID, PersonalCodeCodec.parse("5030717274", packedToday));
+        assertEquals(PersonalCodeCodec.INVALID, PersonalCodeCodec.parse("5030717274a", packedToday));
+        assertEquals(PersonalCodeCodec.INVALID, PersonalCodeCodec.parse("90307172740", packedToday));
+        assertEquals(PersonalCodeCodec.UNDECIDED, PersonalCodeCodec.parse(null, packedToday));
+    }
+
+    @Test
+    void testParse_leavesImpossibleDatesToLibrary() {
+        assertEquals(PersonalCodeCodec.UNDECIDED, PersonalCodeCodec.parse(withChecksum("5010229000"), packedToday));
+        assertEquals(PersonalCodeCodec.UNDECIDED, PersonalCodeCodec.parse(withChecksum("3850431000"), packedToday));
+        assertTrue(PersonalCodeCodec.parse(withChecksum("5000229000"), packedToday) >= 0);
+    }
+
+    @Test
+    void testChecksum_agreesWithValidCodes() {
+        Random random = new Random(20240502L);
+        for (int i = 0; i < CORPUS_SIZE; i++) {
+            String code = validCode(random);
+            assertEquals(code.charAt(10) - '0', PersonalCodeCodec.checksum(code), code);
+        }
+    }
+}